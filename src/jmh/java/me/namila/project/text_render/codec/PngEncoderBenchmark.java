@@ -0,0 +1,119 @@
+package me.namila.project.text_render.codec;
+
+import me.namila.project.text_render.model.PngEncodeOptions;
+import me.namila.project.text_render.model.PngFilterStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the built-in {@link PngEncoder} against {@code ImageIO.write(..., "PNG", ...)}
+ * on an A4 page at 300 DPI (2480x3508), the typical certificate template size.
+ *
+ * <p>Run with {@code ./gradlew jmh}. Besides the timings, compare the {@code bytes}
+ * printed during setup to see the size cost of faster settings.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PngEncoderBenchmark {
+
+    private static final int WIDTH = 2480;
+    private static final int HEIGHT = 3508;
+    private static final Rectangle NAME_LINE = new Rectangle(300, 1500, 1900, 140);
+
+    @Param({"1", "4", "6", "9"})
+    public int compressionLevel;
+
+    @Param({"NONE", "SUB", "UP", "PAETH", "ADAPTIVE"})
+    public PngFilterStrategy filter;
+
+    @Param({"1", "4"})
+    public int encodeThreads;
+
+    @Param({"TYPE_INT_RGB", "TYPE_4BYTE_ABGR"})
+    public String imageType;
+
+    private BufferedImage image;
+    private PngEncoder encoder;
+    private PngBandCache bandCache;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int type = imageType.equals("TYPE_INT_RGB") ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_4BYTE_ABGR;
+        image = createTemplate(type);
+        encoder = new PngEncoder(new PngEncodeOptions(compressionLevel, filter, encodeThreads));
+        bandCache = PngBandCache.build(image, encoder.getOptions());
+        out = new ByteArrayOutputStream(8 * 1024 * 1024);
+
+        encoder.encode(image, out);
+        int builtIn = out.size();
+        out.reset();
+        ImageIO.write(image, "PNG", out);
+        System.out.printf("%nbytes: built-in=%d imageio=%d%n", builtIn, out.size());
+    }
+
+    @Benchmark
+    public int builtInEncoder() throws IOException {
+        out.reset();
+        encoder.encode(image, out);
+        return out.size();
+    }
+
+    /**
+     * Incremental encode of an output that differs from the template by one name line.
+     */
+    @Benchmark
+    public int bandCacheNameLine() throws IOException {
+        out.reset();
+        bandCache.encode(image, NAME_LINE, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int imageIo() throws IOException {
+        out.reset();
+        ImageIO.write(image, "PNG", out);
+        return out.size();
+    }
+
+    /**
+     * Creates a certificate-like page: gradient border, flat background and some text.
+     */
+    private static BufferedImage createTemplate(int type) {
+        BufferedImage img = new BufferedImage(WIDTH, HEIGHT, type);
+        Graphics2D g2d = img.createGraphics();
+        try {
+            g2d.setColor(new Color(250, 248, 240));
+            g2d.fillRect(0, 0, WIDTH, HEIGHT);
+            g2d.setPaint(new GradientPaint(0, 0, new Color(120, 90, 30), WIDTH, HEIGHT, new Color(200, 170, 80)));
+            g2d.setStroke(new BasicStroke(60));
+            g2d.drawRect(80, 80, WIDTH - 160, HEIGHT - 160);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.setColor(Color.DARK_GRAY);
+            g2d.setFont(new Font(Font.SERIF, Font.BOLD, 160));
+            g2d.drawString("Certificate of Completion", 260, 700);
+            g2d.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 60));
+            for (int y = 1200; y < HEIGHT - 400; y += 120) {
+                g2d.drawString("This line stands in for body copy on the template page.", 300, y);
+            }
+        } finally {
+            g2d.dispose();
+        }
+        return img;
+    }
+}
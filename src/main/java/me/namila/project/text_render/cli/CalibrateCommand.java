@@ -0,0 +1,292 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.CsvEntry;
+import me.namila.project.text_render.model.FailureBudget;
+import me.namila.project.text_render.model.PngEncodeOptions;
+import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.model.RetryPolicy;
+import me.namila.project.text_render.model.TextConfig;
+import me.namila.project.text_render.service.AbstractImageRendererService;
+import me.namila.project.text_render.service.Calibrator;
+import me.namila.project.text_render.service.ParallelExecutorService;
+import me.namila.project.text_render.service.PngRendererService;
+import me.namila.project.text_render.service.RendererService;
+import me.namila.project.text_render.util.SettingsProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * Renders a sample of rows at several encoder settings and parallelism levels and recommends the
+ * fastest configuration for this machine.
+ *
+ * <p>The template, CSV and text options are those of the main command, given before
+ * {@code calibrate}. Encoder settings are compared first at the main command's parallelism; the
+ * chosen setting is then measured at each parallelism level.</p>
+ */
+@Command(
+    name = "calibrate",
+    mixinStandardHelpOptions = true,
+    description = "Render a sample of rows at several parallelism levels and encoder settings, measure " +
+                  "throughput, peak heap and output size, and recommend the best settings for this machine. " +
+                  "Template, CSV and text options are taken from the main command."
+)
+public class CalibrateCommand implements Callable<Integer> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalibrateCommand.class);
+
+    @ParentCommand
+    private RenderCommand parent;
+
+    @CommandLine.Spec
+    private CommandLine.Model.CommandSpec spec;
+
+    @Option(names = {"--sample"}, defaultValue = "50", paramLabel = "<rows>",
+            description = "Rows rendered per trial, spread evenly over the CSV. Default: ${DEFAULT-VALUE}")
+    private int sampleSize;
+
+    @Option(names = {"--thread-counts"}, split = ",", paramLabel = "<n>",
+            description = "Parallelism levels to compare (default: powers of two up to 2 x available " +
+                         "processors, and the number of processors)")
+    private List<Integer> threadCounts;
+
+    @Option(names = {"--compression-levels"}, split = ",", defaultValue = "1,4,6,9", paramLabel = "<level>",
+            description = "PNG deflate levels to compare. Default: ${DEFAULT-VALUE}")
+    private List<Integer> compressionLevels;
+
+    @Option(names = {"--save"}, paramLabel = "<file>",
+            description = "Save the recommended settings as a profile for --profile")
+    private Path profilePath;
+
+    /**
+     * Encoder settings to compare.
+     *
+     * @param options the options selecting the setting, without leading dashes
+     * @param apply   configures the renderer for the setting
+     */
+    private record EncoderSetting(Map<String, String> options, Runnable apply) {
+
+        String label() {
+            return options.isEmpty() ? "default" : options.entrySet().stream()
+                .map(option -> option.getKey() + "=" + option.getValue())
+                .collect(Collectors.joining(" "));
+        }
+    }
+
+    @Override
+    public Integer call() {
+        PrintWriter out = spec.commandLine().getOut();
+        PrintWriter err = spec.commandLine().getErr();
+        try {
+            if (!parent.validateRequiredOptions()) {
+                return 2;
+            }
+            if (!parent.validateFiles()) {
+                return 1;
+            }
+            if (!validateOptions(err)) {
+                return 2;
+            }
+
+            List<CsvEntry> entries = parent.getCsvReaderService().readEntries(parent.getCsvPath());
+            if (entries.isEmpty()) {
+                out.println("No entries found in CSV file.");
+                return 0;
+            }
+            RendererService renderer = parent.selectRenderer();
+            parent.configureRenderers();
+            List<RenderJob> sample = createSample(entries, parent.createTextConfig());
+
+            ParallelExecutorService executor = parent.getParallelExecutorService();
+            executor.setRetryPolicy(RetryPolicy.NONE);
+            executor.setAdaptiveConcurrency(false);
+            executor.setMemoryLimit(parent.getMemoryLimit());
+            executor.setJobTimeout(null);
+            executor.setFailureBudget(FailureBudget.NONE);
+            Calibrator calibrator = new Calibrator(executor);
+
+            int processors = Runtime.getRuntime().availableProcessors();
+            out.printf("Calibrating %s with %d sample rows on %d processors%n",
+                parent.getTemplatePath().getFileName(), sample.size(), processors);
+            out.flush();
+
+            // Warm up the JIT and template caches before anything is measured
+            List<EncoderSetting> settings = encoderSettings(renderer);
+            settings.get(0).apply().run();
+            calibrator.measure("warm-up", sample, renderer, parent.getParallelism());
+
+            out.printf("Encoder settings (%d threads):%n", parent.getParallelism());
+            List<Calibrator.Trial> encoderTrials = new ArrayList<>();
+            Map<String, EncoderSetting> byLabel = new LinkedHashMap<>();
+            for (EncoderSetting setting : settings) {
+                setting.apply().run();
+                Calibrator.Trial trial = calibrator.measure(setting.label(), sample, renderer, parent.getParallelism());
+                encoderTrials.add(trial);
+                byLabel.put(setting.label(), setting);
+                printTrial(out, trial.label(), trial);
+            }
+            EncoderSetting encoder = byLabel.get(Calibrator.pickEncoder(encoderTrials).label());
+            encoder.apply().run();
+
+            out.printf("Parallelism (%s):%n", encoder.label());
+            List<Calibrator.Trial> parallelTrials = new ArrayList<>();
+            for (int threads : getThreadCounts()) {
+                Calibrator.Trial trial = calibrator.measure(encoder.label(), sample, renderer, threads);
+                parallelTrials.add(trial);
+                printTrial(out, "threads=" + threads, trial);
+            }
+            Calibrator.Trial best = Calibrator.pickParallelism(parallelTrials);
+            Calibrator.Trial sequential = parallelTrials.stream()
+                .filter(trial -> trial.threads() == 1)
+                .findFirst()
+                .orElseGet(() -> calibrator.measure(encoder.label(), sample, renderer, 1));
+
+            Map<String, String> recommended = new LinkedHashMap<>();
+            recommended.put("threads", String.valueOf(best.threads()));
+            recommended.put("sequential-threshold", String.valueOf(Calibrator.sequentialThreshold(sequential)));
+            recommended.putAll(encoder.options());
+            // Leave the renderers as the main command configured them
+            parent.configureRenderers();
+
+            String arguments = recommended.entrySet().stream()
+                .filter(option -> !"false".equals(option.getValue()))
+                .map(option -> "true".equals(option.getValue())
+                    ? "--" + option.getKey() : "--" + option.getKey() + " " + option.getValue())
+                .collect(Collectors.joining(" "));
+            out.printf("Recommended: %s (%.1f jobs/s)%n", arguments, best.jobsPerSecond());
+            logger.info("Calibration recommends {}", arguments);
+            if (profilePath != null) {
+                new SettingsProfile(recommended).save(profilePath, String.format(
+                    "bulk-render calibration for %s on %d processors", parent.getTemplatePath().getFileName(),
+                    processors));
+                out.printf("Profile saved to: %s (use with --profile)%n", profilePath.toAbsolutePath());
+            }
+            return 0;
+
+        } catch (Exception e) {
+            logger.error("Error during calibration: {}", e.getMessage(), e);
+            err.printf("Error: %s%n", e.getMessage());
+            return 1;
+        }
+    }
+
+    private boolean validateOptions(PrintWriter err) {
+        boolean valid = true;
+        if (sampleSize < 1) {
+            err.println("--sample must be at least 1: " + sampleSize);
+            valid = false;
+        }
+        if (threadCounts != null && threadCounts.stream().anyMatch(threads -> threads < 1)) {
+            err.println("--thread-counts must be at least 1: " + threadCounts);
+            valid = false;
+        }
+        if (compressionLevels.stream().anyMatch(level -> level < 0 || level > 9)) {
+            err.println("--compression-levels must be between 0 and 9: " + compressionLevels);
+            valid = false;
+        }
+        return valid;
+    }
+
+    /**
+     * Picks rows spread evenly over the CSV, so the sample reflects the whole range of text lengths.
+     * Outputs are only counted, never written, so the output paths are placeholders.
+     */
+    private List<RenderJob> createSample(List<CsvEntry> entries, TextConfig textConfig) {
+        int size = Math.min(sampleSize, entries.size());
+        String extension = RenderCommand.getFileExtension(parent.getTemplatePath());
+        List<RenderJob> sample = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int row = (int) ((long) i * entries.size() / size);
+            Path output = Path.of("calibration", "sample-" + row + "." + extension);
+            sample.add(new RenderJob(entries.get(row).getDisplayText(), textConfig, parent.getTemplatePath(),
+                output, row));
+        }
+        return sample;
+    }
+
+    /**
+     * Lists the encoder settings worth comparing for the template's renderer. Incremental encoding
+     * is only compared when streaming is off, since streaming takes precedence over it.
+     */
+    private List<EncoderSetting> encoderSettings(RendererService renderer) {
+        List<EncoderSetting> settings = new ArrayList<>();
+        boolean incrementalApplies = renderer instanceof AbstractImageRendererService
+            && parent.getStreamingBandHeight() == 0;
+        List<Boolean> incrementalModes = incrementalApplies ? List.of(false, true) : List.of(false);
+        for (boolean incremental : incrementalModes) {
+            if (renderer instanceof PngRendererService png) {
+                for (int level : new TreeSet<>(compressionLevels)) {
+                    Map<String, String> options = new LinkedHashMap<>();
+                    options.put("png-compression", String.valueOf(level));
+                    options.put("incremental-encode", String.valueOf(incremental));
+                    settings.add(new EncoderSetting(options, () -> {
+                        png.setEncodeOptions(new PngEncodeOptions(level, parent.getPngFilter(),
+                            parent.getPngEncodeThreads()));
+                        png.setIncrementalEncoding(incremental);
+                    }));
+                }
+            } else if (renderer instanceof AbstractImageRendererService image) {
+                settings.add(new EncoderSetting(Map.of("incremental-encode", String.valueOf(incremental)),
+                    () -> image.setIncrementalEncoding(incremental)));
+            } else {
+                settings.add(new EncoderSetting(Map.of(), () -> { }));
+            }
+        }
+        return settings;
+    }
+
+    private static void printTrial(PrintWriter out, String label, Calibrator.Trial trial) {
+        out.printf("  %-45s %9.1f jobs/s  peak heap %9s  avg output %9s%s%n",
+            label, trial.jobsPerSecond(), formatBytes(trial.peakHeapBytes()),
+            formatBytes(trial.averageOutputBytes()),
+            trial.failures() > 0 ? "  (" + trial.failures() + " failed)" : "");
+        out.flush();
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    /**
+     * @return the parallelism levels to compare, ascending
+     */
+    public List<Integer> getThreadCounts() {
+        if (threadCounts != null) {
+            return List.copyOf(new TreeSet<>(threadCounts));
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        TreeSet<Integer> counts = new TreeSet<>();
+        for (int threads = 1; threads <= 2 * processors; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(processors);
+        return List.copyOf(counts);
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public Path getProfilePath() {
+        return profilePath;
+    }
+}
@@ -0,0 +1,35 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.FailureBudget;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link FailureBudget}.
+ * Converts string input to a FailureBudget in a case-insensitive manner.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"none" → FailureBudget.NONE</li>
+ *   <li>"25" → abort after 25 consecutive failures</li>
+ *   <li>"10%" → abort once more than 10% of the jobs failed</li>
+ *   <li>"25,10%" → whichever comes first</li>
+ * </ul>
+ * </p>
+ */
+public class FailureBudgetConverter implements ITypeConverter<FailureBudget> {
+    
+    @Override
+    public FailureBudget convert(String value) throws Exception {
+        if (value == null || value.isBlank()) {
+            return FailureBudget.NONE; // Default to never aborting
+        }
+        
+        try {
+            return FailureBudget.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid failure budget: '%s'. Valid values: none, N, X%%, N,X%% (%s)",
+                    value, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.FsyncPolicy;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link FsyncPolicy} enum.
+ * Converts string input to FsyncPolicy in a case-insensitive manner.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"none" or "NONE" → FsyncPolicy.NONE</li>
+ *   <li>"data" → FsyncPolicy.DATA</li>
+ *   <li>"Full" → FsyncPolicy.FULL</li>
+ * </ul>
+ * </p>
+ */
+public class FsyncPolicyConverter implements ITypeConverter<FsyncPolicy> {
+    
+    @Override
+    public FsyncPolicy convert(String value) throws Exception {
+        if (value == null || value.isBlank()) {
+            return FsyncPolicy.NONE; // Default to leaving flushing to the OS
+        }
+        
+        try {
+            return FsyncPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid fsync policy: '%s'. Valid values: none, data, full", value));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.MemoryLimit;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link MemoryLimit}.
+ * Converts string input to a MemoryLimit in a case-insensitive manner.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"50%" → half of the maximum heap</li>
+ *   <li>"2g" or "2G" → 2 GiB</li>
+ *   <li>"none" → MemoryLimit.NONE</li>
+ * </ul>
+ * </p>
+ */
+public class MemoryLimitConverter implements ITypeConverter<MemoryLimit> {
+    
+    @Override
+    public MemoryLimit convert(String value) throws Exception {
+        if (value == null || value.isBlank()) {
+            return MemoryLimit.DEFAULT; // Default to a share of the heap
+        }
+        
+        try {
+            return MemoryLimit.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid memory budget: '%s'. Valid values: none, N%%, or a size like 512m, 2g (%s)",
+                    value, e.getMessage()));
+        }
+    }
+}
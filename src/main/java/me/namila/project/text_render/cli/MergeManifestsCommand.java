@@ -0,0 +1,104 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.util.ShardManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that the shards of a batch split with {@code --shard} completed every row exactly once,
+ * and optionally combines their manifests.
+ */
+@Command(
+    name = "merge-manifests",
+    mixinStandardHelpOptions = true,
+    description = "Verify that the shard manifests written by --shard runs cover every row of the batch " +
+                  "exactly once: no missing shards, missing rows or rows rendered by several shards. " +
+                  "Exits with 1 if they do not."
+)
+public class MergeManifestsCommand implements Callable<Integer> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MergeManifestsCommand.class);
+
+    /**
+     * Rows and outputs listed per problem before the rest are only counted.
+     */
+    static final int MAX_LISTED = 10;
+
+    @CommandLine.Spec
+    private CommandLine.Model.CommandSpec spec;
+
+    @Parameters(arity = "1..*", paramLabel = "<manifest>",
+                description = "The shard manifests, one per shard")
+    private List<Path> manifestPaths;
+
+    @Option(names = {"--merged"}, paramLabel = "<file>",
+            description = "Write the combined manifest of all shards here if they are complete")
+    private Path mergedPath;
+
+    @Override
+    public Integer call() {
+        PrintWriter out = spec.commandLine().getOut();
+        PrintWriter err = spec.commandLine().getErr();
+        try {
+            List<ShardManifest> manifests = new ArrayList<>();
+            for (Path path : manifestPaths) {
+                manifests.add(ShardManifest.load(path));
+            }
+            ShardManifest.Verification verification = ShardManifest.verify(manifests);
+            ShardManifest first = manifests.get(0);
+            int presentShards = verification.shardCount() - verification.missingShards().size();
+            out.printf("Shards: %d of %d, %d of %d rows completed%n", presentShards, verification.shardCount(),
+                verification.completedRows(), first.getRows().size());
+            report(out, "Missing shards", verification.missingShards());
+            report(out, "Shards with several manifests", verification.duplicateShards());
+            report(out, "Missing rows", verification.missingRows());
+            report(out, "Rows in several manifests", verification.duplicateRows());
+            report(out, "Outputs of several rows", verification.duplicateOutputs());
+            if (!verification.isComplete()) {
+                logger.warn("Shard manifests are incomplete: {}", verification);
+                err.println("Error: the shards did not complete every row exactly once");
+                return 1;
+            }
+
+            if (mergedPath != null) {
+                ShardManifest.merge(manifests).write(mergedPath);
+                out.printf("Merged manifest written to: %s%n", mergedPath.toAbsolutePath());
+            }
+            out.println("All shards complete.");
+            return 0;
+
+        } catch (Exception e) {
+            logger.error("Error merging manifests: {}", e.getMessage(), e);
+            err.printf("Error: %s%n", e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void report(PrintWriter out, String label, List<?> problems) {
+        if (problems.isEmpty()) {
+            return;
+        }
+        String listed = problems.stream().limit(MAX_LISTED).map(String::valueOf).collect(Collectors.joining(", "));
+        String more = problems.size() > MAX_LISTED ? " and " + (problems.size() - MAX_LISTED) + " more" : "";
+        out.printf("%s: %s%s%n", label, listed, more);
+    }
+
+    public List<Path> getManifestPaths() {
+        return manifestPaths;
+    }
+
+    public Path getMergedPath() {
+        return mergedPath;
+    }
+}
@@ -0,0 +1,34 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.OutputLayout;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link OutputLayout}.
+ * Converts string input to an OutputLayout in a case-insensitive manner.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"flat" → OutputLayout.FLAT</li>
+ *   <li>"hash:256" → 256 directories chosen by file name hash</li>
+ *   <li>"rows:10000" → one directory per 10000 CSV rows</li>
+ * </ul>
+ * </p>
+ */
+public class OutputLayoutConverter implements ITypeConverter<OutputLayout> {
+    
+    @Override
+    public OutputLayout convert(String value) throws Exception {
+        if (value == null || value.isBlank()) {
+            return OutputLayout.FLAT; // Default to a single output directory
+        }
+        
+        try {
+            return OutputLayout.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid output layout: '%s'. Valid values: flat, hash:N, rows:N (%s)",
+                    value, e.getMessage()));
+        }
+    }
+}
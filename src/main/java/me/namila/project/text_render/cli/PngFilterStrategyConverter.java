@@ -0,0 +1,33 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.PngFilterStrategy;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link PngFilterStrategy} enum.
+ * Converts string input to PngFilterStrategy in a case-insensitive manner.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"none" or "NONE" → PngFilterStrategy.NONE</li>
+ *   <li>"paeth" or "Paeth" → PngFilterStrategy.PAETH</li>
+ *   <li>"adaptive" → PngFilterStrategy.ADAPTIVE</li>
+ * </ul>
+ * </p>
+ */
+public class PngFilterStrategyConverter implements ITypeConverter<PngFilterStrategy> {
+    
+    @Override
+    public PngFilterStrategy convert(String value) throws Exception {
+        if (value == null || value.isBlank()) {
+            return PngFilterStrategy.ADAPTIVE; // Default to adaptive filtering
+        }
+        
+        try {
+            return PngFilterStrategy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid PNG filter: '%s'. Valid values: none, sub, up, average, paeth, adaptive", value));
+        }
+    }
+}
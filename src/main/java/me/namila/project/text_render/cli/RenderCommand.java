@@ -2,19 +2,48 @@ package me.namila.project.text_render.cli;
 
 import me.namila.project.text_render.model.Alignment;
 import me.namila.project.text_render.model.CsvEntry;
+import me.namila.project.text_render.model.ExecutionReport;
+import me.namila.project.text_render.model.FailureBudget;
 import me.namila.project.text_render.model.FontStyle;
+import me.namila.project.text_render.model.FsyncPolicy;
+import me.namila.project.text_render.model.JobTable;
 import me.namila.project.text_render.model.MeasurementUnit;
+import me.namila.project.text_render.model.MemoryLimit;
+import me.namila.project.text_render.model.OutputLayout;
+import me.namila.project.text_render.model.PngEncodeOptions;
+import me.namila.project.text_render.model.PngFilterStrategy;
 import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.model.RetryPolicy;
+import me.namila.project.text_render.model.RowRange;
+import me.namila.project.text_render.model.Shard;
+import me.namila.project.text_render.model.ShardKey;
+import me.namila.project.text_render.model.StripePolicy;
 import me.namila.project.text_render.model.TextConfig;
+import me.namila.project.text_render.output.ArchiveOutputSink;
+import me.namila.project.text_render.output.BufferPool;
+import me.namila.project.text_render.output.FileSystemOutputSink;
+import me.namila.project.text_render.output.OutputLinker;
+import me.namila.project.text_render.output.OutputSink;
+import me.namila.project.text_render.output.StripedOutputSink;
+import me.namila.project.text_render.service.BatchAbortedException;
 import me.namila.project.text_render.service.CsvReaderService;
 import me.namila.project.text_render.service.FontService;
+import me.namila.project.text_render.service.JobListener;
+import me.namila.project.text_render.service.JobPlanner;
 import me.namila.project.text_render.service.JpegRendererService;
 import me.namila.project.text_render.service.ParallelExecutorService;
 import me.namila.project.text_render.service.PdfRendererService;
 import me.namila.project.text_render.service.PngRendererService;
 import me.namila.project.text_render.service.RendererService;
-import me.namila.project.text_render.util.OutputFileNameGenerator;
+import me.namila.project.text_render.util.CsvRowIndex;
+import me.namila.project.text_render.util.IncrementalIndex;
+import me.namila.project.text_render.util.LeaseDirectory;
+import me.namila.project.text_render.util.OutputNamePattern;
 import me.namila.project.text_render.util.ProgressTracker;
+import me.namila.project.text_render.util.RejectsWriter;
+import me.namila.project.text_render.util.ResumeJournal;
+import me.namila.project.text_render.util.SettingsProfile;
+import me.namila.project.text_render.util.ShardManifest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
@@ -22,12 +51,27 @@ import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 /**
  * CLI command for bulk text rendering on PDF/PNG/JPEG templates.
@@ -36,18 +80,35 @@ import java.util.concurrent.Callable;
     name = "bulk-render",
     mixinStandardHelpOptions = true,
     version = "1.3",
-    description = "Bulk render text onto PDF, PNG, or JPEG templates using data from a CSV file."
+    description = "Bulk render text onto PDF, PNG, or JPEG templates using data from a CSV file.",
+    subcommands = {CalibrateCommand.class, MergeManifestsCommand.class}
 )
 public class RenderCommand implements Callable<Integer> {
 
     private static final Logger logger = LoggerFactory.getLogger(RenderCommand.class);
 
+    /**
+     * File name of the resume journal when --journal is not given.
+     */
+    static final String DEFAULT_JOURNAL_NAME = ".bulk-render-journal";
+
+    /**
+     * File name of the incremental index when --index is not given.
+     */
+    static final String DEFAULT_INDEX_NAME = ".bulk-render-index";
+
+    /**
+     * File name of the rejects file when --rejects is not given.
+     */
+    static final String DEFAULT_REJECTS_NAME = "rejects.csv";
+
     private final CsvReaderService csvReaderService;
     private final PdfRendererService pdfRendererService;
     private final PngRendererService pngRendererService;
     private final JpegRendererService jpegRendererService;
     private final ParallelExecutorService parallelExecutorService;
     private final FontService fontService;
+    private boolean profileApplied;
 
     @CommandLine.Spec
     private CommandLine.Model.CommandSpec spec;
@@ -60,9 +121,21 @@ public class RenderCommand implements Callable<Integer> {
             description = "CSV file path containing text entries")
     private Path csvPath;
 
-    @Option(names = {"-o", "--output"}, defaultValue = "./output", 
-            description = "Output folder (default: ${DEFAULT-VALUE})")
-    private Path outputFolder;
+    @Option(names = {"--csv-threads"}, defaultValue = "1", paramLabel = "<n>",
+            description = "Parse CSV files of 4 MB and more as a memory-mapped file split into chunks, this " +
+                         "many at a time; 0 for one per processor. Default: ${DEFAULT-VALUE}")
+    private int csvThreads;
+
+    @Option(names = {"-o", "--output"}, defaultValue = "./output", split = ",",
+            description = "Output folder (default: ${DEFAULT-VALUE}). Repeat or separate with commas to " +
+                         "stripe outputs across several folders, for example one per drive")
+    private List<Path> outputFolders;
+
+    @Option(names = {"--stripe"}, defaultValue = "ROUND_ROBIN",
+            converter = StripePolicyConverter.class,
+            description = "How outputs are assigned to multiple output folders: round-robin, least-queued " +
+                         "(fewest pending writes). Default: ${DEFAULT-VALUE}")
+    private StripePolicy stripePolicy;
 
     @Option(names = {"--x"}, 
             description = "X coordinate for text placement")
@@ -112,6 +185,184 @@ public class RenderCommand implements Callable<Integer> {
                          "(default: 10). Set to 0 to always use parallel processing.")
     private Integer sequentialThreshold;
 
+    @Option(names = {"--adaptive"},
+            description = "Tune concurrency at runtime: time the first job to choose sequential or parallel " +
+                         "processing, then adjust the number of concurrent jobs to the measured throughput, " +
+                         "up to --threads (default: 4 x available processors). Replaces --sequential-threshold")
+    private boolean adaptive;
+
+    @Option(names = {"--png-compression"}, defaultValue = "4",
+            description = "PNG deflate level 0-9 (0 = fastest, 9 = smallest). Default: ${DEFAULT-VALUE}")
+    private int pngCompressionLevel;
+
+    @Option(names = {"--png-filter"}, defaultValue = "ADAPTIVE",
+            converter = PngFilterStrategyConverter.class,
+            description = "PNG scanline filter: none, sub, up, average, paeth, adaptive. Default: ${DEFAULT-VALUE}")
+    private PngFilterStrategy pngFilter;
+
+    @Option(names = {"--png-encode-threads"}, defaultValue = "1",
+            description = "Cores used to compress a single PNG output. Values above 1 help small batches " +
+                         "of very large templates. Default: ${DEFAULT-VALUE}")
+    private int pngEncodeThreads;
+
+    @Option(names = {"--incremental-encode"},
+            description = "Encode the template once and re-encode only the rows touched by the text " +
+                         "for each output (PNG, JPEG)")
+    private boolean incrementalEncode;
+
+    @Option(names = {"--streaming"}, arity = "0..1", fallbackValue = "512", paramLabel = "<rows>",
+            description = "Read and encode image templates in horizontal bands of <rows> rows (default 512) " +
+                         "instead of decoding the whole image. For very large templates (PNG, JPEG)")
+    private Integer streamingBandHeight;
+
+    @Option(names = {"--output-layout"}, defaultValue = "flat",
+            converter = OutputLayoutConverter.class,
+            description = "Directory layout below the output folder: flat, hash:N (N directories by file name " +
+                         "hash), rows:N (one directory per N CSV rows). Default: ${DEFAULT-VALUE}")
+    private OutputLayout outputLayout;
+
+    @Option(names = {"--output-archive"}, paramLabel = "<archive>",
+            description = "Stream outputs into a single archive instead of separate files: a .zip or .tar " +
+                         "file, or - for a TAR stream on standard output. Entry names are relative to --output")
+    private String outputArchive;
+
+    @Option(names = {"--rows"}, defaultValue = "1-", paramLabel = "<range>",
+            converter = RowRangeConverter.class,
+            description = "Render only these CSV rows, numbered from 1: A-B, A- (to the end) or A. " +
+                         "Default: all rows")
+    private RowRange rows;
+
+    @Option(names = {"--rows-from"}, paramLabel = "<file>",
+            description = "Render only the rows listed in this file, one row number or range (A-B, A-) per line; " +
+                         "blank lines and lines starting with # are ignored")
+    private Path rowsFrom;
+
+    @Option(names = {"--sample"}, paramLabel = "<n>",
+            description = "Render a random sample of n of the selected rows")
+    private Integer sampleSize;
+
+    @Option(names = {"--sample-seed"}, paramLabel = "<seed>",
+            description = "Seed of --sample, to draw the same sample again (default: random, printed)")
+    private Long sampleSeed;
+
+    @Option(names = {"--row-index"}, paramLabel = "<file>",
+            description = "Index of row offsets in the CSV, built on first use, through which --rows, --rows-from " +
+                         "and --sample read only the selected rows (default: the CSV file name plus " +
+                         CsvRowIndex.FILE_SUFFIX + ")")
+    private Path rowIndexPath;
+
+    @Option(names = {"--shard"}, paramLabel = "<i/N>",
+            converter = ShardConverter.class,
+            description = "Render only shard i of N, so N nodes sharing the CSV split the batch without " +
+                         "coordination. Writes a shard manifest for merge-manifests")
+    private Shard shard;
+
+    @Option(names = {"--shard-by"}, defaultValue = "ROW",
+            converter = ShardKeyConverter.class,
+            description = "How rows are assigned to shards: row (by position, exactly balanced) or name " +
+                         "(by a hash of the name, stable when rows are added or reordered). Default: ${DEFAULT-VALUE}")
+    private ShardKey shardKey;
+
+    @Option(names = {"--coordinate"}, paramLabel = "<dir>",
+            description = "Share the batch with every instance started with the same directory, local or on NFS: " +
+                         "each claims chunks of rows through lease files until all are done, taking over the " +
+                         "chunks of instances that died")
+    private Path coordinationDir;
+
+    @Option(names = {"--chunk-size"}, defaultValue = "500", paramLabel = "<rows>",
+            description = "Rows per chunk claimed with --coordinate. Default: ${DEFAULT-VALUE}")
+    private int chunkSize;
+
+    @Option(names = {"--lease-timeout"}, defaultValue = "120", paramLabel = "<seconds>",
+            description = "Seconds without a heartbeat after which an instance's chunk is taken over by another " +
+                         "with --coordinate. Default: ${DEFAULT-VALUE}")
+    private long leaseTimeoutSeconds;
+
+    @Option(names = {"--workers"}, defaultValue = "1", paramLabel = "<n>",
+            description = "Split the rows between this many worker processes, each with its own heap and " +
+                         "garbage collector. Crashed workers are restarted and resume their rows. Default: ${DEFAULT-VALUE}")
+    private int workers;
+
+    @Option(names = {"--worker-heap"}, paramLabel = "<size>",
+            description = "Maximum heap of each worker process, e.g. 2g (default: the JVM default)")
+    private String workerHeap;
+
+    @Option(names = {"--manifest"}, paramLabel = "<file>",
+            description = "Where the manifest of output locations is written when outputs are striped over " +
+                         "several folders (default: " + StripedOutputSink.MANIFEST_FILE_NAME +
+                         " in the first output folder)")
+    private Path manifestPath;
+
+    @Option(names = {"--resume"},
+            description = "Record completed rows in the journal and skip those that an earlier, interrupted run " +
+                         "of the same batch with --resume or --journal already completed")
+    private boolean resume;
+
+    @Option(names = {"--journal"}, paramLabel = "<file>",
+            description = "Record completed rows in this journal for a later --resume (default with --resume: " +
+                         DEFAULT_JOURNAL_NAME +
+                         " in the first output folder)")
+    private Path journalPath;
+
+    @Option(names = {"--incremental"},
+            description = "Skip rows whose output is unchanged since the last incremental run: same template " +
+                         "content, text settings, renderer settings and text, and the output file untouched")
+    private boolean incremental;
+
+    @Option(names = {"--index"}, paramLabel = "<file>",
+            description = "Index of rendered outputs used by --incremental (default: " + DEFAULT_INDEX_NAME +
+                         " in the output folder)")
+    private Path indexPath;
+
+    @Option(names = {"--dedupe"},
+            description = "Render rows with identical text only once and create the other outputs as hard " +
+                         "links (or copies where links are not possible)")
+    private boolean dedupe;
+
+    @Option(names = {"--rejects"}, paramLabel = "<file>",
+            description = "CSV file receiving the rows that failed, with the error of each; pass it to --csv to " +
+                         "re-run only those rows (default: " + DEFAULT_REJECTS_NAME + " in the first output folder)")
+    private Path rejectsPath;
+
+    @Option(names = {"--retries"}, defaultValue = "0",
+            description = "Retry renders and writes that fail with a transient I/O error up to this many times, " +
+                         "with exponential backoff. Default: ${DEFAULT-VALUE}")
+    private int retries;
+
+    @Option(names = {"--memory-budget"}, defaultValue = "50%", paramLabel = "<size>",
+            converter = MemoryLimitConverter.class,
+            description = "Memory that image jobs running in parallel may use between them, as a share of the " +
+                         "maximum heap (N%%), a size (512m, 2g) or none. Jobs are admitted by the memory they are " +
+                         "estimated to need. Default: ${DEFAULT-VALUE}")
+    private MemoryLimit memoryLimit;
+
+    @Option(names = {"--job-timeout"}, defaultValue = "0", paramLabel = "<seconds>",
+            description = "Interrupt a job that runs longer than this and record it as failed; 0 for no limit. " +
+                         "Default: ${DEFAULT-VALUE}")
+    private double jobTimeoutSeconds;
+
+    @Option(names = {"--max-failures"}, defaultValue = "none", paramLabel = "<budget>",
+            converter = FailureBudgetConverter.class,
+            description = "Abort the batch after N consecutive failures (N), once more than X%% of the jobs " +
+                         "failed (X%%), or whichever comes first (N,X%%). Rows not rendered are written to the " +
+                         "rejects file. Default: ${DEFAULT-VALUE}")
+    private FailureBudget failureBudget;
+
+    @Option(names = {"--writer-threads"}, defaultValue = "2",
+            description = "Threads writing encoded outputs to disk while rendering continues. Default: ${DEFAULT-VALUE}")
+    private int writerThreads;
+
+    @Option(names = {"--fsync"}, defaultValue = "NONE",
+            converter = FsyncPolicyConverter.class,
+            description = "Force outputs to disk: none, data (file contents), full (contents, metadata and " +
+                         "directories). Default: ${DEFAULT-VALUE}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Option(names = {"--profile"}, paramLabel = "<file>",
+            description = "Load settings saved by the calibrate command. Options given on the command line " +
+                         "take precedence over the profile")
+    private Path profilePath;
+
     @Option(names = {"--prefix"}, 
             description = "Output filename prefix")
     private String prefix;
@@ -164,66 +415,23 @@ public class RenderCommand implements Callable<Integer> {
                 return 0;
             }
 
-            // Validate required options for rendering
-            if (!validateRequiredOptions()) {
-                return 2;
+            // Fill in options not given on the command line from the profile
+            if (profilePath != null && !profileApplied) {
+                applyProfile();
             }
 
-            // Validate files exist
-            if (!validateFiles()) {
-                return 1;
+            Integer invalid = validateOptions();
+            if (invalid != null) {
+                return invalid;
             }
+            csvReaderService.setParseThreads(getCsvThreads());
 
-            // Create output directory if it doesn't exist
-            // Normalize to absolute path for Windows compatibility
-            outputFolder = outputFolder.toAbsolutePath().normalize();
-            Files.createDirectories(outputFolder);
-            logger.debug("Output directory created/verified: {}", outputFolder);
-
-            // Read CSV entries (supports multi-column: name,prefix,postfix)
-            List<CsvEntry> entries = csvReaderService.readEntries(csvPath);
-            if (entries.isEmpty()) {
-                logger.warn("No entries found in CSV file.");
-                spec.commandLine().getOut().println("No entries found in CSV file.");
-                return 0;
+            // Keep standard output clean when it carries the archive
+            PrintWriter messages = isArchiveOnStdout() ? spec.commandLine().getErr() : spec.commandLine().getOut();
+            if (workers > 1) {
+                return superviseWorkers(messages);
             }
-
-            // Determine renderer based on template extension
-            RendererService renderer = selectRenderer();
-            logger.debug("Selected renderer: {}", renderer.getClass().getSimpleName());
-
-            // Convert coordinates from specified unit to pixels
-            float xPixels = unit.toPixels(x);
-            float yPixels = unit.toPixels(y);
-            logger.debug("Coordinates converted: ({}, {}) {} -> ({}, {}) px", x, y, unit, xPixels, yPixels);
-
-            // Parse font color and style
-            Color color = TextConfig.parseHexColor(fontColor);
-            FontStyle fontStyle = FontStyle.fromFlags(bold, italic);
-            logger.debug("Font styling: color={}, style={}", fontColor, fontStyle);
-
-            // Build render jobs
-            TextConfig textConfig = new TextConfig(xPixels, yPixels, alignment, fontName, fontSize, color, fontStyle);
-            String extension = getFileExtension(templatePath);
-            List<RenderJob> jobs = entries.stream()
-                .map(entry -> createRenderJob(entry, textConfig, extension))
-                .toList();
-
-            // Determine threading strategy
-            int threshold = getSequentialThreshold();
-            String threadingMode = jobs.size() < threshold ? "sequential" : "parallel";
-            
-            logger.info("Processing {} entries ({} mode, {} threads)", 
-                       jobs.size(), threadingMode, getParallelism());
-            spec.commandLine().getOut().printf("Processing %d entries (%s mode)...%n", 
-                             jobs.size(), threadingMode);
-            
-            ProgressTracker tracker = new ProgressTracker(jobs.size());
-            parallelExecutorService.executeAll(jobs, renderer, getParallelism(), tracker, threshold);
-
-            logger.info("Completed! Output saved to: {}", outputFolder.toAbsolutePath());
-            spec.commandLine().getOut().printf("Completed! Output files saved to: %s%n", outputFolder.toAbsolutePath());
-            return 0;
+            return renderBatch(messages);
 
         } catch (Exception e) {
             logger.error("Error during rendering: {}", e.getMessage(), e);
@@ -232,7 +440,693 @@ public class RenderCommand implements Callable<Integer> {
         }
     }
 
-    private boolean validateRequiredOptions() {
+    /**
+     * Checks the options and files of a render, reporting the first problem on standard error,
+     * and creates the output folders.
+     *
+     * @return the exit code to stop with, or null if the options are valid
+     */
+    private Integer validateOptions() throws IOException {
+        // Validate required options for rendering
+        if (!validateRequiredOptions()) {
+            return 2;
+        }
+
+        // Validate files exist
+        if (!validateFiles()) {
+            return 1;
+        }
+
+        // Create output directories if they don't exist (archives only use the first to name entries)
+        // Normalize to absolute paths for Windows compatibility
+        outputFolders = outputFolders.stream()
+            .map(folder -> folder.toAbsolutePath().normalize())
+            .distinct()
+            .toList();
+        PrintWriter err = spec.commandLine().getErr();
+        if (outputArchive == null) {
+            for (Path folder : outputFolders) {
+                Files.createDirectories(folder);
+                logger.debug("Output directory created/verified: {}", folder);
+            }
+        } else if (outputFolders.size() > 1) {
+            err.println("--output-archive accepts a single output folder");
+            return 2;
+        } else if (resume || incremental) {
+            err.println("--resume and --incremental cannot be combined with --output-archive");
+            return 2;
+        }
+        if ((incremental || dedupe) && outputArchive == null && outputFolders.size() > 1) {
+            err.println("--incremental and --dedupe accept a single output folder");
+            return 2;
+        }
+        if (dedupe && outputArchive != null) {
+            err.println("--dedupe cannot be combined with --output-archive");
+            return 2;
+        }
+        if (csvThreads < 0) {
+            err.println("--csv-threads must not be negative: " + csvThreads);
+            return 2;
+        }
+        if (workers < 1) {
+            err.println("--workers must be at least 1: " + workers);
+            return 2;
+        }
+        if (workers > 1 && (outputArchive != null || incremental || shard != null)) {
+            err.println("--workers cannot be combined with --output-archive, --incremental or --shard");
+            return 2;
+        }
+        if (coordinationDir != null && (workers > 1 || shard != null || resume || incremental || dedupe
+                || outputArchive != null || outputFolders.size() > 1)) {
+            err.println("--coordinate cannot be combined with --workers, --shard, " +
+                "--resume, --incremental, --dedupe, --output-archive or several output folders");
+            return 2;
+        }
+        if (coordinationDir != null && (chunkSize < 1 || leaseTimeoutSeconds < 1)) {
+            err.println("--chunk-size and --lease-timeout must be at least 1");
+            return 2;
+        }
+        if (sampleSize != null && sampleSize < 1) {
+            err.println("--sample must be at least 1: " + sampleSize);
+            return 2;
+        }
+        if ((sampleSize != null || rowsFrom != null) && (workers > 1 || shard != null || coordinationDir != null)) {
+            err.println("--sample and --rows-from cannot be combined with --workers, " +
+                "--shard or --coordinate");
+            return 2;
+        }
+        return null;
+    }
+
+    /**
+     * Renders the batch in this process: plans the jobs, skips the rows that need no rendering,
+     * renders the rest and reports the outcome.
+     *
+     * @return the exit code
+     */
+    private int renderBatch(PrintWriter messages) throws Exception {
+        RetryPolicy retryPolicy = new RetryPolicy(retries);
+        parallelExecutorService.setRetryPolicy(retryPolicy);
+        parallelExecutorService.setAdaptiveConcurrency(adaptive);
+        parallelExecutorService.setMemoryLimit(memoryLimit);
+        parallelExecutorService.setJobTimeout(getJobTimeout());
+        parallelExecutorService.setFailureBudget(failureBudget);
+
+        // Determine renderer based on template extension
+        RendererService renderer = selectRenderer();
+        configureRenderers();
+        logger.debug("Selected renderer: {}", renderer.getClass().getSimpleName());
+
+        Batch batch = planBatch(messages);
+        if (batch.csvRows == 0) {
+            logger.warn("No entries found in CSV file.");
+            messages.println("No entries found in CSV file.");
+            return 0;
+        }
+        skipResumedRows(batch, messages);
+        skipUnchangedRows(batch, renderer, messages);
+
+        // Render identical rows once; their other outputs are linked after rendering
+        batch.plan = dedupe ? JobPlanner.deduplicate(batch.table, batch.selected) : null;
+        if (batch.plan != null && batch.plan.getDuplicateCount() > 0) {
+            messages.printf("Deduplicating: %d entries repeat an earlier entry and will be linked%n",
+                batch.plan.getDuplicateCount());
+        }
+
+        // Determine threading strategy
+        int threshold = getSequentialThreshold();
+        String threadingMode = adaptive ? "adaptive"
+            : batch.renderJobs().size() < threshold ? "sequential" : "parallel";
+        
+        logger.info("Processing {} entries ({} mode, {} threads)", 
+                   batch.jobs.size(), threadingMode, getParallelism());
+        messages.printf("Processing %d entries (%s mode)...%n", 
+                         batch.jobs.size(), threadingMode);
+        messages.flush();
+
+        return executeBatch(batch, renderer, retryPolicy, threshold, messages);
+    }
+
+    /**
+     * Reads the CSV (supports multi-column: name,prefix,postfix) into a compact job table and
+     * selects the jobs of the requested rows and shard.
+     *
+     * @return the planned batch; it has no CSV rows if the CSV is empty
+     */
+    private Batch planBatch(PrintWriter messages) throws IOException {
+        // Output names are claimed for every row, so they do not depend on the selected rows
+        TextConfig textConfig = createTextConfig();
+        OutputNamePattern namePattern = OutputNamePattern.compile(
+            templatePath.toString(), prefix, postfix, getFileExtension(templatePath));
+        JobTable table = new JobTable(textConfig, templatePath, getOutputFolder(), outputLayout, namePattern::format);
+        int csvRows;
+        if (isRowSelection()) {
+            // Seek to the selected rows through the row index, which also holds the name collisions
+            CsvRowIndex rowIndex = csvReaderService.openRowIndex(csvPath, getRowIndexPath());
+            csvRows = rowIndex.getRowCount();
+            csvReaderService.readRows(csvPath, rowIndex, selectRows(csvRows, messages), (entry, row) ->
+                addRow(table, entry, row, () -> rowIndex.getCollision(row)));
+        } else {
+            csvReaderService.readEntries(csvPath,
+                entry -> addRow(table, entry, table.size(), () -> namePattern.claimCollision(entry.name())));
+            csvRows = table.size();
+        }
+        if (csvRows == 0) {
+            return new Batch(textConfig, table, 0, row -> false);
+        }
+        logger.debug("Planned {} jobs in about {} KB ({} distinct prefixes and postfixes)",
+            table.size(), table.getFootprint() / 1024, table.getAffixCount());
+
+        // Jobs are views of the table; each job is created when the executor takes it
+        Batch batch = new Batch(textConfig, table, csvRows, row -> rows.containsIndex(row)
+            && (shard == null || shard.contains(shardKey, row, table.name(table.positionOf(row)))));
+        if (namePattern.getCollisionCount() > 0) {
+            logger.warn("{} output names collided after sanitizing and were given a unique suffix",
+                namePattern.getCollisionCount());
+        }
+        return batch;
+    }
+
+    /**
+     * Skips rows completed by an interrupted earlier run, and opens the journal of this run.
+     */
+    private void skipResumedRows(Batch batch, PrintWriter messages) throws IOException {
+        batch.journal = openJournal(batch.jobs, batch.textConfig);
+        if (batch.journal == null || batch.journal.getResumedCount() == 0) {
+            return;
+        }
+        int total = batch.jobs.size();
+        IntPredicate resumed = batch.selected.and(batch.journal::isCompleted);
+        batch.select(resumed.negate());
+        batch.resumedCount = total - batch.jobs.size();
+        for (int position = 0; position < batch.table.size(); position++) {
+            int row = batch.table.rowIndex(position);
+            if (resumed.test(row)) {
+                batch.completedRows.set(row);
+            }
+        }
+        messages.printf("Resuming: %d of %d entries already completed%n", batch.resumedCount, total);
+    }
+
+    /**
+     * Skips rows whose output is unchanged since the last incremental run, and loads the index
+     * this run updates.
+     */
+    private void skipUnchangedRows(Batch batch, RendererService renderer, PrintWriter messages) throws IOException {
+        if (!incremental) {
+            return;
+        }
+        batch.index = IncrementalIndex.load(getIndexPath(), getOutputFolder());
+        if (isRowSelection() || shard != null || batch.resumedCount > 0) {
+            // Rows this run does not check keep their entries for the next run over all rows
+            batch.index.retainUnchecked();
+        }
+        // Row hashes are recomputed when a row completes rather than kept for every row
+        batch.batchDigest = IncrementalIndex.batchDigest(templatePath,
+            batch.textConfig + "\n" + renderer.getOutputFingerprint());
+        int total = batch.jobs.size();
+        BitSet changed = new BitSet();
+        for (RenderJob job : batch.jobs) {
+            String hash = IncrementalIndex.rowHash(batch.batchDigest, job.text());
+            if (!batch.index.isUpToDate(job.outputPath(), hash)) {
+                changed.set(job.rowIndex());
+            } else {
+                batch.completedRows.set(job.rowIndex());
+            }
+        }
+        batch.select(changed::get);
+        batch.unchangedCount = total - batch.jobs.size();
+        messages.printf("Incremental: %d of %d entries unchanged%n", batch.unchangedCount, total);
+    }
+
+    /**
+     * Renders the planned jobs, or the chunks claimed from the coordination directory, and
+     * records the outcome in the journal, index, shard manifest and rejects file.
+     *
+     * @return the exit code
+     */
+    private int executeBatch(Batch batch, RendererService renderer, RetryPolicy retryPolicy, int threshold,
+                             PrintWriter messages) throws Exception {
+        // Share the rows with the other instances coordinating through the same directory
+        List<RowRange> chunks = List.of();
+        LeaseDirectory leases = null;
+        if (coordinationDir != null) {
+            RowRange range = rows.clamp(batch.csvRows);
+            if (range != null) {
+                chunks = range.split((int) Math.min(Integer.MAX_VALUE, (range.size() + chunkSize - 1) / chunkSize));
+            }
+            leases = LeaseDirectory.open(coordinationDir,
+                batchFingerprint(batch.jobs, batch.textConfig) + " chunk-size " + chunkSize,
+                Duration.ofSeconds(leaseTimeoutSeconds));
+            messages.printf("Coordinating %d chunks through %s as %s%n", chunks.size(),
+                coordinationDir.toAbsolutePath(), leases.getOwner());
+        }
+
+        ProgressTracker tracker = new ProgressTracker(batch.jobs.size(), isArchiveOnStdout() ? System.err : System.out);
+        // Instances sharing an output folder keep their failed rows apart
+        RejectsWriter rejects = new RejectsWriter(leases != null
+            ? withSuffix(getRejectsPath(), "." + leases.getOwner()) : getRejectsPath());
+        JobListener listener = createJobListener(batch, rejects);
+        int linked = 0;
+        String abortReason = null;
+        try (OutputSink sink = createOutputSink(retryPolicy)) {
+            sink.prepareDirectories(outputDirectories(batch.jobs));
+            try {
+                if (leases != null) {
+                    renderChunks(leases, chunks, batch.jobs, renderer, threshold, sink, listener, messages);
+                } else {
+                    parallelExecutorService.executeAll(batch.renderJobs(), renderer, getParallelism(), tracker,
+                        threshold, sink, listener);
+                }
+            } catch (BatchAbortedException e) {
+                abortReason = e.getMessage();
+            }
+            if (batch.plan != null) {
+                linked = linkDuplicates(batch, tracker, listener);
+            }
+        } finally {
+            closeAll(rejects, batch.journal, leases);
+        }
+        if (batch.index != null) {
+            batch.index.save();
+        }
+        if (shard != null) {
+            Path manifest = writeShardManifest(batch.selectedJobs, batch.completedRows, batch.csvRows);
+            messages.printf("Shard %s manifest written to: %s%n", shard, manifest);
+        }
+        // A finished batch has nothing left to resume; keep the journal only if rows are missing
+        if (batch.journal != null && batch.failures.get() == 0) {
+            Files.deleteIfExists(batch.journal.getFile());
+        }
+        return reportBatch(batch, linked, leases != null, rejects, abortReason, messages);
+    }
+
+    /**
+     * Counts the outcome of every job and records it in the batch's journal, index, shard
+     * manifest and rejects file.
+     */
+    private JobListener createJobListener(Batch batch, RejectsWriter rejects) {
+        return new JobListener() {
+            @Override
+            public void jobCompleted(RenderJob job) {
+                batch.completions.incrementAndGet();
+                if (shard != null && job.rowIndex() >= 0) {
+                    synchronized (batch.completedRows) {
+                        batch.completedRows.set(job.rowIndex());
+                    }
+                }
+                int position = batch.plan != null ? batch.table.positionOf(job.rowIndex()) : -1;
+                if (position >= 0 && batch.plan.hasDuplicates(position)) {
+                    synchronized (batch.writtenPrimaries) {
+                        batch.writtenPrimaries.set(position);
+                    }
+                }
+                if (batch.journal != null) {
+                    batch.journal.record(job.rowIndex());
+                }
+                if (batch.index != null) {
+                    batch.index.record(job.outputPath(), IncrementalIndex.rowHash(batch.batchDigest, job.text()));
+                }
+            }
+
+            @Override
+            public void jobFailed(RenderJob job, Throwable error) {
+                batch.failures.incrementAndGet();
+                if (job.rowIndex() >= 0) {
+                    rejects.record(batch.table.entry(batch.table.positionOf(job.rowIndex())), job.rowIndex(), error);
+                }
+            }
+        };
+    }
+
+    /**
+     * Prints the summary of a rendered batch and where its outputs and failed rows went.
+     *
+     * @param coordinated whether the rows were shared with other instances
+     * @param abortReason why the batch was aborted, or null if it ran to the end
+     * @return the exit code
+     */
+    private int reportBatch(Batch batch, int linked, boolean coordinated, RejectsWriter rejects, String abortReason,
+                            PrintWriter messages) throws IOException {
+        // A coordinated instance reports the rows of the chunks it rendered
+        int completions = batch.completions.get();
+        int failures = batch.failures.get();
+        int rowCount = coordinated ? completions + failures : batch.selectedJobs.size();
+        ExecutionReport report = new ExecutionReport(rowCount, completions - linked, linked,
+            batch.resumedCount, batch.unchangedCount, failures);
+        logger.info("Summary: {}", report.summary());
+        messages.printf("Summary: %s%n", report.summary());
+        if (rejects.getCount() > 0) {
+            logger.warn("{} failed rows written to: {}", rejects.getCount(), rejects.getFile());
+            messages.printf("Failed rows written to: %s%n", rejects.getFile());
+        } else {
+            deleteStaleRejects();
+        }
+        if (abortReason != null) {
+            spec.commandLine().getErr().printf("Error: %s%n", abortReason);
+            return 1;
+        }
+
+        if (outputArchive != null) {
+            logger.info("Completed! Output archived to: {}", outputArchive);
+            messages.printf("Completed! Output archived to: %s%n",
+                isArchiveOnStdout() ? "standard output" : Path.of(outputArchive).toAbsolutePath());
+        } else {
+            String folders = outputFolders.stream().map(Path::toString).collect(Collectors.joining(", "));
+            logger.info("Completed! Output saved to: {}", folders);
+            messages.printf("Completed! Output files saved to: %s%n", folders);
+            if (outputFolders.size() > 1) {
+                messages.printf("Output locations recorded in: %s%n", getManifestPath());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Renders chunks claimed from the coordination directory until every chunk of the batch is
+     * done. A chunk is marked done once its outputs are written, including when rows failed and
+     * went to the rejects file; a chunk interrupted by an aborted batch is handed back.
+     *
+     * @param jobs the jobs of all chunks, one per row in row order
+     */
+    private void renderChunks(LeaseDirectory leases, List<RowRange> chunks, List<RenderJob> jobs,
+                              RendererService renderer, int threshold, OutputSink sink, JobListener listener,
+                              PrintWriter messages) throws IOException, InterruptedException {
+        int rendered = 0;
+        LeaseDirectory.Lease lease;
+        while ((lease = leases.next(chunks)) != null) {
+            try (LeaseDirectory.Lease held = lease) {
+                RowRange chunk = held.getRows();
+                int offset = chunk.first() - chunks.get(0).first();
+                List<RenderJob> chunkJobs = jobs.subList(offset, offset + (int) chunk.size());
+                messages.printf("Chunk %s: rendering %d rows%n", chunk, chunkJobs.size());
+                messages.flush();
+                parallelExecutorService.executeAll(chunkJobs, renderer, getParallelism(),
+                    new ProgressTracker(chunkJobs.size()), threshold, sink, listener);
+                sink.flush();
+                held.complete();
+                rendered++;
+            }
+        }
+        messages.printf("Chunks: %d of %d rendered by this instance%n", rendered, chunks.size());
+    }
+
+    /**
+     * Records the rows this shard completed, with their outputs relative to the output folder.
+     */
+    private Path writeShardManifest(List<RenderJob> selectedJobs, BitSet completedRows, int rowCount)
+            throws IOException {
+        Map<Integer, String> outputs = new HashMap<>();
+        synchronized (completedRows) {
+            for (RenderJob job : selectedJobs) {
+                if (completedRows.get(job.rowIndex())) {
+                    outputs.put(job.rowIndex() + 1, getOutputFolder().relativize(job.outputPath()).toString());
+                }
+            }
+        }
+        // An empty range still identifies the batch, so the shard shows up as present
+        RowRange range = Objects.requireNonNullElse(rows.clamp(rowCount), rows);
+        Path file = getShardManifestPath();
+        new ShardManifest(shard, shardKey, range, outputs).write(file);
+        logger.info("Wrote manifest of shard {} with {} completed rows to {}", shard, outputs.size(), file);
+        return file;
+    }
+
+    /**
+     * Splits the rows between worker processes and combines their rejects and manifests.
+     * Each worker keeps its own journal next to the batch's, so a restarted worker, or a later
+     * run with --resume, skips the rows it completed.
+     */
+    private int superviseWorkers(PrintWriter messages) throws IOException, InterruptedException {
+        // Workers read their rows through the row index, so build it once before starting them
+        RowRange range = rows.clamp(csvReaderService.openRowIndex(csvPath, getRowIndexPath()).getRowCount());
+        if (range == null) {
+            logger.warn("No entries found in CSV file.");
+            messages.println("No entries found in CSV file.");
+            return 0;
+        }
+        List<RowRange> ranges = range.split(workers);
+        int total = (int) range.size();
+        logger.info("Processing {} entries with {} worker processes", total, ranges.size());
+        messages.printf("Processing %d entries (%d worker processes)...%n", total, ranges.size());
+        messages.flush();
+
+        Path journal = journalPath != null ? journalPath : getOutputFolder().resolve(DEFAULT_JOURNAL_NAME);
+        List<WorkerSupervisor.Worker> workerList = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            String suffix = ".worker-" + (i + 1);
+            Path manifest = outputFolders.size() > 1 ? withSuffix(getManifestPath(), suffix) : null;
+            workerList.add(new WorkerSupervisor.Worker(i + 1, ranges.get(i), withSuffix(journal, suffix),
+                withSuffix(getRejectsPath(), suffix), manifest));
+        }
+        WorkerSupervisor supervisor = new WorkerSupervisor(WorkerSupervisor.launcher(workerHeap),
+            WorkerSupervisor.workerArguments(spec.commandLine().getParseResult().originalArgs()), resume,
+            new ProgressTracker(total, System.out));
+        List<WorkerSupervisor.Result> results = supervisor.run(workerList);
+
+        int rejected = WorkerSupervisor.mergeRejects(results, getRejectsPath());
+        if (outputFolders.size() > 1) {
+            WorkerSupervisor.mergeManifests(results, getManifestPath());
+        }
+        ExecutionReport report = WorkerSupervisor.report(results, total);
+        logger.info("Summary: {}", report.summary());
+        messages.printf("Summary: %s%n", report.summary());
+        if (rejected > 0) {
+            logger.warn("{} failed rows written to: {}", rejected, getRejectsPath());
+            messages.printf("Failed rows written to: %s%n", getRejectsPath());
+        } else {
+            deleteStaleRejects();
+        }
+        boolean failed = false;
+        for (WorkerSupervisor.Result result : results) {
+            if (result.gaveUp()) {
+                spec.commandLine().getErr().printf("Error: worker %d crashed %d times; %d rows of %s were not rendered%n",
+                    result.worker().id(), result.attempts(), result.unfinished(), result.worker().rows());
+            } else if (result.exitCode() != 0 && result.unfinished() > 0) {
+                spec.commandLine().getErr().printf("Error: worker %d exited with code %d; %d rows of %s were not rendered%n",
+                    result.worker().id(), result.exitCode(), result.unfinished(), result.worker().rows());
+            }
+            failed |= result.exitCode() != 0;
+        }
+        if (failed) {
+            return 1;
+        }
+
+        String folders = outputFolders.stream().map(Path::toString).collect(Collectors.joining(", "));
+        logger.info("Completed! Output saved to: {}", folders);
+        messages.printf("Completed! Output files saved to: %s%n", folders);
+        if (outputFolders.size() > 1) {
+            messages.printf("Output locations recorded in: %s%n", getManifestPath());
+        }
+        return 0;
+    }
+
+    /**
+     * Re-parses the command line with the profile's settings in front of the original arguments,
+     * skipping settings whose option was given explicitly.
+     */
+    private void applyProfile() throws IOException {
+        CommandLine commandLine = spec.commandLine();
+        CommandLine.ParseResult parsed = commandLine.getParseResult();
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, String> setting : SettingsProfile.load(profilePath).getSettings().entrySet()) {
+            String name = "--" + setting.getKey();
+            CommandLine.Model.OptionSpec option = spec.findOption(name);
+            if (option == null) {
+                throw new IllegalArgumentException("Unknown option '" + name + "' in profile " + profilePath);
+            }
+            if (parsed.hasMatchedOption(name)) {
+                continue;
+            }
+            if (option.typeInfo().isBoolean()) {
+                if (Boolean.parseBoolean(setting.getValue())) {
+                    args.add(name);
+                }
+            } else {
+                args.add(name + "=" + setting.getValue());
+            }
+        }
+        logger.debug("Applying profile {}: {}", profilePath, args);
+        args.addAll(parsed.originalArgs());
+        profileApplied = true;
+        commandLine.parseArgs(args.toArray(String[]::new));
+    }
+
+    /**
+     * Applies the encoder settings to the image renderers.
+     */
+    void configureRenderers() {
+        pngRendererService.setEncodeOptions(new PngEncodeOptions(pngCompressionLevel, pngFilter, pngEncodeThreads));
+        pngRendererService.setIncrementalEncoding(incrementalEncode);
+        jpegRendererService.setIncrementalEncoding(incrementalEncode);
+        pngRendererService.setStreamingBandHeight(getStreamingBandHeight());
+        jpegRendererService.setStreamingBandHeight(getStreamingBandHeight());
+    }
+
+    /**
+     * Builds the text settings from the options, converting coordinates to pixels.
+     */
+    TextConfig createTextConfig() {
+        float xPixels = unit.toPixels(x);
+        float yPixels = unit.toPixels(y);
+        logger.debug("Coordinates converted: ({}, {}) {} -> ({}, {}) px", x, y, unit, xPixels, yPixels);
+
+        Color color = TextConfig.parseHexColor(fontColor);
+        FontStyle fontStyle = FontStyle.fromFlags(bold, italic);
+        logger.debug("Font styling: color={}, style={}", fontColor, fontStyle);
+        return new TextConfig(xPixels, yPixels, alignment, fontName, fontSize, color, fontStyle);
+    }
+
+    /**
+     * Creates the sink that outputs are written through: an archive if requested,
+     * otherwise write-behind files under the output folder, striped when there are several.
+     */
+    private OutputSink createOutputSink(RetryPolicy retryPolicy) throws IOException {
+        if (outputArchive != null) {
+            return ArchiveOutputSink.open(outputArchive, getOutputFolder());
+        }
+        if (outputFolders.size() > 1) {
+            BufferPool bufferPool = new BufferPool();
+            return new StripedOutputSink(outputFolders, stripePolicy,
+                root -> new FileSystemOutputSink(writerThreads, fsyncPolicy, bufferPool, retryPolicy), manifestPath);
+        }
+        return new FileSystemOutputSink(writerThreads, fsyncPolicy, new BufferPool(), retryPolicy);
+    }
+
+    /**
+     * Produces the outputs of duplicate jobs from the output of their primary job. Duplicates of
+     * a primary that failed fail as well.
+     *
+     * @return the number of outputs produced
+     */
+    private int linkDuplicates(Batch batch, ProgressTracker tracker, JobListener listener) {
+        int linked = 0;
+        for (int position = 0; position < batch.table.size(); position++) {
+            int primary = batch.plan.primaryOf(position);
+            if (primary == -1 || primary == position) {
+                continue;
+            }
+            RenderJob duplicate = batch.table.get(position);
+            Path source = batch.table.outputPath(primary);
+            boolean written;
+            synchronized (batch.writtenPrimaries) {
+                written = batch.writtenPrimaries.get(primary);
+            }
+            if (!written) {
+                listener.jobFailed(duplicate, new IOException("Duplicated output was not written: " + source));
+                continue;
+            }
+            try {
+                OutputLinker.Method method = OutputLinker.link(source, duplicate.outputPath());
+                logger.debug("Created {} from {} ({})", duplicate.outputPath(), source, method);
+                tracker.increment();
+                listener.jobCompleted(duplicate);
+                linked++;
+            } catch (IOException e) {
+                logger.error("Failed to link '{}' to {}: {}", duplicate.text(), source, e.getMessage());
+                listener.jobFailed(duplicate, e);
+            }
+        }
+        return linked;
+    }
+
+    /**
+     * Opens the journal of completed rows; archives are always written from scratch and have none,
+     * and coordinated instances record completed chunks in the coordination directory instead.
+     */
+    private ResumeJournal openJournal(List<RenderJob> jobs, TextConfig textConfig) throws IOException {
+        // Without --resume or --journal nobody will read the journal, so none is kept
+        if (outputArchive != null || coordinationDir != null || (!resume && journalPath == null)) {
+            return null;
+        }
+        Path file = journalPath != null ? journalPath : getDefaultFile(DEFAULT_JOURNAL_NAME);
+        return ResumeJournal.open(file, batchFingerprint(jobs, textConfig), resume);
+    }
+
+    private Path getIndexPath() {
+        return indexPath != null ? indexPath : getDefaultFile(DEFAULT_INDEX_NAME);
+    }
+
+    /**
+     * Resolves a file kept in the output folder by default. Shards sharing an output folder each
+     * keep their own, named after the shard like their manifests.
+     */
+    private Path getDefaultFile(String name) {
+        Path file = getOutputFolder().resolve(name);
+        return shard != null ? withSuffix(file, ".shard-" + shard.index() + "-of-" + shard.count()) : file;
+    }
+
+    /**
+     * Removes a rejects file left by an earlier run once every row succeeded, unless it is the
+     * input of this run.
+     */
+    private void deleteStaleRejects() throws IOException {
+        Path file = getRejectsPath().toAbsolutePath().normalize();
+        if (!file.equals(csvPath.toAbsolutePath().normalize()) && Files.deleteIfExists(file)) {
+            logger.debug("Deleted stale rejects file {}", file);
+        }
+    }
+
+    /**
+     * Closes each resource that is present, in order, even if closing an earlier one failed.
+     *
+     * @throws IOException the first failure, with the later ones suppressed
+     */
+    private static void closeAll(Closeable... resources) throws IOException {
+        IOException failure = null;
+        for (Closeable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static Path withSuffix(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * Identifies a batch by everything that determines its outputs, so a journal is never
+     * applied to a batch whose rows, template or text settings changed.
+     */
+    private String batchFingerprint(List<RenderJob> jobs, TextConfig textConfig) {
+        CRC32 crc = new CRC32();
+        crc.update((templatePath.toAbsolutePath() + "\n" + textConfig + "\n").getBytes(StandardCharsets.UTF_8));
+        for (RenderJob job : jobs) {
+            crc.update((job.text() + '\0' + job.outputPath() + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return String.format("%08x-%d", crc.getValue(), jobs.size());
+    }
+
+    /**
+     * Collects the distinct directories the jobs write to, so shard directories are created once
+     * up front instead of being checked on every write.
+     */
+    private static List<Path> outputDirectories(List<RenderJob> jobs) {
+        return jobs.stream()
+            .map(job -> job.outputPath().getParent())
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+    }
+
+    private boolean isArchiveOnStdout() {
+        return ArchiveOutputSink.STDOUT_TARGET.equals(outputArchive);
+    }
+
+    boolean validateRequiredOptions() {
         PrintWriter err = spec.commandLine().getErr();
         boolean valid = true;
 
@@ -256,7 +1150,7 @@ public class RenderCommand implements Callable<Integer> {
         return valid;
     }
 
-    private boolean validateFiles() {
+    boolean validateFiles() {
         PrintWriter err = spec.commandLine().getErr();
         
         if (!Files.exists(templatePath)) {
@@ -279,7 +1173,7 @@ public class RenderCommand implements Callable<Integer> {
         return true;
     }
 
-    private RendererService selectRenderer() {
+    RendererService selectRenderer() {
         String extension = getFileExtension(templatePath).toLowerCase();
         return switch (extension) {
             case "pdf" -> pdfRendererService;
@@ -289,25 +1183,85 @@ public class RenderCommand implements Callable<Integer> {
         };
     }
 
-    private RenderJob createRenderJob(CsvEntry entry, TextConfig textConfig, String extension) {
+    private void addRow(JobTable table, CsvEntry entry, int rowIndex, IntSupplier collision) {
         try {
-            // Use clean name for filename (no prefix stripping needed)
-            String outputFilename = OutputFileNameGenerator.generateFromCleanName(
-                templatePath.toString(), entry.name(), prefix, postfix, extension);
-            Path outputPath = outputFolder.resolve(outputFilename);
-            // Display text combines prefix + name + postfix
-            String displayText = entry.getDisplayText();
-            return new RenderJob(displayText, textConfig, templatePath, outputPath);
+            // Use clean name for filename (no prefix stripping needed), unique within the run
+            table.add(entry, rowIndex, collision.getAsInt());
         } catch (Exception e) {
             String errorMsg = String.format(
                 "Failed to create render job for entry '%s': template='%s', outputFolder='%s', error=%s",
-                entry.name(), templatePath, outputFolder, e.getMessage());
+                entry.name(), templatePath, getOutputFolder(), e.getMessage());
             logger.error(errorMsg, e);
             throw new IllegalArgumentException(errorMsg, e);
         }
     }
 
-    private String getFileExtension(Path path) {
+    /**
+     * @return true if only some rows are rendered, so they are read through the row index
+     */
+    private boolean isRowSelection() {
+        return !RowRange.ALL.equals(rows) || rowsFrom != null || sampleSize != null;
+    }
+
+    /**
+     * Resolves --rows, --rows-from and --sample to the indexes of the rows to read.
+     */
+    private BitSet selectRows(int rowCount, PrintWriter messages) throws IOException {
+        BitSet selection = new BitSet();
+        RowRange range = rows.clamp(rowCount);
+        if (range != null) {
+            selection.set(range.first() - 1, range.last());
+        }
+        if (rowsFrom != null) {
+            selection.and(readRowList(rowsFrom, rowCount));
+        }
+        int candidates = selection.cardinality();
+        if (sampleSize != null && sampleSize < candidates) {
+            long seed = sampleSeed != null ? sampleSeed : new Random().nextLong();
+            selection = sample(selection, sampleSize, new Random(seed));
+            logger.info("Sampled {} of {} rows with seed {}", sampleSize, candidates, seed);
+            messages.printf("Sample: %d of %d rows (seed %d)%n", sampleSize, candidates, seed);
+        }
+        return selection;
+    }
+
+    private static BitSet readRowList(Path file, int rowCount) throws IOException {
+        BitSet listed = new BitSet();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String spec = line.trim();
+            if (spec.isEmpty() || spec.startsWith("#")) {
+                continue;
+            }
+            RowRange range;
+            try {
+                range = RowRange.parse(spec).clamp(rowCount);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid row in " + file + ": " + e.getMessage(), e);
+            }
+            if (range != null) {
+                listed.set(range.first() - 1, range.last());
+            }
+        }
+        return listed;
+    }
+
+    /**
+     * Draws {@code size} of the set bits with Floyd's algorithm, which makes one draw per sampled
+     * row however many rows there are to choose from.
+     */
+    static BitSet sample(BitSet rows, int size, Random random) {
+        int[] candidates = rows.stream().toArray();
+        BitSet chosen = new BitSet(candidates.length);
+        for (int j = candidates.length - size; j < candidates.length; j++) {
+            int pick = random.nextInt(j + 1);
+            chosen.set(chosen.get(pick) ? j : pick);
+        }
+        BitSet sample = new BitSet();
+        chosen.stream().forEach(ordinal -> sample.set(candidates[ordinal]));
+        return sample;
+    }
+
+    static String getFileExtension(Path path) {
         String filename = path.getFileName().toString();
         int dotIndex = filename.lastIndexOf('.');
         return dotIndex > 0 ? filename.substring(dotIndex + 1) : "";
@@ -347,6 +1301,14 @@ public class RenderCommand implements Callable<Integer> {
             .forEach(f -> out.println("  " + f.name()));
     }
 
+    CsvReaderService getCsvReaderService() {
+        return csvReaderService;
+    }
+
+    ParallelExecutorService getParallelExecutorService() {
+        return parallelExecutorService;
+    }
+
     // Getters for testing
     public Path getTemplatePath() {
         return templatePath;
@@ -357,7 +1319,15 @@ public class RenderCommand implements Callable<Integer> {
     }
 
     public Path getOutputFolder() {
-        return outputFolder;
+        return outputFolders != null && !outputFolders.isEmpty() ? outputFolders.get(0) : null;
+    }
+
+    public List<Path> getOutputFolders() {
+        return outputFolders;
+    }
+
+    public StripePolicy getStripePolicy() {
+        return stripePolicy;
     }
 
     public float getX() {
@@ -381,13 +1351,155 @@ public class RenderCommand implements Callable<Integer> {
     }
 
     public int getParallelism() {
-        return parallelism != null ? parallelism : Runtime.getRuntime().availableProcessors();
+        if (parallelism != null) {
+            return parallelism;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        return adaptive ? processors * ParallelExecutorService.ADAPTIVE_MAX_PARALLELISM_FACTOR : processors;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
     }
 
     public int getSequentialThreshold() {
         return sequentialThreshold != null ? sequentialThreshold : ParallelExecutorService.DEFAULT_SEQUENTIAL_THRESHOLD;
     }
 
+    public int getPngCompressionLevel() {
+        return pngCompressionLevel;
+    }
+
+    public PngFilterStrategy getPngFilter() {
+        return pngFilter;
+    }
+
+    public int getPngEncodeThreads() {
+        return pngEncodeThreads;
+    }
+
+    public boolean isIncrementalEncode() {
+        return incrementalEncode;
+    }
+
+    public int getStreamingBandHeight() {
+        return streamingBandHeight != null ? streamingBandHeight : 0;
+    }
+
+    public OutputLayout getOutputLayout() {
+        return outputLayout;
+    }
+
+    public String getOutputArchive() {
+        return outputArchive;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    public Path getRejectsPath() {
+        return rejectsPath != null ? rejectsPath : getDefaultFile(DEFAULT_REJECTS_NAME);
+    }
+
+    public RowRange getRows() {
+        return rows;
+    }
+
+    public Path getRowsFrom() {
+        return rowsFrom;
+    }
+
+    public Integer getSampleSize() {
+        return sampleSize;
+    }
+
+    public Path getRowIndexPath() {
+        return rowIndexPath != null ? rowIndexPath : CsvRowIndex.defaultFile(csvPath);
+    }
+
+    public Shard getShard() {
+        return shard;
+    }
+
+    public ShardKey getShardKey() {
+        return shardKey;
+    }
+
+    /**
+     * @return where a --shard run writes its shard manifest
+     */
+    public Path getShardManifestPath() {
+        return shard != null ? getOutputFolder().resolve(ShardManifest.defaultFileName(shard)) : null;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public Path getCoordinationDir() {
+        return coordinationDir;
+    }
+
+    /**
+     * @return the number of CSV chunks parsed in parallel, resolving 0 to the processor count
+     */
+    public int getCsvThreads() {
+        return csvThreads > 0 ? csvThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public Duration getLeaseTimeout() {
+        return Duration.ofSeconds(leaseTimeoutSeconds);
+    }
+
+    public String getWorkerHeap() {
+        return workerHeap;
+    }
+
+    public Path getManifestPath() {
+        return manifestPath != null ? manifestPath : getOutputFolder().resolve(StripedOutputSink.MANIFEST_FILE_NAME);
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public Duration getJobTimeout() {
+        return jobTimeoutSeconds > 0 ? Duration.ofNanos((long) (jobTimeoutSeconds * 1_000_000_000L)) : null;
+    }
+
+    public MemoryLimit getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public FailureBudget getFailureBudget() {
+        return failureBudget;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public boolean isDedupe() {
+        return dedupe;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
     public String getPrefix() {
         return prefix;
     }
@@ -396,7 +1508,62 @@ public class RenderCommand implements Callable<Integer> {
         return postfix;
     }
 
+    public Path getProfilePath() {
+        return profilePath;
+    }
+
     public boolean isListFonts() {
         return listFonts;
     }
+
+    /**
+     * A batch as {@link #renderBatch} plans and renders it: the job table, the rows each planning
+     * step leaves to render, and the outcome of the jobs.
+     */
+    private static final class Batch {
+
+        final TextConfig textConfig;
+        final JobTable table;
+        final int csvRows;
+        /** Jobs of this instance's rows before completed rows are skipped, for the shard manifest */
+        final List<RenderJob> selectedJobs;
+        /** Rows completed, including those an earlier run completed, for the shard manifest */
+        final BitSet completedRows = new BitSet();
+        final AtomicInteger completions = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        /** Table positions of deduplicated rows whose output was written, to link their duplicates to */
+        final BitSet writtenPrimaries = new BitSet();
+        IntPredicate selected;
+        List<RenderJob> jobs;
+        ResumeJournal journal;
+        int resumedCount;
+        IncrementalIndex index;
+        byte[] batchDigest;
+        int unchangedCount;
+        JobPlanner.Plan plan;
+
+        Batch(TextConfig textConfig, JobTable table, int csvRows, IntPredicate selected) {
+            this.textConfig = textConfig;
+            this.table = table;
+            this.csvRows = csvRows;
+            this.selected = selected;
+            this.jobs = table.select(selected);
+            this.selectedJobs = jobs;
+        }
+
+        /**
+         * Narrows the rows left to render.
+         */
+        void select(IntPredicate filter) {
+            selected = selected.and(filter);
+            jobs = table.select(selected);
+        }
+
+        /**
+         * @return the jobs to render: all jobs left, or one per set of identical rows when deduplicating
+         */
+        List<RenderJob> renderJobs() {
+            return plan != null ? plan.unique() : jobs;
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.RowRange;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link RowRange}.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"1-500" → rows 1 to 500</li>
+ *   <li>"501-" → row 501 to the end of the file</li>
+ *   <li>"42" → row 42 only</li>
+ * </ul>
+ * </p>
+ */
+public class RowRangeConverter implements ITypeConverter<RowRange> {
+    
+    @Override
+    public RowRange convert(String value) throws Exception {
+        if (value == null || value.isBlank()) {
+            return RowRange.ALL;
+        }
+        
+        try {
+            return RowRange.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid row range: '%s'. Valid values: A-B, A-, A (%s)", value, e.getMessage()));
+        }
+    }
+}
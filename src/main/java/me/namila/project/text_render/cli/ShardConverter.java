@@ -0,0 +1,27 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.Shard;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link Shard}.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"1/4" → the first of four shards</li>
+ *   <li>"4/4" → the last of four shards</li>
+ * </ul>
+ * </p>
+ */
+public class ShardConverter implements ITypeConverter<Shard> {
+    
+    @Override
+    public Shard convert(String value) throws Exception {
+        try {
+            return Shard.parse(value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid shard: '%s'. Valid values: i/N with 1 <= i <= N (%s)", value, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.ShardKey;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link ShardKey} enum.
+ * Converts string input to ShardKey in a case-insensitive manner.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"row" → ShardKey.ROW</li>
+ *   <li>"NAME" → ShardKey.NAME</li>
+ * </ul>
+ * </p>
+ */
+public class ShardKeyConverter implements ITypeConverter<ShardKey> {
+    
+    @Override
+    public ShardKey convert(String value) throws Exception {
+        if (value == null || value.isBlank()) {
+            return ShardKey.ROW; // Default to exact balance
+        }
+        
+        try {
+            return ShardKey.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid shard key: '%s'. Valid values: row, name", value));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.StripePolicy;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Picocli type converter for {@link StripePolicy} enum.
+ * Converts string input to StripePolicy in a case-insensitive manner, accepting either
+ * dashes or underscores.
+ * 
+ * <p>Examples:
+ * <ul>
+ *   <li>"round-robin" → StripePolicy.ROUND_ROBIN</li>
+ *   <li>"LEAST_QUEUED" → StripePolicy.LEAST_QUEUED</li>
+ * </ul>
+ * </p>
+ */
+public class StripePolicyConverter implements ITypeConverter<StripePolicy> {
+    
+    @Override
+    public StripePolicy convert(String value) throws Exception {
+        if (value == null || value.isBlank()) {
+            return StripePolicy.ROUND_ROBIN; // Default to even distribution
+        }
+        
+        try {
+            return StripePolicy.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid stripe policy: '%s'. Valid values: round-robin, least-queued", value));
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.BulkTextRendererApp;
+import me.namila.project.text_render.model.ExecutionReport;
+import me.namila.project.text_render.model.RowRange;
+import me.namila.project.text_render.output.StripedOutputSink;
+import me.namila.project.text_render.util.NativeImageUtil;
+import me.namila.project.text_render.util.ProgressTracker;
+import me.namila.project.text_render.util.RejectsWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a batch in several child processes, each rendering a range of rows with its own heap.
+ *
+ * <p>Every worker is a separate {@link BulkTextRendererApp} process started with the arguments of
+ * the supervising command plus {@code --rows} and a journal, rejects file and manifest of its own.
+ * The supervisor follows the progress the workers print and adds it to one progress bar. A worker
+ * that crashes, for example because it ran out of memory (JVM workers exit on
+ * {@link OutOfMemoryError}), is restarted with {@code --resume}, so its journal skips the rows it
+ * already completed, up to {@value #MAX_RESTARTS} times. A worker that fails normally, with exit
+ * code 1 or 2, is not restarted, since a new attempt would fail the same way.</p>
+ *
+ * <p>Once every worker has finished, the rejects files of the workers' last attempts are combined
+ * into the batch's rejects file and the manifests, when outputs are striped, into the batch's
+ * manifest. Rows an attempt rejected before crashing are not in the journal and are retried by the
+ * next attempt, so only the last attempt's rejects count. Outputs written by an attempt that
+ * crashed are not in a manifest, since the manifest is only written when an attempt finishes.</p>
+ */
+class WorkerSupervisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerSupervisor.class);
+
+    /**
+     * Times a crashed worker is restarted before its remaining rows are given up.
+     */
+    static final int MAX_RESTARTS = 2;
+
+    /**
+     * Options the supervisor sets for each worker itself.
+     */
+    static final Set<String> WORKER_OPTIONS = Set.of(
+        "--workers", "--worker-heap", "--rows", "--journal", "--rejects", "--manifest");
+
+    /**
+     * Flags the supervisor sets for each worker itself.
+     */
+    static final Set<String> WORKER_FLAGS = Set.of("--resume");
+
+    private static final Pattern PROGRESS = Pattern.compile("Progress: (\\d+)/(\\d+)");
+    private static final Pattern RESUMED = Pattern.compile("Resuming: (\\d+) of (\\d+)");
+
+    /**
+     * Files a worker uses, next to the batch's own.
+     *
+     * @param id       the worker number, from 1
+     * @param rows     the rows the worker renders
+     * @param journal  the worker's journal, kept across restarts
+     * @param rejects  prefix of the rejects file of each attempt
+     * @param manifest prefix of the manifest of each attempt, or null if outputs are not striped
+     */
+    record Worker(int id, RowRange rows, Path journal, Path rejects, Path manifest) {
+
+        Path rejectsOf(int attempt) {
+            return rejects.resolveSibling(rejects.getFileName() + "." + attempt);
+        }
+
+        Path manifestOf(int attempt) {
+            return manifest.resolveSibling(manifest.getFileName() + "." + attempt);
+        }
+    }
+
+    /**
+     * How a worker ended.
+     *
+     * @param worker   the worker
+     * @param exitCode the exit code of its last attempt
+     * @param attempts the number of processes started
+     * @param rendered rows rendered in this run, as completed in the journal of the last attempt
+     * @param resumed  rows an earlier run of the batch had completed
+     * @param failed   rows recorded in the rejects file of the worker's last attempt
+     */
+    record Result(Worker worker, int exitCode, int attempts, int rendered, int resumed, int failed) {
+
+        /**
+         * @return true if the worker kept crashing and was given up
+         */
+        boolean gaveUp() {
+            return exitCode != 0 && exitCode != 1 && exitCode != 2;
+        }
+
+        /**
+         * @return rows that were neither rendered nor recorded as failed
+         */
+        int unfinished() {
+            return (int) Math.max(0, worker.rows().size() - rendered - resumed - failed);
+        }
+    }
+
+    private final List<String> launcher;
+    private final List<String> arguments;
+    private final boolean resume;
+    private final ProgressTracker tracker;
+    private final Set<Process> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param launcher  the command starting a worker process, without arguments
+     * @param arguments the arguments every worker gets, without the {@link #WORKER_OPTIONS}
+     * @param resume    true if the first attempt of each worker resumes from its journal
+     * @param tracker   receives the combined progress of all workers
+     */
+    WorkerSupervisor(List<String> launcher, List<String> arguments, boolean resume, ProgressTracker tracker) {
+        this.launcher = List.copyOf(launcher);
+        this.arguments = List.copyOf(arguments);
+        this.resume = resume;
+        this.tracker = tracker;
+    }
+
+    /**
+     * Runs the workers in parallel and waits for all of them.
+     *
+     * @param workers the workers
+     * @return the result of each worker, in the given order
+     * @throws IOException if a worker process cannot be started
+     * @throws InterruptedException if interrupted while waiting; running workers are killed
+     */
+    List<Result> run(List<Worker> workers) throws IOException, InterruptedException {
+        // Workers would outlive a supervisor that is stopped, e.g. with Ctrl-C
+        Thread stopWorkers = new Thread(() -> running.forEach(Process::destroy), "worker-shutdown");
+        Runtime.getRuntime().addShutdownHook(stopWorkers);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Worker worker : workers) {
+                futures.add(executor.submit(() -> runWorker(worker)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException("Worker supervision failed", e.getCause());
+        } finally {
+            running.forEach(Process::destroyForcibly);
+            executor.shutdownNow();
+            Runtime.getRuntime().removeShutdownHook(stopWorkers);
+        }
+    }
+
+    private Result runWorker(Worker worker) throws IOException, InterruptedException {
+        WorkerProgress progress = new WorkerProgress();
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            List<String> command = command(worker, attempt);
+            logger.debug("Starting worker {} attempt {}: {}", worker.id(), attempt, command);
+            Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+            running.add(process);
+            int exitCode;
+            try {
+                followOutput(process, worker, attempt, progress);
+                exitCode = process.waitFor();
+            } finally {
+                running.remove(process);
+            }
+            boolean crashed = exitCode != 0 && exitCode != 1 && exitCode != 2;
+            if (!crashed || attempt > MAX_RESTARTS) {
+                if (crashed) {
+                    logger.error("Worker {} (rows {}) crashed {} times; giving up on its remaining rows",
+                        worker.id(), worker.rows(), attempt);
+                }
+                return new Result(worker, exitCode, attempt, progress.rendered, progress.resumed,
+                    countRejects(worker.rejectsOf(attempt)));
+            }
+            logger.warn("Worker {} (rows {}) exited with code {}; restarting it to finish its remaining rows",
+                worker.id(), worker.rows(), exitCode);
+        }
+    }
+
+    private List<String> command(Worker worker, int attempt) {
+        List<String> command = new ArrayList<>(launcher);
+        command.addAll(arguments);
+        // A profile might ask for workers too; workers never start workers of their own
+        command.add("--workers=1");
+        command.add("--rows=" + worker.rows());
+        command.add("--journal=" + worker.journal());
+        command.add("--rejects=" + worker.rejectsOf(attempt));
+        if (worker.manifest() != null) {
+            command.add("--manifest=" + worker.manifestOf(attempt));
+        }
+        // Later attempts always resume, so rows completed before a crash are not rendered again
+        if (resume || attempt > 1) {
+            command.add("--resume");
+        }
+        return command;
+    }
+
+    /**
+     * Reads a worker's standard output until it exits, adding its progress to the tracker.
+     * Progress is printed as {@code \rProgress: n/total}, so lines end at carriage returns too.
+     * Rows that an earlier run of the batch completed count as progress when the first attempt
+     * resumes. A later attempt resumes the rows earlier attempts completed, which were already
+     * counted; rows an attempt rendered but had not yet recorded in the journal when it crashed
+     * are rendered again and only counted once.
+     */
+    private void followOutput(Process process, Worker worker, int attempt, WorkerProgress progress)
+            throws IOException {
+        // Rows of this run that earlier attempts completed and this attempt resumed
+        int carried = 0;
+        progress.rendered = 0;
+        StringBuilder line = new StringBuilder();
+        try (Reader reader = new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)) {
+            int c;
+            do {
+                c = reader.read();
+                if (c >= 0 && c != '\r' && c != '\n') {
+                    line.append((char) c);
+                    continue;
+                }
+                // A worker that crashed may have left its last progress unterminated
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Matcher progressLine = PROGRESS.matcher(line);
+                Matcher resuming = RESUMED.matcher(line);
+                if (progressLine.find()) {
+                    progress.rendered = carried + Integer.parseInt(progressLine.group(1));
+                    for (; progress.counted < progress.rendered; progress.counted++) {
+                        tracker.increment();
+                    }
+                } else if (resuming.find()) {
+                    int resumed = Integer.parseInt(resuming.group(1));
+                    if (attempt == 1) {
+                        progress.resumed = resumed;
+                        for (int i = 0; i < resumed; i++) {
+                            tracker.increment();
+                        }
+                    } else {
+                        carried = Math.max(0, resumed - progress.resumed);
+                        progress.rendered = carried;
+                    }
+                } else {
+                    logger.debug("[worker {}] {}", worker.id(), line);
+                }
+                line.setLength(0);
+            } while (c >= 0);
+        }
+    }
+
+    /**
+     * Rows of one worker over its attempts.
+     */
+    private static final class WorkerProgress {
+
+        /** Rows an earlier run of the batch completed, resumed by the first attempt */
+        int resumed;
+        /** Rows rendered in this run as of the current attempt: those it resumed from earlier attempts plus its own */
+        int rendered;
+        /** Rows rendered in this run that were added to the tracker */
+        int counted;
+    }
+
+    private static int countRejects(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return (int) lines.skip(1).filter(line -> !line.isEmpty()).count();
+        }
+    }
+
+    /**
+     * Combines the rejects files of the workers' last attempts into one rejects file and deletes
+     * the rejects files of all attempts.
+     *
+     * @param results the worker results
+     * @param target  the batch's rejects file
+     * @return the number of rejected rows
+     * @throws IOException if a file cannot be read or written
+     */
+    static int mergeRejects(List<Result> results, Path target) throws IOException {
+        List<String> rows = new ArrayList<>();
+        List<Path> parts = new ArrayList<>();
+        for (Result result : results) {
+            for (int attempt = 1; attempt <= result.attempts(); attempt++) {
+                Path part = result.worker().rejectsOf(attempt);
+                if (!Files.exists(part)) {
+                    continue;
+                }
+                if (attempt == result.attempts()) {
+                    List<String> lines = Files.readAllLines(part, StandardCharsets.UTF_8);
+                    lines.stream().skip(1).filter(line -> !line.isEmpty()).forEach(rows::add);
+                }
+                parts.add(part);
+            }
+        }
+        if (!rows.isEmpty()) {
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                writer.write(RejectsWriter.HEADER);
+                writer.newLine();
+                for (String row : rows) {
+                    writer.write(row);
+                    writer.newLine();
+                }
+            }
+        }
+        for (Path part : parts) {
+            Files.deleteIfExists(part);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Combines the manifests of every attempt into the batch's manifest and deletes them.
+     *
+     * @param results the worker results
+     * @param target  the batch's manifest
+     * @return the number of outputs in the manifest
+     * @throws IOException if a file cannot be read or written
+     */
+    static int mergeManifests(List<Result> results, Path target) throws IOException {
+        List<Path> parts = new ArrayList<>();
+        for (Result result : results) {
+            if (result.worker().manifest() == null) {
+                continue;
+            }
+            for (int attempt = 1; attempt <= result.attempts(); attempt++) {
+                Path part = result.worker().manifestOf(attempt);
+                if (Files.exists(part)) {
+                    parts.add(part);
+                }
+            }
+        }
+        int outputs = StripedOutputSink.mergeManifests(parts, target);
+        for (Path part : parts) {
+            Files.deleteIfExists(part);
+        }
+        return outputs;
+    }
+
+    /**
+     * Adds up the results of all workers.
+     *
+     * @param results the worker results
+     * @param total   the rows of the batch
+     * @return the batch summary; rows a failed or given-up worker left unfinished count as failed
+     */
+    static ExecutionReport report(List<Result> results, int total) {
+        int rendered = 0;
+        int resumed = 0;
+        int failed = 0;
+        for (Result result : results) {
+            rendered += result.rendered();
+            resumed += result.resumed();
+            failed += result.failed() + (result.exitCode() != 0 ? result.unfinished() : 0);
+        }
+        return new ExecutionReport(total, rendered, 0, resumed, 0, failed);
+    }
+
+    /**
+     * Removes the options the supervisor sets for each worker from the command line.
+     *
+     * @param args the supervisor's arguments
+     * @return the arguments shared by all workers
+     */
+    static List<String> workerArguments(List<String> args) {
+        List<String> shared = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            int equals = arg.indexOf('=');
+            String name = equals < 0 ? arg : arg.substring(0, equals);
+            if (WORKER_OPTIONS.contains(name)) {
+                if (equals < 0) {
+                    i++;
+                }
+            } else if (!WORKER_FLAGS.contains(name)) {
+                shared.add(arg);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Builds the command that starts a worker: this executable for a native image, otherwise
+     * the running JVM with the same class path. Workers of a headless supervisor are headless too.
+     * JVM workers exit when they run out of memory, so the supervisor can restart them.
+     *
+     * @param maxHeap the maximum heap of each worker, e.g. {@code 2g}, or null for the default
+     * @return the command, without arguments
+     */
+    static List<String> launcher(String maxHeap) {
+        String executable = ProcessHandle.current().info().command()
+            .orElseGet(() -> Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        List<String> command = new ArrayList<>();
+        command.add(executable);
+        if (maxHeap != null) {
+            command.add("-Xmx" + maxHeap);
+        }
+        // Workers would otherwise ask for a display the supervisor runs without
+        if (GraphicsEnvironment.isHeadless()) {
+            command.add("-Djava.awt.headless=true");
+        }
+        if (!NativeImageUtil.isNativeImage()) {
+            command.add("-XX:+ExitOnOutOfMemoryError");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(BulkTextRendererApp.class.getName());
+        }
+        return command;
+    }
+}
@@ -0,0 +1,37 @@
+package me.namila.project.text_render.codec;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Incrementally encodes an image that is supplied as consecutive horizontal bands, top to bottom.
+ *
+ * <p>Used by the streaming renderers so only one band of the image needs to be in memory at a time.
+ * Callers write every band, call {@link #finish()} and then {@link #close()}; closing without
+ * finishing releases resources but leaves the output incomplete.</p>
+ */
+public interface BandEncoder extends Closeable {
+
+    /**
+     * Encodes the next band. All bands must have the image width; their heights must add up to
+     * the image height.
+     *
+     * @param band the next rows of the image
+     * @throws IOException if encoding or writing fails
+     */
+    void writeBand(BufferedImage band) throws IOException;
+
+    /**
+     * Writes the end of the image after the last band. Does not close the underlying stream.
+     *
+     * @throws IOException if writing fails or fewer rows than the image height were written
+     */
+    void finish() throws IOException;
+
+    /**
+     * Releases encoder resources. Does not close the underlying stream.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,77 @@
+package me.namila.project.text_render.codec;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Growable byte buffer that a {@link Deflater} writes straight into.
+ */
+final class DeflateBuffer {
+
+    private static final int MIN_SPARE = 1024;
+
+    private byte[] data;
+    private int length;
+
+    DeflateBuffer(int initialCapacity) {
+        this.data = new byte[Math.max(MIN_SPARE, initialCapacity)];
+    }
+
+    /**
+     * Feeds {@code len} bytes to the deflater and collects all output it produces.
+     */
+    void deflate(Deflater deflater, byte[] input, int off, int len) {
+        deflater.setInput(input, off, len);
+        while (!deflater.needsInput()) {
+            deflateOnce(deflater, Deflater.NO_FLUSH);
+        }
+    }
+
+    /**
+     * Flushes pending output with the given mode ({@link Deflater#SYNC_FLUSH} or
+     * {@link Deflater#FULL_FLUSH}); the result ends on a byte boundary.
+     */
+    void flush(Deflater deflater, int mode) {
+        while (deflateOnce(deflater, mode)) {
+            // keep flushing until the deflater has spare output space
+        }
+    }
+
+    /**
+     * Finishes the deflate stream, emitting the final block.
+     */
+    void finish(Deflater deflater) {
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflateOnce(deflater, Deflater.NO_FLUSH);
+        }
+    }
+
+    byte[] data() {
+        return data;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /**
+     * @return a copy trimmed to the written length
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(data, length);
+    }
+
+    /**
+     * @return true if the deflater filled all available space and may have more output pending
+     */
+    private boolean deflateOnce(Deflater deflater, int flush) {
+        if (data.length - length < MIN_SPARE) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        int space = data.length - length;
+        int n = deflater.deflate(data, length, space, flush);
+        length += n;
+        return n == space;
+    }
+}
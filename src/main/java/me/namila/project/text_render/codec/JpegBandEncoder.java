@@ -0,0 +1,82 @@
+package me.namila.project.text_render.codec;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streams a baseline JPEG band by band.
+ *
+ * <p>Each band is encoded on its own with a restart marker per MCU row (see
+ * {@link JpegRestartEncoder}); the header of the first band, with its height patched to the full
+ * image height, is followed by the entropy-coded segments of every band and renumbered restart
+ * markers. The result decodes exactly like a single restart-marker encode of the whole image.</p>
+ *
+ * <p>Every band except the last must be a multiple of the MCU height in rows; a multiple of
+ * {@link #BAND_ALIGNMENT} always is.</p>
+ */
+public final class JpegBandEncoder implements BandEncoder {
+
+    /**
+     * Row alignment that satisfies every chroma subsampling the JDK writer uses.
+     */
+    public static final int BAND_ALIGNMENT = 16;
+
+    private final int width;
+    private final int height;
+    private final OutputStream out;
+    private int rowsWritten;
+    private int segmentsWritten;
+
+    /**
+     * @param width  the image width
+     * @param height the image height
+     * @param out    the destination stream, not closed by this encoder
+     */
+    public JpegBandEncoder(int width, int height, OutputStream out) {
+        this.width = width;
+        this.height = height;
+        this.out = out;
+    }
+
+    @Override
+    public void writeBand(BufferedImage band) throws IOException {
+        if (band.getWidth() != width) {
+            throw new IllegalArgumentException("Band width " + band.getWidth() + " does not match image width " + width);
+        }
+        if (rowsWritten + band.getHeight() > height) {
+            throw new IllegalArgumentException("Bands exceed the image height of " + height);
+        }
+        JpegRestartEncoder.Encoded encoded = JpegRestartEncoder.encode(band);
+        boolean last = rowsWritten + band.getHeight() == height;
+        if (!last && band.getHeight() % encoded.mcuHeight() != 0) {
+            throw new IllegalArgumentException("Band height " + band.getHeight()
+                + " is not a multiple of the MCU height " + encoded.mcuHeight());
+        }
+
+        if (rowsWritten == 0) {
+            encoded.writeHeader(out, height);
+        }
+        for (int i = 0; i < encoded.segmentCount(); i++) {
+            if (segmentsWritten > 0) {
+                JpegRestartEncoder.writeRestartMarker(out, segmentsWritten - 1);
+            }
+            encoded.writeSegment(out, i);
+            segmentsWritten++;
+        }
+        rowsWritten += band.getHeight();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IOException("Only " + rowsWritten + " of " + height + " rows were written");
+        }
+        JpegRestartEncoder.writeEndOfImage(out);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release: each band is encoded with its own short-lived writer
+    }
+}
@@ -0,0 +1,131 @@
+package me.namila.project.text_render.codec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Pre-encoded template for incremental JPEG encoding.
+ *
+ * <p>The template is encoded once as a baseline JPEG with a restart marker after every MCU row
+ * (8 or 16 pixel rows, depending on chroma subsampling). Each restart interval is an independent
+ * entropy-coded segment, so an output that only differs from the template under its text is
+ * assembled by re-encoding the MCU rows that intersect the changed region and copying every other
+ * segment byte-for-byte from the template encoding. Besides being faster, the copied areas suffer
+ * no additional generation loss.</p>
+ *
+ * <p>Instances are immutable after {@link #build} and safe to share between threads.</p>
+ */
+public final class JpegRestartCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JpegRestartCache.class);
+
+    private final int width;
+    private final int height;
+    private final JpegRestartEncoder.Encoded template;
+
+    private JpegRestartCache(int width, int height, JpegRestartEncoder.Encoded template) {
+        this.width = width;
+        this.height = height;
+        this.template = template;
+    }
+
+    /**
+     * Encodes the template with one restart interval per MCU row.
+     *
+     * @param template the RGB template image exactly as outputs start out before text is drawn
+     * @return the restart cache
+     * @throws IOException if the template cannot be encoded
+     */
+    public static JpegRestartCache build(BufferedImage template) throws IOException {
+        JpegRestartEncoder.Encoded encoded = JpegRestartEncoder.encode(template);
+        logger.debug("Built JPEG restart cache for {}x{} template: {} MCU rows of {} pixels",
+            template.getWidth(), template.getHeight(), encoded.segmentCount(), encoded.mcuHeight());
+        return new JpegRestartCache(template.getWidth(), template.getHeight(), encoded);
+    }
+
+    /**
+     * Checks whether an output image can be encoded from this cache.
+     *
+     * @param image the rendered output
+     * @return true if dimensions match and the image has no alpha channel
+     */
+    public boolean isCompatible(BufferedImage image) {
+        return image.getWidth() == width
+            && image.getHeight() == height
+            && !image.getColorModel().hasAlpha();
+    }
+
+    /**
+     * Encodes the output, re-encoding only the MCU rows that intersect {@code changedRegion}.
+     * All pixels outside the region must be identical to the template.
+     *
+     * @param image         the rendered output (see {@link #isCompatible(BufferedImage)})
+     * @param changedRegion the area that may differ from the template; empty if nothing changed
+     * @param out           the destination stream, not closed
+     * @return the number of MCU rows that were re-encoded
+     * @throws IOException if encoding or writing fails
+     */
+    public int encode(BufferedImage image, Rectangle changedRegion, OutputStream out) throws IOException {
+        if (!isCompatible(image)) {
+            throw new IllegalArgumentException(String.format(
+                "Image %dx%d (alpha=%s) does not match cached template %dx%d",
+                image.getWidth(), image.getHeight(), image.getColorModel().hasAlpha(), width, height));
+        }
+
+        int mcuHeight = template.mcuHeight();
+        int firstDirty = Integer.MAX_VALUE;
+        int lastDirty = Integer.MIN_VALUE;
+        JpegRestartEncoder.Encoded band = null;
+        if (changedRegion != null && !changedRegion.isEmpty()) {
+            int top = Math.max(0, changedRegion.y);
+            int bottom = Math.min(height, changedRegion.y + changedRegion.height);
+            if (top < bottom) {
+                firstDirty = top / mcuHeight;
+                lastDirty = (bottom - 1) / mcuHeight;
+                int y0 = firstDirty * mcuHeight;
+                int y1 = Math.min(height, (lastDirty + 1) * mcuHeight);
+                band = JpegRestartEncoder.encode(image.getSubimage(0, y0, width, y1 - y0));
+                if (band.mcuWidth() != template.mcuWidth() || band.mcuHeight() != mcuHeight) {
+                    throw new IOException("JPEG writer used a different MCU size for the changed band");
+                }
+            }
+        }
+
+        template.writeHeader(out);
+        int segments = template.segmentCount();
+        for (int i = 0; i < segments; i++) {
+            if (i >= firstDirty && i <= lastDirty) {
+                band.writeSegment(out, i - firstDirty);
+            } else {
+                template.writeSegment(out, i);
+            }
+            if (i < segments - 1) {
+                JpegRestartEncoder.writeRestartMarker(out, i);
+            }
+        }
+        JpegRestartEncoder.writeEndOfImage(out);
+
+        int reencoded = band == null ? 0 : lastDirty - firstDirty + 1;
+        logger.debug("Encoded JPEG from restart cache: {}/{} MCU rows re-encoded", reencoded, segments);
+        return reencoded;
+    }
+
+    /**
+     * @return the number of restart intervals (MCU rows) in the template encoding
+     */
+    public int getSegmentCount() {
+        return template.segmentCount();
+    }
+
+    /**
+     * @return the MCU height in pixels
+     */
+    public int getMcuHeight() {
+        return template.mcuHeight();
+    }
+}
@@ -0,0 +1,231 @@
+package me.namila.project.text_render.codec;
+
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Encodes baseline JPEGs with one restart interval per MCU row and splits the result into its
+ * header and per-row entropy-coded segments.
+ *
+ * <p>Because the DC predictors reset at every restart marker and each segment is padded to a byte
+ * boundary, segments produced from different encodes of the same width, tables and sampling can be
+ * freely recombined, as long as the restart markers between them are renumbered
+ * ({@code RST0}..{@code RST7} cycling). The JDK writer's default settings (quality 0.75, standard
+ * Huffman tables, no optimisation) are used so every encode shares the same tables.</p>
+ */
+final class JpegRestartEncoder {
+
+    private static final String NATIVE_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    private static final int MARKER_SOF0 = 0xC0;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int MARKER_RST0 = 0xD0;
+    private static final int MARKER_RST7 = 0xD7;
+
+    private JpegRestartEncoder() {
+        // Utility class
+    }
+
+    /**
+     * Encodes the image with a restart marker after every MCU row.
+     *
+     * @param image an RGB image
+     * @return the parsed encoding
+     * @throws IOException if encoding fails or the output has an unexpected structure
+     */
+    static Encoded encode(BufferedImage image) throws IOException {
+        ImageWriter writer = createWriter();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), param);
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(NATIVE_FORMAT);
+            int[] mcu = mcuSize(root);
+            int mcusPerRow = (image.getWidth() + mcu[0] - 1) / mcu[0];
+            addRestartInterval(root, mcusPerRow);
+            metadata.setFromTree(NATIVE_FORMAT, root);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
+            try (ImageOutputStream ios = new MemoryCacheImageOutputStream(bytes)) {
+                writer.setOutput(ios);
+                writer.write(null, new IIOImage(image, null, metadata), param);
+            }
+            int mcuRows = (image.getHeight() + mcu[1] - 1) / mcu[1];
+            return parse(bytes.toByteArray(), mcu[0], mcu[1], mcuRows);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static ImageWriter createWriter() throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No ImageIO writer available for format: JPEG");
+        }
+        return writers.next();
+    }
+
+    /**
+     * Reads the MCU size (in pixels) from the maximum component sampling factors in the SOF node.
+     */
+    private static int[] mcuSize(IIOMetadataNode root) throws IOException {
+        NodeList components = root.getElementsByTagName("componentSpec");
+        if (components.getLength() == 0) {
+            throw new IOException("JPEG metadata has no component specification");
+        }
+        int maxH = 1;
+        int maxV = 1;
+        for (int i = 0; i < components.getLength(); i++) {
+            IIOMetadataNode component = (IIOMetadataNode) components.item(i);
+            maxH = Math.max(maxH, Integer.parseInt(component.getAttribute("HsamplingFactor")));
+            maxV = Math.max(maxV, Integer.parseInt(component.getAttribute("VsamplingFactor")));
+        }
+        return new int[] {maxH * 8, maxV * 8};
+    }
+
+    private static void addRestartInterval(IIOMetadataNode root, int interval) throws IOException {
+        NodeList sequences = root.getElementsByTagName("markerSequence");
+        if (sequences.getLength() == 0) {
+            throw new IOException("JPEG metadata has no marker sequence");
+        }
+        Node markerSequence = sequences.item(0);
+        IIOMetadataNode dri = new IIOMetadataNode("dri");
+        dri.setAttribute("interval", Integer.toString(interval));
+
+        Node sof = null;
+        for (Node child = markerSequence.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if ("dri".equals(child.getNodeName())) {
+                markerSequence.removeChild(child);
+                break;
+            }
+        }
+        for (Node child = markerSequence.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if ("sof".equals(child.getNodeName())) {
+                sof = child;
+                break;
+            }
+        }
+        markerSequence.insertBefore(dri, sof);
+    }
+
+    /**
+     * Splits an encoded JPEG into header (through the SOS segment) and entropy-coded segments.
+     */
+    static Encoded parse(byte[] jpeg, int mcuWidth, int mcuHeight, int expectedSegments) throws IOException {
+        int pos = 2; // skip SOI
+        int sofOffset = -1;
+        while (true) {
+            if (pos + 4 > jpeg.length || (jpeg[pos] & 0xFF) != 0xFF) {
+                throw new IOException("Malformed JPEG header at offset " + pos);
+            }
+            int marker = jpeg[pos + 1] & 0xFF;
+            int length = ((jpeg[pos + 2] & 0xFF) << 8) | (jpeg[pos + 3] & 0xFF);
+            if (marker == MARKER_SOF0) {
+                sofOffset = pos;
+            }
+            pos += 2 + length;
+            if (marker == MARKER_SOS) {
+                break;
+            }
+        }
+        if (sofOffset < 0) {
+            throw new IOException("JPEG is not baseline (no SOF0 marker)");
+        }
+        int headerLength = pos;
+
+        int[] starts = new int[expectedSegments];
+        int[] ends = new int[expectedSegments];
+        int segment = 0;
+        starts[0] = pos;
+        for (int i = pos; i < jpeg.length - 1; i++) {
+            if ((jpeg[i] & 0xFF) != 0xFF) {
+                continue;
+            }
+            int marker = jpeg[i + 1] & 0xFF;
+            if (marker >= MARKER_RST0 && marker <= MARKER_RST7 || marker == MARKER_EOI) {
+                if (segment >= expectedSegments) {
+                    throw new IOException("JPEG has more restart intervals than MCU rows");
+                }
+                ends[segment++] = i;
+                if (marker == MARKER_EOI) {
+                    break;
+                }
+                if (segment < expectedSegments) {
+                    starts[segment] = i + 2;
+                }
+                i++;
+            }
+        }
+        if (segment != expectedSegments) {
+            throw new IOException("Expected " + expectedSegments + " restart intervals but found " + segment);
+        }
+        return new Encoded(jpeg, headerLength, sofOffset, starts, ends, mcuWidth, mcuHeight);
+    }
+
+    /**
+     * A JPEG split into header and one entropy-coded segment per MCU row.
+     *
+     * @param bytes        the complete encoded file
+     * @param headerLength bytes from SOI through the end of the SOS segment
+     * @param sofOffset    offset of the SOF0 marker within the header
+     * @param starts       start offset of each segment
+     * @param ends         end offset (exclusive, excluding the following marker) of each segment
+     * @param mcuWidth     MCU width in pixels
+     * @param mcuHeight    MCU height in pixels
+     */
+    record Encoded(byte[] bytes, int headerLength, int sofOffset, int[] starts, int[] ends,
+                   int mcuWidth, int mcuHeight) {
+
+        int segmentCount() {
+            return starts.length;
+        }
+
+        void writeHeader(OutputStream out) throws IOException {
+            out.write(bytes, 0, headerLength);
+        }
+
+        /**
+         * Writes the header with the SOF image height replaced, for assembling a taller image.
+         */
+        void writeHeader(OutputStream out, int imageHeight) throws IOException {
+            byte[] header = Arrays.copyOf(bytes, headerLength);
+            // SOF0: marker(2) length(2) precision(1) height(2) width(2) ...
+            header[sofOffset + 5] = (byte) (imageHeight >>> 8);
+            header[sofOffset + 6] = (byte) imageHeight;
+            out.write(header);
+        }
+
+        void writeSegment(OutputStream out, int index) throws IOException {
+            out.write(bytes, starts[index], ends[index] - starts[index]);
+        }
+    }
+
+    /**
+     * Writes the restart marker that follows the segment at {@code index} in the final image.
+     */
+    static void writeRestartMarker(OutputStream out, int index) throws IOException {
+        out.write(0xFF);
+        out.write(MARKER_RST0 + (index & 7));
+    }
+
+    static void writeEndOfImage(OutputStream out) throws IOException {
+        out.write(0xFF);
+        out.write(MARKER_EOI);
+    }
+}
@@ -0,0 +1,168 @@
+package me.namila.project.text_render.codec;
+
+import me.namila.project.text_render.model.PngEncodeOptions;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * Produces a PNG zlib (IDAT) stream by deflating bands of scanlines on several cores, pigz style.
+ *
+ * <p>The image is split into bands of roughly {@link #TARGET_BAND_BYTES} filtered bytes. Each band is
+ * compressed as raw deflate on the common {@link ForkJoinPool}, primed with the last 32 KiB of the
+ * previous band's filtered data as preset dictionary so compression ratio stays close to a
+ * single-threaded encode. Every band but the last ends with a sync flush, which byte-aligns the
+ * output, so the bands can simply be concatenated behind one zlib header. The Adler-32 trailer is
+ * assembled from the per-band checksums with {@link Zlib#combineAdler32(long, long, long)}.</p>
+ *
+ * <p>At most {@code encodeThreads} bands are in flight at once, which bounds both CPU use and the
+ * memory held by compressed bands waiting to be written in order.</p>
+ */
+final class ParallelIdatCompressor {
+
+    static final int TARGET_BAND_BYTES = 256 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final PngEncodeOptions options;
+    private final Supplier<Deflater> deflaterSupplier;
+    private final Consumer<Deflater> deflaterRelease;
+
+    ParallelIdatCompressor(PngEncodeOptions options,
+                           Supplier<Deflater> deflaterSupplier,
+                           Consumer<Deflater> deflaterRelease) {
+        this.options = options;
+        this.deflaterSupplier = deflaterSupplier;
+        this.deflaterRelease = deflaterRelease;
+    }
+
+    /**
+     * Returns the number of rows per band for the given row size.
+     */
+    static int bandRows(int rowBytes) {
+        return Math.max(1, TARGET_BAND_BYTES / (rowBytes + 1));
+    }
+
+    /**
+     * Writes the complete zlib stream (header, deflate data, Adler-32) for the image into {@code out}.
+     */
+    void compress(BufferedImage image, int rowBytes, OutputStream out) throws IOException {
+        int height = image.getHeight();
+        int bandRows = bandRows(rowBytes);
+        int bandCount = (height + bandRows - 1) / bandRows;
+        int window = Math.max(1, options.encodeThreads());
+
+        out.write(Zlib.header(options.compressionLevel()));
+
+        long adler = 1L;
+        Deque<CompletableFuture<CompressedBand>> inFlight = new ArrayDeque<>();
+        try {
+            for (int band = 0; band < bandCount; band++) {
+                int y0 = band * bandRows;
+                int y1 = Math.min(height, y0 + bandRows);
+                boolean last = band == bandCount - 1;
+                inFlight.add(CompletableFuture.supplyAsync(
+                    () -> compressBand(image, rowBytes, y0, y1, last), ForkJoinPool.commonPool()));
+
+                if (inFlight.size() >= window) {
+                    adler = writeBand(inFlight.poll(), adler, out);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                adler = writeBand(inFlight.poll(), adler, out);
+            }
+        } finally {
+            inFlight.forEach(f -> f.cancel(false));
+        }
+
+        Zlib.writeAdler32(out, adler);
+    }
+
+    private long writeBand(CompletableFuture<CompressedBand> future, long adler, OutputStream out) throws IOException {
+        CompressedBand band;
+        try {
+            band = future.join();
+        } catch (CompletionException e) {
+            throw new IOException("Parallel PNG compression failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        out.write(band.data(), 0, band.length());
+        return Zlib.combineAdler32(adler, band.adler32(), band.inputLength());
+    }
+
+    /**
+     * Filters and deflates rows {@code [y0, y1)}. Runs on a pool thread with its own row reader.
+     */
+    private CompressedBand compressBand(BufferedImage image, int rowBytes, int y0, int y1, boolean last) {
+        PixelRowReader rows = new PixelRowReader(image);
+        ScanlineFilter filter = new ScanlineFilter(options.filterStrategy(), rows.bytesPerPixel(), rowBytes);
+        byte[] current = new byte[rowBytes];
+        byte[] previous = new byte[rowBytes];
+
+        Deflater deflater = deflaterSupplier.get();
+        try {
+            if (y0 > 0) {
+                previous = primeDictionary(deflater, rows, filter, rowBytes, y0, current, previous);
+                current = new byte[rowBytes];
+            }
+
+            Adler32 adler = new Adler32();
+            DeflateBuffer output = new DeflateBuffer((y1 - y0) * (rowBytes + 1) / 2);
+            for (int y = y0; y < y1; y++) {
+                rows.readRow(y, current);
+                byte[] filtered = filter.filter(current, previous);
+                adler.update(filtered, 0, rowBytes + 1);
+                output.deflate(deflater, filtered, 0, rowBytes + 1);
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+
+            if (last) {
+                output.finish(deflater);
+            } else {
+                // Sync flush ends the band on a byte boundary without a final block
+                output.flush(deflater, Deflater.SYNC_FLUSH);
+            }
+            return new CompressedBand(output.data(), output.length(), adler.getValue(), (long) (y1 - y0) * (rowBytes + 1));
+        } finally {
+            deflaterRelease.accept(deflater);
+        }
+    }
+
+    /**
+     * Re-filters the tail of the previous band and installs it as preset dictionary.
+     *
+     * @return the raw bytes of row {@code y0 - 1}, needed to filter row {@code y0}
+     */
+    private byte[] primeDictionary(Deflater deflater, PixelRowReader rows, ScanlineFilter filter,
+                                   int rowBytes, int y0, byte[] current, byte[] previous) {
+        int dictRows = Math.min(y0, (DICTIONARY_SIZE + rowBytes) / (rowBytes + 1));
+        int start = y0 - dictRows;
+        if (start > 0) {
+            rows.readRow(start - 1, previous);
+        }
+        byte[] dictionary = new byte[dictRows * (rowBytes + 1)];
+        for (int y = start, off = 0; y < y0; y++, off += rowBytes + 1) {
+            rows.readRow(y, current);
+            System.arraycopy(filter.filter(current, previous), 0, dictionary, off, rowBytes + 1);
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int dictOffset = Math.max(0, dictionary.length - DICTIONARY_SIZE);
+        deflater.setDictionary(dictionary, dictOffset, dictionary.length - dictOffset);
+        return previous;
+    }
+
+    private record CompressedBand(byte[] data, int length, long adler32, long inputLength) {}
+}
@@ -0,0 +1,199 @@
+package me.namila.project.text_render.codec;
+
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Reads image rows as packed 8-bit RGB or RGBA bytes, the sample layout PNG expects.
+ *
+ * <p>The common raster layouts produced by {@code ImageIO} and {@code Graphics2D}
+ * ({@code TYPE_INT_RGB}, {@code TYPE_INT_ARGB}, {@code TYPE_3BYTE_BGR}, {@code TYPE_4BYTE_ABGR})
+ * are read straight from the backing array. Any other layout falls back to
+ * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)} one row at a time.</p>
+ *
+ * <p>Instances keep a small row buffer and are not thread-safe.</p>
+ */
+final class PixelRowReader {
+
+    private final BufferedImage image;
+    private final int width;
+    private final boolean alpha;
+
+    // Packed int layout (TYPE_INT_RGB / TYPE_INT_ARGB)
+    private final int[] intData;
+
+    // Interleaved byte layout (TYPE_3BYTE_BGR / TYPE_4BYTE_ABGR)
+    private final byte[] byteData;
+    private final int[] bandOffsets;
+    private final int pixelStride;
+
+    private final int dataOffset;
+    private final int scanlineStride;
+    private final int translateX;
+    private final int translateY;
+
+    private int[] rgbRow;
+
+    PixelRowReader(BufferedImage image) {
+        this.image = image;
+        this.width = image.getWidth();
+        this.alpha = image.getColorModel().hasAlpha();
+
+        Raster raster = image.getRaster();
+        ColorModel colorModel = image.getColorModel();
+        this.translateX = raster.getSampleModelTranslateX();
+        this.translateY = raster.getSampleModelTranslateY();
+
+        if (isPackedRgb(raster, colorModel)) {
+            SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+            this.intData = ((DataBufferInt) raster.getDataBuffer()).getData();
+            this.dataOffset = raster.getDataBuffer().getOffset();
+            this.scanlineStride = sampleModel.getScanlineStride();
+            this.byteData = null;
+            this.bandOffsets = null;
+            this.pixelStride = 1;
+        } else if (isInterleavedRgb(raster, colorModel)) {
+            ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+            this.byteData = ((DataBufferByte) raster.getDataBuffer()).getData();
+            this.bandOffsets = sampleModel.getBandOffsets();
+            this.pixelStride = sampleModel.getPixelStride();
+            this.dataOffset = raster.getDataBuffer().getOffset();
+            this.scanlineStride = sampleModel.getScanlineStride();
+            this.intData = null;
+        } else {
+            this.intData = null;
+            this.byteData = null;
+            this.bandOffsets = null;
+            this.pixelStride = 1;
+            this.dataOffset = 0;
+            this.scanlineStride = 0;
+        }
+    }
+
+    /**
+     * @return true if rows are emitted as RGBA, false for RGB
+     */
+    boolean hasAlpha() {
+        return alpha;
+    }
+
+    /**
+     * @return bytes per emitted pixel (3 for RGB, 4 for RGBA)
+     */
+    int bytesPerPixel() {
+        return alpha ? 4 : 3;
+    }
+
+    /**
+     * @return bytes per emitted row, excluding the PNG filter byte
+     */
+    int rowBytes() {
+        return width * bytesPerPixel();
+    }
+
+    /**
+     * Reads row {@code y} into {@code dst} starting at index 0.
+     *
+     * @param y   the row to read
+     * @param dst destination buffer of at least {@link #rowBytes()} bytes
+     */
+    void readRow(int y, byte[] dst) {
+        if (intData != null) {
+            readPackedRow(y, dst);
+        } else if (byteData != null) {
+            readInterleavedRow(y, dst);
+        } else {
+            readRgbRow(y, dst);
+        }
+    }
+
+    private void readPackedRow(int y, byte[] dst) {
+        int src = dataOffset + (y - translateY) * scanlineStride - translateX;
+        int d = 0;
+        if (alpha) {
+            for (int x = 0; x < width; x++) {
+                int argb = intData[src + x];
+                dst[d++] = (byte) (argb >>> 16);
+                dst[d++] = (byte) (argb >>> 8);
+                dst[d++] = (byte) argb;
+                dst[d++] = (byte) (argb >>> 24);
+            }
+        } else {
+            for (int x = 0; x < width; x++) {
+                int rgb = intData[src + x];
+                dst[d++] = (byte) (rgb >>> 16);
+                dst[d++] = (byte) (rgb >>> 8);
+                dst[d++] = (byte) rgb;
+            }
+        }
+    }
+
+    private void readInterleavedRow(int y, byte[] dst) {
+        int src = dataOffset + (y - translateY) * scanlineStride - translateX * pixelStride;
+        int bands = bytesPerPixel();
+        int d = 0;
+        for (int x = 0; x < width; x++, src += pixelStride) {
+            for (int b = 0; b < bands; b++) {
+                dst[d++] = byteData[src + bandOffsets[b]];
+            }
+        }
+    }
+
+    private void readRgbRow(int y, byte[] dst) {
+        if (rgbRow == null) {
+            rgbRow = new int[width];
+        }
+        image.getRGB(0, y, width, 1, rgbRow, 0, width);
+        int d = 0;
+        for (int x = 0; x < width; x++) {
+            int argb = rgbRow[x];
+            dst[d++] = (byte) (argb >>> 16);
+            dst[d++] = (byte) (argb >>> 8);
+            dst[d++] = (byte) argb;
+            if (alpha) {
+                dst[d++] = (byte) (argb >>> 24);
+            }
+        }
+    }
+
+    private static boolean isPackedRgb(Raster raster, ColorModel colorModel) {
+        if (!(raster.getDataBuffer() instanceof DataBufferInt)
+                || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)
+                || !(colorModel instanceof DirectColorModel directModel)) {
+            return false;
+        }
+        if (directModel.isAlphaPremultiplied() || !directModel.getColorSpace().isCS_sRGB()) {
+            return false;
+        }
+        boolean rgbMasks = directModel.getRedMask() == 0x00FF0000
+            && directModel.getGreenMask() == 0x0000FF00
+            && directModel.getBlueMask() == 0x000000FF;
+        int alphaMask = directModel.getAlphaMask();
+        return rgbMasks && (alphaMask == 0 || alphaMask == 0xFF000000);
+    }
+
+    private static boolean isInterleavedRgb(Raster raster, ColorModel colorModel) {
+        if (!(raster.getDataBuffer() instanceof DataBufferByte)
+                || !(raster.getSampleModel() instanceof ComponentSampleModel sampleModel)
+                || !(colorModel instanceof ComponentColorModel)) {
+            return false;
+        }
+        if (colorModel.isAlphaPremultiplied()
+                || colorModel.getColorSpace().getType() != ColorSpace.TYPE_RGB
+                || !colorModel.getColorSpace().isCS_sRGB()) {
+            return false;
+        }
+        int expectedBands = colorModel.hasAlpha() ? 4 : 3;
+        return sampleModel.getNumBands() == expectedBands
+            && raster.getDataBuffer().getNumBanks() == 1
+            && colorModel.getComponentSize(0) == 8;
+    }
+}
@@ -0,0 +1,206 @@
+package me.namila.project.text_render.codec;
+
+import me.namila.project.text_render.model.PngEncodeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * Pre-compressed template for incremental PNG encoding.
+ *
+ * <p>The template is filtered and deflated once, in bands of rows. Each band:</p>
+ * <ul>
+ *   <li>starts with a row filtered without reference to the row above, so it decodes the same
+ *       whatever the previous band contains,</li>
+ *   <li>is compressed with a fresh deflater and ends with a full flush, so its compressed bytes
+ *       do not depend on (or reference) any other band.</li>
+ * </ul>
+ *
+ * <p>To encode a rendered output, only the bands that intersect the changed region are filtered and
+ * deflated again; the cached bytes of all other bands are copied as-is and the Adler-32 trailer is
+ * combined from per-band checksums. For a single line of text on a large page this replaces almost
+ * the whole encode with a memory copy.</p>
+ *
+ * <p>Instances are immutable after {@link #build} and safe to share between threads.</p>
+ */
+public final class PngBandCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PngBandCache.class);
+
+    /**
+     * Target filtered bytes per band. Smaller bands re-encode less per job but lose a little
+     * compression at every full flush.
+     */
+    static final int TARGET_BAND_BYTES = 128 * 1024;
+
+    private final PngEncodeOptions options;
+    private final int width;
+    private final int height;
+    private final boolean alpha;
+    private final int rowBytes;
+    private final int bandRows;
+    private final Band[] bands;
+    private final Queue<Deflater> deflaterPool = new ConcurrentLinkedQueue<>();
+
+    private PngBandCache(PngEncodeOptions options, int width, int height, boolean alpha, int rowBytes) {
+        this.options = options;
+        this.width = width;
+        this.height = height;
+        this.alpha = alpha;
+        this.rowBytes = rowBytes;
+        this.bandRows = Math.max(1, TARGET_BAND_BYTES / (rowBytes + 1));
+        this.bands = new Band[(height + bandRows - 1) / bandRows];
+    }
+
+    /**
+     * Compresses the template into independently reusable bands.
+     *
+     * @param template the template image exactly as outputs start out before text is drawn
+     * @param options  encoder options (compression level and filter strategy)
+     * @return the band cache
+     */
+    public static PngBandCache build(BufferedImage template, PngEncodeOptions options) {
+        Objects.requireNonNull(options, "options must not be null");
+        PixelRowReader rows = new PixelRowReader(template);
+        PngBandCache cache = new PngBandCache(options, template.getWidth(), template.getHeight(),
+            rows.hasAlpha(), rows.rowBytes());
+
+        ScanlineFilter filter = new ScanlineFilter(options.filterStrategy(), rows.bytesPerPixel(), rows.rowBytes());
+        for (int i = 0; i < cache.bands.length; i++) {
+            cache.bands[i] = cache.compressBand(rows, filter, i);
+        }
+        logger.debug("Built PNG band cache for {}x{} template: {} bands of {} rows",
+            cache.width, cache.height, cache.bands.length, cache.bandRows);
+        return cache;
+    }
+
+    /**
+     * Checks whether an output image can be encoded from this cache.
+     *
+     * @param image the rendered output
+     * @return true if dimensions and pixel format match the template
+     */
+    public boolean isCompatible(BufferedImage image) {
+        return image.getWidth() == width
+            && image.getHeight() == height
+            && image.getColorModel().hasAlpha() == alpha;
+    }
+
+    /**
+     * Encodes the output, re-compressing only the bands that intersect {@code changedRegion}.
+     * All pixels outside the region must be identical to the template.
+     *
+     * @param image         the rendered output (see {@link #isCompatible(BufferedImage)})
+     * @param changedRegion the area that may differ from the template; empty if nothing changed
+     * @param out           the destination stream, flushed but not closed
+     * @return the number of bands that were re-encoded
+     * @throws IOException if writing to the stream fails
+     */
+    public int encode(BufferedImage image, Rectangle changedRegion, OutputStream out) throws IOException {
+        if (!isCompatible(image)) {
+            throw new IllegalArgumentException(String.format(
+                "Image %dx%d (alpha=%s) does not match cached template %dx%d (alpha=%s)",
+                image.getWidth(), image.getHeight(), image.getColorModel().hasAlpha(), width, height, alpha));
+        }
+
+        int firstDirty = Integer.MAX_VALUE;
+        int lastDirty = Integer.MIN_VALUE;
+        if (changedRegion != null && !changedRegion.isEmpty()) {
+            int top = Math.max(0, changedRegion.y);
+            int bottom = Math.min(height, changedRegion.y + changedRegion.height);
+            if (top < bottom) {
+                firstDirty = top / bandRows;
+                lastDirty = (bottom - 1) / bandRows;
+            }
+        }
+
+        PngChunkWriter chunks = new PngChunkWriter(out);
+        chunks.writeHeader(width, height, alpha);
+        chunks.write(Zlib.header(options.compressionLevel()));
+
+        PixelRowReader rows = null;
+        ScanlineFilter filter = null;
+        long adler = 1L;
+        int reencoded = 0;
+        for (int i = 0; i < bands.length; i++) {
+            Band band = bands[i];
+            if (i >= firstDirty && i <= lastDirty) {
+                if (rows == null) {
+                    rows = new PixelRowReader(image);
+                    filter = new ScanlineFilter(options.filterStrategy(), rows.bytesPerPixel(), rowBytes);
+                }
+                band = compressBand(rows, filter, i);
+                reencoded++;
+            }
+            chunks.write(band.data(), 0, band.data().length);
+            adler = Zlib.combineAdler32(adler, band.adler32(), band.inputLength());
+        }
+        chunks.write(Zlib.EMPTY_FINAL_BLOCK);
+        Zlib.writeAdler32(chunks, adler);
+        chunks.close();
+
+        logger.debug("Encoded PNG from band cache: {}/{} bands re-encoded", reencoded, bands.length);
+        return reencoded;
+    }
+
+    /**
+     * @return the number of bands the template is split into
+     */
+    public int getBandCount() {
+        return bands.length;
+    }
+
+    /**
+     * @return the number of rows per band (the last band may be shorter)
+     */
+    public int getBandRows() {
+        return bandRows;
+    }
+
+    private Band compressBand(PixelRowReader rows, ScanlineFilter filter, int index) {
+        int y0 = index * bandRows;
+        int y1 = Math.min(height, y0 + bandRows);
+        byte[] current = new byte[rowBytes];
+        byte[] previous = new byte[rowBytes];
+        Adler32 adler = new Adler32();
+        DeflateBuffer output = new DeflateBuffer((y1 - y0) * (rowBytes + 1) / 4);
+
+        Deflater deflater = acquireDeflater();
+        try {
+            for (int y = y0; y < y1; y++) {
+                rows.readRow(y, current);
+                byte[] filtered = y == y0 ? filter.filterWithoutPrevious(current) : filter.filter(current, previous);
+                adler.update(filtered, 0, rowBytes + 1);
+                output.deflate(deflater, filtered, 0, rowBytes + 1);
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            output.flush(deflater, Deflater.FULL_FLUSH);
+        } finally {
+            releaseDeflater(deflater);
+        }
+        return new Band(output.toByteArray(), adler.getValue(), (long) (y1 - y0) * (rowBytes + 1));
+    }
+
+    private Deflater acquireDeflater() {
+        Deflater deflater = deflaterPool.poll();
+        return deflater != null ? deflater : new Deflater(options.compressionLevel(), true);
+    }
+
+    private void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        deflaterPool.offer(deflater);
+    }
+
+    private record Band(byte[] data, long adler32, long inputLength) {}
+}
@@ -0,0 +1,116 @@
+package me.namila.project.text_render.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Low-level writer for the PNG container: signature, chunks and the IDAT stream.
+ *
+ * <p>Bytes written through {@link #write(byte[], int, int)} are collected into IDAT chunks of
+ * at most {@link #IDAT_CHUNK_SIZE} bytes. {@link #close()} emits the pending IDAT chunk followed
+ * by IEND but does not close the underlying stream.</p>
+ */
+final class PngChunkWriter extends OutputStream {
+
+    static final int IDAT_CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[IDAT_CHUNK_SIZE];
+    private final byte[] header = new byte[8];
+    private final CRC32 crc = new CRC32();
+    private int count;
+    private boolean closed;
+
+    PngChunkWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the PNG signature and the IHDR chunk for an 8-bit, non-interlaced RGB/RGBA image.
+     */
+    void writeHeader(int width, int height, boolean alpha) throws IOException {
+        out.write(SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, width);
+        putInt(ihdr, 4, height);
+        ihdr[8] = 8;                                            // bit depth
+        ihdr[9] = (byte) (alpha ? COLOR_TYPE_RGBA : COLOR_TYPE_RGB);
+        ihdr[10] = 0;                                           // deflate
+        ihdr[11] = 0;                                           // adaptive filtering
+        ihdr[12] = 0;                                           // no interlace
+        writeChunk(IHDR, ihdr, 0, ihdr.length);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            flushIdat();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buffer.length) {
+                flushIdat();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Emits any pending IDAT data and the IEND chunk. The underlying stream stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flushIdat();
+        writeChunk(IEND, buffer, 0, 0);
+        out.flush();
+    }
+
+    private void flushIdat() throws IOException {
+        if (count > 0) {
+            writeChunk(IDAT, buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void writeChunk(byte[] type, byte[] data, int off, int len) throws IOException {
+        putInt(header, 0, len);
+        System.arraycopy(type, 0, header, 4, 4);
+        out.write(header, 0, 8);
+        out.write(data, off, len);
+
+        crc.reset();
+        crc.update(type);
+        crc.update(data, off, len);
+        putInt(header, 0, (int) crc.getValue());
+        out.write(header, 0, 4);
+    }
+
+    private static void putInt(byte[] dst, int off, int value) {
+        dst[off] = (byte) (value >>> 24);
+        dst[off + 1] = (byte) (value >>> 16);
+        dst[off + 2] = (byte) (value >>> 8);
+        dst[off + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,187 @@
+package me.namila.project.text_render.codec;
+
+import me.namila.project.text_render.model.PngEncodeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Built-in PNG encoder with a configurable deflate level and scanline filter strategy.
+ *
+ * <p>Compared to {@code ImageIO.write(image, "PNG", ...)} this encoder:</p>
+ * <ul>
+ *   <li>reads pixels straight from the image raster one row at a time, without
+ *       copying the whole image,</li>
+ *   <li>lets the caller trade output size for speed via the compression level and filter,</li>
+ *   <li>reuses {@link Deflater} instances (and their native buffers) across images
+ *       through a small pool, so each render worker effectively keeps its own deflater,</li>
+ *   <li>can deflate one large image on several cores when {@code encodeThreads > 1}
+ *       (see {@link ParallelIdatCompressor}).</li>
+ * </ul>
+ *
+ * <p>Output is always 8-bit RGB or RGBA, non-interlaced. Instances are thread-safe.</p>
+ */
+public class PngEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PngEncoder.class);
+
+    private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final PngEncodeOptions options;
+    private final Queue<Deflater> deflaterPool = new ConcurrentLinkedQueue<>();
+    private final Queue<Deflater> rawDeflaterPool = new ConcurrentLinkedQueue<>();
+
+    public PngEncoder(PngEncodeOptions options) {
+        this.options = Objects.requireNonNull(options, "options must not be null");
+    }
+
+    /**
+     * @return the options this encoder was created with
+     */
+    public PngEncodeOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Encodes the image as PNG into the given stream. The stream is flushed but not closed.
+     *
+     * @param image the image to encode
+     * @param out   the destination stream
+     * @throws IOException if writing to the stream fails
+     */
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        PixelRowReader rows = new PixelRowReader(image);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        logger.debug("Encoding {}x{} PNG (alpha={}, level={}, filter={}, threads={})",
+            width, height, rows.hasAlpha(), options.compressionLevel(), options.filterStrategy(),
+            options.encodeThreads());
+
+        PngChunkWriter chunks = new PngChunkWriter(out);
+        chunks.writeHeader(width, height, rows.hasAlpha());
+
+        if (options.isParallel() && height > ParallelIdatCompressor.bandRows(rows.rowBytes())) {
+            new ParallelIdatCompressor(options, this::acquireRawDeflater, this::releaseRawDeflater)
+                .compress(image, rows.rowBytes(), chunks);
+            chunks.close();
+            return;
+        }
+
+        try (BandEncoder rowStream = new RowStream(chunks, rows.rowBytes(), rows.bytesPerPixel(), height)) {
+            rowStream.writeBand(image);
+            rowStream.finish();
+        }
+    }
+
+    /**
+     * Starts a PNG whose rows are supplied band by band, for images too large to hold in memory.
+     * Bands are always deflated on the calling thread, whatever {@code encodeThreads} is set to.
+     *
+     * @param width  the image width
+     * @param height the image height
+     * @param alpha  true to write RGBA, false for RGB; every band must match
+     * @param out    the destination stream, not closed by the returned encoder
+     * @return an encoder accepting the image rows top to bottom
+     * @throws IOException if writing the header fails
+     */
+    public BandEncoder open(int width, int height, boolean alpha, OutputStream out) throws IOException {
+        PngChunkWriter chunks = new PngChunkWriter(out);
+        chunks.writeHeader(width, height, alpha);
+        int bytesPerPixel = alpha ? 4 : 3;
+        return new RowStream(chunks, width * bytesPerPixel, bytesPerPixel, height);
+    }
+
+    private Deflater acquireDeflater() {
+        Deflater deflater = deflaterPool.poll();
+        return deflater != null ? deflater : new Deflater(options.compressionLevel());
+    }
+
+    private void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        deflaterPool.offer(deflater);
+    }
+
+    private Deflater acquireRawDeflater() {
+        Deflater deflater = rawDeflaterPool.poll();
+        return deflater != null ? deflater : new Deflater(options.compressionLevel(), true);
+    }
+
+    private void releaseRawDeflater(Deflater deflater) {
+        deflater.reset();
+        rawDeflaterPool.offer(deflater);
+    }
+
+    /**
+     * Filters and deflates rows into IDAT chunks as bands arrive, keeping the previous row
+     * between bands so filtering is identical to encoding the whole image at once.
+     */
+    private final class RowStream implements BandEncoder {
+
+        private final PngChunkWriter chunks;
+        private final int rowBytes;
+        private final int height;
+        private final Deflater deflater = acquireDeflater();
+        private final DeflaterOutputStream idat;
+        private final ScanlineFilter filter;
+        private byte[] current;
+        private byte[] previous;
+        private int rowsWritten;
+        private boolean released;
+
+        RowStream(PngChunkWriter chunks, int rowBytes, int bytesPerPixel, int height) {
+            this.chunks = chunks;
+            this.rowBytes = rowBytes;
+            this.height = height;
+            this.idat = new DeflaterOutputStream(chunks, deflater, DEFLATE_BUFFER_SIZE);
+            this.filter = new ScanlineFilter(options.filterStrategy(), bytesPerPixel, rowBytes);
+            this.current = new byte[rowBytes];
+            this.previous = new byte[rowBytes];
+        }
+
+        @Override
+        public void writeBand(BufferedImage band) throws IOException {
+            PixelRowReader rows = new PixelRowReader(band);
+            if (rows.rowBytes() != rowBytes) {
+                throw new IllegalArgumentException("Band row layout does not match the image: "
+                    + rows.rowBytes() + " bytes per row, expected " + rowBytes);
+            }
+            if (rowsWritten + band.getHeight() > height) {
+                throw new IllegalArgumentException("Bands exceed the image height of " + height);
+            }
+            for (int y = 0; y < band.getHeight(); y++) {
+                rows.readRow(y, current);
+                idat.write(filter.filter(current, previous), 0, rowBytes + 1);
+
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            rowsWritten += band.getHeight();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (rowsWritten != height) {
+                throw new IOException("Only " + rowsWritten + " of " + height + " rows were written");
+            }
+            idat.finish();
+            chunks.close();
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                releaseDeflater(deflater);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package me.namila.project.text_render.codec;
+
+import me.namila.project.text_render.model.PngFilterStrategy;
+
+/**
+ * Applies PNG scanline filters (RFC 2083, section 6).
+ *
+ * <p>Each filtered row is written into an internal buffer whose first byte is the filter type,
+ * ready to be handed to the deflater. Instances own their buffers and are not thread-safe.</p>
+ */
+final class ScanlineFilter {
+
+    private static final int FILTER_COUNT = 5;
+
+    private final PngFilterStrategy strategy;
+    private final int bytesPerPixel;
+    private final int rowBytes;
+    private final byte[][] candidates;
+
+    ScanlineFilter(PngFilterStrategy strategy, int bytesPerPixel, int rowBytes) {
+        this.strategy = strategy;
+        this.bytesPerPixel = bytesPerPixel;
+        this.rowBytes = rowBytes;
+        int buffers = strategy == PngFilterStrategy.ADAPTIVE ? FILTER_COUNT : 1;
+        this.candidates = new byte[buffers][rowBytes + 1];
+    }
+
+    /**
+     * Filters one row.
+     *
+     * @param current  the raw row bytes
+     * @param previous the raw bytes of the row above (all zero for the first row)
+     * @return a buffer of {@code rowBytes + 1} bytes: the filter type followed by the filtered row
+     */
+    byte[] filter(byte[] current, byte[] previous) {
+        if (strategy != PngFilterStrategy.ADAPTIVE) {
+            byte[] out = candidates[0];
+            apply(strategy.getFilterType(), current, previous, out);
+            return out;
+        }
+
+        byte[] best = null;
+        long bestScore = Long.MAX_VALUE;
+        for (int type = 0; type < FILTER_COUNT; type++) {
+            long score = apply(type, current, previous, candidates[type]);
+            if (score < bestScore) {
+                bestScore = score;
+                best = candidates[type];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Filters one row with a filter that does not reference the row above
+     * ({@code NONE} for the {@code NONE} strategy, otherwise {@code SUB}).
+     * Used for the first row of a band that must decode independently of the rows before it.
+     *
+     * @param current the raw row bytes
+     * @return the filtered row buffer, as for {@link #filter(byte[], byte[])}
+     */
+    byte[] filterWithoutPrevious(byte[] current) {
+        int type = strategy == PngFilterStrategy.NONE ? 0 : 1;
+        byte[] out = candidates[0];
+        apply(type, current, null, out);
+        return out;
+    }
+
+    /**
+     * Writes the filtered row into {@code out} and returns the minimum-sum-of-absolute-differences
+     * score used by the adaptive heuristic.
+     */
+    private long apply(int type, byte[] cur, byte[] prev, byte[] out) {
+        out[0] = (byte) type;
+        int bpp = bytesPerPixel;
+        long score = 0;
+        switch (type) {
+            case 0 -> {
+                System.arraycopy(cur, 0, out, 1, rowBytes);
+                for (int i = 0; i < rowBytes; i++) {
+                    score += Math.abs((int) cur[i]);
+                }
+            }
+            case 1 -> {
+                for (int i = 0; i < rowBytes; i++) {
+                    int left = i >= bpp ? cur[i - bpp] : 0;
+                    byte v = (byte) (cur[i] - left);
+                    out[i + 1] = v;
+                    score += Math.abs((int) v);
+                }
+            }
+            case 2 -> {
+                for (int i = 0; i < rowBytes; i++) {
+                    byte v = (byte) (cur[i] - prev[i]);
+                    out[i + 1] = v;
+                    score += Math.abs((int) v);
+                }
+            }
+            case 3 -> {
+                for (int i = 0; i < rowBytes; i++) {
+                    int left = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                    int up = prev[i] & 0xFF;
+                    byte v = (byte) (cur[i] - ((left + up) >>> 1));
+                    out[i + 1] = v;
+                    score += Math.abs((int) v);
+                }
+            }
+            case 4 -> {
+                for (int i = 0; i < rowBytes; i++) {
+                    int a = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                    int b = prev[i] & 0xFF;
+                    int c = i >= bpp ? prev[i - bpp] & 0xFF : 0;
+                    byte v = (byte) (cur[i] - paethPredictor(a, b, c));
+                    out[i + 1] = v;
+                    score += Math.abs((int) v);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown PNG filter type: " + type);
+        }
+        return score;
+    }
+
+    private static int paethPredictor(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+}
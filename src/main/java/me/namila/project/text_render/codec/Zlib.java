@@ -0,0 +1,74 @@
+package me.namila.project.text_render.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Helpers for assembling a zlib stream (RFC 1950) from independently deflated pieces.
+ */
+final class Zlib {
+
+    /**
+     * An empty, final deflate block using fixed Huffman codes. Appended after a sequence of
+     * flushed raw deflate pieces to terminate the stream.
+     */
+    static final byte[] EMPTY_FINAL_BLOCK = {0x03, 0x00};
+
+    private static final int ADLER_BASE = 65521;
+
+    private Zlib() {
+        // Utility class
+    }
+
+    /**
+     * Builds the two-byte zlib header (deflate, 32 KiB window, no preset dictionary).
+     *
+     * @param compressionLevel the deflate level, only used for the informational FLEVEL bits
+     * @return the header bytes
+     */
+    static byte[] header(int compressionLevel) {
+        int cmf = 0x78;
+        int level = compressionLevel < 2 ? 0 : compressionLevel < 6 ? 1 : compressionLevel == 6 ? 2 : 3;
+        int flg = level << 6;
+        flg += 31 - ((cmf << 8) + flg) % 31;
+        return new byte[] {(byte) cmf, (byte) flg};
+    }
+
+    /**
+     * Writes the Adler-32 trailer in network byte order.
+     */
+    static void writeAdler32(OutputStream out, long adler) throws IOException {
+        out.write(new byte[] {
+            (byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8), (byte) adler
+        });
+    }
+
+    /**
+     * Combines two Adler-32 checksums, as zlib's {@code adler32_combine}.
+     *
+     * @param adler1 checksum of the first sequence
+     * @param adler2 checksum of the second sequence
+     * @param len2   length of the second sequence
+     * @return checksum of the concatenation
+     */
+    static long combineAdler32(long adler1, long adler2, long len2) {
+        long rem = len2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (rem * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= ((long) ADLER_BASE << 1)) {
+            sum2 -= ((long) ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+}
@@ -0,0 +1,25 @@
+package me.namila.project.text_render.model;
+
+/**
+ * How a batch competes with other batches for the slots of a shared scheduler.
+ *
+ * <p>Batches of a higher priority always get the next free slot before batches of a lower
+ * priority. Batches of the same priority share the slots in proportion to their weights: a batch
+ * of weight 3 starts three jobs for every job of a batch of weight 1.</p>
+ *
+ * @param priority higher values are served first
+ * @param weight   share of the slots among batches of the same priority, at least 1
+ */
+public record BatchPriority(int priority, int weight) {
+
+    /**
+     * Priority of batches that do not ask for one.
+     */
+    public static final BatchPriority DEFAULT = new BatchPriority(0, 1);
+
+    public BatchPriority {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Batch weight must be at least 1: " + weight);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package me.namila.project.text_render.model;
+
+/**
+ * Summary of a batch run.
+ *
+ * @param total        rows in the CSV
+ * @param rendered     outputs rendered and written in this run
+ * @param deduplicated outputs produced from an identical output instead of being rendered
+ * @param resumed      rows skipped because an interrupted earlier run completed them
+ * @param unchanged    rows skipped because their output was up to date (incremental mode)
+ * @param failed       rows whose output could not be produced
+ */
+public record ExecutionReport(
+    int total,
+    int rendered,
+    int deduplicated,
+    int resumed,
+    int unchanged,
+    int failed
+) {
+
+    /**
+     * @return the number of renders that were not needed
+     */
+    public int rendersAvoided() {
+        return deduplicated + resumed + unchanged;
+    }
+
+    /**
+     * @return a one-line summary, listing only the counts that apply
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(rendered).append(" rendered");
+        if (deduplicated > 0) {
+            sb.append(", ").append(deduplicated).append(" duplicates linked");
+        }
+        if (resumed > 0) {
+            sb.append(", ").append(resumed).append(" resumed");
+        }
+        if (unchanged > 0) {
+            sb.append(", ").append(unchanged).append(" unchanged");
+        }
+        if (failed > 0) {
+            sb.append(", ").append(failed).append(" failed");
+        }
+        sb.append(" (").append(total).append(" rows");
+        if (rendersAvoided() > 0) {
+            sb.append(", ").append(rendersAvoided()).append(" renders avoided");
+        }
+        return sb.append(')').toString();
+    }
+}
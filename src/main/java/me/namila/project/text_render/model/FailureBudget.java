@@ -0,0 +1,93 @@
+package me.namila.project.text_render.model;
+
+/**
+ * How many failures a batch tolerates before it is aborted.
+ *
+ * <p>A misconfigured run, such as one with a missing font or an unwritable output folder, tends to
+ * fail every row. The budget stops such a run early instead of letting it fail row by row:</p>
+ * <ul>
+ *   <li>{@code N} - abort after N consecutive failures</li>
+ *   <li>{@code X%} - abort once more than X percent of the finished jobs failed, checked after
+ *       {@value #MIN_RATE_SAMPLE} jobs (or all jobs of a smaller batch) have finished</li>
+ * </ul>
+ * <p>Both limits can be combined, e.g. {@code 20,5%}; whichever is reached first aborts.</p>
+ *
+ * @param maxConsecutive consecutive failures that abort the batch; 0 for no limit
+ * @param maxPercent     failure percentage that aborts the batch; 0 for no limit
+ */
+public record FailureBudget(int maxConsecutive, double maxPercent) {
+
+    /**
+     * Finished jobs needed before the failure rate is checked.
+     */
+    public static final int MIN_RATE_SAMPLE = 20;
+
+    public static final FailureBudget NONE = new FailureBudget(0, 0);
+
+    public FailureBudget {
+        if (maxConsecutive < 0) {
+            throw new IllegalArgumentException(
+                "Invalid consecutive failure limit: " + maxConsecutive + ". Expected a value of at least 1");
+        }
+        if (!(maxPercent >= 0 && maxPercent < 100)) {
+            throw new IllegalArgumentException(
+                "Invalid failure percentage: " + maxPercent + ". Expected a value between 0 and 100");
+        }
+    }
+
+    /**
+     * Parses a budget specification: {@code none}, {@code N}, {@code X%} or both separated by a
+     * comma.
+     *
+     * @param value the specification
+     * @return the budget
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static FailureBudget parse(String value) {
+        String spec = value.trim().toLowerCase();
+        if (spec.equals("none")) {
+            return NONE;
+        }
+        int consecutive = 0;
+        double percent = 0;
+        for (String part : spec.split(",")) {
+            String limit = part.trim();
+            try {
+                if (limit.endsWith("%")) {
+                    percent = Double.parseDouble(limit.substring(0, limit.length() - 1).trim());
+                    if (percent <= 0) {
+                        throw new IllegalArgumentException("Failure percentage must be positive: " + value);
+                    }
+                } else {
+                    consecutive = Integer.parseInt(limit);
+                    if (consecutive < 1) {
+                        throw new IllegalArgumentException("Consecutive failure limit must be positive: " + value);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected none, N, X% or N,X%: " + value);
+            }
+        }
+        return new FailureBudget(consecutive, percent);
+    }
+
+    /**
+     * @return true if no limit is set
+     */
+    public boolean isUnlimited() {
+        return maxConsecutive == 0 && maxPercent == 0;
+    }
+
+    @Override
+    public String toString() {
+        if (isUnlimited()) {
+            return "none";
+        }
+        String rate = maxPercent == Math.rint(maxPercent)
+            ? String.valueOf((long) maxPercent) : String.valueOf(maxPercent);
+        if (maxConsecutive == 0) {
+            return rate + "%";
+        }
+        return maxPercent == 0 ? String.valueOf(maxConsecutive) : maxConsecutive + "," + rate + "%";
+    }
+}
@@ -0,0 +1,15 @@
+package me.namila.project.text_render.model;
+
+/**
+ * Controls when output files are forced to stable storage by the file system output sink.
+ *
+ * <p>{@link #NONE} leaves flushing to the operating system and is the fastest. {@link #DATA}
+ * forces each file's contents before its write is reported complete. {@link #FULL} also forces
+ * file metadata, and the containing directories once the batch is closed, so outputs survive
+ * a power loss.</p>
+ */
+public enum FsyncPolicy {
+    NONE,
+    DATA,
+    FULL
+}
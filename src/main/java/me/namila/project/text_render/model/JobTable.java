@@ -0,0 +1,291 @@
+package me.namila.project.text_render.model;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+
+/**
+ * The render jobs of a batch, stored column by column instead of as one {@link RenderJob} and
+ * {@link CsvEntry} per row.
+ *
+ * <p>A job object with its output {@link Path}, display text and the entry it came from takes
+ * several hundred bytes per row, which adds up to gigabytes for batches of millions of rows before
+ * anything is rendered. The table keeps the name of every row as UTF-8 in a single byte arena
+ * addressed by offsets, keeps each distinct prefix and postfix once, since they repeat across rows,
+ * and holds the settings shared by all rows once. Output file names are not stored: they follow
+ * from the name, so the table only remembers the collision number of the few rows whose name
+ * clashed with an earlier one and formats the file name when it is needed. A {@link RenderJob},
+ * including its display text and output path, is only created when a row is read through
+ * {@link #get(int)} or a view from {@link #select(IntPredicate)}, so the executor creates each job
+ * just before rendering it and drops it afterwards.</p>
+ *
+ * <p>Rows are added by a single thread while the batch is planned; the finished table may be read
+ * concurrently.</p>
+ */
+public final class JobTable extends AbstractList<RenderJob> implements RandomAccess {
+
+    private static final int INITIAL_ROWS = 1024;
+    private static final int INITIAL_ARENA_BYTES = 32 * INITIAL_ROWS;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int NONE = -1;
+
+    private final TextConfig textConfig;
+    private final Path templatePath;
+    private final Path outputFolder;
+    private final OutputLayout layout;
+    private final FileNames fileNames;
+
+    private byte[] arena = new byte[INITIAL_ARENA_BYTES];
+    private int arenaSize;
+    /** Start of each row's name in the arena; it ends where the next row's name starts. */
+    private int[] nameOffsets = new int[INITIAL_ROWS];
+    private int[] rowIndexes = new int[INITIAL_ROWS];
+    private int[] prefixIds = new int[INITIAL_ROWS];
+    private int[] postfixIds = new int[INITIAL_ROWS];
+    private int size;
+
+    private final List<String> affixes = new ArrayList<>();
+    private final Map<String, Integer> affixIds = new HashMap<>();
+    /** Collision numbers of the rows whose output name collided, by position. */
+    private final Map<Integer, Integer> collisions = new HashMap<>();
+
+    /**
+     * @param textConfig   the text settings of every job
+     * @param templatePath the template of every job
+     * @param outputFolder the folder output file names are resolved against
+     * @param layout       the directory layout below the output folder
+     * @param fileNames    formats the output file name of a row
+     */
+    public JobTable(TextConfig textConfig, Path templatePath, Path outputFolder, OutputLayout layout,
+                    FileNames fileNames) {
+        this.textConfig = textConfig;
+        this.templatePath = templatePath;
+        this.outputFolder = outputFolder;
+        this.layout = layout;
+        this.fileNames = fileNames;
+    }
+
+    /**
+     * Appends a row. Rows must be added in ascending CSV order.
+     *
+     * @param entry    the CSV entry of the row
+     * @param rowIndex zero-based index of the row in the CSV
+     * @param collision the collision number of the row's output name, 0 if it did not collide
+     * @return the position of the row in the table
+     * @throws IllegalStateException if the table cannot hold more text
+     */
+    public int add(CsvEntry entry, int rowIndex, int collision) {
+        byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+        ensureRowCapacity(size + 1);
+        ensureArenaCapacity((long) arenaSize + name.length);
+
+        nameOffsets[size] = arenaSize;
+        System.arraycopy(name, 0, arena, arenaSize, name.length);
+        arenaSize += name.length;
+        rowIndexes[size] = rowIndex;
+        prefixIds[size] = intern(entry.prefix());
+        postfixIds[size] = intern(entry.postfix());
+        if (collision != 0) {
+            collisions.put(size, collision);
+        }
+        return size++;
+    }
+
+    /**
+     * Creates the job of a row.
+     *
+     * @param position the position of the row in the table
+     * @return the job
+     */
+    @Override
+    public RenderJob get(int position) {
+        checkPosition(position);
+        return new RenderJob(entry(position).getDisplayText(), textConfig, templatePath, outputPath(position),
+            rowIndexes[position]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position the position of the row in the table
+     * @return the CSV entry of the row
+     */
+    public CsvEntry entry(int position) {
+        checkPosition(position);
+        return new CsvEntry(name(position), affix(prefixIds[position]), affix(postfixIds[position]));
+    }
+
+    /**
+     * @param position the position of the row in the table
+     * @return the name of the row
+     */
+    public String name(int position) {
+        checkPosition(position);
+        int end = position + 1 < size ? nameOffsets[position + 1] : arenaSize;
+        return new String(arena, nameOffsets[position], end - nameOffsets[position], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param position the position of the row in the table
+     * @return the output file name of the row
+     */
+    public String fileName(int position) {
+        return fileNames.format(name(position), collisions.getOrDefault(position, 0));
+    }
+
+    /**
+     * @param position the position of the row in the table
+     * @return the output path of the row
+     */
+    public Path outputPath(int position) {
+        return layout.resolve(outputFolder, fileName(position), rowIndexes[position]);
+    }
+
+    /**
+     * @param position the position of the row in the table
+     * @return zero-based index of the row in the CSV
+     */
+    public int rowIndex(int position) {
+        checkPosition(position);
+        return rowIndexes[position];
+    }
+
+    /**
+     * Finds a row by its CSV index. Rows are added in CSV order, so this is a binary search.
+     *
+     * @param rowIndex zero-based index of the row in the CSV
+     * @return the position of the row in the table, or -1 if the table does not contain it
+     */
+    public int positionOf(int rowIndex) {
+        int position = Arrays.binarySearch(rowIndexes, 0, size, rowIndex);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Selects the rows of the table that pass a filter. The selection is a view creating jobs as
+     * they are read, like the table itself, and costs one {@code int} per selected row.
+     *
+     * @param rowFilter tests the zero-based CSV index of each row
+     * @return the jobs of the selected rows, in table order
+     */
+    public List<RenderJob> select(IntPredicate rowFilter) {
+        int[] positions = new int[size];
+        int count = 0;
+        for (int position = 0; position < size; position++) {
+            if (rowFilter.test(rowIndexes[position])) {
+                positions[count++] = position;
+            }
+        }
+        return new Selection(count == size ? positions : Arrays.copyOf(positions, count));
+    }
+
+    /**
+     * @return approximately how many bytes the table occupies, excluding the shared settings
+     */
+    public long getFootprint() {
+        long bytes = arena.length + 4L * Integer.BYTES * nameOffsets.length + 48L * collisions.size();
+        for (String affix : affixes) {
+            bytes += 48 + affix.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of distinct prefixes and postfixes
+     */
+    public int getAffixCount() {
+        return affixes.size();
+    }
+
+    private int intern(String affix) {
+        if (affix == null) {
+            return NONE;
+        }
+        Integer id = affixIds.get(affix);
+        if (id == null) {
+            id = affixes.size();
+            affixes.add(affix);
+            affixIds.put(affix, id);
+        }
+        return id;
+    }
+
+    private String affix(int id) {
+        return id == NONE ? null : affixes.get(id);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of bounds for " + size + " rows");
+        }
+    }
+
+    private void ensureRowCapacity(int rows) {
+        if (rows <= nameOffsets.length) {
+            return;
+        }
+        int capacity = (int) Math.min(MAX_ARRAY_SIZE, Math.max(rows, nameOffsets.length * 2L));
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        rowIndexes = Arrays.copyOf(rowIndexes, capacity);
+        prefixIds = Arrays.copyOf(prefixIds, capacity);
+        postfixIds = Arrays.copyOf(postfixIds, capacity);
+    }
+
+    private void ensureArenaCapacity(long bytes) {
+        if (bytes <= arena.length) {
+            return;
+        }
+        if (bytes > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Names of the batch exceed "
+                + MAX_ARRAY_SIZE + " bytes; split it into smaller batches");
+        }
+        int capacity = (int) Math.min(MAX_ARRAY_SIZE, Math.max(bytes, arena.length + (arena.length >> 1)));
+        arena = Arrays.copyOf(arena, capacity);
+    }
+
+    /**
+     * Formats the output file name of a row from its name.
+     */
+    @FunctionalInterface
+    public interface FileNames {
+
+        /**
+         * @param name      the name of the row
+         * @param collision the collision number of the row's output name, 0 if it did not collide
+         * @return the output file name
+         */
+        String format(String name, int collision);
+    }
+
+    /**
+     * Jobs of some rows of the table.
+     */
+    private final class Selection extends AbstractList<RenderJob> implements RandomAccess {
+
+        private final int[] positions;
+
+        private Selection(int[] positions) {
+            this.positions = positions;
+        }
+
+        @Override
+        public RenderJob get(int index) {
+            return JobTable.this.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package me.namila.project.text_render.model;
+
+/**
+ * Memory that jobs running at the same time may use between them.
+ *
+ * <p>Given either as an absolute size ({@code 512m}, {@code 2g}) or as a percentage of the
+ * maximum heap ({@code 50%}); {@code none} disables the limit.</p>
+ *
+ * @param bytes       the limit in bytes, or 0 if given as a percentage or unlimited
+ * @param heapPercent the limit as a percentage of the maximum heap, or 0
+ */
+public record MemoryLimit(long bytes, double heapPercent) {
+
+    public static final MemoryLimit NONE = new MemoryLimit(0, 0);
+
+    public static final MemoryLimit DEFAULT = new MemoryLimit(0, 50);
+
+    public MemoryLimit {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Invalid memory limit: " + bytes + ". Expected a positive size");
+        }
+        if (!(heapPercent >= 0 && heapPercent <= 100)) {
+            throw new IllegalArgumentException(
+                "Invalid heap percentage: " + heapPercent + ". Expected a value between 0 and 100");
+        }
+        if (bytes > 0 && heapPercent > 0) {
+            throw new IllegalArgumentException("Specify a memory limit either in bytes or as a heap percentage");
+        }
+    }
+
+    /**
+     * Parses a limit: {@code none}, a percentage of the heap such as {@code 60%}, or a size in
+     * bytes with an optional {@code k}, {@code m} or {@code g} suffix (case-insensitive).
+     *
+     * @param value the specification
+     * @return the limit
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static MemoryLimit parse(String value) {
+        String spec = value.trim().toLowerCase();
+        if (spec.equals("none")) {
+            return NONE;
+        }
+        try {
+            if (spec.endsWith("%")) {
+                double percent = Double.parseDouble(spec.substring(0, spec.length() - 1).trim());
+                if (percent <= 0) {
+                    throw new IllegalArgumentException("Heap percentage must be positive: " + value);
+                }
+                return new MemoryLimit(0, percent);
+            }
+            long unit = switch (spec.isEmpty() ? ' ' : spec.charAt(spec.length() - 1)) {
+                case 'k' -> 1L << 10;
+                case 'm' -> 1L << 20;
+                case 'g' -> 1L << 30;
+                default -> 1;
+            };
+            String number = unit == 1 ? spec : spec.substring(0, spec.length() - 1).trim();
+            long bytes = Math.multiplyExact(Long.parseLong(number), unit);
+            if (bytes <= 0) {
+                throw new IllegalArgumentException("Memory limit must be positive: " + value);
+            }
+            return new MemoryLimit(bytes, 0);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Expected none, N%, or a size such as 512m or 2g: " + value);
+        }
+    }
+
+    /**
+     * @param maxHeapBytes the maximum heap size
+     * @return the limit in bytes, or {@link Long#MAX_VALUE} if unlimited
+     */
+    public long resolve(long maxHeapBytes) {
+        if (bytes > 0) {
+            return bytes;
+        }
+        if (heapPercent > 0) {
+            return (long) (maxHeapBytes * heapPercent / 100);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return true if no limit is set
+     */
+    public boolean isUnlimited() {
+        return bytes == 0 && heapPercent == 0;
+    }
+
+    @Override
+    public String toString() {
+        if (bytes > 0) {
+            return bytes % (1L << 30) == 0 ? (bytes >> 30) + "g"
+                : bytes % (1L << 20) == 0 ? (bytes >> 20) + "m"
+                : bytes % (1L << 10) == 0 ? (bytes >> 10) + "k"
+                : String.valueOf(bytes);
+        }
+        if (heapPercent > 0) {
+            return (heapPercent == Math.rint(heapPercent) ? String.valueOf((long) heapPercent)
+                : String.valueOf(heapPercent)) + "%";
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,116 @@
+package me.namila.project.text_render.model;
+
+import java.nio.file.Path;
+
+/**
+ * Directory layout of the output files below the output folder.
+ *
+ * <p>{@link Type#FLAT} puts every file directly in the output folder. For very large batches a
+ * single directory becomes slow to create files in and to list, so the sharded layouts spread
+ * files over subdirectories:</p>
+ * <ul>
+ *   <li>{@link Type#HASH} - {@code hash:N} places each file in one of N directories named by a
+ *       hex hash of its file name ({@code 00} to {@code ff} for N = 256)</li>
+ *   <li>{@link Type#ROWS} - {@code rows:N} places each block of N consecutive CSV rows in one
+ *       directory named by the zero-based index of its first row ({@code 00000000},
+ *       {@code 00001000}, ...)</li>
+ * </ul>
+ *
+ * @param type  the layout type
+ * @param size  the number of hash buckets, or the rows per directory; ignored for flat layouts
+ */
+public record OutputLayout(Type type, int size) {
+
+    /**
+     * Largest number of hash buckets accepted.
+     */
+    public static final int MAX_HASH_BUCKETS = 65536;
+
+    private static final int ROW_DIGITS = 8;
+
+    public static final OutputLayout FLAT = new OutputLayout(Type.FLAT, 0);
+
+    public enum Type {
+        FLAT,
+        HASH,
+        ROWS
+    }
+
+    public OutputLayout {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null");
+        }
+        if (type == Type.HASH && (size < 1 || size > MAX_HASH_BUCKETS)) {
+            throw new IllegalArgumentException(
+                "Invalid hash bucket count: " + size + ". Expected a value between 1 and " + MAX_HASH_BUCKETS);
+        }
+        if (type == Type.ROWS && size < 1) {
+            throw new IllegalArgumentException(
+                "Invalid rows per directory: " + size + ". Expected a value of at least 1");
+        }
+    }
+
+    /**
+     * Parses a layout specification: {@code flat}, {@code hash:N} or {@code rows:N}
+     * (case-insensitive).
+     *
+     * @param value the specification
+     * @return the layout
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static OutputLayout parse(String value) {
+        String spec = value.trim().toLowerCase();
+        if (spec.equals("flat")) {
+            return FLAT;
+        }
+        int colon = spec.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected flat, hash:N or rows:N: " + value);
+        }
+        Type type = switch (spec.substring(0, colon)) {
+            case "hash" -> Type.HASH;
+            case "rows" -> Type.ROWS;
+            default -> throw new IllegalArgumentException("Expected flat, hash:N or rows:N: " + value);
+        };
+        try {
+            return new OutputLayout(type, Integer.parseInt(spec.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in output layout: " + value);
+        }
+    }
+
+    /**
+     * Resolves the path of an output file.
+     *
+     * @param root     the output folder
+     * @param fileName the output file name
+     * @param rowIndex the zero-based index of the CSV row the output belongs to
+     * @return the output path
+     */
+    public Path resolve(Path root, String fileName, int rowIndex) {
+        return switch (type) {
+            case FLAT -> root.resolve(fileName);
+            case HASH -> root.resolve(hashDirectory(fileName)).resolve(fileName);
+            case ROWS -> root.resolve(rowDirectory(rowIndex)).resolve(fileName);
+        };
+    }
+
+    private String hashDirectory(String fileName) {
+        // Spread the high bits like HashMap does; String.hashCode is specified and stable across runs
+        int h = fileName.hashCode();
+        int bucket = Math.floorMod(h ^ (h >>> 16), size);
+        int digits = Integer.toHexString(Math.max(1, size - 1)).length();
+        String hex = Integer.toHexString(bucket);
+        return "0".repeat(digits - hex.length()) + hex;
+    }
+
+    private String rowDirectory(int rowIndex) {
+        long first = (long) (rowIndex / size) * size;
+        return String.format("%0" + ROW_DIGITS + "d", first);
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.FLAT ? "flat" : type.name().toLowerCase() + ":" + size;
+    }
+}
@@ -0,0 +1,47 @@
+package me.namila.project.text_render.model;
+
+import java.util.Objects;
+
+/**
+ * Settings for the built-in PNG encoder.
+ *
+ * @param compressionLevel deflate compression level (0 = store, 9 = best compression)
+ * @param filterStrategy   scanline filter strategy
+ * @param encodeThreads    number of cores used to deflate a single image (1 = single-threaded)
+ */
+public record PngEncodeOptions(int compressionLevel, PngFilterStrategy filterStrategy, int encodeThreads) {
+
+    /**
+     * Default compression level, matching the JDK ImageIO PNG writer.
+     */
+    public static final int DEFAULT_COMPRESSION_LEVEL = 4;
+
+    public static final PngEncodeOptions DEFAULT =
+        new PngEncodeOptions(DEFAULT_COMPRESSION_LEVEL, PngFilterStrategy.ADAPTIVE);
+
+    public PngEncodeOptions {
+        Objects.requireNonNull(filterStrategy, "filterStrategy must not be null");
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException(
+                "Invalid PNG compression level: " + compressionLevel + ". Expected a value between 0 and 9");
+        }
+        if (encodeThreads < 1) {
+            throw new IllegalArgumentException(
+                "Invalid PNG encode threads: " + encodeThreads + ". Expected a value of at least 1");
+        }
+    }
+
+    /**
+     * Creates single-threaded encoder options.
+     */
+    public PngEncodeOptions(int compressionLevel, PngFilterStrategy filterStrategy) {
+        this(compressionLevel, filterStrategy, 1);
+    }
+
+    /**
+     * @return true if a single image may be deflated on several cores
+     */
+    public boolean isParallel() {
+        return encodeThreads > 1;
+    }
+}
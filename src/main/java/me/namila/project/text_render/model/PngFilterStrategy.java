@@ -0,0 +1,32 @@
+package me.namila.project.text_render.model;
+
+/**
+ * Scanline filter strategy used by the built-in PNG encoder.
+ *
+ * <p>The fixed strategies apply the same PNG filter type to every row. {@link #ADAPTIVE}
+ * tries all five filter types per row and keeps the one with the smallest sum of
+ * absolute differences, which usually compresses best at the cost of extra CPU time.</p>
+ */
+public enum PngFilterStrategy {
+    NONE(0),
+    SUB(1),
+    UP(2),
+    AVERAGE(3),
+    PAETH(4),
+    ADAPTIVE(-1);
+
+    private final int filterType;
+
+    PngFilterStrategy(int filterType) {
+        this.filterType = filterType;
+    }
+
+    /**
+     * Gets the PNG filter type byte written in front of each scanline.
+     *
+     * @return the filter type (0-4), or -1 for {@link #ADAPTIVE}
+     */
+    public int getFilterType() {
+        return filterType;
+    }
+}
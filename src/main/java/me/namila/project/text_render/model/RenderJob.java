@@ -2,9 +2,24 @@ package me.namila.project.text_render.model;
 
 import java.nio.file.Path;
 
+/**
+ * One output to render.
+ *
+ * @param rowIndex zero-based index of the CSV row the job was created from, or -1 if the job
+ *                 does not come from a CSV row
+ */
 public record RenderJob(
     String text,
     TextConfig textConfig,
     Path templatePath,
-    Path outputPath
-) {}
+    Path outputPath,
+    int rowIndex
+) {
+
+    /**
+     * Creates a job that is not associated with a CSV row.
+     */
+    public RenderJob(String text, TextConfig textConfig, Path templatePath, Path outputPath) {
+        this(text, textConfig, templatePath, outputPath, -1);
+    }
+}
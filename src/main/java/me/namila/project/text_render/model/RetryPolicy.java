@@ -0,0 +1,74 @@
+package me.namila.project.text_render.model;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Retries operations that failed with a transient I/O error, with exponential backoff.
+ *
+ * <p>An error is considered transient if it is (or is caused by) an {@link IOException} other than
+ * those that will not go away by trying again, such as a missing file or denied access.</p>
+ *
+ * @param maxRetries     retries after the first attempt; 0 disables retrying
+ * @param initialBackoff delay before the first retry; doubles for every further retry up to
+ *                       {@link #MAX_BACKOFF}
+ */
+public record RetryPolicy(int maxRetries, Duration initialBackoff) {
+
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(100);
+    public static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    public static final RetryPolicy NONE = new RetryPolicy(0, DEFAULT_INITIAL_BACKOFF);
+
+    public RetryPolicy {
+        Objects.requireNonNull(initialBackoff, "initialBackoff must not be null");
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Invalid retry count: " + maxRetries + ". Expected a value of at least 0");
+        }
+    }
+
+    /**
+     * Creates a policy with the default initial backoff.
+     */
+    public RetryPolicy(int maxRetries) {
+        this(maxRetries, DEFAULT_INITIAL_BACKOFF);
+    }
+
+    /**
+     * @param error the failure
+     * @return true if trying again may succeed
+     */
+    public boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NoSuchFileException || cause instanceof AccessDeniedException
+                    || cause instanceof FileAlreadyExistsException || cause instanceof NotDirectoryException
+                    || cause instanceof DirectoryNotEmptyException || cause instanceof InterruptedIOException) {
+                return false;
+            }
+            if (cause instanceof IOException || cause instanceof UncheckedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param retry the retry number, starting at 1
+     * @return the delay before that retry
+     */
+    public Duration backoff(int retry) {
+        Duration delay = initialBackoff;
+        for (int i = 1; i < retry && delay.compareTo(MAX_BACKOFF) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
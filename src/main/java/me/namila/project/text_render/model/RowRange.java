@@ -0,0 +1,107 @@
+package me.namila.project.text_render.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A range of CSV rows, numbered from 1 like the rows of the rejects file.
+ *
+ * <p>Specified as {@code A-B} (rows A to B inclusive), {@code A-} (row A to the end) or {@code A}
+ * (row A only).</p>
+ *
+ * @param first the first row, from 1
+ * @param last  the last row, inclusive; {@link Integer#MAX_VALUE} for the end of the file
+ */
+public record RowRange(int first, int last) {
+
+    public static final RowRange ALL = new RowRange(1, Integer.MAX_VALUE);
+
+    public RowRange {
+        if (first < 1) {
+            throw new IllegalArgumentException("Invalid first row: " + first + ". Rows are numbered from 1");
+        }
+        if (last < first) {
+            throw new IllegalArgumentException("Invalid row range: " + first + "-" + last + ". The last row comes before the first");
+        }
+    }
+
+    /**
+     * Parses a range specification: {@code A-B}, {@code A-} or {@code A}.
+     *
+     * @param value the specification
+     * @return the range
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static RowRange parse(String value) {
+        String spec = value.trim();
+        int dash = spec.indexOf('-');
+        try {
+            if (dash < 0) {
+                int row = Integer.parseInt(spec);
+                return new RowRange(row, row);
+            }
+            int first = Integer.parseInt(spec.substring(0, dash).trim());
+            String end = spec.substring(dash + 1).trim();
+            return new RowRange(first, end.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(end));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected A-B, A- or A: " + value);
+        }
+    }
+
+    /**
+     * @param rowIndex a row index, from 0 like {@link RenderJob#rowIndex()}
+     * @return true if the row is in this range
+     */
+    public boolean containsIndex(int rowIndex) {
+        return rowIndex >= first - 1 && rowIndex <= last - 1L;
+    }
+
+    /**
+     * @param rowCount the number of rows in the file
+     * @return this range limited to the rows of the file, or null if it contains none of them
+     */
+    public RowRange clamp(int rowCount) {
+        if (first > rowCount) {
+            return null;
+        }
+        return new RowRange(first, Math.min(last, rowCount));
+    }
+
+    /**
+     * @return the number of rows in the range
+     */
+    public long size() {
+        return (long) last - first + 1;
+    }
+
+    /**
+     * Splits the range into up to {@code parts} consecutive ranges whose sizes differ by at most
+     * one row.
+     *
+     * @param parts the number of ranges
+     * @return the ranges in row order, fewer than {@code parts} if the range has fewer rows
+     */
+    public List<RowRange> split(int parts) {
+        if (parts < 1) {
+            throw new IllegalArgumentException("Parts must be at least 1: " + parts);
+        }
+        long rows = size();
+        int count = (int) Math.min(parts, rows);
+        List<RowRange> ranges = new ArrayList<>(count);
+        long start = first;
+        for (int i = 0; i < count; i++) {
+            long length = rows / count + (i < rows % count ? 1 : 0);
+            ranges.add(new RowRange((int) start, (int) (start + length - 1)));
+            start += length;
+        }
+        return ranges;
+    }
+
+    @Override
+    public String toString() {
+        if (last == Integer.MAX_VALUE) {
+            return first + "-";
+        }
+        return first == last ? String.valueOf(first) : first + "-" + last;
+    }
+}
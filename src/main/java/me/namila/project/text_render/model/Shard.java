@@ -0,0 +1,73 @@
+package me.namila.project.text_render.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * One of several partitions of a batch, for splitting a batch across render nodes that share the
+ * CSV but nothing else.
+ *
+ * <p>Specified as {@code i/N}: shard {@code i} of {@code N}, numbered from 1. Every row belongs to
+ * exactly one shard, chosen by its {@link ShardKey} alone, so nodes given the same CSV and
+ * {@code N} select disjoint rows that together cover the whole file.</p>
+ *
+ * @param index the shard, from 1
+ * @param count the number of shards
+ */
+public record Shard(int index, int count) {
+
+    public Shard {
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid shard count: " + count + ". Must be at least 1");
+        }
+        if (index < 1 || index > count) {
+            throw new IllegalArgumentException("Invalid shard: " + index + "/" + count + ". Must be between 1 and " + count);
+        }
+    }
+
+    /**
+     * Parses a shard specification: {@code i/N}.
+     *
+     * @param value the specification
+     * @return the shard
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static Shard parse(String value) {
+        String spec = value.trim();
+        int slash = spec.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Expected i/N: " + value);
+        }
+        try {
+            return new Shard(Integer.parseInt(spec.substring(0, slash).trim()),
+                Integer.parseInt(spec.substring(slash + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected i/N: " + value);
+        }
+    }
+
+    /**
+     * @param key      how rows are assigned to shards
+     * @param rowIndex the row index, from 0 like {@link RenderJob#rowIndex()}
+     * @param name     the row's name
+     * @return true if the row belongs to this shard
+     */
+    public boolean contains(ShardKey key, int rowIndex, String name) {
+        return bucket(key, rowIndex, name) == index - 1;
+    }
+
+    private int bucket(ShardKey key, int rowIndex, String name) {
+        if (key == ShardKey.ROW) {
+            return rowIndex % count;
+        }
+        // CRC32 rather than hashCode() spreads similar names evenly
+        CRC32 crc = new CRC32();
+        crc.update(name.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % count);
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
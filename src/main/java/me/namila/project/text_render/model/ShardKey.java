@@ -0,0 +1,13 @@
+package me.namila.project.text_render.model;
+
+/**
+ * Decides which shard a CSV row belongs to when a batch is split with {@code --shard}.
+ *
+ * <p>{@link #ROW} deals rows out in turn by their position, which balances shards exactly but
+ * moves rows between shards when rows are inserted. {@link #NAME} assigns a row by a hash of its
+ * name, so a row stays in its shard however the CSV is reordered or extended.</p>
+ */
+public enum ShardKey {
+    ROW,
+    NAME
+}
@@ -0,0 +1,14 @@
+package me.namila.project.text_render.model;
+
+/**
+ * Chooses which output root receives the next output when outputs are striped across several
+ * folders.
+ *
+ * <p>{@link #ROUND_ROBIN} cycles through the roots and spreads outputs evenly. {@link #LEAST_QUEUED}
+ * picks the root with the fewest writes in flight, so a slower device automatically receives
+ * fewer outputs.</p>
+ */
+public enum StripePolicy {
+    ROUND_ROBIN,
+    LEAST_QUEUED
+}
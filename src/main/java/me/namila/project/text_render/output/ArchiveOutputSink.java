@@ -0,0 +1,188 @@
+package me.namila.project.text_render.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Streams outputs as entries of a single archive instead of writing one file each.
+ *
+ * <p>Entries are appended in completion order by a single writer thread, so renderers never wait
+ * for each other while the archive is written sequentially. Entry names are the output paths
+ * relative to the output root, with {@code /} separators. Entries the format cannot hold (such as
+ * duplicate names) are rejected individually; once an entry fails part-way through writing, the
+ * archive is considered broken and every following write fails with the same cause.</p>
+ *
+ * <p>Use {@link #open(String, Path)} to pick the format from the target name.</p>
+ */
+public abstract class ArchiveOutputSink implements OutputSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveOutputSink.class);
+
+    /**
+     * Target name that streams a TAR archive to standard output.
+     */
+    public static final String STDOUT_TARGET = "-";
+
+    private static final int MAX_PENDING_WRITES = 16;
+    private static final int STREAM_BUFFER_SIZE = 256 * 1024;
+
+    private final OutputStream out;
+    private final Path root;
+    private final BufferPool bufferPool = new BufferPool();
+    private final WriteBehindQueue queue = new WriteBehindQueue("archive-writer-", 1, MAX_PENDING_WRITES);
+    private volatile IOException failure;
+    private int entryCount;
+
+    /**
+     * @param out  the archive stream, closed together with the sink
+     * @param root directory that entry names are made relative to
+     */
+    protected ArchiveOutputSink(OutputStream out, Path root) {
+        this.out = Objects.requireNonNull(out, "out must not be null");
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Opens an archive sink for the target: {@code -} writes a TAR stream to standard output, and
+     * otherwise the file extension ({@code .zip} or {@code .tar}) selects the format.
+     *
+     * @param target the archive file name, or {@code -}
+     * @param root   directory that entry names are made relative to
+     * @return the archive sink
+     * @throws IOException if the archive file cannot be created
+     */
+    public static ArchiveOutputSink open(String target, Path root) throws IOException {
+        if (STDOUT_TARGET.equals(target)) {
+            // Standard output stays open for the rest of the process
+            OutputStream stdout = new FilterOutputStream(System.out) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            return new TarOutputSink(new BufferedOutputStream(stdout, STREAM_BUFFER_SIZE), root);
+        }
+        String name = target.toLowerCase(Locale.ROOT);
+        if (!name.endsWith(".zip") && !name.endsWith(".tar")) {
+            throw new IllegalArgumentException("Unsupported archive type: '" + target + "'. Use .zip, .tar or -");
+        }
+        Path path = Path.of(target).toAbsolutePath();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        OutputStream file = new BufferedOutputStream(Files.newOutputStream(path), STREAM_BUFFER_SIZE);
+        return name.endsWith(".zip") ? new ZipOutputSink(file, root) : new TarOutputSink(file, root);
+    }
+
+    @Override
+    public PooledBuffer allocate() {
+        return bufferPool.acquire();
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Path path, PooledBuffer buffer) {
+        return queue.submit(path, buffer, this::appendEntry);
+    }
+
+    private void appendEntry(Path path, PooledBuffer buffer) throws IOException {
+        if (failure != null) {
+            throw new IOException("Archive is incomplete after an earlier write failed", failure);
+        }
+        String name = entryName(path);
+        // Rejected entries leave the archive intact; failures while writing do not
+        checkEntry(name, buffer.size());
+        try {
+            writeEntry(name, buffer, out);
+            entryCount++;
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the archive entry name for an output path.
+     *
+     * @param path the output path
+     * @return the path relative to the root with {@code /} separators, or the file name if the
+     *         path lies outside the root
+     */
+    protected String entryName(Path path) {
+        Path absolute = path.toAbsolutePath().normalize();
+        Path relative = absolute.startsWith(root) ? root.relativize(absolute) : absolute.getFileName();
+        return relative.toString().replace('\\', '/');
+    }
+
+    /**
+     * Validates an entry before anything is written for it. Called on the single writer thread.
+     *
+     * @param name the entry name
+     * @param size the entry size in bytes
+     * @throws IOException if the archive cannot hold the entry
+     */
+    protected abstract void checkEntry(String name, long size) throws IOException;
+
+    /**
+     * Appends one entry after {@link #checkEntry} accepted it. Called on the single writer thread.
+     *
+     * @param name   the entry name
+     * @param buffer the entry contents
+     * @param out    the archive stream
+     * @throws IOException if writing fails
+     */
+    protected abstract void writeEntry(String name, PooledBuffer buffer, OutputStream out) throws IOException;
+
+    /**
+     * Writes the archive trailer after the last entry.
+     *
+     * @param out the archive stream
+     * @throws IOException if writing fails
+     */
+    protected abstract void finishArchive(OutputStream out) throws IOException;
+
+    /**
+     * @return true if entries with this name are already compressed (PNG, JPEG, PDF)
+     */
+    protected static boolean isCompressedFormat(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".png") || lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".pdf");
+    }
+
+    /**
+     * @return the number of entries written so far
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        queue.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            queue.close();
+            finishArchive(out);
+            logger.debug("Archive finished with {} entries", entryCount);
+        } finally {
+            out.close();
+        }
+    }
+}
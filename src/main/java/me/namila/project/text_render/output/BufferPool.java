@@ -0,0 +1,85 @@
+package me.namila.project.text_render.output;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of byte arrays backing {@link PooledBuffer}s, so encoded outputs do not allocate
+ * (and later garbage collect) a fresh multi-megabyte array per job.
+ *
+ * <p>Arrays grow as needed while a buffer is written. On release, arrays up to
+ * {@code maxRetainedCapacity} are kept for reuse, up to {@code maxPooled} of them.
+ * Instances are thread-safe.</p>
+ */
+public final class BufferPool {
+
+    /**
+     * Initial capacity of a new buffer.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 256 * 1024;
+
+    /**
+     * Largest array kept in the pool; bigger ones are left to the garbage collector.
+     */
+    public static final int DEFAULT_MAX_RETAINED_CAPACITY = 32 * 1024 * 1024;
+
+    private static final int DEFAULT_MAX_POOLED = 64;
+
+    private final Queue<byte[]> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger freeCount = new AtomicInteger();
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+    private final int maxPooled;
+
+    public BufferPool() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_RETAINED_CAPACITY, DEFAULT_MAX_POOLED);
+    }
+
+    /**
+     * @param initialCapacity     capacity of newly allocated arrays
+     * @param maxRetainedCapacity largest array returned to the pool
+     * @param maxPooled           maximum number of idle arrays kept
+     */
+    public BufferPool(int initialCapacity, int maxRetainedCapacity, int maxPooled) {
+        if (initialCapacity < 1 || maxRetainedCapacity < initialCapacity || maxPooled < 0) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid buffer pool sizes: initial=%d, maxRetained=%d, maxPooled=%d",
+                initialCapacity, maxRetainedCapacity, maxPooled));
+        }
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return an empty buffer, reusing a pooled array when one is available
+     */
+    public PooledBuffer acquire() {
+        byte[] array = free.poll();
+        if (array != null) {
+            freeCount.decrementAndGet();
+        } else {
+            array = new byte[initialCapacity];
+        }
+        return new PooledBuffer(this, array);
+    }
+
+    /**
+     * @return the number of idle arrays currently pooled
+     */
+    public int getPooledCount() {
+        return freeCount.get();
+    }
+
+    void release(byte[] array) {
+        if (array.length > maxRetainedCapacity) {
+            return;
+        }
+        if (freeCount.incrementAndGet() <= maxPooled) {
+            free.offer(array);
+        } else {
+            freeCount.decrementAndGet();
+        }
+    }
+}
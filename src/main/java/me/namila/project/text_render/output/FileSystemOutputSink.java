@@ -0,0 +1,294 @@
+package me.namila.project.text_render.output;
+
+import me.namila.project.text_render.model.FsyncPolicy;
+import me.namila.project.text_render.model.RetryPolicy;
+import me.namila.project.text_render.util.Retries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes outputs to the file system from a small pool of writer threads.
+ *
+ * <p>Renderers hand over encoded buffers and continue with the next job while a writer thread
+ * flushes the buffer with a {@link FileChannel} (write-behind). At most
+ * {@code writerThreads * PENDING_WRITES_PER_THREAD} buffers wait to be written; further writes
+ * block the renderer, so memory stays bounded when storage is slower than rendering.</p>
+ *
+ * <p>Parent directories are created once per distinct directory rather than on every write,
+ * either up front by {@link #prepareDirectories} or on the first write into them.
+ * Each file is written to a hidden temporary file next to it, forced to disk according to the
+ * {@link FsyncPolicy}, and then renamed into place atomically, so an output that exists under
+ * its final name is always complete. Writes that fail with a transient I/O error are retried
+ * according to the {@link RetryPolicy}.</p>
+ *
+ * <p>{@link #writeStreaming} bypasses the writer threads: the renderer's encoder writes straight
+ * into the temporary file, which is committed the same way. Such writes are not retried, since
+ * the encoded bytes are gone once written; the job fails and can be retried as a whole.</p>
+ */
+public class FileSystemOutputSink implements OutputSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemOutputSink.class);
+
+    /**
+     * Buffers allowed to queue per writer thread before {@link #write} blocks.
+     */
+    static final int PENDING_WRITES_PER_THREAD = 4;
+
+    /**
+     * Suffix of the temporary file an output is written to before it is renamed into place.
+     */
+    public static final String TEMP_FILE_SUFFIX = ".part";
+
+    /**
+     * Bytes buffered between a streaming encoder and the file channel.
+     */
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    private final FsyncPolicy fsyncPolicy;
+    private final BufferPool bufferPool;
+    private final RetryPolicy retryPolicy;
+    private final WriteBehindQueue queue;
+    private final Map<Path, Boolean> createdDirectories = new ConcurrentHashMap<>();
+
+    /**
+     * @param writerThreads number of threads writing files concurrently
+     * @param fsyncPolicy   when written files are forced to stable storage
+     */
+    public FileSystemOutputSink(int writerThreads, FsyncPolicy fsyncPolicy) {
+        this(writerThreads, fsyncPolicy, new BufferPool());
+    }
+
+    /**
+     * @param writerThreads number of threads writing files concurrently
+     * @param fsyncPolicy   when written files are forced to stable storage
+     * @param bufferPool    pool supplying output buffers
+     */
+    public FileSystemOutputSink(int writerThreads, FsyncPolicy fsyncPolicy, BufferPool bufferPool) {
+        this(writerThreads, fsyncPolicy, bufferPool, RetryPolicy.NONE);
+    }
+
+    /**
+     * @param writerThreads number of threads writing files concurrently
+     * @param fsyncPolicy   when written files are forced to stable storage
+     * @param bufferPool    pool supplying output buffers
+     * @param retryPolicy   how failed writes are retried
+     */
+    public FileSystemOutputSink(int writerThreads, FsyncPolicy fsyncPolicy, BufferPool bufferPool,
+                                RetryPolicy retryPolicy) {
+        if (writerThreads < 1) {
+            throw new IllegalArgumentException("Writer threads must be at least 1: " + writerThreads);
+        }
+        this.fsyncPolicy = Objects.requireNonNull(fsyncPolicy, "fsyncPolicy must not be null");
+        this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool must not be null");
+        this.retryPolicy = Objects.requireNonNull(retryPolicy, "retryPolicy must not be null");
+        this.queue = new WriteBehindQueue("output-writer-", writerThreads,
+            writerThreads * PENDING_WRITES_PER_THREAD);
+        logger.debug("File system sink started with {} writer threads, fsync={}", writerThreads, fsyncPolicy);
+    }
+
+    @Override
+    public PooledBuffer allocate() {
+        return bufferPool.acquire();
+    }
+
+    @Override
+    public void prepareDirectories(Collection<Path> directories) throws IOException {
+        for (Path directory : directories) {
+            ensureDirectoryExists(directory.toAbsolutePath());
+        }
+        logger.debug("Prepared {} output directories", directories.size());
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Path path, PooledBuffer buffer) {
+        if (retryPolicy.maxRetries() == 0) {
+            return queue.submit(path, buffer, this::writeFile);
+        }
+        return queue.submit(path, buffer, this::writeFileWithRetries);
+    }
+
+    private void writeFileWithRetries(Path path, PooledBuffer buffer) throws IOException {
+        try {
+            Retries.run(retryPolicy, "Writing " + path, () -> writeFile(path, buffer));
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> writeStreaming(Path path, OutputEncoder encoder) throws Exception {
+        ensureDirectoryExists(path.toAbsolutePath().getParent());
+        writeAtomically(path, fsyncPolicy, encoder);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Writes one file the way this sink commits its outputs, without going through a sink: the
+     * encoder writes into a hidden temporary file next to it, which is forced to disk according
+     * to the policy and renamed into place, so the file never exists in part under its name.
+     * The parent directory must exist.
+     *
+     * @param path        the output file
+     * @param fsyncPolicy when the file is forced to stable storage
+     * @param encoder     writes the contents; closing its stream only flushes it
+     * @throws Exception if encoding or writing fails; the temporary file is removed then
+     */
+    public static void writeAtomically(Path path, FsyncPolicy fsyncPolicy, OutputEncoder encoder) throws Exception {
+        Path temp = tempFile(path);
+        try {
+            try (FileChannel channel = openTempFile(temp)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), STREAM_BUFFER_BYTES) {
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+                encoder.encodeTo(out);
+                out.flush();
+                force(channel, fsyncPolicy);
+            }
+            moveIntoPlace(temp, path);
+        } catch (Exception | Error e) {
+            deleteTempFile(temp, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes one file synchronously. Subclasses may override to change how a file is committed.
+     *
+     * @param path   the output file
+     * @param buffer the contents
+     * @throws IOException if writing fails
+     */
+    protected void writeFile(Path path, PooledBuffer buffer) throws IOException {
+        ensureDirectoryExists(path.toAbsolutePath().getParent());
+        Path temp = tempFile(path);
+        try {
+            try (FileChannel channel = openTempFile(temp)) {
+                buffer.writeTo(channel);
+                force(channel, fsyncPolicy);
+            }
+            moveIntoPlace(temp, path);
+        } catch (IOException | RuntimeException e) {
+            deleteTempFile(temp, e);
+            throw e;
+        }
+    }
+
+    private static Path tempFile(Path path) {
+        return path.resolveSibling("." + path.getFileName() + TEMP_FILE_SUFFIX);
+    }
+
+    private static FileChannel openTempFile(Path temp) throws IOException {
+        return FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+    }
+
+    private static void force(FileChannel channel, FsyncPolicy fsyncPolicy) throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            channel.force(fsyncPolicy == FsyncPolicy.FULL);
+        }
+    }
+
+    private static void deleteTempFile(Path temp, Throwable failure) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException cleanupFailure) {
+            failure.addSuppressed(cleanupFailure);
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path path) throws IOException {
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Creates a directory (and its parents) the first time it is seen. Concurrent callers for the
+     * same directory wait for the first creation to finish.
+     *
+     * @param directory the directory, or null for none
+     * @throws IOException if the directory cannot be created
+     */
+    protected void ensureDirectoryExists(Path directory) throws IOException {
+        if (directory == null || createdDirectories.containsKey(directory)) {
+            return;
+        }
+        try {
+            createdDirectories.computeIfAbsent(directory, dir -> {
+                try {
+                    Files.createDirectories(dir);
+                    return Boolean.TRUE;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return the retry policy of this sink
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @return the fsync policy of this sink
+     */
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        queue.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        queue.close();
+        if (fsyncPolicy == FsyncPolicy.FULL) {
+            syncDirectories();
+        }
+    }
+
+    /**
+     * Forces directory entries of all written files to disk. Not every platform allows opening
+     * a directory for this; failures are logged and ignored.
+     */
+    private void syncDirectories() {
+        for (Path directory : createdDirectories.keySet()) {
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                logger.debug("Could not sync directory {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package me.namila.project.text_render.output;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps outputs in memory, keyed by path. Intended for tests and for embedding the renderer
+ * where outputs are consumed directly rather than stored.
+ */
+public class InMemoryOutputSink implements OutputSink {
+
+    private final Map<Path, byte[]> outputs = new ConcurrentHashMap<>();
+    private final BufferPool bufferPool = new BufferPool();
+
+    @Override
+    public PooledBuffer allocate() {
+        return bufferPool.acquire();
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Path path, PooledBuffer buffer) {
+        try {
+            outputs.put(path, buffer.toByteArray());
+            return CompletableFuture.completedFuture(null);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * @param path the output path
+     * @return the bytes written for the path, or null if none were
+     */
+    public byte[] get(Path path) {
+        return outputs.get(path);
+    }
+
+    /**
+     * @return the paths written so far
+     */
+    public Set<Path> getPaths() {
+        return Set.copyOf(outputs.keySet());
+    }
+
+    /**
+     * @return the number of outputs written
+     */
+    public int size() {
+        return outputs.size();
+    }
+
+    @Override
+    public void flush() {
+        // Writes are synchronous
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release; outputs stay readable after closing
+    }
+}
@@ -0,0 +1,88 @@
+package me.namila.project.text_render.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Produces an output as a copy of an identical output that was already written.
+ *
+ * <p>A hard link is tried first: it costs no data and completes in one metadata operation. Where
+ * hard links are unavailable (another file system, or a file system without them) the bytes are
+ * copied with {@link FileChannel#transferTo}, which lets the kernel copy without passing the data
+ * through the JVM and may use a server-side copy or reflink where the file system supports it.
+ * Like {@link FileSystemOutputSink}, the result is created under a temporary name and renamed into
+ * place, replacing any existing file.</p>
+ */
+public final class OutputLinker {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputLinker.class);
+
+    /**
+     * How an output was produced.
+     */
+    public enum Method {
+        HARD_LINK,
+        COPY
+    }
+
+    private OutputLinker() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Makes {@code target} an identical copy of {@code source}.
+     *
+     * @param source an existing output
+     * @param target the output to create or replace
+     * @return how the target was produced
+     * @throws IOException if neither linking nor copying succeeds
+     */
+    public static Method link(Path source, Path target) throws IOException {
+        if (target.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+        }
+        Path temp = target.resolveSibling("." + target.getFileName() + FileSystemOutputSink.TEMP_FILE_SUFFIX);
+        Files.deleteIfExists(temp);
+        Method method;
+        try {
+            Files.createLink(temp, source);
+            method = Method.HARD_LINK;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Hard link from {} failed ({}); copying instead", source, e.getMessage());
+            copy(source, temp);
+            method = Method.COPY;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return method;
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package me.namila.project.text_render.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Destination for rendered outputs.
+ *
+ * <p>Renderers encode each output into a buffer from {@link #allocate()} and pass it to
+ * {@link #write(Path, PooledBuffer)}. The sink owns the buffer from then on and releases it once
+ * the bytes are written, which may happen later on a writer thread (write-behind). The returned
+ * future completes when the output has been written, or exceptionally if writing failed.
+ * Outputs too large to buffer are encoded straight into the sink with
+ * {@link #writeStreaming(Path, OutputEncoder)} instead.</p>
+ *
+ * <p>Implementations are thread-safe. {@link #close()} waits for pending writes.</p>
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * @return an empty buffer to encode one output into
+     */
+    PooledBuffer allocate();
+
+    /**
+     * Creates the directories the outputs of a batch will be written to, in one pass before
+     * rendering starts, so writes do not have to check for them. Sinks that do not write to
+     * directories ignore this.
+     *
+     * @param directories the distinct parent directories of the output paths
+     * @throws IOException if a directory cannot be created
+     */
+    default void prepareDirectories(Collection<Path> directories) throws IOException {
+    }
+
+    /**
+     * Writes one output, taking ownership of the buffer. May block while too many writes are
+     * pending, which throttles renderers to the speed of the storage.
+     *
+     * @param path   the output path (interpreted by the sink; for example an archive entry name)
+     * @param buffer the encoded output
+     * @return a future completed once the output is written
+     */
+    CompletableFuture<Void> write(Path path, PooledBuffer buffer);
+
+    /**
+     * Writes one output while it is being encoded, on the calling thread, so the encoded bytes
+     * never have to be held in memory at once. Sinks that can write into their destination
+     * directly override this; the default encodes into a buffer and passes it to {@link #write}.
+     *
+     * @param path    the output path, as for {@link #write}
+     * @param encoder writes the encoded output into the stream it is given
+     * @return a future completed once the output is written
+     * @throws Exception if encoding fails; the output is not written then
+     */
+    default CompletableFuture<Void> writeStreaming(Path path, OutputEncoder encoder) throws Exception {
+        PooledBuffer buffer = allocate();
+        try {
+            encoder.encodeTo(buffer);
+        } catch (Exception | Error e) {
+            buffer.release();
+            throw e;
+        }
+        return write(path, buffer);
+    }
+
+    /**
+     * Waits until every write submitted so far has completed, successfully or not.
+     *
+     * @throws IOException if waiting is interrupted
+     */
+    void flush() throws IOException;
+
+    /**
+     * Flushes pending writes and releases the sink's resources.
+     *
+     * @throws IOException if a final flush or sync fails
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Encodes one output into a stream, for {@link #writeStreaming}.
+     */
+    @FunctionalInterface
+    interface OutputEncoder {
+
+        /**
+         * @param out the stream to write the encoded output to; closed by the sink
+         * @throws Exception if encoding fails
+         */
+        void encodeTo(OutputStream out) throws Exception;
+    }
+}
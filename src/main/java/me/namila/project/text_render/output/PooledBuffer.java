@@ -0,0 +1,125 @@
+package me.namila.project.text_render.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Growable in-memory output backed by an array from a {@link BufferPool}.
+ *
+ * <p>Renderers encode into a buffer and hand it to an {@link OutputSink}, which becomes its
+ * owner and calls {@link #release()} once the bytes are written. A buffer is used by one
+ * thread at a time and must not be touched after release. {@link #close()} does nothing,
+ * so encoders that close their stream (such as PDF stampers) can write into it directly.</p>
+ */
+public final class PooledBuffer extends OutputStream {
+
+    private final BufferPool pool;
+    private byte[] array;
+    private int size;
+
+    PooledBuffer(BufferPool pool, byte[] array) {
+        this.pool = pool;
+        this.array = array;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        array[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureCapacity(size + len);
+        System.arraycopy(b, off, array, size, len);
+        size += len;
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Discards the contents so the buffer can be written again.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the contents
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(checkNotReleased(), size);
+    }
+
+    /**
+     * @return a read-only view of the contents, valid until the buffer is released or written again
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(checkNotReleased(), 0, size).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the whole contents to a stream.
+     *
+     * @param out the destination
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(checkNotReleased(), 0, size);
+    }
+
+    /**
+     * Writes the whole contents to a channel, looping until every byte is written.
+     *
+     * @param channel the destination
+     * @throws IOException if writing fails
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(checkNotReleased(), 0, size);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Returns the backing array to the pool. Safe to call more than once.
+     */
+    public void release() {
+        byte[] released = array;
+        array = null;
+        size = 0;
+        if (released != null) {
+            pool.release(released);
+        }
+    }
+
+    @Override
+    public void close() {
+        // Ownership passes to the sink, which releases the buffer after writing it
+    }
+
+    private void ensureCapacity(int required) {
+        byte[] current = checkNotReleased();
+        if (required > current.length) {
+            int grown = Math.max(required, current.length + (current.length >> 1));
+            array = Arrays.copyOf(current, grown);
+        }
+    }
+
+    private byte[] checkNotReleased() {
+        if (array == null) {
+            throw new IllegalStateException("Buffer has already been released");
+        }
+        return array;
+    }
+}
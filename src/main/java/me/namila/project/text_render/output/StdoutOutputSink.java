@@ -0,0 +1,67 @@
+package me.namila.project.text_render.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes every output, back to back, to standard output (or another stream), for piping a
+ * single render or a self-delimiting format into another process. Output paths are ignored.
+ *
+ * <p>Writes happen synchronously on the rendering thread, one at a time, so outputs are never
+ * interleaved.</p>
+ */
+public class StdoutOutputSink implements OutputSink {
+
+    private final OutputStream out;
+    private final BufferPool bufferPool = new BufferPool();
+
+    public StdoutOutputSink() {
+        this(System.out);
+    }
+
+    /**
+     * @param out the stream to write to; flushed but never closed by this sink
+     */
+    public StdoutOutputSink(OutputStream out) {
+        this.out = Objects.requireNonNull(out, "out must not be null");
+    }
+
+    @Override
+    public PooledBuffer allocate() {
+        return bufferPool.acquire();
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Path path, PooledBuffer buffer) {
+        try {
+            synchronized (out) {
+                buffer.writeTo(out);
+                out.flush();
+            }
+            if (out instanceof PrintStream printStream && printStream.checkError()) {
+                throw new IOException("Error writing to standard output");
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Writes are synchronous
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (out) {
+            out.flush();
+        }
+    }
+}
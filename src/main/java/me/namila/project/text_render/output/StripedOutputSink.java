@@ -0,0 +1,307 @@
+package me.namila.project.text_render.output;
+
+import me.namila.project.text_render.model.StripePolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Spreads outputs over several output roots, typically on separate drives, so write bandwidth
+ * is not limited to a single device.
+ *
+ * <p>Renderers address outputs below the first root. Each write is assigned to a root by the
+ * {@link StripePolicy} and forwarded, at the same relative path, to that root's own sink, so every
+ * root has its own writer threads and queue. Because the location of an output is only decided
+ * when it is written, a combined manifest ({@value #MANIFEST_FILE_NAME} in the first root) records
+ * where each output went.</p>
+ */
+public class StripedOutputSink implements OutputSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedOutputSink.class);
+
+    /**
+     * Name of the manifest written to the first root on close.
+     */
+    public static final String MANIFEST_FILE_NAME = "manifest.csv";
+
+    static final String MANIFEST_HEADER = "output,location";
+
+    private final List<Path> roots;
+    private final List<OutputSink> sinks;
+    private final AtomicInteger[] inFlight;
+    private final StripePolicy policy;
+    private final AtomicLong next = new AtomicLong();
+    private final Map<String, Path> manifest = new ConcurrentHashMap<>();
+    private final Path manifestFile;
+
+    /**
+     * @param roots       the output roots; outputs are addressed below the first one
+     * @param policy      how roots are chosen
+     * @param sinkFactory creates the sink for each root
+     */
+    public StripedOutputSink(List<Path> roots, StripePolicy policy, Function<Path, OutputSink> sinkFactory) {
+        this(roots, policy, sinkFactory, null);
+    }
+
+    /**
+     * @param roots        the output roots; outputs are addressed below the first one
+     * @param policy       how roots are chosen
+     * @param sinkFactory  creates the sink for each root
+     * @param manifestFile where the manifest is written, or null for {@value #MANIFEST_FILE_NAME}
+     *                     in the first root
+     */
+    public StripedOutputSink(List<Path> roots, StripePolicy policy, Function<Path, OutputSink> sinkFactory,
+                             Path manifestFile) {
+        if (roots.isEmpty()) {
+            throw new IllegalArgumentException("At least one output root is required");
+        }
+        this.roots = roots.stream().map(root -> root.toAbsolutePath().normalize()).toList();
+        this.manifestFile = manifestFile != null ? manifestFile : this.roots.get(0).resolve(MANIFEST_FILE_NAME);
+        this.policy = Objects.requireNonNull(policy, "policy must not be null");
+        this.sinks = new ArrayList<>(roots.size());
+        this.inFlight = new AtomicInteger[roots.size()];
+        for (int i = 0; i < this.roots.size(); i++) {
+            sinks.add(sinkFactory.apply(this.roots.get(i)));
+            inFlight[i] = new AtomicInteger();
+        }
+        logger.debug("Striping outputs over {} roots ({})", roots.size(), policy);
+    }
+
+    @Override
+    public PooledBuffer allocate() {
+        return sinks.get(0).allocate();
+    }
+
+    /**
+     * Creates the directories in every root, since any root may receive any output.
+     */
+    @Override
+    public void prepareDirectories(Collection<Path> directories) throws IOException {
+        for (int i = 0; i < roots.size(); i++) {
+            List<Path> local = new ArrayList<>(directories.size());
+            for (Path directory : directories) {
+                local.add(roots.get(i).resolve(relativize(directory)));
+            }
+            sinks.get(i).prepareDirectories(local);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Path path, PooledBuffer buffer) {
+        Path relative = relativize(path);
+        int stripe = selectStripe();
+        Path target = roots.get(stripe).resolve(relative);
+        inFlight[stripe].incrementAndGet();
+        return track(stripe, relative, target, sinks.get(stripe).write(target, buffer));
+    }
+
+    @Override
+    public CompletableFuture<Void> writeStreaming(Path path, OutputEncoder encoder) throws Exception {
+        Path relative = relativize(path);
+        int stripe = selectStripe();
+        Path target = roots.get(stripe).resolve(relative);
+        inFlight[stripe].incrementAndGet();
+        CompletableFuture<Void> result;
+        try {
+            result = sinks.get(stripe).writeStreaming(target, encoder);
+        } catch (Exception | Error e) {
+            inFlight[stripe].decrementAndGet();
+            throw e;
+        }
+        return track(stripe, relative, target, result);
+    }
+
+    /**
+     * Counts the write against its stripe until it completes and records where it went.
+     */
+    private CompletableFuture<Void> track(int stripe, Path relative, Path target, CompletableFuture<Void> result) {
+        return result.whenComplete((ignored, error) -> {
+            inFlight[stripe].decrementAndGet();
+            if (error == null) {
+                manifest.put(relative.toString().replace('\\', '/'), target);
+            }
+        });
+    }
+
+    private int selectStripe() {
+        int count = roots.size();
+        int start = (int) Math.floorMod(next.getAndIncrement(), (long) count);
+        if (policy == StripePolicy.ROUND_ROBIN) {
+            return start;
+        }
+        // Rotate the starting point so ties do not always favour the first root
+        int best = start;
+        for (int i = 1; i < count; i++) {
+            int candidate = (start + i) % count;
+            if (inFlight[candidate].get() < inFlight[best].get()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private Path relativize(Path path) {
+        Path absolute = path.toAbsolutePath().normalize();
+        Path primary = roots.get(0);
+        if (!absolute.startsWith(primary)) {
+            throw new IllegalArgumentException("Output " + path + " is not below the output root " + primary);
+        }
+        return primary.relativize(absolute);
+    }
+
+    /**
+     * @return the file the manifest is written to on close
+     */
+    public Path getManifestFile() {
+        return manifestFile;
+    }
+
+    /**
+     * @return the number of outputs written to each root, in root order
+     */
+    public int[] getWriteCounts() {
+        int[] counts = new int[roots.size()];
+        for (Path target : manifest.values()) {
+            for (int i = 0; i < roots.size(); i++) {
+                if (target.startsWith(roots.get(i))) {
+                    counts[i]++;
+                    break;
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (OutputSink sink : sinks) {
+            sink.flush();
+        }
+    }
+
+    /**
+     * Closes every root's sink, then writes the manifest of all successfully written outputs.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (OutputSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        writeManifest(manifestFile);
+    }
+
+    /**
+     * Writes {@code output,location} lines sorted by output name.
+     */
+    private void writeManifest(Path file) throws IOException {
+        Map<String, String> lines = new TreeMap<>();
+        for (Map.Entry<String, Path> entry : manifest.entrySet()) {
+            lines.put(entry.getKey(), csvField(entry.getKey()) + ',' + csvField(entry.getValue().toString()));
+        }
+        writeManifestLines(file, lines);
+        logger.info("Wrote manifest of {} outputs to {}", manifest.size(), file);
+    }
+
+    /**
+     * Combines the manifests of runs that rendered parts of one batch, such as worker processes,
+     * into a single manifest sorted by output name. An output listed by several parts keeps the
+     * location of the last part.
+     *
+     * @param parts  the manifests to combine
+     * @param target the combined manifest; may be one of the parts
+     * @return the number of outputs in the combined manifest
+     * @throws IOException if a part cannot be read or the result cannot be written
+     */
+    public static int mergeManifests(List<Path> parts, Path target) throws IOException {
+        Map<String, String> lines = new TreeMap<>();
+        for (Path part : parts) {
+            List<String> partLines = Files.readAllLines(part, StandardCharsets.UTF_8);
+            if (partLines.isEmpty() || !partLines.get(0).equals(MANIFEST_HEADER)) {
+                throw new IOException("Not an output manifest: " + part);
+            }
+            for (String line : partLines.subList(1, partLines.size())) {
+                if (!line.isEmpty()) {
+                    lines.put(firstField(line), line);
+                }
+            }
+        }
+        writeManifestLines(target, lines);
+        logger.info("Merged {} manifests of {} outputs into {}", parts.size(), lines.size(), target);
+        return lines.size();
+    }
+
+    private static void writeManifestLines(Path file, Map<String, String> lines) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(MANIFEST_HEADER);
+            writer.newLine();
+            for (String line : lines.values()) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads the output name from a manifest line, undoing {@link #csvField} quoting.
+     */
+    private static String firstField(String line) {
+        if (!line.startsWith("\"")) {
+            int comma = line.indexOf(',');
+            return comma < 0 ? line : line.substring(0, comma);
+        }
+        StringBuilder field = new StringBuilder();
+        for (int i = 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    break;
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        return field.toString();
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
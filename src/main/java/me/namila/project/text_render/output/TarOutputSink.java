@@ -0,0 +1,120 @@
+package me.namila.project.text_render.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes outputs as entries of a POSIX ustar archive. TAR has no central directory, so the
+ * archive can be streamed, e.g. to standard output and into another process.
+ *
+ * <p>Entry names longer than 100 bytes are split into the ustar prefix and name fields at a
+ * {@code /}; names that cannot be split that way are rejected. Duplicate names are allowed, as
+ * in any TAR stream; extracting keeps the last one.</p>
+ */
+public class TarOutputSink extends ArchiveOutputSink {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final int PREFIX_LENGTH = 155;
+    private static final long MAX_ENTRY_SIZE = 077777777777L;
+
+    private final long modificationTime = System.currentTimeMillis() / 1000;
+
+    /**
+     * @param out  the archive stream, closed together with the sink
+     * @param root directory that entry names are made relative to
+     */
+    public TarOutputSink(OutputStream out, Path root) {
+        super(out, root);
+    }
+
+    @Override
+    protected void checkEntry(String name, long size) throws IOException {
+        header(name, size);
+    }
+
+    @Override
+    protected void writeEntry(String name, PooledBuffer buffer, OutputStream out) throws IOException {
+        out.write(header(name, buffer.size()));
+        buffer.writeTo(out);
+        int padding = (BLOCK_SIZE - buffer.size() % BLOCK_SIZE) % BLOCK_SIZE;
+        out.write(new byte[padding]);
+    }
+
+    @Override
+    protected void finishArchive(OutputStream out) throws IOException {
+        out.write(new byte[2 * BLOCK_SIZE]);
+        out.flush();
+    }
+
+    /**
+     * Builds the 512-byte ustar header of a regular file entry.
+     */
+    byte[] header(String name, long size) throws IOException {
+        if (size > MAX_ENTRY_SIZE) {
+            throw new IOException("Entry too large for a ustar archive: " + name);
+        }
+        byte[] header = new byte[BLOCK_SIZE];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] prefixBytes = new byte[0];
+        if (nameBytes.length > NAME_LENGTH) {
+            int split = splitPoint(name);
+            prefixBytes = name.substring(0, split).getBytes(StandardCharsets.UTF_8);
+            nameBytes = name.substring(split + 1).getBytes(StandardCharsets.UTF_8);
+        }
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        octal(header, 100, 8, 0644);               // mode
+        octal(header, 108, 8, 0);                  // uid
+        octal(header, 116, 8, 0);                  // gid
+        octal(header, 124, 12, size);              // size
+        octal(header, 136, 12, modificationTime);  // mtime
+        header[156] = '0';                         // typeflag: regular file
+        ascii(header, 257, "ustar\0");             // magic
+        ascii(header, 263, "00");                  // version
+        System.arraycopy(prefixBytes, 0, header, 345, prefixBytes.length);
+
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        octal(header, 148, 7, checksum);
+        header[155] = ' ';
+        return header;
+    }
+
+    /**
+     * Finds the last {@code /} that leaves at most 155 prefix and 100 name bytes.
+     */
+    private static int splitPoint(String name) throws IOException {
+        for (int i = name.lastIndexOf('/'); i > 0; i = name.lastIndexOf('/', i - 1)) {
+            int prefixLength = name.substring(0, i).getBytes(StandardCharsets.UTF_8).length;
+            int nameLength = name.substring(i + 1).getBytes(StandardCharsets.UTF_8).length;
+            if (prefixLength <= PREFIX_LENGTH && nameLength <= NAME_LENGTH && nameLength > 0) {
+                return i;
+            }
+        }
+        throw new IOException("Entry name too long for a ustar archive: " + name);
+    }
+
+    /**
+     * Writes a zero-padded octal number followed by a NUL into {@code length} bytes.
+     */
+    private static void octal(byte[] header, int offset, int length, long value) {
+        String digits = Long.toOctalString(value);
+        int width = length - 1;
+        for (int i = 0; i < width; i++) {
+            int digit = i - (width - digits.length());
+            header[offset + i] = (byte) (digit < 0 ? '0' : digits.charAt(digit));
+        }
+        header[offset + width] = 0;
+    }
+
+    private static void ascii(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
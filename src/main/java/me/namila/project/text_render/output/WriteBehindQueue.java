@@ -0,0 +1,115 @@
+package me.namila.project.text_render.output;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded write-behind stage shared by the sinks: buffers are written on dedicated writer
+ * threads while renderers continue, and submitting blocks once {@code maxPending} buffers
+ * are waiting.
+ */
+final class WriteBehindQueue {
+
+    private static final long CLOSE_TIMEOUT_MINUTES = 60;
+
+    /**
+     * Writes one buffer on a writer thread.
+     */
+    @FunctionalInterface
+    interface Writer {
+        void write(Path path, PooledBuffer buffer) throws IOException;
+    }
+
+    private final ExecutorService writers;
+    private final Semaphore pending;
+    private final int maxPending;
+
+    /**
+     * @param threadName    name prefix of the writer threads
+     * @param writerThreads number of writer threads
+     * @param maxPending    buffers allowed to wait before {@link #submit} blocks
+     */
+    WriteBehindQueue(String threadName, int writerThreads, int maxPending) {
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, threadName + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a write, blocking while the queue is full. The buffer is released once written.
+     *
+     * @return a future completed when the writer has finished
+     */
+    CompletableFuture<Void> submit(Path path, PooledBuffer buffer, Writer writer) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            buffer.release();
+            result.completeExceptionally(new InterruptedIOException("Interrupted while queueing " + path));
+            return result;
+        }
+        try {
+            writers.execute(() -> {
+                try {
+                    writer.write(path, buffer);
+                    result.complete(null);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    buffer.release();
+                    // Released after completing, so flush() also waits for completion callbacks
+                    pending.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            pending.release();
+            buffer.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Waits until every write submitted so far has completed.
+     */
+    void flush() throws IOException {
+        try {
+            pending.acquire(maxPending);
+            pending.release(maxPending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for pending writes");
+        }
+    }
+
+    /**
+     * Finishes queued writes and stops the writer threads.
+     */
+    void close() throws IOException {
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(CLOSE_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                writers.shutdownNow();
+                throw new IOException("Pending writes did not complete within the timeout period");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writers.shutdownNow();
+            throw new InterruptedIOException("Interrupted while waiting for pending writes");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package me.namila.project.text_render.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes outputs as entries of a ZIP archive.
+ *
+ * <p>PNG, JPEG and PDF entries are already compressed, so they are STORED: the CRC-32 is computed
+ * from the buffer up front and the bytes are copied unchanged. Other entries are deflated. ZIP64
+ * extensions are used automatically beyond 65535 entries or 4 GiB.</p>
+ */
+public class ZipOutputSink extends ArchiveOutputSink {
+
+    private final ZipOutputStream zip;
+    private final Set<String> entryNames = new HashSet<>();
+
+    /**
+     * @param out  the archive stream, closed together with the sink
+     * @param root directory that entry names are made relative to
+     */
+    public ZipOutputSink(OutputStream out, Path root) {
+        this(new ZipOutputStream(out), root);
+    }
+
+    private ZipOutputSink(ZipOutputStream zip, Path root) {
+        super(zip, root);
+        this.zip = zip;
+    }
+
+    @Override
+    protected void checkEntry(String name, long size) throws IOException {
+        if (!entryNames.add(name)) {
+            throw new FileAlreadyExistsException(name, null, "duplicate archive entry");
+        }
+    }
+
+    @Override
+    protected void writeEntry(String name, PooledBuffer buffer, OutputStream out) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (isCompressedFormat(name)) {
+            CRC32 crc = new CRC32();
+            crc.update(buffer.asByteBuffer());
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(buffer.size());
+            entry.setCompressedSize(buffer.size());
+            entry.setCrc(crc.getValue());
+        } else {
+            entry.setMethod(ZipEntry.DEFLATED);
+        }
+        zip.putNextEntry(entry);
+        buffer.writeTo(zip);
+        zip.closeEntry();
+    }
+
+    @Override
+    protected void finishArchive(OutputStream out) throws IOException {
+        zip.finish();
+    }
+}
@@ -1,16 +1,36 @@
 package me.namila.project.text_render.service;
 
+import me.namila.project.text_render.codec.BandEncoder;
 import me.namila.project.text_render.model.Alignment;
+import me.namila.project.text_render.model.FsyncPolicy;
 import me.namila.project.text_render.model.RenderJob;
 import me.namila.project.text_render.model.TextConfig;
+import me.namila.project.text_render.output.FileSystemOutputSink;
+import me.namila.project.text_render.output.OutputSink;
+import me.namila.project.text_render.output.PooledBuffer;
 import me.namila.project.text_render.util.NativeImageUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract base class for image-based renderer services (PNG, JPEG).
@@ -24,25 +44,181 @@ public abstract class AbstractImageRendererService implements RendererService {
     private static final Logger logger = LoggerFactory.getLogger(AbstractImageRendererService.class);
 
     /**
-     * Main rendering method implementing the template method pattern.
+     * Extra pixels added around the measured text bounds, covering anti-aliasing bleed.
+     */
+    private static final int TEXT_BOUNDS_MARGIN = 2;
+
+    /**
+     * Band heights are rounded up to this many rows so JPEG bands align with MCU rows.
+     */
+    private static final int BAND_ALIGNMENT = 16;
+
+    /**
+     * Assumed size of an encoded output per pixel, for memory estimates. Compressed images are
+     * usually far smaller; noisy PNGs can come close.
+     */
+    private static final int ENCODED_BYTES_PER_PIXEL = 1;
+
+    private volatile boolean incrementalEncoding;
+    private volatile int streamingBandHeight;
+    private final Map<TemplateKey, Object> templateCaches = new ConcurrentHashMap<>();
+
+    /**
+     * Main rendering method implementing the template method pattern. The output is encoded into
+     * a temporary file and renamed into place, so it never exists in part under its name.
      * 
      * @param job the render job containing template, output path, and text configuration
      * @throws Exception if rendering fails
      */
     @Override
     public final void render(RenderJob job) throws Exception {
+        ensureOutputDirectoryExists(job.outputPath());
+        FileSystemOutputSink.writeAtomically(job.outputPath(), FsyncPolicy.NONE, out -> renderTo(job, out));
+        logger.debug("Successfully rendered {} to: {}", getFormatName(), job.outputPath());
+    }
+
+    /**
+     * Renders the job into a buffer from the sink and hands it over for writing. In streaming
+     * mode the encoder writes into the sink directly instead, so the encoded output is not
+     * buffered either.
+     * 
+     * @param job the render job containing template, output path, and text configuration
+     * @param sink the destination for the encoded output
+     * @return a future completed when the sink has written the output
+     * @throws Exception if rendering fails
+     */
+    @Override
+    public final CompletableFuture<Void> render(RenderJob job, OutputSink sink) throws Exception {
+        if (isStreaming()) {
+            CompletableFuture<Void> written = sink.writeStreaming(job.outputPath(), out -> renderTo(job, out));
+            logger.debug("Streamed {} for: {}", getFormatName(), job.outputPath());
+            return written;
+        }
+        PooledBuffer buffer = sink.allocate();
+        try {
+            renderTo(job, buffer);
+        } catch (Exception | Error e) {
+            buffer.release();
+            throw e;
+        }
+        logger.debug("Rendered {} for: {} ({} bytes)", getFormatName(), job.outputPath(), buffer.size());
+        return sink.write(job.outputPath(), buffer);
+    }
+
+    /**
+     * Renders the job and encodes the result into the given stream.
+     */
+    private void renderTo(RenderJob job, OutputStream out) throws Exception {
         logger.debug("Rendering {} for text: '{}' at ({}, {})", 
             getFormatName(), job.text(), job.textConfig().x(), job.textConfig().y());
+
+        if (isStreaming()) {
+            renderStreaming(job, out);
+            return;
+        }
         
-        BufferedImage image = loadImageWithErrorHandling(job);
-        BufferedImage processedImage = preprocessImage(image);
-        
-        renderTextOnImage(processedImage, job);
+        BufferedImage processedImage = loadTemplate(job.templatePath());
         
-        ensureOutputDirectoryExists(job.outputPath());
-        saveImage(processedImage, job.outputPath());
+        Rectangle textBounds = renderTextOnImage(processedImage, job, 0);
         
-        logger.debug("Successfully rendered {} to: {}", getFormatName(), job.outputPath());
+        writeImage(processedImage, job, textBounds, out);
+    }
+
+    /**
+     * Enables or disables incremental encoding. When enabled, renderers that support it
+     * re-encode only the part of the output touched by the text and reuse a cached encoding
+     * of the template for the rest.
+     * 
+     * @param enabled true to enable incremental encoding
+     */
+    public void setIncrementalEncoding(boolean enabled) {
+        this.incrementalEncoding = enabled;
+    }
+
+    /**
+     * @return true if incremental encoding is enabled
+     */
+    public boolean isIncrementalEncoding() {
+        return incrementalEncoding;
+    }
+
+    /**
+     * Enables streaming mode for formats that support it. Instead of decoding the whole template,
+     * each job decodes it in horizontal bands of about {@code bandHeight} rows, draws the text into
+     * the bands it intersects and hands every band to the encoder before decoding the next, and the
+     * encoder writes straight into the output. Per-job memory is then proportional to
+     * {@code bandHeight x width} rather than the whole image, at the cost of decoding the template
+     * once per job. Streaming takes precedence over incremental encoding.
+     * 
+     * @param bandHeight rows per band (rounded up to a multiple of 16), or 0 to disable streaming
+     */
+    public void setStreamingBandHeight(int bandHeight) {
+        if (bandHeight < 0) {
+            throw new IllegalArgumentException("Streaming band height must not be negative: " + bandHeight);
+        }
+        this.streamingBandHeight = bandHeight == 0 ? 0 : alignBandHeight(bandHeight);
+    }
+
+    /**
+     * @return the streaming band height in rows, or 0 if streaming is disabled
+     */
+    public int getStreamingBandHeight() {
+        return streamingBandHeight;
+    }
+
+    /**
+     * Includes the encoding mode, since incremental and streaming encodes may compress differently.
+     */
+    @Override
+    public String getOutputFingerprint() {
+        return RendererService.super.getOutputFingerprint()
+            + ";incremental=" + incrementalEncoding + ";streaming=" + streamingBandHeight;
+    }
+
+    /**
+     * Estimates the memory of a job from the template's dimensions and pixel format, read from the
+     * image header without decoding it: the decoded image (or band, in streaming mode), a converted
+     * copy if {@link #preprocessCopies} says so, and the encoded output buffer.
+     */
+    @Override
+    public long estimateJobMemory(Path templatePath) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(templatePath.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return 0;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+                ImageTypeSpecifier type = types.hasNext() ? types.next() : null;
+                int decodedBytesPerPixel = type == null ? 4
+                    : Math.max(1, (type.getColorModel().getPixelSize() + 7) / 8);
+                int rows = isStreaming() ? Math.min(height, streamingBandHeight) : height;
+                long decoded = (long) width * rows * decodedBytesPerPixel;
+                long converted = type == null || preprocessCopies(type) ? (long) width * rows * 4 : 0;
+                long encoded = (long) width * height * ENCODED_BYTES_PER_PIXEL;
+                long estimate = decoded + converted + encoded;
+                logger.debug("Estimated {} bytes per {} job for {}x{} template", estimate, getFormatName(),
+                    width, height);
+                return estimate;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Tells whether {@link #preprocessImage} copies images of the given type into a new image,
+     * which then also occupies memory while a job runs. Default implementation returns false.
+     *
+     * @param type the pixel format the template decodes to
+     * @return true if preprocessing copies the image
+     */
+    protected boolean preprocessCopies(ImageTypeSpecifier type) {
+        return false;
     }
 
     /**
@@ -53,7 +229,7 @@ public abstract class AbstractImageRendererService implements RendererService {
     protected abstract String getFormatName();
 
     /**
-     * Returns the image format identifier for ImageIO.write() (e.g., "PNG", "JPEG").
+     * Returns the image format identifier used by the default {@link #writeImage} (e.g., "PNG", "JPEG").
      * 
      * @return the image format identifier
      */
@@ -83,17 +259,104 @@ public abstract class AbstractImageRendererService implements RendererService {
         g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
     }
 
+    /**
+     * Loads and preprocesses the template image, ready for text to be drawn on it.
+     * 
+     * @param templatePath the template file
+     * @return a fresh, preprocessed copy of the template image
+     * @throws Exception if image loading fails
+     */
+    protected BufferedImage loadTemplate(Path templatePath) throws Exception {
+        return preprocessImage(loadImageWithErrorHandling(templatePath));
+    }
+
+    /**
+     * Indicates whether this renderer can encode band by band via {@link #createBandEncoder}.
+     * Default implementation returns false, so streaming mode falls back to whole-image rendering.
+     * 
+     * @return true if streaming is supported
+     */
+    protected boolean supportsStreaming() {
+        return false;
+    }
+
+    /**
+     * Creates the encoder that streaming mode feeds with preprocessed, rendered bands.
+     * Only called when {@link #supportsStreaming()} returns true.
+     * 
+     * @param width the image width
+     * @param height the image height
+     * @param firstBand the first band, for its pixel layout
+     * @param out the destination stream (closed by the caller)
+     * @return the band encoder
+     * @throws IOException if the encoder cannot be started
+     */
+    protected BandEncoder createBandEncoder(int width, int height, BufferedImage firstBand, OutputStream out)
+            throws IOException {
+        throw new UnsupportedOperationException(getFormatName() + " does not support streaming");
+    }
+
+    /**
+     * Returns a per-template encoding cache, building it from the loaded template on first use.
+     * Caches are keyed by path, size and modification time, so an edited template is picked up
+     * automatically. Each subclass stores a single cache type.
+     * 
+     * @param templatePath the template file
+     * @param factory builds the cache from the preprocessed template
+     * @param <T> the cache type
+     * @return the cached value
+     * @throws IOException if the template cannot be read or the cache cannot be built
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T getTemplateCache(Path templatePath, TemplateCacheFactory<T> factory) throws IOException {
+        TemplateKey key = new TemplateKey(templatePath.toAbsolutePath().normalize(),
+            Files.size(templatePath), Files.getLastModifiedTime(templatePath).toMillis());
+        try {
+            return (T) templateCaches.computeIfAbsent(key, k -> {
+                try {
+                    logger.debug("Building {} template cache for: {}", getFormatName(), templatePath);
+                    return factory.create(loadTemplate(templatePath));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to build template cache for " + templatePath, e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Discards all template caches, e.g. after encoder settings change.
+     */
+    protected void clearTemplateCaches() {
+        templateCaches.clear();
+    }
+
+    /**
+     * Builds a template encoding cache from a preprocessed template image.
+     * 
+     * @param <T> the cache type
+     */
+    @FunctionalInterface
+    protected interface TemplateCacheFactory<T> {
+        T create(BufferedImage template) throws IOException;
+    }
+
+    private record TemplateKey(Path path, long size, long lastModified) {}
+
     /**
      * Loads the template image with proper error handling for GraalVM native-image limitations.
      * 
-     * @param job the render job containing the template path
+     * @param templatePath the template file
      * @return the loaded BufferedImage
      * @throws Exception if image loading fails
      */
-    private BufferedImage loadImageWithErrorHandling(RenderJob job) throws Exception {
+    private BufferedImage loadImageWithErrorHandling(Path templatePath) throws Exception {
         BufferedImage image;
         try {
-            image = ImageIO.read(job.templatePath().toFile());
+            image = ImageIO.read(templatePath.toFile());
         } catch (UnsatisfiedLinkError e) {
             throw new IllegalStateException(
                 getFormatName() + " rendering failed due to missing AWT support. " +
@@ -106,12 +369,12 @@ public abstract class AbstractImageRendererService implements RendererService {
         if (image == null) {
             if (NativeImageUtil.isNativeImage()) {
                 throw new IllegalStateException(
-                    "Failed to read " + getFormatName() + " image from " + job.templatePath() + 
+                    "Failed to read " + getFormatName() + " image from " + templatePath + 
                     ". This may be due to missing AWT support in GraalVM native-image on macOS. " +
                     "Use 'java -jar' mode for " + getFormatName() + " rendering."
                 );
             }
-            throw new IllegalStateException("Failed to read image from " + job.templatePath());
+            throw new IllegalStateException("Failed to read image from " + templatePath);
         }
 
         return image;
@@ -122,11 +385,14 @@ public abstract class AbstractImageRendererService implements RendererService {
      * 
      * @param image the image to render text on
      * @param job the render job containing text and configuration
+     * @param offsetY the template row the image starts at (non-zero for streaming bands)
+     * @return the region of the template that may have been changed by the text
      */
-    private void renderTextOnImage(BufferedImage image, RenderJob job) {
+    private Rectangle renderTextOnImage(BufferedImage image, RenderJob job, int offsetY) {
         Graphics2D g2d = image.createGraphics();
 
         try {
+            g2d.translate(0, -offsetY);
             configureRenderingQuality(g2d);
 
             TextConfig config = job.textConfig();
@@ -141,32 +407,133 @@ public abstract class AbstractImageRendererService implements RendererService {
             
             logger.debug("Text rendered with font: {}, size: {}, style: {}, color: {}, alignment: {}", 
                 config.fontName(), config.fontSize(), config.fontStyle(), textColor, config.alignment());
+            return measureTextBounds(g2d, job.text(), adjustedX, (int) config.y());
         } finally {
             g2d.dispose();
         }
     }
 
+    /**
+     * Renders a job band by band: reads each band of the template with a region read, draws the
+     * text into the bands it intersects and passes the band to the encoder before reading the next.
+     * 
+     * @param job the render job
+     * @param out the destination stream
+     * @throws Exception if reading, rendering or encoding fails
+     */
+    private void renderStreaming(RenderJob job, OutputStream out) throws Exception {
+        Path templatePath = job.templatePath();
+        try (ImageInputStream input = ImageIO.createImageInputStream(templatePath.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalStateException("Failed to read image from " + templatePath);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, false, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width == 0 || height == 0) {
+                    throw new IllegalStateException("Template has no pixels: " + templatePath);
+                }
+                // Measure on a scratch image; drawing there is clipped away
+                Rectangle textBounds = renderTextOnImage(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), job, 0);
+                logger.debug("Streaming {}x{} {} in bands of {} rows", width, height, getFormatName(),
+                    streamingBandHeight);
+
+                BandEncoder[] encoder = new BandEncoder[1];
+                try {
+                    BandReader.read(reader, streamingBandHeight, (decoded, y) -> {
+                        BufferedImage band = preprocessImage(decoded);
+                        if (textBounds.intersects(0, y, width, band.getHeight())) {
+                            renderTextOnImage(band, job, y);
+                        }
+                        if (encoder[0] == null) {
+                            encoder[0] = createBandEncoder(width, height, band, out);
+                        }
+                        encoder[0].writeBand(band);
+                    });
+                    encoder[0].finish();
+                } finally {
+                    if (encoder[0] != null) {
+                        encoder[0].close();
+                    }
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private boolean isStreaming() {
+        return streamingBandHeight > 0 && supportsStreaming();
+    }
+
+    private static int alignBandHeight(int bandHeight) {
+        return (bandHeight + BAND_ALIGNMENT - 1) / BAND_ALIGNMENT * BAND_ALIGNMENT;
+    }
+
+    /**
+     * Measures the pixels covered by the drawn text. The result is the union of the glyph pixel
+     * bounds and the font's maximum ascent/descent band, padded for anti-aliasing, so it safely
+     * contains every pixel {@code drawString} may have touched.
+     */
+    private Rectangle measureTextBounds(Graphics2D g2d, String text, int x, int baselineY) {
+        if (text == null || text.isEmpty()) {
+            return new Rectangle();
+        }
+        FontRenderContext frc = g2d.getFontRenderContext();
+        FontMetrics fm = g2d.getFontMetrics();
+        Rectangle bounds = new TextLayout(text, g2d.getFont(), frc).getPixelBounds(frc, x, baselineY);
+        bounds.add(new Rectangle(x, baselineY - fm.getMaxAscent(),
+            Math.max(1, fm.stringWidth(text)), fm.getMaxAscent() + fm.getMaxDescent()));
+        bounds.grow(TEXT_BOUNDS_MARGIN, TEXT_BOUNDS_MARGIN);
+        return bounds;
+    }
+
     /**
      * Ensures the output directory exists before saving the image.
      * 
      * @param outputPath the output file path
      * @throws Exception if directory creation fails
      */
-    private void ensureOutputDirectoryExists(java.nio.file.Path outputPath) throws Exception {
+    private void ensureOutputDirectoryExists(Path outputPath) throws Exception {
         if (outputPath.getParent() != null) {
             Files.createDirectories(outputPath.getParent());
         }
     }
 
     /**
-     * Saves the rendered image to the output path.
+     * Encodes the rendered image of a job into the given stream.
+     * Default implementation ignores the job context and delegates to {@link #writeImage(BufferedImage, OutputStream)}.
+     * Subclasses supporting incremental encoding override this to reuse a cached template encoding.
      * 
      * @param image the rendered image
-     * @param outputPath the output file path
-     * @throws Exception if saving fails
+     * @param job the render job (template path, text configuration)
+     * @param textBounds the region that may differ from the template
+     * @param out the destination stream (closed by the caller)
+     * @throws IOException if encoding fails
      */
-    private void saveImage(BufferedImage image, java.nio.file.Path outputPath) throws Exception {
-        ImageIO.write(image, getImageFormat(), outputPath.toFile());
+    protected void writeImage(BufferedImage image, RenderJob job, Rectangle textBounds, OutputStream out)
+            throws IOException {
+        writeImage(image, out);
+    }
+
+    /**
+     * Encodes the rendered image into the given stream.
+     * Default implementation uses ImageIO with {@link #getImageFormat()}.
+     * Subclasses can override to plug in a format-specific encoder.
+     * 
+     * @param image the rendered image
+     * @param out the destination stream (closed by the caller)
+     * @throws IOException if encoding fails
+     */
+    protected void writeImage(BufferedImage image, OutputStream out) throws IOException {
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            if (!ImageIO.write(image, getImageFormat(), ios)) {
+                throw new IOException("No ImageIO writer available for format: " + getImageFormat());
+            }
+        }
     }
 
     /**
@@ -0,0 +1,314 @@
+package me.namila.project.text_render.service;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataFormatImpl;
+import javax.imageio.metadata.IIOMetadataNode;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Reads an image top to bottom in horizontal bands, decoding it only once.
+ *
+ * <p>Reading each band with a source region makes most decoders decode the image from the start
+ * for every band, so the decode cost grows with the square of the band count. Instead, the image
+ * is read in one pass into a destination whose rows are stored in a ring buffer two bands tall.
+ * The reader reports every decoded row to a listener, which hands a band to the consumer as soon
+ * as its last row is in, before the decoder overwrites it.</p>
+ *
+ * <p>Images decoded in several passes (interlaced PNG, progressive JPEG) only have their final
+ * rows after the last pass. They, and images whose decoder does not deliver whole rows in order,
+ * are read band by band with source regions.</p>
+ */
+final class BandReader {
+
+    /**
+     * Receives the bands of an image, top to bottom.
+     */
+    @FunctionalInterface
+    interface BandConsumer {
+
+        /**
+         * @param band the pixels of the band, owned by the consumer
+         * @param y the image row of the band's first row
+         */
+        void accept(BufferedImage band, int y) throws Exception;
+    }
+
+    private BandReader() {
+    }
+
+    /**
+     * Reads the first image of the reader's input in bands.
+     *
+     * @param reader the reader, with its input set
+     * @param bandHeight rows per band; the last band may be shorter
+     * @param consumer receives every band in order
+     * @throws Exception if decoding fails or the consumer throws
+     */
+    static void read(ImageReader reader, int bandHeight, BandConsumer consumer) throws Exception {
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        if (height == 0 || width == 0) {
+            return;
+        }
+        Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+        ImageTypeSpecifier type = types.hasNext() ? types.next() : null;
+        if (type == null || isMultiPass(reader) || !readSinglePass(reader, type, width, height, bandHeight, consumer)) {
+            readRegions(reader, width, height, bandHeight, consumer);
+        }
+    }
+
+    private static boolean isMultiPass(ImageReader reader) throws IOException {
+        IIOMetadata metadata = reader.getImageMetadata(0);
+        if (metadata == null || !metadata.isStandardMetadataFormatSupported()) {
+            return false;
+        }
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(IIOMetadataFormatImpl.standardMetadataFormatName);
+        var scans = root.getElementsByTagName("NumProgressiveScans");
+        if (scans.getLength() == 0) {
+            return false;
+        }
+        String value = ((IIOMetadataNode) scans.item(0)).getAttribute("value");
+        try {
+            return Integer.parseInt(value) > 1;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static void readRegions(ImageReader reader, int width, int height, int bandHeight,
+                                    BandConsumer consumer) throws Exception {
+        for (int y = 0; y < height; y += bandHeight) {
+            int rows = Math.min(bandHeight, height - y);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(0, y, width, rows));
+            consumer.accept(reader.read(0, param), y);
+        }
+    }
+
+    /**
+     * @return false if the image must be read with source regions instead; nothing was passed
+     *         to the consumer then
+     */
+    private static boolean readSinglePass(ImageReader reader, ImageTypeSpecifier type, int width, int height,
+                                          int bandHeight, BandConsumer consumer) throws Exception {
+        int ringRows = Math.min(height, 2 * bandHeight);
+        SampleModel ringModel = type.getSampleModel(width, ringRows);
+        int rowElements = scanlineStride(ringModel);
+        // Ring indices must stay in int range and samples must be integral
+        if (rowElements <= 0 || (long) rowElements * height > Integer.MAX_VALUE
+                || ringModel.getDataType() > DataBuffer.TYPE_INT) {
+            return false;
+        }
+        // A full-height raster over a ring buffer: row y lives in ring row y % ringRows
+        SampleModel fullModel = type.getSampleModel(width, height);
+        RingDataBuffer ring = new RingDataBuffer(fullModel.getDataType(), rowElements * ringRows, bankCount(fullModel));
+        WritableRaster raster = Raster.createWritableRaster(fullModel, ring, null);
+        BufferedImage destination = new BufferedImage(type.getColorModel(), raster,
+            type.getColorModel().isAlphaPremultiplied(), null);
+
+        BandListener listener = new BandListener(type, destination, width, height, bandHeight, ringRows, consumer);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setDestination(destination);
+        reader.addIIOReadUpdateListener(listener);
+        try {
+            reader.read(0, param);
+        } finally {
+            reader.removeIIOReadUpdateListener(listener);
+        }
+        return listener.finish();
+    }
+
+    private static int scanlineStride(SampleModel model) {
+        return switch (model) {
+            case ComponentSampleModel component -> component.getScanlineStride();
+            case SinglePixelPackedSampleModel packed -> packed.getScanlineStride();
+            case MultiPixelPackedSampleModel packed -> packed.getScanlineStride();
+            default -> -1;
+        };
+    }
+
+    private static int bankCount(SampleModel model) {
+        if (model instanceof ComponentSampleModel component) {
+            return Arrays.stream(component.getBankIndices()).max().orElse(0) + 1;
+        }
+        return 1;
+    }
+
+    /**
+     * Copies bands out of the ring buffer as the decoder completes them.
+     */
+    private static final class BandListener implements IIOReadUpdateListener {
+
+        private final ImageTypeSpecifier type;
+        private final Raster source;
+        private final int width;
+        private final int height;
+        private final int bandHeight;
+        private final int ringRows;
+        private final BandConsumer consumer;
+        /** Rows 0 until here are decoded */
+        private int decoded;
+        /** First row of the next band to hand over */
+        private int next;
+        private boolean unsupported;
+        private Exception failure;
+
+        BandListener(ImageTypeSpecifier type, BufferedImage destination, int width, int height, int bandHeight,
+                     int ringRows, BandConsumer consumer) {
+            this.type = type;
+            this.source = destination.getRaster();
+            this.width = width;
+            this.height = height;
+            this.bandHeight = bandHeight;
+            this.ringRows = ringRows;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void passStarted(ImageReader reader, BufferedImage image, int pass, int minPass, int maxPass,
+                                int minX, int minY, int periodX, int periodY, int[] bands) {
+            if (pass > 0 || periodX != 1 || periodY != 1) {
+                stop(reader, "Template is decoded in several passes");
+            }
+        }
+
+        @Override
+        public void imageUpdate(ImageReader reader, BufferedImage image, int minX, int minY, int width, int height,
+                                int periodX, int periodY, int[] bands) {
+            if (failure != null || unsupported) {
+                return;
+            }
+            int end = minY + (height - 1) * periodY + 1;
+            if (minX != 0 || width != this.width || periodY != 1 || minY > decoded || end - next > ringRows) {
+                stop(reader, "Template decoder does not deliver whole rows in order");
+                return;
+            }
+            decoded = Math.max(decoded, end);
+            try {
+                while (next < this.height && decoded >= Math.min(this.height, next + bandHeight)) {
+                    int rows = Math.min(bandHeight, this.height - next);
+                    consumer.accept(copyBand(next, rows), next);
+                    next += rows;
+                }
+            } catch (Exception e) {
+                failure = e;
+                reader.abort();
+            }
+        }
+
+        private BufferedImage copyBand(int y, int rows) {
+            BufferedImage band = type.createBufferedImage(width, rows);
+            WritableRaster target = band.getRaster();
+            Object row = null;
+            for (int i = 0; i < rows; i++) {
+                row = source.getDataElements(0, y + i, width, 1, row);
+                target.setDataElements(0, i, width, 1, row);
+            }
+            return band;
+        }
+
+        private void stop(ImageReader reader, String reason) {
+            if (next > 0) {
+                // Earlier bands are already encoded and cannot be taken back
+                failure = new IllegalStateException(reason + " after " + next + " rows were streamed");
+            } else {
+                unsupported = true;
+            }
+            reader.abort();
+        }
+
+        /**
+         * @return false if the image has to be read with source regions
+         * @throws Exception the failure that stopped the read, if any
+         */
+        boolean finish() throws Exception {
+            if (failure != null) {
+                throw failure;
+            }
+            if (unsupported) {
+                return false;
+            }
+            if (next < height) {
+                throw new IllegalStateException("Template decoder stopped after " + decoded + " of " + height + " rows");
+            }
+            return true;
+        }
+
+        @Override
+        public void passComplete(ImageReader reader, BufferedImage image) {
+        }
+
+        @Override
+        public void thumbnailPassStarted(ImageReader reader, BufferedImage thumbnail, int pass, int minPass,
+                                         int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailUpdate(ImageReader reader, BufferedImage thumbnail, int minX, int minY, int width,
+                                    int height, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailPassComplete(ImageReader reader, BufferedImage thumbnail) {
+        }
+    }
+
+    /**
+     * Data buffer holding a fixed number of elements per bank and mapping every index onto them
+     * modulo that size, so a full-height raster only keeps its most recent rows.
+     */
+    private static final class RingDataBuffer extends DataBuffer {
+
+        private final int capacity;
+        private final byte[][] bytes;
+        private final short[][] shorts;
+        private final int[][] ints;
+
+        RingDataBuffer(int dataType, int capacity, int banks) {
+            super(dataType, capacity, banks);
+            this.capacity = capacity;
+            this.bytes = dataType == TYPE_BYTE ? new byte[banks][capacity] : null;
+            this.shorts = dataType == TYPE_USHORT || dataType == TYPE_SHORT ? new short[banks][capacity] : null;
+            this.ints = bytes == null && shorts == null ? new int[banks][capacity] : null;
+        }
+
+        @Override
+        public int getElem(int bank, int i) {
+            int index = i % capacity;
+            if (bytes != null) {
+                return bytes[bank][index] & 0xff;
+            }
+            if (shorts != null) {
+                return getDataType() == TYPE_SHORT ? shorts[bank][index] : shorts[bank][index] & 0xffff;
+            }
+            return ints[bank][index];
+        }
+
+        @Override
+        public void setElem(int bank, int i, int val) {
+            int index = i % capacity;
+            if (bytes != null) {
+                bytes[bank][index] = (byte) val;
+            } else if (shorts != null) {
+                shorts[bank][index] = (short) val;
+            } else {
+                ints[bank][index] = val;
+            }
+        }
+    }
+}
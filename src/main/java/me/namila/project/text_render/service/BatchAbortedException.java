@@ -0,0 +1,16 @@
+package me.namila.project.text_render.service;
+
+/**
+ * Thrown by {@link ParallelExecutorService} when a batch exhausted its failure budget.
+ *
+ * <p>Jobs that had not started when the batch was aborted are reported to the
+ * {@link JobListener} as failed with an instance of this exception.</p>
+ */
+public class BatchAbortedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BatchAbortedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,242 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.BatchPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares one concurrency cap between batches that run in the same process.
+ *
+ * <p>Every batch holds a slot for each job it renders. When a slot frees up it goes to the waiting
+ * batch with the highest {@link BatchPriority#priority()}; among batches of equal priority it goes
+ * to the batch with the lowest virtual time, which advances by {@code 1 / weight} for every slot a
+ * batch is granted (start-time fair queueing). A batch that was idle resumes at the current
+ * virtual time, so it cannot claim the slots it did not use while idle.</p>
+ *
+ * <p>Each batch still applies its own parallelism limit; the scheduler only bounds the total.
+ * Instances are thread-safe and meant to be shared, see
+ * {@link ParallelExecutorService#setScheduler}.</p>
+ */
+public class BatchScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchScheduler.class);
+
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+    private final List<Batch> batches = new ArrayList<>();
+
+    private int running;
+    private double virtualTime;
+    private long registrations;
+
+    /**
+     * @param capacity the number of jobs allowed to run at the same time across all batches
+     */
+    public BatchScheduler(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Scheduler capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Registers a batch. Close the batch once it has finished.
+     *
+     * @param name     the batch name, for logging
+     * @param priority how the batch competes for slots
+     * @return the batch
+     */
+    public Batch register(String name, BatchPriority priority) {
+        Objects.requireNonNull(priority, "priority must not be null");
+        lock.lock();
+        try {
+            Batch batch = new Batch(name, priority, registrations++);
+            batch.virtualTime = virtualTime;
+            batches.add(batch);
+            logger.debug("Registered batch {} with priority {} and weight {} ({} batches)",
+                name, priority.priority(), priority.weight(), batches.size());
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of jobs allowed to run at the same time
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of slots currently held
+     */
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Picks the batch the next free slot goes to. Called with the lock held.
+     */
+    private Batch next() {
+        Batch next = null;
+        for (Batch batch : batches) {
+            if (batch.waiting > 0 && (next == null || batch.isAheadOf(next))) {
+                next = batch;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * A batch registered with the scheduler.
+     */
+    public final class Batch implements AutoCloseable {
+
+        private final String name;
+        private final BatchPriority priority;
+        private final long order;
+        private double virtualTime;
+        private int waiting;
+        private int running;
+        private long granted;
+
+        private Batch(String name, BatchPriority priority, long order) {
+            this.name = name;
+            this.priority = priority;
+            this.order = order;
+        }
+
+        private boolean isAheadOf(Batch other) {
+            if (priority.priority() != other.priority.priority()) {
+                return priority.priority() > other.priority.priority();
+            }
+            if (virtualTime != other.virtualTime) {
+                return virtualTime < other.virtualTime;
+            }
+            return order < other.order;
+        }
+
+        /**
+         * Waits until this batch is granted a slot.
+         *
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public void acquire() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                if (!batches.contains(this)) {
+                    throw new IllegalStateException("Batch " + name + " is closed");
+                }
+                if (waiting == 0 && running == 0) {
+                    // Resume at the current virtual time instead of catching up on idle time
+                    virtualTime = Math.max(virtualTime, BatchScheduler.this.virtualTime);
+                }
+                waiting++;
+                try {
+                    while (BatchScheduler.this.running >= capacity || next() != this) {
+                        slotAvailable.await();
+                    }
+                } finally {
+                    waiting--;
+                }
+                BatchScheduler.this.running++;
+                BatchScheduler.this.virtualTime = virtualTime;
+                running++;
+                granted++;
+                virtualTime += 1.0 / priority.weight();
+                // Another batch may now be next in line for a remaining slot
+                slotAvailable.signalAll();
+            } catch (InterruptedException e) {
+                // The batch gave up its turn; let the next one in line check again
+                slotAvailable.signalAll();
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns a slot acquired with {@link #acquire()}.
+         */
+        public void release() {
+            lock.lock();
+            try {
+                if (running == 0) {
+                    throw new IllegalStateException("Batch " + name + " holds no slot");
+                }
+                running--;
+                BatchScheduler.this.running--;
+                slotAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the number of slots granted to this batch so far
+         */
+        public long getGranted() {
+            lock.lock();
+            try {
+                return granted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the number of jobs of this batch waiting for a slot
+         */
+        int getWaiting() {
+            lock.lock();
+            try {
+                return waiting;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the batch name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return how the batch competes for slots
+         */
+        public BatchPriority getPriority() {
+            return priority;
+        }
+
+        /**
+         * Unregisters the batch. Slots it still holds stay counted until released.
+         */
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (batches.remove(this)) {
+                    logger.debug("Batch {} finished after {} slots", name, granted);
+                    slotAvailable.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
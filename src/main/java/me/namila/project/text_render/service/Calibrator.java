@@ -0,0 +1,243 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.output.BufferPool;
+import me.namila.project.text_render.output.OutputSink;
+import me.namila.project.text_render.output.PooledBuffer;
+import me.namila.project.text_render.util.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how a sample of jobs performs under different settings, for the {@code calibrate}
+ * command.
+ *
+ * <p>Each trial renders the whole sample through the {@link ParallelExecutorService} into a sink
+ * that only counts the encoded bytes, so trials measure rendering and encoding rather than the
+ * storage. The heap is collected and the peak usage of the heap pools reset before each trial, so
+ * the reported peak heap is the high-water mark of that trial.</p>
+ */
+public class Calibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(Calibrator.class);
+
+    /**
+     * Encoder settings whose average output is at most this much larger than the smallest one
+     * compete on throughput.
+     */
+    static final double SIZE_TOLERANCE = 0.10;
+
+    /**
+     * Parallelism levels within this share of the best throughput count as equally fast; the
+     * lowest of them is recommended, since it needs less memory.
+     */
+    static final double THROUGHPUT_TOLERANCE = 0.05;
+
+    /**
+     * Result of rendering the sample once.
+     *
+     * @param label         the settings measured
+     * @param threads       the parallelism used
+     * @param jobs          the number of jobs rendered
+     * @param failures      the number of jobs that failed
+     * @param elapsedNanos  wall-clock time of the whole sample
+     * @param peakHeapBytes highest heap usage seen during the trial
+     * @param outputBytes   total size of the encoded outputs
+     */
+    public record Trial(String label, int threads, int jobs, int failures, long elapsedNanos,
+                        long peakHeapBytes, long outputBytes) {
+
+        /**
+         * @return completed jobs per second
+         */
+        public double jobsPerSecond() {
+            return elapsedNanos > 0 ? (jobs - failures) * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+        }
+
+        /**
+         * @return average wall-clock time per job in milliseconds
+         */
+        public double averageJobMillis() {
+            return jobs > 0 ? elapsedNanos / 1_000_000.0 / jobs : 0;
+        }
+
+        /**
+         * @return average size of a completed output in bytes
+         */
+        public long averageOutputBytes() {
+            int completed = jobs - failures;
+            return completed > 0 ? outputBytes / completed : 0;
+        }
+    }
+
+    private final ParallelExecutorService executor;
+
+    /**
+     * @param executor the executor the trials run on, configured like a production run
+     */
+    public Calibrator(ParallelExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Renders the sample once. With one thread the jobs run sequentially on the calling thread,
+     * otherwise they run in parallel regardless of the sequential threshold.
+     *
+     * @param label    the settings measured, for reporting
+     * @param jobs     the sample
+     * @param renderer the renderer, already configured with the settings to measure
+     * @param threads  the parallelism
+     * @return the measurements
+     */
+    public Trial measure(String label, List<RenderJob> jobs, RendererService renderer, int threads) {
+        CountingSink sink = new CountingSink();
+        AtomicInteger failures = new AtomicInteger();
+        JobListener listener = new JobListener() {
+            @Override
+            public void jobCompleted(RenderJob job) {
+                // Counted as the difference to the failures
+            }
+
+            @Override
+            public void jobFailed(RenderJob job, Throwable error) {
+                failures.incrementAndGet();
+            }
+        };
+        ProgressTracker tracker = new ProgressTracker(jobs.size(), new PrintStream(OutputStream.nullOutputStream()));
+        int sequentialThreshold = threads == 1 ? Integer.MAX_VALUE : 0;
+
+        resetPeakHeap();
+        long start = System.nanoTime();
+        executor.executeAll(jobs, renderer, threads, tracker, sequentialThreshold, sink, listener);
+        long elapsed = System.nanoTime() - start;
+
+        Trial trial = new Trial(label, threads, jobs.size(), failures.get(), elapsed, peakHeap(), sink.getBytes());
+        logger.debug("Calibration trial {} with {} threads: {} jobs/s, peak heap {} bytes, {} failures",
+            label, threads, trial.jobsPerSecond(), trial.peakHeapBytes(), trial.failures());
+        return trial;
+    }
+
+    /**
+     * Picks the fastest encoder setting among those whose average output is within
+     * {@link #SIZE_TOLERANCE} of the smallest. Trials with failures are not considered.
+     *
+     * @param trials trials of the same sample at the same parallelism
+     * @return the recommended trial
+     * @throws IllegalStateException if every trial had failures
+     */
+    public static Trial pickEncoder(List<Trial> trials) {
+        List<Trial> successful = successful(trials);
+        long smallest = successful.stream().mapToLong(Trial::averageOutputBytes).min().orElseThrow();
+        return successful.stream()
+            .filter(trial -> trial.averageOutputBytes() <= smallest * (1 + SIZE_TOLERANCE))
+            .max(Comparator.comparingDouble(Trial::jobsPerSecond))
+            .orElseThrow();
+    }
+
+    /**
+     * Picks the lowest parallelism whose throughput is within {@link #THROUGHPUT_TOLERANCE} of the
+     * best. Trials with failures are not considered.
+     *
+     * @param trials trials of the same sample and settings at different parallelism
+     * @return the recommended trial
+     * @throws IllegalStateException if every trial had failures
+     */
+    public static Trial pickParallelism(List<Trial> trials) {
+        List<Trial> successful = successful(trials);
+        double best = successful.stream().mapToDouble(Trial::jobsPerSecond).max().orElseThrow();
+        return successful.stream()
+            .filter(trial -> trial.jobsPerSecond() >= best * (1 - THROUGHPUT_TOLERANCE))
+            .min(Comparator.comparingInt(Trial::threads))
+            .orElseThrow();
+    }
+
+    /**
+     * Derives the sequential threshold from the cost of a job: batches that take less than the
+     * parallel break-even time sequentially are not worth starting threads for.
+     *
+     * @param sequential a trial run with one thread
+     * @return the recommended --sequential-threshold, at least 1
+     */
+    public static int sequentialThreshold(Trial sequential) {
+        double jobMillis = sequential.averageJobMillis();
+        if (jobMillis <= 0) {
+            return ParallelExecutorService.DEFAULT_SEQUENTIAL_THRESHOLD;
+        }
+        return (int) Math.max(1, Math.ceil(ParallelExecutorService.PARALLEL_BREAK_EVEN_MILLIS / jobMillis));
+    }
+
+    private static List<Trial> successful(List<Trial> trials) {
+        List<Trial> successful = trials.stream().filter(trial -> trial.failures() == 0).toList();
+        if (successful.isEmpty()) {
+            throw new IllegalStateException("Every calibration trial had failed jobs");
+        }
+        return successful;
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid() && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Discards outputs, counting their size.
+     */
+    private static final class CountingSink implements OutputSink {
+
+        private final BufferPool bufferPool = new BufferPool();
+        private final LongAdder bytes = new LongAdder();
+
+        @Override
+        public PooledBuffer allocate() {
+            return bufferPool.acquire();
+        }
+
+        @Override
+        public CompletableFuture<Void> write(Path path, PooledBuffer buffer) {
+            bytes.add(buffer.size());
+            buffer.release();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long getBytes() {
+            return bytes.sum();
+        }
+
+        @Override
+        public void flush() {
+            // Writes are synchronous
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+}
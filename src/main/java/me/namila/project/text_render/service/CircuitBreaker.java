@@ -0,0 +1,68 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.FailureBudget;
+
+/**
+ * Tracks job outcomes against a {@link FailureBudget} and opens once the budget is exhausted.
+ *
+ * <p>Outcomes are counted in the order they are reported, so with parallel execution
+ * "consecutive" means consecutive completions rather than consecutive CSV rows. Once open, the
+ * breaker stays open. Thread-safe.</p>
+ */
+class CircuitBreaker {
+
+    private final FailureBudget budget;
+    private final int rateSample;
+    private int finished;
+    private int failed;
+    private int consecutiveFailures;
+    private volatile String reason;
+
+    /**
+     * @param budget    the failure budget
+     * @param totalJobs jobs in the batch, so small batches check their rate once all jobs finished
+     */
+    CircuitBreaker(FailureBudget budget, int totalJobs) {
+        this.budget = budget;
+        this.rateSample = Math.max(1, Math.min(FailureBudget.MIN_RATE_SAMPLE, totalJobs));
+    }
+
+    synchronized void recordSuccess() {
+        finished++;
+        consecutiveFailures = 0;
+        checkRate();
+    }
+
+    synchronized void recordFailure() {
+        finished++;
+        failed++;
+        consecutiveFailures++;
+        if (reason == null && budget.maxConsecutive() > 0 && consecutiveFailures >= budget.maxConsecutive()) {
+            reason = String.format("Batch aborted after %d consecutive failures (failure budget %s)",
+                consecutiveFailures, budget);
+        }
+        checkRate();
+    }
+
+    private void checkRate() {
+        if (reason == null && budget.maxPercent() > 0 && finished >= rateSample
+                && failed * 100.0 / finished > budget.maxPercent()) {
+            reason = String.format("Batch aborted after %d of %d jobs failed (failure budget %s)",
+                failed, finished, budget);
+        }
+    }
+
+    /**
+     * @return true once the failure budget is exhausted
+     */
+    boolean isOpen() {
+        return reason != null;
+    }
+
+    /**
+     * @return why the breaker opened, or null while it is closed
+     */
+    String getReason() {
+        return reason;
+    }
+}
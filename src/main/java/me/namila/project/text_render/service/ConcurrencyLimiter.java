@@ -0,0 +1,245 @@
+package me.namila.project.text_render.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many jobs render at the same time, optionally adjusting the limit at runtime.
+ *
+ * <p>A fixed limiter behaves like a semaphore. An adaptive limiter measures completed jobs per
+ * second and the latency of the render stage in windows of at least {@value #WINDOW_MILLIS} ms
+ * and climbs towards the limit with the highest throughput, AIMD style:</p>
+ * <ul>
+ *   <li>if throughput improved, it keeps moving in the same direction by one permit;</li>
+ *   <li>if throughput dropped after an increase, it backs off multiplicatively, and after a
+ *       decrease it steps back up by one permit;</li>
+ *   <li>if throughput is flat, it probes upwards by one permit unless latency has grown beyond
+ *       {@value #LATENCY_TOLERANCE} times the best latency seen, meaning jobs only queue up for
+ *       the same resource, in which case it gives one permit back.</li>
+ * </ul>
+ * <p>The render stage includes waiting for space in the write-behind queue, so slow storage
+ * shows up as rising latency rather than being hidden behind the queue.</p>
+ */
+class ConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    /**
+     * Minimum length of a measurement window.
+     */
+    static final long WINDOW_MILLIS = 200;
+
+    /**
+     * Latency growth over the best window that counts as queueing.
+     */
+    static final double LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * Relative throughput change that counts as better or worse rather than flat.
+     */
+    static final double THROUGHPUT_TOLERANCE = 0.05;
+
+    /**
+     * Factor the limit is multiplied by when backing off.
+     */
+    static final double BACKOFF_FACTOR = 0.75;
+
+    private final boolean adaptive;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private int limit;
+    private int inFlight;
+    private int peakLimit;
+    private int lowestLimit;
+
+    private long windowStart = System.nanoTime();
+    private int windowCompletions;
+    private int windowSamples;
+    private long windowLatencyNanos;
+    private double lastThroughput = -1;
+    private double bestLatencyNanos = Double.MAX_VALUE;
+    private int lastStep;
+
+    private ConcurrencyLimiter(boolean adaptive, int initialLimit, int maxLimit) {
+        if (maxLimit < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be at least 1: " + maxLimit);
+        }
+        this.adaptive = adaptive;
+        this.maxLimit = maxLimit;
+        this.limit = Math.clamp(initialLimit, 1, maxLimit);
+        this.peakLimit = limit;
+        this.lowestLimit = limit;
+    }
+
+    /**
+     * @param limit the number of jobs allowed to run at the same time
+     * @return a limiter that never changes its limit
+     */
+    static ConcurrencyLimiter fixed(int limit) {
+        return new ConcurrencyLimiter(false, limit, limit);
+    }
+
+    /**
+     * @param initialLimit the limit to start with
+     * @param maxLimit     the highest limit the limiter may climb to
+     * @return a limiter that adjusts its limit to the measured throughput
+     */
+    static ConcurrencyLimiter adaptive(int initialLimit, int maxLimit) {
+        return new ConcurrencyLimiter(true, initialLimit, maxLimit);
+    }
+
+    /**
+     * Waits for a permit.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= limit) {
+                permitAvailable.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit without a measurement, e.g. for a job that was skipped.
+     */
+    void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the permit of a job that finished its render stage.
+     *
+     * @param startNanos when the job acquired its permit, from {@link System#nanoTime()}
+     */
+    void release(long startNanos) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            inFlight--;
+            if (adaptive) {
+                windowSamples++;
+                windowLatencyNanos += now - startNanos;
+            }
+            permitAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a job whose output has been written or that failed; this is the throughput the
+     * limiter optimizes.
+     */
+    void jobFinished() {
+        if (!adaptive) {
+            return;
+        }
+        lock.lock();
+        try {
+            windowCompletions++;
+            long now = System.nanoTime();
+            long elapsed = now - windowStart;
+            if (elapsed >= TimeUnit.MILLISECONDS.toNanos(WINDOW_MILLIS) && windowSamples > 0
+                    && windowCompletions >= limit) {
+                adjust(windowCompletions * 1e9 / elapsed, (double) windowLatencyNanos / windowSamples);
+                windowStart = now;
+                windowCompletions = 0;
+                windowSamples = 0;
+                windowLatencyNanos = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the limit after a measurement window.
+     *
+     * @param throughput   jobs finished per second in the window
+     * @param latencyNanos average render stage latency in the window
+     */
+    void adjust(double throughput, double latencyNanos) {
+        lock.lock();
+        try {
+            bestLatencyNanos = Math.min(bestLatencyNanos, latencyNanos);
+            int previous = limit;
+            if (lastThroughput < 0 || throughput > lastThroughput * (1 + THROUGHPUT_TOLERANCE)) {
+                step(lastStep < 0 ? -1 : 1);
+            } else if (throughput < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+                if (lastStep > 0) {
+                    setLimit((int) (limit * BACKOFF_FACTOR));
+                    lastStep = -1;
+                } else {
+                    step(1);
+                }
+            } else if (latencyNanos > bestLatencyNanos * LATENCY_TOLERANCE) {
+                step(-1);
+            } else {
+                step(1);
+            }
+            lastThroughput = throughput;
+            if (limit != previous) {
+                logger.debug("Concurrency limit {} -> {} ({} jobs/s, render latency {} ms)", previous, limit,
+                    String.format("%.1f", throughput), String.format("%.1f", latencyNanos / 1e6));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void step(int direction) {
+        setLimit(limit + direction);
+        lastStep = direction;
+    }
+
+    private void setLimit(int newLimit) {
+        limit = Math.clamp(newLimit, 1, maxLimit);
+        peakLimit = Math.max(peakLimit, limit);
+        lowestLimit = Math.min(lowestLimit, limit);
+        permitAvailable.signalAll();
+    }
+
+    /**
+     * @return the current limit
+     */
+    int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a one-line description of how the limit moved, for logging
+     */
+    String describe() {
+        lock.lock();
+        try {
+            return adaptive
+                ? String.format("adaptive limit %d (range %d-%d of max %d)", limit, lowestLimit, peakLimit, maxLimit)
+                : "fixed limit " + limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
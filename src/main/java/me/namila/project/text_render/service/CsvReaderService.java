@@ -1,19 +1,77 @@
 package me.namila.project.text_render.service;
 
 import me.namila.project.text_render.model.CsvEntry;
+import me.namila.project.text_render.util.CsvRowIndex;
+import me.namila.project.text_render.util.OutputNamePattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 import java.util.regex.Pattern;
 
 public class CsvReaderService {
 
     private static final Logger logger = LoggerFactory.getLogger(CsvReaderService.class);
-    private static final Pattern HEADER_PATTERN = Pattern.compile("^name\\s*,\\s*prefix\\s*,\\s*postfix\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HEADER_PATTERN = Pattern.compile("^name\\s*,\\s*prefix\\s*,\\s*postfix\\s*(,.*)?$", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Files smaller than this are read sequentially even with several parse threads; mapping and
+     * splitting them costs more than parsing.
+     */
+    static final long PARALLEL_MIN_BYTES = 4L << 20;
+
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_CHUNK_BYTES = 64 << 20;
+    private static final int BOUNDARY_SCAN_BYTES = 8192;
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+
+    private volatile int parseThreads = 1;
+
+    /**
+     * Sets how many chunks of a large CSV file are parsed in parallel. With more than one, files
+     * of at least {@link #PARALLEL_MIN_BYTES} are memory-mapped, split at line breaks and parsed
+     * chunk by chunk on the common pool; entries are still delivered in file order.
+     *
+     * @param parseThreads the number of chunks parsed at a time, at least 1
+     */
+    public void setParseThreads(int parseThreads) {
+        if (parseThreads < 1) {
+            throw new IllegalArgumentException("Parse threads must be at least 1: " + parseThreads);
+        }
+        this.parseThreads = parseThreads;
+    }
+
+    /**
+     * @return how many chunks of a large CSV file are parsed in parallel
+     */
+    public int getParseThreads() {
+        return parseThreads;
+    }
 
     /**
      * Reads all lines from a CSV file, trims whitespace, and filters out empty lines.
@@ -42,31 +100,369 @@ public class CsvReaderService {
      *   <li>Single-column: {@code Adam Smith} (prefix/postfix will be empty)</li>
      * </ul>
      * 
-     * <p>Header row (name,prefix,postfix) is automatically detected and skipped.</p>
+     * <p>Header row (name,prefix,postfix) is automatically detected and skipped. Columns after
+     * postfix are ignored, so a rejects file from a previous run can be read as input.</p>
      *
      * @param filePath the path to the CSV file
      * @return a list of CsvEntry objects
      * @throws IOException if an I/O error occurs reading from the file
      */
     public List<CsvEntry> readEntries(Path filePath) throws IOException {
+        List<CsvEntry> entries = new ArrayList<>();
+        readEntries(filePath, entries::add);
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Reads a CSV file like {@link #readEntries(Path)}, passing each entry to a consumer instead of
+     * collecting them, so callers can keep the entries of large files in a compact form.
+     *
+     * @param filePath the path to the CSV file
+     * @param consumer receives the entries in file order
+     * @return the number of entries read
+     * @throws IOException if an I/O error occurs reading from the file
+     */
+    public int readEntries(Path filePath, Consumer<CsvEntry> consumer) throws IOException {
         logger.debug("Reading CSV entries from file: {}", filePath);
-        
-        List<String> lines = Files.readAllLines(filePath).stream()
-            .map(String::trim)
-            .filter(line -> !line.isEmpty())
-            .filter(line -> !isHeaderRow(line))
-            .toList();
-        
-        List<CsvEntry> entries = lines.stream()
-            .map(this::parseLine)
-            .toList();
-        
-        logger.info("Read {} entries from CSV file: {}", entries.size(), filePath.getFileName());
+
+        int threads = parseThreads;
+        if (threads > 1 && Files.size(filePath) >= PARALLEL_MIN_BYTES) {
+            long size = Files.size(filePath);
+            int chunkBytes = Math.clamp(size / (4L * threads), MIN_CHUNK_BYTES, MAX_CHUNK_BYTES);
+            return readEntriesMapped(filePath, consumer, threads, chunkBytes);
+        }
+
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !isHeaderRow(line)) {
+                    consumer.accept(parseLine(line));
+                    count++;
+                }
+            }
+        }
+
+        logger.info("Read {} entries from CSV file: {}", count, filePath.getFileName());
+        return count;
+    }
+
+    /**
+     * Loads the row index of a CSV file, or builds it with one scan of the file and saves it for
+     * later runs. An index that cannot be saved, for example next to a read-only CSV file, is
+     * still used for this run.
+     *
+     * @param filePath  the path to the CSV file
+     * @param indexFile where the index is kept
+     * @return the index
+     * @throws IOException if the CSV file cannot be read
+     */
+    public CsvRowIndex openRowIndex(Path filePath, Path indexFile) throws IOException {
+        CsvRowIndex index = CsvRowIndex.load(indexFile, filePath);
+        if (index != null) {
+            logger.debug("Using row index {} with {} rows", indexFile, index.getRowCount());
+            return index;
+        }
+        index = indexRows(filePath);
+        try {
+            index.write(indexFile);
+            logger.info("Indexed {} rows of {} in {}", index.getRowCount(), filePath.getFileName(), indexFile);
+        } catch (IOException e) {
+            logger.warn("Cannot save row index {}: {}", indexFile, e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Scans a CSV file for the byte offset of each entry's line, splitting lines and skipping
+     * blank and header lines exactly like {@link #readEntries(Path)}.
+     *
+     * @param filePath the path to the CSV file
+     * @return the index
+     * @throws IOException if the file cannot be read or is not valid UTF-8
+     */
+    public CsvRowIndex indexRows(Path filePath) throws IOException {
+        logger.debug("Indexing rows of CSV file: {}", filePath);
+        // Collisions only depend on the names, not on the template or options of a run
+        OutputNamePattern names = OutputNamePattern.compile("rows", null, null, "csv");
+        long[] offsets = new long[1024];
+        Map<Integer, Integer> collisions = new HashMap<>();
+        int rowCount = 0;
+
+        byte[] buffer = new byte[READ_BUFFER_BYTES];
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long lineStart = 0;
+        long position = 0;
+        boolean skipLineFeed = false;
+        try (InputStream in = Files.newInputStream(filePath)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                int segment = 0;
+                for (int i = 0; i < read; i++) {
+                    byte c = buffer[i];
+                    if (skipLineFeed) {
+                        skipLineFeed = false;
+                        if (c == '\n') {
+                            segment = i + 1;
+                            lineStart = position + segment;
+                            continue;
+                        }
+                    }
+                    if (c != '\n' && c != '\r') {
+                        continue;
+                    }
+                    line = append(line, lineLength, buffer, segment, i);
+                    lineLength += i - segment;
+                    CsvEntry entry = parseRecord(line, lineLength);
+                    if (entry != null) {
+                        if (rowCount == offsets.length) {
+                            offsets = Arrays.copyOf(offsets, rowCount * 2);
+                        }
+                        offsets[rowCount] = lineStart;
+                        int collision = names.claimCollision(entry.name());
+                        if (collision > 0) {
+                            collisions.put(rowCount, collision);
+                        }
+                        rowCount++;
+                    }
+                    lineLength = 0;
+                    skipLineFeed = c == '\r';
+                    segment = i + 1;
+                    lineStart = position + segment;
+                }
+                line = append(line, lineLength, buffer, segment, read);
+                lineLength += read - segment;
+                position += read;
+            }
+        }
+        if (lineLength > 0) {
+            CsvEntry entry = parseRecord(line, lineLength);
+            if (entry != null) {
+                offsets = Arrays.copyOf(offsets, rowCount + 1);
+                offsets[rowCount] = lineStart;
+                int collision = names.claimCollision(entry.name());
+                if (collision > 0) {
+                    collisions.put(rowCount, collision);
+                }
+                rowCount++;
+            }
+        }
+        return CsvRowIndex.of(filePath, offsets, rowCount, collisions);
+    }
+
+    /**
+     * Reads selected rows of a CSV file through its row index, seeking to each row instead of
+     * scanning the file up to it.
+     *
+     * @param filePath the path to the CSV file
+     * @param index    the row index of the file
+     * @param rows     zero-based indexes of the rows to read; rows beyond the file are ignored
+     * @param consumer receives each entry with its row index, in row order
+     * @return the number of entries read
+     * @throws IOException if the file cannot be read or no longer matches the index
+     */
+    public int readRows(Path filePath, CsvRowIndex index, BitSet rows, ObjIntConsumer<CsvEntry> consumer)
+            throws IOException {
+        if (!index.matches(filePath)) {
+            throw new IOException("Row index is out of date for " + filePath);
+        }
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            LineReader reader = new LineReader(channel);
+            for (int row = rows.nextSetBit(0); row >= 0 && row < index.getRowCount(); row = rows.nextSetBit(row + 1)) {
+                String line = reader.lineAt(index.getOffset(row)).trim();
+                if (line.isEmpty() || isHeaderRow(line)) {
+                    throw new IOException("Row index does not match " + filePath + " at row " + (row + 1));
+                }
+                consumer.accept(parseLine(line), row);
+                count++;
+            }
+        }
+        logger.info("Read {} of {} entries from CSV file: {}", count, index.getRowCount(), filePath.getFileName());
+        return count;
+    }
+
+    private CsvEntry parseRecord(byte[] line, int length) throws CharacterCodingException {
+        String text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(line, 0, length)).toString().trim();
+        return text.isEmpty() || isHeaderRow(text) ? null : parseLine(text);
+    }
+
+    private static byte[] append(byte[] line, int length, byte[] source, int from, int to) {
+        int needed = length + to - from;
+        if (needed > line.length) {
+            line = Arrays.copyOf(line, Math.max(needed, line.length * 2));
+        }
+        System.arraycopy(source, from, line, length, to - from);
+        return line;
+    }
+
+    /**
+     * Reads lines at arbitrary offsets through a window over the file, so consecutive rows are
+     * read from the same block.
+     */
+    private static final class LineReader {
+
+        private final FileChannel channel;
+        private final long size;
+        private byte[] buffer = new byte[READ_BUFFER_BYTES];
+        private long bufferStart;
+        private int bufferLength;
+
+        LineReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        String lineAt(long offset) throws IOException {
+            while (true) {
+                if (offset < bufferStart || offset >= bufferStart + bufferLength) {
+                    fill(offset);
+                }
+                int from = (int) (offset - bufferStart);
+                for (int i = from; i < bufferLength; i++) {
+                    if (buffer[i] == '\n' || buffer[i] == '\r') {
+                        return decode(from, i);
+                    }
+                }
+                if (bufferStart + bufferLength >= size) {
+                    return decode(from, bufferLength);
+                }
+                if (from == 0) {
+                    // The line is longer than the window
+                    buffer = new byte[buffer.length * 2];
+                }
+                fill(offset);
+            }
+        }
+
+        private void fill(long offset) throws IOException {
+            ByteBuffer target = ByteBuffer.wrap(buffer);
+            while (target.hasRemaining()) {
+                int read = channel.read(target, offset + target.position());
+                if (read < 0) {
+                    break;
+                }
+            }
+            bufferStart = offset;
+            bufferLength = target.position();
+            if (bufferLength == 0) {
+                throw new IOException("Row offset " + offset + " is beyond the end of the file");
+            }
+        }
+
+        private String decode(int from, int to) throws CharacterCodingException {
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(buffer, from, to - from)).toString();
+        }
+    }
+
+    /**
+     * Parses a memory-mapped file in chunks, up to {@code threads} at a time, delivering their
+     * entries in file order. Chunks end at a line feed: this format has no quoting, so every line
+     * is a record, exactly as in the sequential reader, and a line feed byte never occurs inside a
+     * multi-byte UTF-8 character. A line break that is a lone carriage return cannot be found from
+     * the middle of a chunk, but is still honoured within one.
+     *
+     * @param chunkBytes the approximate size of each chunk; chunks extend to the next line feed
+     * @return the number of entries read
+     */
+    int readEntriesMapped(Path filePath, Consumer<CsvEntry> consumer, int threads, int chunkBytes)
+            throws IOException {
+        int count = 0;
+        int chunks = 0;
+        Deque<CompletableFuture<List<CsvEntry>>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long start = 0; start < size; chunks++) {
+                long end = nextLineStart(channel, Math.min(size, start + chunkBytes), size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("CSV line too long near byte " + start + " of " + filePath);
+                }
+                // A mapping stays valid after its channel is closed
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                inFlight.add(CompletableFuture.supplyAsync(() -> parseChunk(chunk), ForkJoinPool.commonPool()));
+                if (inFlight.size() >= threads) {
+                    count += deliver(inFlight.poll(), consumer);
+                }
+                start = end;
+            }
+            while (!inFlight.isEmpty()) {
+                count += deliver(inFlight.poll(), consumer);
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+
+        logger.info("Read {} entries from CSV file: {} ({} chunks parsed by up to {} threads)",
+            count, filePath.getFileName(), chunks, threads);
+        return count;
+    }
+
+    /**
+     * @return the position after the first line feed at or after {@code from}, or the file size
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private List<CsvEntry> parseChunk(ByteBuffer chunk) {
+        CharBuffer text;
+        try {
+            // Reports malformed input like Files.readAllLines instead of replacing it
+            text = StandardCharsets.UTF_8.newDecoder().decode(chunk);
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<CsvEntry> entries = new ArrayList<>();
+        int length = text.length();
+        int lineStart = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.get(i) : '\n';
+            if (c != '\n' && c != '\r') {
+                continue;
+            }
+            String line = text.subSequence(lineStart, i).toString().trim();
+            if (!line.isEmpty() && !isHeaderRow(line)) {
+                entries.add(parseLine(line));
+            }
+            lineStart = i + 1;
+        }
         return entries;
     }
 
+    private static int deliver(CompletableFuture<List<CsvEntry>> future, Consumer<CsvEntry> consumer)
+            throws IOException {
+        List<CsvEntry> entries;
+        try {
+            entries = future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+        entries.forEach(consumer);
+        return entries.size();
+    }
+
     /**
-     * Checks if a line is the header row (name,prefix,postfix).
+     * Checks if a line is the header row (name,prefix,postfix, optionally followed by more columns).
      */
     private boolean isHeaderRow(String line) {
         return HEADER_PATTERN.matcher(line).matches();
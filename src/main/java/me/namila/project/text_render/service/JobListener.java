@@ -0,0 +1,29 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.RenderJob;
+
+/**
+ * Receives the outcome of each job executed by {@link ParallelExecutorService}.
+ *
+ * <p>Callbacks run on worker or writer threads, possibly concurrently, and must be thread-safe.
+ * A job counts as completed once its output has been written.</p>
+ */
+@FunctionalInterface
+public interface JobListener {
+
+    /**
+     * Listener that ignores all outcomes.
+     */
+    JobListener NONE = job -> { };
+
+    /**
+     * Called after the job's output has been written successfully.
+     */
+    void jobCompleted(RenderJob job);
+
+    /**
+     * Called when rendering or writing the job failed.
+     */
+    default void jobFailed(RenderJob job, Throwable error) {
+    }
+}
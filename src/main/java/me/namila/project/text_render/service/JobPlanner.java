@@ -0,0 +1,125 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.JobTable;
+import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.model.TextConfig;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Groups the rows of a job table that would produce identical outputs.
+ *
+ * <p>All rows of a table share the {@link TextConfig} and template, so rows with the same display
+ * text render to the same bytes, and only the first row of each group (the primary) needs to be
+ * rendered; the outputs of the others can be produced from the primary's output file.</p>
+ *
+ * <p>Like the table, the plan refers to rows by their position instead of holding a job per row.
+ * Display texts are looked up through an open-addressing table of positions and text hashes, so
+ * planning costs a few {@code int}s per row and creates each display text only to compare it.</p>
+ */
+public final class JobPlanner {
+
+    private static final int NONE = -1;
+    private static final int MAX_SLOTS = 1 << 30;
+
+    private JobPlanner() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Result of {@link #deduplicate(JobTable, IntPredicate)}.
+     */
+    public static final class Plan {
+
+        private final int[] primaries;
+        private final BitSet duplicated;
+        private final List<RenderJob> unique;
+        private final int duplicateCount;
+
+        private Plan(int[] primaries, BitSet duplicated, List<RenderJob> unique, int duplicateCount) {
+            this.primaries = primaries;
+            this.duplicated = duplicated;
+            this.unique = unique;
+            this.duplicateCount = duplicateCount;
+        }
+
+        /**
+         * @return the job of every primary row, in table order
+         */
+        public List<RenderJob> unique() {
+            return unique;
+        }
+
+        /**
+         * @param position the position of a row in the table
+         * @return the position of the row's primary, which is the row itself for a primary, or -1
+         *         if the row was not planned
+         */
+        public int primaryOf(int position) {
+            return primaries[position];
+        }
+
+        /**
+         * @param position the position of a row in the table
+         * @return whether the row is a primary that other rows duplicate
+         */
+        public boolean hasDuplicates(int position) {
+            return duplicated.get(position);
+        }
+
+        /**
+         * @return the number of rows that do not need to be rendered
+         */
+        public int getDuplicateCount() {
+            return duplicateCount;
+        }
+    }
+
+    /**
+     * Splits the selected rows of a table into primaries and duplicates of them.
+     *
+     * @param table     the job table
+     * @param rowFilter tests the zero-based CSV index of each row to plan
+     * @return the plan
+     */
+    public static Plan deduplicate(JobTable table, IntPredicate rowFilter) {
+        int[] primaries = new int[table.size()];
+        Arrays.fill(primaries, NONE);
+        // Power of two of at least twice the rows, so probe sequences stay short
+        long capacity = (long) Integer.highestOneBit(Math.max(8, table.size())) << 2;
+        int[] slots = new int[(int) Math.min(MAX_SLOTS, capacity)];
+        Arrays.fill(slots, NONE);
+        int[] slotHashes = new int[slots.length];
+        int mask = slots.length - 1;
+
+        BitSet primaryRows = new BitSet();
+        BitSet duplicated = new BitSet();
+        int duplicateCount = 0;
+        for (int position = 0; position < table.size(); position++) {
+            if (!rowFilter.test(table.rowIndex(position))) {
+                continue;
+            }
+            String text = table.entry(position).getDisplayText();
+            int hash = text.hashCode();
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (slots[slot] != NONE && (slotHashes[slot] != hash
+                    || !table.entry(slots[slot]).getDisplayText().equals(text))) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == NONE) {
+                slots[slot] = position;
+                slotHashes[slot] = hash;
+                primaries[position] = position;
+                primaryRows.set(table.rowIndex(position));
+            } else {
+                primaries[position] = slots[slot];
+                duplicated.set(slots[slot]);
+                duplicateCount++;
+            }
+        }
+        return new Plan(primaries, duplicated, table.select(primaryRows::get), duplicateCount);
+    }
+}
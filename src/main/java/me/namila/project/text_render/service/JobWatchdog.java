@@ -0,0 +1,202 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.output.OutputSink;
+import me.namila.project.text_render.output.PooledBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Enforces a time budget per job.
+ *
+ * <p>Each job is watched from the moment it starts. If it is still running when its budget runs
+ * out, the watchdog interrupts the job's thread and runs the job's timeout handler, which reports
+ * the job as failed. Whichever comes first, the job finishing or the timeout, decides the job's
+ * outcome; the other is ignored. A job that does not react to the interrupt keeps its thread,
+ * and the concurrency permit and memory it was admitted with, until it returns.</p>
+ *
+ * <p>Jobs writing into a sink hand their output over through {@link Watch#guard}, so the output
+ * of a job that timed out is discarded rather than written next to its failure. Renderers that
+ * bypass the sink write their output themselves; it may then exist although the job failed.</p>
+ */
+class JobWatchdog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobWatchdog.class);
+
+    private final Duration timeout;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * @param timeout time budget per job, or null or zero to watch without a limit
+     */
+    JobWatchdog(Duration timeout) {
+        boolean enabled = timeout != null && !timeout.isZero() && !timeout.isNegative();
+        this.timeout = enabled ? timeout : null;
+        this.timer = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Starts watching a job that runs on the current thread.
+     *
+     * @param onTimeout reports the job as timed out; runs on the watchdog thread
+     * @return the watch, to be finished when the job is done
+     */
+    Watch watch(Consumer<TimeoutException> onTimeout) {
+        Watch watch = new Watch(Thread.currentThread(), onTimeout);
+        if (timer != null) {
+            watch.deadline = timer.schedule(watch::expire, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return watch;
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * The watch over one running job.
+     */
+    final class Watch {
+
+        private final Thread thread;
+        private final Consumer<TimeoutException> onTimeout;
+        private ScheduledFuture<?> deadline;
+        private boolean finished;
+        private boolean timedOut;
+        private boolean returned;
+
+        private Watch(Thread thread, Consumer<TimeoutException> onTimeout) {
+            this.thread = thread;
+            this.onTimeout = onTimeout;
+        }
+
+        /**
+         * Stops watching. Safe to call more than once.
+         *
+         * @return true if the job finished in time and its outcome should be reported, false if
+         *         it already timed out
+         */
+        boolean finish() {
+            synchronized (this) {
+                if (!timedOut) {
+                    finished = true;
+                    if (deadline != null) {
+                        deadline.cancel(false);
+                    }
+                    return true;
+                }
+                returned |= Thread.currentThread() == thread;
+            }
+            if (Thread.currentThread() == thread) {
+                // Do not let the watchdog's interrupt leak into the next job on this thread
+                Thread.interrupted();
+            }
+            return false;
+        }
+
+        /**
+         * Wraps the sink the job writes its output to. Handing the output over finishes the watch;
+         * if the job already timed out, the output is discarded instead of written.
+         *
+         * @param sink the sink of the batch
+         * @return a sink for this job only
+         */
+        OutputSink guard(OutputSink sink) {
+            return new GuardedSink(sink, this);
+        }
+
+        private void expire() {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                timedOut = true;
+            }
+            logger.warn("Job on {} exceeded its time budget of {} ms and was interrupted",
+                thread.getName(), timeout.toMillis());
+            // Report before interrupting, so the job is failed before its thread can settle it
+            onTimeout.accept(new TimeoutException("Job exceeded its time budget of " + timeout.toMillis() + " ms"));
+            synchronized (this) {
+                if (!returned) {
+                    thread.interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sink of one watched job, writing its output only if the job is still within its budget.
+     */
+    private static final class GuardedSink implements OutputSink {
+
+        private final OutputSink sink;
+        private final Watch watch;
+
+        GuardedSink(OutputSink sink, Watch watch) {
+            this.sink = sink;
+            this.watch = watch;
+        }
+
+        @Override
+        public PooledBuffer allocate() {
+            return sink.allocate();
+        }
+
+        @Override
+        public void prepareDirectories(Collection<Path> directories) throws IOException {
+            sink.prepareDirectories(directories);
+        }
+
+        @Override
+        public CompletableFuture<Void> write(Path path, PooledBuffer buffer) {
+            if (!watch.finish()) {
+                buffer.release();
+                return CompletableFuture.failedFuture(discarded(path));
+            }
+            return sink.write(path, buffer);
+        }
+
+        @Override
+        public CompletableFuture<Void> writeStreaming(Path path, OutputEncoder encoder) throws Exception {
+            // Decided once the output is encoded, before the sink commits it
+            return sink.writeStreaming(path, out -> {
+                encoder.encodeTo(out);
+                if (!watch.finish()) {
+                    throw discarded(path);
+                }
+            });
+        }
+
+        private static TimeoutException discarded(Path path) {
+            return new TimeoutException("Job timed out; discarded its output " + path);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            sink.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            sink.flush();
+        }
+    }
+}
@@ -1,18 +1,32 @@
 package me.namila.project.text_render.service;
 
+import me.namila.project.text_render.codec.BandEncoder;
+import me.namila.project.text_render.codec.JpegBandEncoder;
+import me.namila.project.text_render.codec.JpegRestartCache;
+import me.namila.project.text_render.model.RenderJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import javax.imageio.ImageTypeSpecifier;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Renderer service for JPEG/JPG images.
  * Supports both .jpg and .jpeg file extensions.
  * Extends AbstractImageRendererService and adds JPEG-specific preprocessing.
+ *
+ * <p>With incremental encoding enabled, the template is encoded once with a restart marker per
+ * MCU row ({@link JpegRestartCache}) and each output only re-encodes the MCU rows under its text.</p>
  */
 @Service
 public class JpegRendererService extends AbstractImageRendererService {
 
+    private static final Logger logger = LoggerFactory.getLogger(JpegRendererService.class);
+
     @Override
     protected String getFormatName() {
         return "JPEG";
@@ -23,6 +37,38 @@ public class JpegRendererService extends AbstractImageRendererService {
         return "JPEG";
     }
 
+    @Override
+    protected void writeImage(BufferedImage image, RenderJob job, Rectangle textBounds, OutputStream out)
+            throws IOException {
+        if (isIncrementalEncoding()) {
+            JpegRestartCache cache = getTemplateCache(job.templatePath(), JpegRestartCache::build);
+            if (cache.isCompatible(image)) {
+                cache.encode(image, textBounds, out);
+                return;
+            }
+            logger.debug("Output for '{}' does not match cached template layout, encoding in full", job.text());
+        }
+        writeImage(image, out);
+    }
+
+    @Override
+    protected boolean supportsStreaming() {
+        return true;
+    }
+
+    @Override
+    protected BandEncoder createBandEncoder(int width, int height, BufferedImage firstBand, OutputStream out) {
+        return new JpegBandEncoder(width, height, out);
+    }
+
+    /**
+     * Templates that do not decode to {@code TYPE_INT_RGB} are converted into a new image.
+     */
+    @Override
+    protected boolean preprocessCopies(ImageTypeSpecifier type) {
+        return type.getBufferedImageType() != BufferedImage.TYPE_INT_RGB;
+    }
+
     /**
      * Preprocesses the image to ensure RGB format for JPEG output.
      * JPEG doesn't support alpha channel, so ARGB images are converted.
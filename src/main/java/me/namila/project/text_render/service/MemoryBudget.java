@@ -0,0 +1,196 @@
+package me.namila.project.text_render.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Admits jobs against a memory budget, so a batch of large images runs fewer jobs at a time
+ * instead of running out of heap.
+ *
+ * <p>Each job reserves its estimated memory before it starts and returns it when it is done. A
+ * job waits while the reservations of running jobs would exceed the budget; one job is always
+ * admitted, however large, so the batch cannot stall.</p>
+ *
+ * <p>The estimate cannot see everything (fonts, caches, other allocations), so the budget also
+ * reacts to the heap itself. If the heap is more than {@value #PRESSURE_THRESHOLD} full after the
+ * last garbage collection, or a job ran out of memory, the effective budget shrinks to three
+ * quarters of what is currently reserved and no new jobs start until running ones finish. It
+ * grows back gradually as jobs complete without pressure.</p>
+ */
+class MemoryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryBudget.class);
+
+    /**
+     * Fraction of the heap in use after garbage collection that counts as memory pressure.
+     */
+    static final double PRESSURE_THRESHOLD = 0.85;
+
+    /**
+     * Share of the full budget restored each time a job completes without pressure.
+     */
+    static final int RECOVERY_STEPS = 8;
+
+    private final long limit;
+    private final DoubleSupplier heapUsage;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private long effectiveLimit;
+    private long reserved;
+    private int running;
+    private boolean underPressure;
+
+    /**
+     * @param limit     the budget in bytes
+     * @param heapUsage fraction of the heap in use after the last garbage collection
+     */
+    MemoryBudget(long limit, DoubleSupplier heapUsage) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + limit);
+        }
+        this.limit = limit;
+        this.effectiveLimit = limit;
+        this.heapUsage = heapUsage;
+    }
+
+    /**
+     * @param limit the budget in bytes
+     * @return a budget that watches the heap of this JVM
+     */
+    static MemoryBudget forHeap(long limit) {
+        return new MemoryBudget(limit, MemoryBudget::heapUsageAfterGc);
+    }
+
+    /**
+     * Waits until the job's memory fits into the budget and reserves it.
+     *
+     * @param bytes the job's estimated memory
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void acquire(long bytes) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            checkPressure();
+            while (running > 0 && reserved + bytes > effectiveLimit) {
+                released.await();
+                checkPressure();
+            }
+            reserved += bytes;
+            running++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a job's reservation.
+     *
+     * @param bytes the memory reserved by {@link #acquire}
+     */
+    void release(long bytes) {
+        lock.lock();
+        try {
+            reserved -= bytes;
+            running--;
+            if (!underPressure) {
+                recover();
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Shrinks the budget after a job failed with an {@link OutOfMemoryError}.
+     */
+    void recordOutOfMemory() {
+        lock.lock();
+        try {
+            backOff("a job ran out of memory");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkPressure() {
+        boolean pressure = heapUsage.getAsDouble() > PRESSURE_THRESHOLD;
+        if (pressure && !underPressure) {
+            backOff("the heap is over " + (int) (PRESSURE_THRESHOLD * 100) + "% full after garbage collection");
+        } else if (!pressure && underPressure) {
+            recover();
+        }
+        underPressure = pressure;
+    }
+
+    private void recover() {
+        if (effectiveLimit < limit) {
+            effectiveLimit = Math.min(limit, effectiveLimit + limit / RECOVERY_STEPS);
+        }
+    }
+
+    private void backOff(String reason) {
+        long shrunk = reserved / 4 * 3;
+        if (shrunk < effectiveLimit) {
+            effectiveLimit = shrunk;
+            logger.warn("Memory pressure: {}; admitting fewer jobs (budget {} MB of {} MB)", reason,
+                effectiveLimit >> 20, limit >> 20);
+        }
+    }
+
+    /**
+     * @return the budget currently admitted against, at most the configured limit
+     */
+    long getEffectiveLimit() {
+        lock.lock();
+        try {
+            return effectiveLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the memory reserved by running jobs
+     */
+    long getReserved() {
+        lock.lock();
+        try {
+            return reserved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the heap usage right after the last garbage collection from the memory pools that
+     * report it, which unlike the current usage is not inflated by garbage not yet collected.
+     *
+     * @return the fraction of the heap in use, or 0 if unknown
+     */
+    static double heapUsageAfterGc() {
+        long used = 0;
+        long max = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage == null || usage.getMax() <= 0) {
+                continue;
+            }
+            used += usage.getUsed();
+            max += usage.getMax();
+        }
+        return max > 0 ? (double) used / max : 0;
+    }
+}
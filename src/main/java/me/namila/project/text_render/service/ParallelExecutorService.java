@@ -1,19 +1,33 @@
 package me.namila.project.text_render.service;
 
+import me.namila.project.text_render.model.BatchPriority;
+import me.namila.project.text_render.model.FailureBudget;
+import me.namila.project.text_render.model.MemoryLimit;
 import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.model.RetryPolicy;
+import me.namila.project.text_render.output.OutputSink;
 import me.namila.project.text_render.util.ProgressTracker;
+import me.namila.project.text_render.util.Retries;
 import me.namila.project.text_render.util.VirtualThreadExceptionHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service for executing render jobs using adaptive threading strategy.
@@ -22,7 +36,13 @@ import java.util.concurrent.TimeUnit;
  * - For small batches (< SEQUENTIAL_THRESHOLD jobs): Uses main thread for sequential execution.
  *   This is more efficient for small workloads and avoids virtual thread overhead.
  * - For larger batches: Uses Java 21+ virtual threads with custom exception handling
- *   and a semaphore to control parallelism.
+ *   and a concurrency limit to control parallelism.
+ * - In adaptive mode ({@link #setAdaptiveConcurrency}): the first job is timed to decide between
+ *   the two, and the concurrency limit follows the measured throughput (see {@link ConcurrencyLimiter}).
+ * <p>
+ * Each job can be given a time budget ({@link #setJobTimeout}); a watchdog interrupts jobs that
+ * exceed it and reports them as failed. A failure budget ({@link #setFailureBudget}) aborts the
+ * batch once too many jobs fail, so a misconfigured run stops early instead of failing every row.
  * <p>
  * All threads have a custom {@link VirtualThreadExceptionHandler} attached to ensure
  * uncaught exceptions are properly logged, which is critical for GraalVM native-image
@@ -32,7 +52,6 @@ import java.util.concurrent.TimeUnit;
 public class ParallelExecutorService {
 
     private static final Logger logger = LoggerFactory.getLogger(ParallelExecutorService.class);
-    private static final long DEFAULT_TIMEOUT_MINUTES = 60;
     
     /**
      * Default threshold for switching from sequential to parallel execution.
@@ -40,6 +59,135 @@ public class ParallelExecutorService {
      */
     public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 10;
 
+    /**
+     * Remaining jobs whose estimated sequential run time is below this are not worth
+     * parallelizing in adaptive mode.
+     */
+    static final long PARALLEL_BREAK_EVEN_MILLIS = 50;
+
+    /**
+     * Upper bound of the adaptive concurrency limit as a multiple of the available processors,
+     * for callers without an explicit thread count. Above the processor count, extra jobs only
+     * help while others wait for I/O.
+     */
+    public static final int ADAPTIVE_MAX_PARALLELISM_FACTOR = 4;
+
+    private volatile boolean adaptiveConcurrency;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.NONE;
+    private volatile Duration jobTimeout;
+    private volatile FailureBudget failureBudget = FailureBudget.NONE;
+    private volatile MemoryLimit memoryLimit = MemoryLimit.DEFAULT;
+    private volatile BatchScheduler scheduler;
+
+    /**
+     * Sets how renders that fail with a transient I/O error are retried before the job is
+     * reported as failed.
+     *
+     * @param retryPolicy the retry policy
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = Objects.requireNonNull(retryPolicy, "retryPolicy must not be null");
+    }
+
+    /**
+     * @return the retry policy applied to renders
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Enables adaptive concurrency. Instead of a fixed thread count and sequential threshold, the
+     * executor estimates the cost of a job to choose between sequential and parallel execution,
+     * and adjusts the number of concurrent jobs at runtime, up to {@code maxParallelism}, to the
+     * highest measured throughput.
+     *
+     * @param adaptiveConcurrency true to adapt concurrency at runtime
+     */
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    /**
+     * @return true if concurrency adapts at runtime
+     */
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    /**
+     * Sets the memory that jobs running in parallel may use between them. Each job's memory is
+     * estimated from its template ({@link RendererService#estimateJobMemory}); jobs wait for
+     * memory to become free instead of exhausting the heap, and fewer jobs are admitted while
+     * the heap is under pressure.
+     *
+     * @param memoryLimit the memory limit
+     */
+    public void setMemoryLimit(MemoryLimit memoryLimit) {
+        this.memoryLimit = Objects.requireNonNull(memoryLimit, "memoryLimit must not be null");
+    }
+
+    /**
+     * @return the memory limit of parallel jobs
+     */
+    public MemoryLimit getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Sets the time budget of each job. A job still running when its budget runs out is
+     * interrupted and reported as failed with a {@link TimeoutException}.
+     *
+     * @param jobTimeout the time budget per job, or null for none
+     */
+    public void setJobTimeout(Duration jobTimeout) {
+        this.jobTimeout = jobTimeout;
+    }
+
+    /**
+     * @return the time budget per job, or null for none
+     */
+    public Duration getJobTimeout() {
+        return jobTimeout;
+    }
+
+    /**
+     * Sets how many failures a batch tolerates. Once the budget is exhausted no further jobs are
+     * started, and {@link #executeAll} throws a {@link BatchAbortedException} after the running
+     * jobs finished.
+     *
+     * @param failureBudget the failure budget
+     */
+    public void setFailureBudget(FailureBudget failureBudget) {
+        this.failureBudget = Objects.requireNonNull(failureBudget, "failureBudget must not be null");
+    }
+
+    /**
+     * @return the failure budget of a batch
+     */
+    public FailureBudget getFailureBudget() {
+        return failureBudget;
+    }
+
+    /**
+     * Shares a concurrency cap between batches that run at the same time, for example several
+     * {@link #executeAll} calls from different threads. Every job, sequential or parallel, then
+     * holds one of the scheduler's slots while it renders, and batches are served by their
+     * {@link BatchPriority}.
+     *
+     * @param scheduler the shared scheduler, or null to let every batch run independently
+     */
+    public void setScheduler(BatchScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return the shared scheduler, or null if batches run independently
+     */
+    public BatchScheduler getScheduler() {
+        return scheduler;
+    }
+
     /**
      * Executes all render jobs using adaptive threading strategy.
      * <p>
@@ -68,69 +216,273 @@ public class ParallelExecutorService {
     public void executeAll(List<RenderJob> jobs, RendererService renderer,
                            int maxParallelism, ProgressTracker progressTracker,
                            int sequentialThreshold) {
+        executeAll(jobs, renderer, maxParallelism, progressTracker, sequentialThreshold, null);
+    }
+
+    /**
+     * Executes all render jobs, handing encoded outputs to an {@link OutputSink}.
+     * <p>
+     * Workers move on to the next job as soon as an output is encoded; a job counts as completed
+     * (or failed) when the sink reports its write. This method returns once all writes have finished.
+     *
+     * @param jobs               the list of render jobs to execute
+     * @param renderer           the renderer service to use
+     * @param maxParallelism     the maximum number of concurrent tasks (for parallel mode)
+     * @param progressTracker    the progress tracker for monitoring completion
+     * @param sequentialThreshold jobs below this count are processed sequentially
+     * @param sink               the output sink, or null to let the renderer write files directly
+     */
+    public void executeAll(List<RenderJob> jobs, RendererService renderer,
+                           int maxParallelism, ProgressTracker progressTracker,
+                           int sequentialThreshold, OutputSink sink) {
+        executeAll(jobs, renderer, maxParallelism, progressTracker, sequentialThreshold, sink, JobListener.NONE);
+    }
+
+    /**
+     * Executes all render jobs, reporting the outcome of every job to a listener.
+     *
+     * @param jobs               the list of render jobs to execute
+     * @param renderer           the renderer service to use
+     * @param maxParallelism     the maximum number of concurrent tasks (for parallel mode)
+     * @param progressTracker    the progress tracker for monitoring completion
+     * @param sequentialThreshold jobs below this count are processed sequentially
+     * @param sink               the output sink, or null to let the renderer write files directly
+     * @param listener           notified when each job completes or fails
+     */
+    public void executeAll(List<RenderJob> jobs, RendererService renderer,
+                           int maxParallelism, ProgressTracker progressTracker,
+                           int sequentialThreshold, OutputSink sink, JobListener listener) {
+        executeAll(jobs, renderer, maxParallelism, progressTracker, sequentialThreshold, sink, listener,
+                   BatchPriority.DEFAULT);
+    }
+
+    /**
+     * Executes all render jobs as a batch of the given priority. The priority only matters when a
+     * {@link #setScheduler scheduler} is shared with other batches.
+     *
+     * @param jobs               the list of render jobs to execute
+     * @param renderer           the renderer service to use
+     * @param maxParallelism     the maximum number of concurrent tasks (for parallel mode)
+     * @param progressTracker    the progress tracker for monitoring completion
+     * @param sequentialThreshold jobs below this count are processed sequentially
+     * @param sink               the output sink, or null to let the renderer write files directly
+     * @param listener           notified when each job completes or fails
+     * @param priority           how the batch competes with other batches for scheduler slots
+     */
+    public void executeAll(List<RenderJob> jobs, RendererService renderer,
+                           int maxParallelism, ProgressTracker progressTracker,
+                           int sequentialThreshold, OutputSink sink, JobListener listener,
+                           BatchPriority priority) {
         if (jobs.isEmpty()) {
             logger.debug("No jobs to execute, returning");
             return;
         }
 
-        if (jobs.size() < sequentialThreshold) {
-            logger.info("Processing {} jobs sequentially (below threshold of {})", 
-                       jobs.size(), sequentialThreshold);
-            executeSequentially(jobs, renderer, progressTracker);
-        } else {
-            logger.info("Processing {} jobs in parallel with {} threads", 
-                       jobs.size(), maxParallelism);
-            executeInParallel(jobs, renderer, maxParallelism, progressTracker);
+        CircuitBreaker breaker = new CircuitBreaker(failureBudget, jobs.size());
+        ConcurrencyLimiter limiter = adaptiveConcurrency
+            ? ConcurrencyLimiter.adaptive(Math.min(Runtime.getRuntime().availableProcessors(), maxParallelism),
+                                          maxParallelism)
+            : ConcurrencyLimiter.fixed(maxParallelism);
+        long jobMemory = estimateJobMemory(renderer, jobs.get(0));
+        MemoryBudget memory = createMemoryBudget(jobMemory);
+        JobListener trackedListener = trackOutcomes(listener, breaker, limiter, memory);
+        BatchScheduler shared = scheduler;
+        try (JobWatchdog watchdog = new JobWatchdog(jobTimeout);
+             BatchScheduler.Batch batch = shared != null ? shared.register(describeBatch(jobs), priority) : null) {
+            if (adaptiveConcurrency) {
+                executeAdaptively(jobs, renderer, limiter, memory, jobMemory, batch, progressTracker, sink,
+                                  trackedListener, watchdog, breaker);
+            } else if (jobs.size() < sequentialThreshold) {
+                logger.info("Processing {} jobs sequentially (below threshold of {})", 
+                           jobs.size(), sequentialThreshold);
+                executeSequentially(jobs, renderer, batch, progressTracker, sink, trackedListener, watchdog, breaker);
+            } else {
+                logger.info("Processing {} jobs in parallel with {} threads", 
+                           jobs.size(), maxParallelism);
+                executeInParallel(jobs, renderer, limiter, memory, jobMemory, batch, progressTracker, sink,
+                                  trackedListener, watchdog, breaker);
+            }
         }
 
+        if (breaker.isOpen()) {
+            logger.error(breaker.getReason());
+            throw new BatchAbortedException(breaker.getReason());
+        }
         logger.info("All jobs completed");
     }
 
+    /**
+     * Counts every outcome against the failure budget and towards the measured throughput
+     * before passing it on. Jobs skipped because the batch was aborted do not count.
+     */
+    private static JobListener trackOutcomes(JobListener listener, CircuitBreaker breaker,
+                                             ConcurrencyLimiter limiter, MemoryBudget memory) {
+        return new JobListener() {
+            @Override
+            public void jobCompleted(RenderJob job) {
+                breaker.recordSuccess();
+                limiter.jobFinished();
+                listener.jobCompleted(job);
+            }
+
+            @Override
+            public void jobFailed(RenderJob job, Throwable error) {
+                if (!(error instanceof BatchAbortedException)) {
+                    breaker.recordFailure();
+                    limiter.jobFinished();
+                }
+                if (memory != null && error instanceof OutOfMemoryError) {
+                    memory.recordOutOfMemory();
+                }
+                listener.jobFailed(job, error);
+            }
+        };
+    }
+
+    private static String describeBatch(List<RenderJob> jobs) {
+        Path template = jobs.get(0).templatePath().getFileName();
+        return template + " (" + jobs.size() + " jobs)";
+    }
+
+    /**
+     * Estimates the memory of one job of the batch; every job of a batch uses the same template.
+     */
+    private static long estimateJobMemory(RendererService renderer, RenderJob job) {
+        try {
+            return renderer.estimateJobMemory(job.templatePath());
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not estimate job memory for {}: {}", job.templatePath(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Creates the memory budget parallel jobs are admitted against, or null if jobs are not
+     * limited by memory.
+     */
+    private MemoryBudget createMemoryBudget(long jobMemory) {
+        MemoryLimit limit = memoryLimit;
+        if (jobMemory <= 0 || limit.isUnlimited()) {
+            return null;
+        }
+        long budget = limit.resolve(Runtime.getRuntime().maxMemory());
+        logger.info("Memory budget {} MB, about {} MB per job (up to {} jobs at once)",
+                   budget >> 20, Math.max(1, jobMemory >> 20), Math.max(1, budget / jobMemory));
+        return MemoryBudget.forHeap(budget);
+    }
+
+    /**
+     * Renders the first job on the calling thread to estimate the cost of a job, then processes
+     * the rest sequentially if that is estimated to take less than
+     * {@value #PARALLEL_BREAK_EVEN_MILLIS} ms, or in parallel under the adaptive limiter otherwise.
+     */
+    private void executeAdaptively(List<RenderJob> jobs, RendererService renderer, ConcurrencyLimiter limiter,
+                                   MemoryBudget memory, long jobMemory, BatchScheduler.Batch batch,
+                                   ProgressTracker progressTracker, OutputSink sink, JobListener listener,
+                                   JobWatchdog watchdog, CircuitBreaker breaker) {
+        long start = System.nanoTime();
+        executeSequentially(jobs.subList(0, 1), renderer, batch, progressTracker, sink, listener, watchdog, breaker);
+        long jobNanos = System.nanoTime() - start;
+        List<RenderJob> remaining = jobs.subList(1, jobs.size());
+        if (remaining.isEmpty()) {
+            return;
+        }
+
+        long estimatedMillis = TimeUnit.NANOSECONDS.toMillis(jobNanos * remaining.size());
+        if (remaining.size() < 2 || estimatedMillis < PARALLEL_BREAK_EVEN_MILLIS) {
+            logger.info("Processing {} jobs sequentially (estimated {} ms at {} ms per job)",
+                       remaining.size(), estimatedMillis, TimeUnit.NANOSECONDS.toMillis(jobNanos));
+            executeSequentially(remaining, renderer, batch, progressTracker, sink, listener, watchdog, breaker);
+        } else {
+            logger.info("Processing {} jobs in parallel with adaptive concurrency (estimated {} ms sequentially)",
+                       remaining.size(), estimatedMillis);
+            executeInParallel(remaining, renderer, limiter, memory, jobMemory, batch, progressTracker, sink,
+                              listener, watchdog, breaker);
+            logger.info("Concurrency: {}", limiter.describe());
+        }
+    }
+
     /**
      * Executes jobs sequentially on the main thread.
      * More efficient for small batches, avoiding thread creation overhead.
      */
-    private void executeSequentially(List<RenderJob> jobs, RendererService renderer,
-                                     ProgressTracker progressTracker) {
-        List<String> failedJobs = new ArrayList<>();
+    private void executeSequentially(List<RenderJob> jobs, RendererService renderer, BatchScheduler.Batch batch,
+                                     ProgressTracker progressTracker, OutputSink sink,
+                                     JobListener listener, JobWatchdog watchdog, CircuitBreaker breaker) {
+        List<String> failedJobs = java.util.Collections.synchronizedList(new ArrayList<>());
         
         for (RenderJob job : jobs) {
-            try {
-                logger.debug("Rendering job for text: {}", job.text());
-                renderer.render(job);
-                progressTracker.increment();
-                logger.debug("Successfully rendered job for text: {}", job.text());
-            } catch (Throwable e) {
-                failedJobs.add(job.text());
-                handleJobError(job, e);
+            if (breaker.isOpen()) {
+                listener.jobFailed(job, new BatchAbortedException(breaker.getReason()));
+                continue;
+            }
+            if (batch != null) {
+                try {
+                    batch.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.error("Job interrupted for: {}", job.text());
+                    failedJobs.add(job.text());
+                    listener.jobFailed(job, e);
+                    continue;
+                }
             }
+            runJob(job, renderer, progressTracker, sink, listener, failedJobs, watchdog, () -> {
+                if (batch != null) {
+                    batch.release();
+                }
+            });
         }
         
+        awaitPendingWrites(sink);
         reportFailures(failedJobs);
     }
 
     /**
      * Executes jobs in parallel using virtual threads with custom exception handling.
+     *
+     * <p>Each job is admitted under the concurrency limit, the memory budget and, if batches share
+     * a scheduler, a scheduler slot before it is taken from the list and given a thread, so a list
+     * that creates jobs as they are read holds only the running ones.</p>
      */
     private void executeInParallel(List<RenderJob> jobs, RendererService renderer,
-                                   int maxParallelism, ProgressTracker progressTracker) {
+                                   ConcurrencyLimiter limiter, MemoryBudget memory, long jobMemory,
+                                   BatchScheduler.Batch batch, ProgressTracker progressTracker,
+                                   OutputSink sink, JobListener listener,
+                                   JobWatchdog watchdog, CircuitBreaker breaker) {
         // Create thread factory with custom exception handler for visibility in native-image
         ThreadFactory virtualThreadFactory = createVirtualThreadFactory();
         ExecutorService executor = Executors.newThreadPerTaskExecutor(virtualThreadFactory);
         
-        Semaphore semaphore = new Semaphore(maxParallelism);
         List<String> failedJobs = java.util.Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch settled = new CountDownLatch(jobs.size());
 
         try {
-            for (RenderJob job : jobs) {
-                executor.submit(() -> executeJobWithSemaphore(job, renderer, semaphore, 
-                                                              progressTracker, failedJobs));
+            for (int position = 0; position < jobs.size(); position++) {
+                try {
+                    admit(limiter, memory, jobMemory, batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failInterrupted(jobs.subList(position, jobs.size()), listener, failedJobs, settled, e);
+                    break;
+                }
+                RenderJob job = jobs.get(position);
+                if (breaker.isOpen()) {
+                    dismiss(limiter, memory, jobMemory, batch);
+                    listener.jobFailed(job, new BatchAbortedException(breaker.getReason()));
+                    settled.countDown();
+                    continue;
+                }
+                executor.submit(() -> executeAdmittedJob(job, renderer, limiter, memory, jobMemory, batch,
+                                                         progressTracker, sink, listener, failedJobs, watchdog,
+                                                         settled));
             }
         } finally {
             executor.shutdown();
-            awaitCompletion(executor);
+            awaitCompletion(executor, settled);
         }
         
+        awaitPendingWrites(sink);
         reportFailures(failedJobs);
     }
 
@@ -144,28 +496,163 @@ public class ParallelExecutorService {
     }
 
     /**
-     * Executes a single job with semaphore-based concurrency control.
+     * Waits until a job may start under the concurrency limit, the memory budget and, if batches
+     * share a scheduler, a scheduler slot. Nothing is held if the wait is interrupted.
      */
-    private void executeJobWithSemaphore(RenderJob job, RendererService renderer,
-                                         Semaphore semaphore, ProgressTracker progressTracker,
-                                         List<String> failedJobs) {
+    private static void admit(ConcurrencyLimiter limiter, MemoryBudget memory, long jobMemory,
+                              BatchScheduler.Batch batch) throws InterruptedException {
+        limiter.acquire();
         try {
-            semaphore.acquire();
+            if (memory != null) {
+                memory.acquire(jobMemory);
+            }
             try {
-                logger.debug("Rendering job for text: {}", job.text());
-                renderer.render(job);
-                progressTracker.increment();
-                logger.debug("Successfully rendered job for text: {}", job.text());
-            } finally {
-                semaphore.release();
+                if (batch != null) {
+                    batch.acquire();
+                }
+            } catch (InterruptedException e) {
+                if (memory != null) {
+                    memory.release(jobMemory);
+                }
+                throw e;
             }
         } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            limiter.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns what {@link #admit} acquired for a job that does not run.
+     */
+    private static void dismiss(ConcurrencyLimiter limiter, MemoryBudget memory, long jobMemory,
+                                BatchScheduler.Batch batch) {
+        if (batch != null) {
+            batch.release();
+        }
+        if (memory != null) {
+            memory.release(jobMemory);
+        }
+        limiter.release();
+    }
+
+    /**
+     * Reports jobs that were not started because the batch was interrupted while waiting to admit
+     * them.
+     */
+    private static void failInterrupted(List<RenderJob> jobs, JobListener listener, List<String> failedJobs,
+                                        CountDownLatch settled, InterruptedException e) {
+        for (RenderJob job : jobs) {
             logger.error("Job interrupted for: {}", job.text());
             failedJobs.add(job.text());
-        } catch (Throwable e) {
+            listener.jobFailed(job, e);
+            settled.countDown();
+        }
+    }
+
+    /**
+     * Executes a single admitted job. The permit, the memory and the slot are returned and the job
+     * counted as settled when its thread is done with it, even if it was already reported as timed
+     * out, so a job that is slow to react to its interrupt still counts against the budgets.
+     */
+    private void executeAdmittedJob(RenderJob job, RendererService renderer,
+                                    ConcurrencyLimiter limiter, MemoryBudget memory, long jobMemory,
+                                    BatchScheduler.Batch batch,
+                                    ProgressTracker progressTracker, OutputSink sink, JobListener listener,
+                                    List<String> failedJobs, JobWatchdog watchdog, CountDownLatch settled) {
+        long start = System.nanoTime();
+        runJob(job, renderer, progressTracker, sink, listener, failedJobs, watchdog, () -> {
+            if (batch != null) {
+                batch.release();
+            }
+            if (memory != null) {
+                memory.release(jobMemory);
+            }
+            limiter.release(start);
+            settled.countDown();
+        });
+    }
+
+    /**
+     * Runs one job under the watchdog and reports its failure, unless it timed out and the
+     * watchdog already reported it.
+     *
+     * @param settle runs exactly once, when the job's thread returns from it
+     */
+    private void runJob(RenderJob job, RendererService renderer, ProgressTracker progressTracker,
+                        OutputSink sink, JobListener listener, List<String> failedJobs,
+                        JobWatchdog watchdog, Runnable settle) {
+        JobWatchdog.Watch watch = watchdog.watch(timeout -> {
             failedJobs.add(job.text());
-            handleJobError(job, e);
+            handleJobError(job, timeout);
+            listener.jobFailed(job, timeout);
+        });
+        try {
+            logger.debug("Rendering job for text: {}", job.text());
+            renderJob(job, renderer, progressTracker, sink, listener, failedJobs, watch);
+        } catch (Throwable e) {
+            if (watch.finish()) {
+                failedJobs.add(job.text());
+                handleJobError(job, e);
+                listener.jobFailed(job, e);
+            }
+        } finally {
+            watch.finish();
+            settle.run();
+        }
+    }
+
+    /**
+     * Renders one job, directly or into the sink. Sink writes complete asynchronously and record
+     * their own outcome. Nothing is reported if the job timed out while rendering, and its output
+     * is not written to the sink.
+     */
+    private void renderJob(RenderJob job, RendererService renderer, ProgressTracker progressTracker,
+                           OutputSink sink, JobListener listener, List<String> failedJobs,
+                           JobWatchdog.Watch watch) throws Exception {
+        RetryPolicy retries = retryPolicy;
+        if (sink == null) {
+            Retries.run(retries, "Rendering " + job.text(), () -> renderer.render(job));
+            if (!watch.finish()) {
+                return;
+            }
+            progressTracker.increment();
+            listener.jobCompleted(job);
+            logger.debug("Successfully rendered job for text: {}", job.text());
+            return;
+        }
+        AtomicReference<CompletableFuture<Void>> write = new AtomicReference<>();
+        OutputSink jobSink = watch.guard(sink);
+        Retries.run(retries, "Rendering " + job.text(), () -> write.set(renderer.render(job, jobSink)));
+        if (!watch.finish()) {
+            return;
+        }
+        write.get().whenComplete((ignored, error) -> {
+            if (error == null) {
+                progressTracker.increment();
+                listener.jobCompleted(job);
+                logger.debug("Successfully wrote job for text: {}", job.text());
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                failedJobs.add(job.text());
+                handleJobError(job, cause);
+                listener.jobFailed(job, cause);
+            }
+        });
+    }
+
+    /**
+     * Waits for the sink to finish all writes, so their failures are included in the report.
+     */
+    private void awaitPendingWrites(OutputSink sink) {
+        if (sink == null) {
+            return;
+        }
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            logger.warn("Interrupted while waiting for pending writes: {}", e.getMessage());
         }
     }
 
@@ -195,13 +682,13 @@ public class ParallelExecutorService {
         }
     }
 
-    private void awaitCompletion(ExecutorService executor) {
+    /**
+     * Waits until every job's thread is done with it. The batch as a whole has no deadline; the
+     * job time budget and the failure budget bound jobs that hang.
+     */
+    private void awaitCompletion(ExecutorService executor, CountDownLatch settled) {
         try {
-            boolean completed = executor.awaitTermination(DEFAULT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
-            if (!completed) {
-                logger.warn("Some tasks did not complete within the timeout period");
-                executor.shutdownNow();
-            }
+            settled.await();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             executor.shutdownNow();
@@ -6,15 +6,21 @@ import com.lowagie.text.pdf.PdfContentByte;
 import com.lowagie.text.pdf.PdfReader;
 import com.lowagie.text.pdf.PdfStamper;
 import me.namila.project.text_render.model.Alignment;
+import me.namila.project.text_render.model.FsyncPolicy;
 import me.namila.project.text_render.model.RenderJob;
 import me.namila.project.text_render.model.TextConfig;
+import me.namila.project.text_render.output.FileSystemOutputSink;
+import me.namila.project.text_render.output.OutputSink;
+import me.namila.project.text_render.output.PooledBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.awt.Color;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * PDF renderer service that inserts text onto PDF templates.
@@ -47,17 +53,45 @@ public class PdfRendererService implements RendererService {
         this.fontService = fontService;
     }
 
+    /**
+     * Renders the PDF into a temporary file and renames it into place, so the output never
+     * exists in part under its name.
+     */
     @Override
     public void render(RenderJob job) throws Exception {
-        logger.debug("Rendering PDF for text: '{}' at ({}, {})", job.text(), job.textConfig().x(), job.textConfig().y());
-        
         // Ensure parent directory exists
         if (job.outputPath().getParent() != null) {
             Files.createDirectories(job.outputPath().getParent());
         }
         
+        FileSystemOutputSink.writeAtomically(job.outputPath(), FsyncPolicy.NONE, out -> renderTo(job, () -> out));
+        logger.debug("Successfully rendered PDF to: {}", job.outputPath());
+    }
+
+    /**
+     * Renders the PDF into a buffer from the sink and hands it over for writing.
+     */
+    @Override
+    public CompletableFuture<Void> render(RenderJob job, OutputSink sink) throws Exception {
+        PooledBuffer buffer = sink.allocate();
+        try {
+            renderTo(job, () -> buffer);
+        } catch (Exception | Error e) {
+            buffer.release();
+            throw e;
+        }
+        return sink.write(job.outputPath(), buffer);
+    }
+
+    /**
+     * Stamps the text onto the template and writes the PDF to the stream, which is opened only
+     * once the template has been read and closed when the stamper closes.
+     */
+    private void renderTo(RenderJob job, OutputOpener outputOpener) throws Exception {
+        logger.debug("Rendering PDF for text: '{}' at ({}, {})", job.text(), job.textConfig().x(), job.textConfig().y());
+        
         PdfReader reader = new PdfReader(job.templatePath().toString());
-        PdfStamper stamper = new PdfStamper(reader, new FileOutputStream(job.outputPath().toFile()));
+        PdfStamper stamper = new PdfStamper(reader, outputOpener.open());
 
         try {
             PdfContentByte canvas = stamper.getOverContent(1);
@@ -87,14 +121,17 @@ public class PdfRendererService implements RendererService {
             canvas.beginText();
             canvas.showTextAligned(alignment, job.text(), config.x(), transformedY, 0);
             canvas.endText();
-            
-            logger.debug("Successfully rendered PDF to: {}", job.outputPath());
         } finally {
             stamper.close();
             reader.close();
         }
     }
 
+    @FunctionalInterface
+    private interface OutputOpener {
+        OutputStream open() throws IOException;
+    }
+
     private int mapAlignment(Alignment alignment) {
         return switch (alignment) {
             case LEFT -> PdfContentByte.ALIGN_RIGHT;   // LEFT: text ends at X (positioned to the left)
@@ -1,14 +1,62 @@
 package me.namila.project.text_render.service;
 
+import me.namila.project.text_render.codec.BandEncoder;
+import me.namila.project.text_render.codec.PngBandCache;
+import me.namila.project.text_render.codec.PngEncoder;
+import me.namila.project.text_render.model.PngEncodeOptions;
+import me.namila.project.text_render.model.RenderJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
 /**
  * PNG renderer service that inserts text onto PNG image templates.
  * Extends AbstractImageRendererService to share common image rendering logic.
+ *
+ * <p>Output is written by the built-in {@link PngEncoder} instead of ImageIO, so the
+ * deflate level and scanline filter can be tuned via {@link #setEncodeOptions(PngEncodeOptions)}.</p>
+ *
+ * <p>With incremental encoding enabled, the template is compressed once into a {@link PngBandCache}
+ * and each output only re-encodes the row bands touched by its text.</p>
  */
 @Service
 public class PngRendererService extends AbstractImageRendererService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PngRendererService.class);
+
+    private volatile PngEncoder encoder = new PngEncoder(PngEncodeOptions.DEFAULT);
+
+    /**
+     * Sets the PNG encoder options used for subsequent renders.
+     *
+     * @param options the compression level and filter strategy
+     */
+    public void setEncodeOptions(PngEncodeOptions options) {
+        Objects.requireNonNull(options, "options must not be null");
+        if (!options.equals(encoder.getOptions())) {
+            encoder = new PngEncoder(options);
+            clearTemplateCaches();
+        }
+    }
+
+    /**
+     * @return the PNG encoder options currently in use
+     */
+    public PngEncodeOptions getEncodeOptions() {
+        return encoder.getOptions();
+    }
+
+    @Override
+    public String getOutputFingerprint() {
+        return super.getOutputFingerprint() + ";" + encoder.getOptions();
+    }
+
     @Override
     protected String getFormatName() {
         return "PNG";
@@ -18,4 +66,35 @@ public class PngRendererService extends AbstractImageRendererService {
     protected String getImageFormat() {
         return "PNG";
     }
+
+    @Override
+    protected void writeImage(BufferedImage image, OutputStream out) throws IOException {
+        encoder.encode(image, out);
+    }
+
+    @Override
+    protected boolean supportsStreaming() {
+        return true;
+    }
+
+    @Override
+    protected BandEncoder createBandEncoder(int width, int height, BufferedImage firstBand, OutputStream out)
+            throws IOException {
+        return encoder.open(width, height, firstBand.getColorModel().hasAlpha(), out);
+    }
+
+    @Override
+    protected void writeImage(BufferedImage image, RenderJob job, Rectangle textBounds, OutputStream out)
+            throws IOException {
+        if (isIncrementalEncoding()) {
+            PngBandCache cache = getTemplateCache(job.templatePath(),
+                template -> PngBandCache.build(template, encoder.getOptions()));
+            if (cache.isCompatible(image)) {
+                cache.encode(image, textBounds, out);
+                return;
+            }
+            logger.debug("Output for '{}' does not match cached template layout, encoding in full", job.text());
+        }
+        writeImage(image, out);
+    }
 }
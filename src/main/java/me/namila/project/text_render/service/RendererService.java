@@ -1,7 +1,60 @@
 package me.namila.project.text_render.service;
 
 import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.output.OutputSink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 public interface RendererService {
+
+    /**
+     * Version of the rendering code. Bump it whenever a change alters the bytes produced for the
+     * same job, so outputs of incremental runs made by older versions are rendered again.
+     */
+    int OUTPUT_VERSION = 1;
+
     void render(RenderJob job) throws Exception;
+
+    /**
+     * Describes everything besides the job itself that determines this renderer's output bytes:
+     * the renderer, {@link #OUTPUT_VERSION} and any encoder settings. Incremental runs only reuse
+     * an output if this is unchanged.
+     *
+     * @return the output fingerprint
+     */
+    default String getOutputFingerprint() {
+        return getClass().getSimpleName() + "/" + OUTPUT_VERSION;
+    }
+
+    /**
+     * Estimates the memory one job of a template needs while it renders: decoded images, converted
+     * copies and encoder buffers. The executor admits jobs against a memory budget with it.
+     *
+     * @param templatePath the template file
+     * @return the estimated bytes per job, or 0 if unknown
+     * @throws IOException if the template cannot be inspected
+     */
+    default long estimateJobMemory(Path templatePath) throws IOException {
+        return 0;
+    }
+
+    /**
+     * Renders a job into an {@link OutputSink}. The returned future completes once the sink has
+     * written the output.
+     * 
+     * <p>The default implementation renders straight to {@code job.outputPath()} with
+     * {@link #render(RenderJob)}, bypassing the sink. Renderers that can encode into memory
+     * override it.</p>
+     * 
+     * @param job the render job
+     * @param sink the destination for the encoded output
+     * @return a future completed when the output is written
+     * @throws Exception if rendering fails
+     */
+    default CompletableFuture<Void> render(RenderJob job, OutputSink sink) throws Exception {
+        render(job);
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -0,0 +1,188 @@
+package me.namila.project.text_render.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Byte offsets of the rows of a CSV file, kept in a sidecar file so a few rows can be read by
+ * seeking to them instead of scanning the whole file.
+ *
+ * <p>The index is valid for the CSV file as long as its size and modification time are unchanged;
+ * otherwise it is rebuilt. Besides the offsets it records which rows' output names collided with
+ * an earlier row's (see {@link OutputNamePattern#claimCollision}), so rows read on their own get
+ * the same output names as when the whole file is rendered.</p>
+ *
+ * <p>The file starts with the line {@code bulk-render-rows 1}, followed by the size and
+ * modification time of the CSV file, the number of rows and of collisions as big-endian binary,
+ * the collisions as pairs of row index and collision number, and the offset of every row. The
+ * offsets of a loaded index are memory-mapped rather than read.</p>
+ */
+public final class CsvRowIndex {
+
+    /**
+     * Extension of the index file next to the CSV file when no other location is given.
+     */
+    public static final String FILE_SUFFIX = ".rowidx";
+
+    static final byte[] HEADER = "bulk-render-rows 1\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int FIXED_BYTES = HEADER.length + 2 * Long.BYTES + 2 * Integer.BYTES;
+
+    private final long csvSize;
+    private final long csvModified;
+    private final int rowCount;
+    private final LongBuffer offsets;
+    private final Map<Integer, Integer> collisions;
+
+    private CsvRowIndex(long csvSize, long csvModified, int rowCount, LongBuffer offsets,
+                        Map<Integer, Integer> collisions) {
+        this.csvSize = csvSize;
+        this.csvModified = csvModified;
+        this.rowCount = rowCount;
+        this.offsets = offsets;
+        this.collisions = collisions;
+    }
+
+    /**
+     * Creates the index of a CSV file that was just scanned.
+     *
+     * @param csvFile    the CSV file, whose size and modification time the index is valid for
+     * @param offsets    the byte offset of each row, of which the first {@code rowCount} are used
+     * @param rowCount   the number of rows
+     * @param collisions collision numbers of the rows whose output names collided, by row index
+     * @return the index
+     * @throws IOException if the CSV file's attributes cannot be read
+     */
+    public static CsvRowIndex of(Path csvFile, long[] offsets, int rowCount, Map<Integer, Integer> collisions)
+            throws IOException {
+        return new CsvRowIndex(Files.size(csvFile), Files.getLastModifiedTime(csvFile).toMillis(), rowCount,
+            LongBuffer.wrap(Arrays.copyOf(offsets, rowCount)), Map.copyOf(collisions));
+    }
+
+    /**
+     * @param csvFile the CSV file
+     * @return where the index of the file is kept when no other location is given
+     */
+    public static Path defaultFile(Path csvFile) {
+        return csvFile.resolveSibling(csvFile.getFileName() + FILE_SUFFIX);
+    }
+
+    /**
+     * Loads the index of a CSV file.
+     *
+     * @param indexFile the index file
+     * @param csvFile   the CSV file
+     * @return the index, or null if there is none or it is no longer valid for the CSV file
+     * @throws IOException if the files cannot be read
+     */
+    public static CsvRowIndex load(Path indexFile, Path csvFile) throws IOException {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < FIXED_BYTES || length > Integer.MAX_VALUE) {
+                return null;
+            }
+            // A mapping stays valid after its channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            byte[] header = new byte[HEADER.length];
+            buffer.get(header);
+            if (!Arrays.equals(header, HEADER)) {
+                return null;
+            }
+            long csvSize = buffer.getLong();
+            long csvModified = buffer.getLong();
+            int rowCount = buffer.getInt();
+            int collisionCount = buffer.getInt();
+            if (rowCount < 0 || collisionCount < 0
+                    || length != FIXED_BYTES + 2L * Integer.BYTES * collisionCount + (long) Long.BYTES * rowCount) {
+                return null;
+            }
+            CsvRowIndex index = new CsvRowIndex(csvSize, csvModified, rowCount, null, Map.of());
+            if (!index.matches(csvFile)) {
+                return null;
+            }
+            Map<Integer, Integer> collisions = new HashMap<>();
+            for (int i = 0; i < collisionCount; i++) {
+                collisions.put(buffer.getInt(), buffer.getInt());
+            }
+            return new CsvRowIndex(csvSize, csvModified, rowCount, buffer.slice().asLongBuffer(), collisions);
+        }
+    }
+
+    /**
+     * Writes the index, replacing an existing file atomically so concurrent readers see either
+     * the old or the new index.
+     *
+     * @param indexFile the index file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path indexFile) throws IOException {
+        Path parent = indexFile.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.write(HEADER);
+                out.writeLong(csvSize);
+                out.writeLong(csvModified);
+                out.writeInt(rowCount);
+                out.writeInt(collisions.size());
+                for (Map.Entry<Integer, Integer> collision : collisions.entrySet()) {
+                    out.writeInt(collision.getKey());
+                    out.writeInt(collision.getValue());
+                }
+                for (int row = 0; row < rowCount; row++) {
+                    out.writeLong(offsets.get(row));
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param csvFile a CSV file
+     * @return true if the file has the size and modification time the index was built for
+     * @throws IOException if the file's attributes cannot be read
+     */
+    public boolean matches(Path csvFile) throws IOException {
+        return Files.size(csvFile) == csvSize && Files.getLastModifiedTime(csvFile).toMillis() == csvModified;
+    }
+
+    /**
+     * @return the number of rows in the CSV file
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param rowIndex zero-based index of a row
+     * @return the byte offset at which the row's line starts
+     */
+    public long getOffset(int rowIndex) {
+        return offsets.get(rowIndex);
+    }
+
+    /**
+     * @param rowIndex zero-based index of a row
+     * @return the collision number of the row's output name, 0 if it did not collide
+     */
+    public int getCollision(int rowIndex) {
+        return collisions.getOrDefault(rowIndex, 0);
+    }
+}
@@ -0,0 +1,234 @@
+package me.namila.project.text_render.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk index of the outputs produced by earlier runs, used to skip unchanged rows.
+ *
+ * <p>Each entry maps an output (by its path relative to the output folder) to a content hash of
+ * everything that determines it - template bytes, text configuration, renderer settings and the
+ * row's display text - together with the size and modification time the output had when it was
+ * written. A row is up to date if its hash matches and the file still looks exactly as it was
+ * left, so editing a row, changing the template or touching the output all cause it to be
+ * rendered again.</p>
+ *
+ * <p>{@link #save()} writes only entries that were confirmed or written during this run, so rows
+ * removed from the CSV drop out of the index. A run over only some of the rows calls
+ * {@link #retainUnchecked()} to keep the entries of the others. The file is replaced atomically.
+ * Thread-safe.</p>
+ */
+public class IncrementalIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalIndex.class);
+
+    static final String HEADER = "bulk-render-index 1";
+    private static final int HASH_BYTES = 16;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private record Entry(String hash, long size, long modified) {}
+
+    private final Path file;
+    private final Path root;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private volatile boolean retainUnchecked;
+
+    private IncrementalIndex(Path file, Path root, Map<String, Entry> previous) {
+        this.file = file;
+        this.root = root.toAbsolutePath().normalize();
+        this.previous = previous;
+    }
+
+    /**
+     * Loads the index, or starts an empty one if the file does not exist or has another format.
+     *
+     * @param file the index file
+     * @param root the output folder that entries are relative to
+     * @return the index
+     * @throws IOException if the file cannot be read
+     */
+    public static IncrementalIndex load(Path file, Path root) throws IOException {
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                logger.warn("Ignoring incremental index {} with unknown format", file);
+            } else {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", 4);
+                    if (fields.length == 4) {
+                        entries.put(fields[3], new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            logger.debug("No incremental index at {}; rendering all rows", file);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring corrupt incremental index {}: {}", file, e.getMessage());
+            entries.clear();
+        }
+        return new IncrementalIndex(file, root, entries);
+    }
+
+    /**
+     * Computes the digest shared by all rows of a batch: the template content plus everything
+     * else that applies to every row.
+     *
+     * @param template the template file
+     * @param settings text configuration, renderer fingerprint and similar settings
+     * @return the batch digest
+     * @throws IOException if the template cannot be read
+     */
+    public static byte[] batchDigest(Path template, String settings) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(template)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        digest.update((byte) 0);
+        digest.update(settings.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    /**
+     * Computes the hash of one row from the batch digest and the row's display text.
+     *
+     * @param batchDigest the result of {@link #batchDigest}
+     * @param text        the text rendered for the row
+     * @return the row hash in hex
+     */
+    public static String rowHash(byte[] batchDigest, String text) {
+        MessageDigest digest = sha256();
+        digest.update(batchDigest);
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest();
+        return HexFormat.of().formatHex(hash, 0, HASH_BYTES);
+    }
+
+    /**
+     * Checks whether an output can be reused, and if so keeps its entry for the next run.
+     *
+     * @param output the output file
+     * @param hash   the row hash
+     * @return true if the output was produced from the same inputs and has not been modified
+     */
+    public boolean isUpToDate(Path output, String hash) {
+        String key = key(output);
+        Entry entry = previous.get(key);
+        if (entry == null || !entry.hash().equals(hash)) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(output, BasicFileAttributes.class);
+            if (attributes.size() != entry.size() || attributes.lastModifiedTime().toMillis() != entry.modified()) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        current.put(key, entry);
+        return true;
+    }
+
+    /**
+     * Records an output that has just been written.
+     *
+     * @param output the output file
+     * @param hash   the row hash
+     */
+    public void record(Path output, String hash) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(output, BasicFileAttributes.class);
+            current.put(key(output), new Entry(hash, attributes.size(), attributes.lastModifiedTime().toMillis()));
+        } catch (IOException e) {
+            logger.warn("Cannot index output {}: {}", output, e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps the entries of outputs that this run did not check when saving, for a run that
+     * renders only some of the rows. Entries of rows removed from the CSV are then only dropped
+     * by the next run over all rows.
+     */
+    public void retainUnchecked() {
+        retainUnchecked = true;
+    }
+
+    /**
+     * @return the number of entries that will be saved
+     */
+    public int size() {
+        return entries().size();
+    }
+
+    /**
+     * Replaces the index file with the entries confirmed or recorded during this run, and with
+     * the unchecked entries of the earlier runs if {@link #retainUnchecked()} was called.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    public void save() throws IOException {
+        Map<String, Entry> entries = entries();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                writer.write(value.hash() + '\t' + value.size() + '\t' + value.modified() + '\t' + entry.getKey());
+                writer.newLine();
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        logger.debug("Saved incremental index with {} entries to {}", entries.size(), file);
+    }
+
+    private Map<String, Entry> entries() {
+        Map<String, Entry> entries = new TreeMap<>();
+        if (retainUnchecked) {
+            entries.putAll(previous);
+        }
+        entries.putAll(current);
+        return entries;
+    }
+
+    private String key(Path output) {
+        Path absolute = output.toAbsolutePath().normalize();
+        Path relative = absolute.startsWith(root) ? root.relativize(absolute) : absolute;
+        return relative.toString().replace('\\', '/');
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package me.namila.project.text_render.util;
+
+import me.namila.project.text_render.model.RowRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the chunks of a batch between renderer instances through lease files in a common
+ * directory, local or on NFS, without any other coordination.
+ *
+ * <p>An instance claims a chunk by creating {@code chunk-<rows>.lease} with create-new semantics,
+ * which only one instance can do, and writes its owner id into it. While it renders the chunk, a
+ * heartbeat thread touches the lease every third of the lease timeout. A finished chunk gets a
+ * {@code chunk-<rows>.done} marker and its lease is removed.</p>
+ *
+ * <p>A lease that has not been touched for longer than the timeout belongs to an instance that
+ * died. It is taken over by renaming it to a name unique to the new owner, which only one instance
+ * can do, and claiming the chunk again. If an instance was merely stalled, it notices at its next
+ * heartbeat that its lease is gone; at worst the chunk is rendered twice, which leaves the same
+ * outputs since every output is written atomically. Instances compare lease times with their own
+ * clock, so their clocks must agree to well within the timeout.</p>
+ *
+ * <p>The directory also holds a {@code batch} file identifying the batch, so instances started
+ * with a different CSV, template or chunking are rejected rather than mixing their chunks.</p>
+ */
+public class LeaseDirectory implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaseDirectory.class);
+
+    static final String BATCH_FILE_NAME = "batch";
+    static final String LEASE_SUFFIX = ".lease";
+    static final String DONE_SUFFIX = ".done";
+
+    private final Path directory;
+    private final Duration timeout;
+    private final String owner;
+    private final Set<Lease> held = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeat;
+
+    private LeaseDirectory(Path directory, Duration timeout, String owner) {
+        this.directory = directory;
+        this.timeout = timeout;
+        this.owner = owner;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, timeout.toMillis() / 3);
+        heartbeat.scheduleWithFixedDelay(this::renewAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Joins the batch coordinated through a directory, creating the directory for the first
+     * instance.
+     *
+     * @param directory   the shared directory
+     * @param fingerprint identifies the batch; instances of another batch are rejected
+     * @param timeout     how long a lease lives without a heartbeat
+     * @return the directory
+     * @throws IOException if the directory cannot be used or belongs to another batch
+     */
+    public static LeaseDirectory open(Path directory, String fingerprint, Duration timeout) throws IOException {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Lease timeout must be positive: " + timeout);
+        }
+        Files.createDirectories(directory);
+        Path batchFile = directory.resolve(BATCH_FILE_NAME);
+        try {
+            Files.writeString(Files.createFile(batchFile), fingerprint, StandardCharsets.UTF_8);
+        } catch (FileAlreadyExistsException e) {
+            // Another instance was first; it may still be writing the file
+            String existing = Files.readString(batchFile, StandardCharsets.UTF_8);
+            if (!existing.isEmpty() && !existing.equals(fingerprint)) {
+                throw new IOException("Coordination directory " + directory + " belongs to a different batch "
+                    + "(CSV, template, output or chunk options changed). Use another directory");
+            }
+        }
+        return new LeaseDirectory(directory, timeout, createOwnerId());
+    }
+
+    private static String createOwnerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "unknown";
+        }
+        return ProcessHandle.current().pid() + "@" + host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Claims the next chunk that is neither done nor leased by a live instance, waiting while the
+     * remaining chunks are leased by others.
+     *
+     * @param chunks the chunks of the batch, in the order to claim them
+     * @return the lease, or null once every chunk is done
+     * @throws IOException          if the directory cannot be accessed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Lease next(List<RowRange> chunks) throws IOException, InterruptedException {
+        long pollMillis = Math.max(10, Math.min(1000, timeout.toMillis() / 4));
+        while (true) {
+            boolean pending = false;
+            for (RowRange chunk : chunks) {
+                if (isDone(chunk)) {
+                    continue;
+                }
+                pending = true;
+                Lease lease = tryClaim(chunk);
+                if (lease != null) {
+                    return lease;
+                }
+            }
+            if (!pending) {
+                return null;
+            }
+            Thread.sleep(pollMillis);
+        }
+    }
+
+    /**
+     * @param chunk a chunk of the batch
+     * @return true if an instance finished the chunk
+     */
+    public boolean isDone(RowRange chunk) {
+        return Files.exists(doneFile(chunk));
+    }
+
+    private Lease tryClaim(RowRange chunk) throws IOException {
+        Path leaseFile = leaseFile(chunk);
+        if (Files.exists(leaseFile) && !takeOverIfExpired(chunk, leaseFile)) {
+            return null;
+        }
+        try {
+            Files.createFile(leaseFile);
+        } catch (FileAlreadyExistsException e) {
+            return null;
+        }
+        Files.writeString(leaseFile, owner, StandardCharsets.UTF_8);
+        // The chunk may have been finished between the check and the claim
+        if (isDone(chunk)) {
+            Files.deleteIfExists(leaseFile);
+            return null;
+        }
+        Lease lease = new Lease(chunk, leaseFile);
+        held.add(lease);
+        logger.debug("Claimed chunk {} as {}", chunk, owner);
+        return lease;
+    }
+
+    /**
+     * Removes a lease whose owner stopped renewing it. Renaming is atomic, so of several instances
+     * finding the same expired lease only one removes it.
+     *
+     * @return true if the lease was removed, by this or another instance
+     */
+    private boolean takeOverIfExpired(RowRange chunk, Path leaseFile) throws IOException {
+        try {
+            FileTime renewed = Files.getLastModifiedTime(leaseFile);
+            if (System.currentTimeMillis() - renewed.toMillis() <= timeout.toMillis()) {
+                return false;
+            }
+            Path stale = leaseFile.resolveSibling(leaseFile.getFileName() + ".expired-" + owner);
+            Files.move(leaseFile, stale, StandardCopyOption.ATOMIC_MOVE);
+            String previousOwner = Files.readString(stale, StandardCharsets.UTF_8);
+            Files.delete(stale);
+            logger.warn("Lease on chunk {} held by {} expired; taking the chunk over", chunk, previousOwner);
+        } catch (NoSuchFileException e) {
+            // Released, finished or taken over by another instance meanwhile
+        }
+        return true;
+    }
+
+    private void renewAll() {
+        for (Lease lease : held) {
+            lease.renew();
+        }
+    }
+
+    private Path leaseFile(RowRange chunk) {
+        return directory.resolve("chunk-" + chunk + LEASE_SUFFIX);
+    }
+
+    private Path doneFile(RowRange chunk) {
+        return directory.resolve("chunk-" + chunk + DONE_SUFFIX);
+    }
+
+    /**
+     * @return the id this instance writes into its leases
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Stops the heartbeat and releases the leases still held.
+     */
+    @Override
+    public void close() throws IOException {
+        heartbeat.shutdownNow();
+        for (Lease lease : held) {
+            lease.close();
+        }
+    }
+
+    /**
+     * A chunk claimed by this instance. Closing the lease without completing it hands the chunk
+     * back to the other instances.
+     */
+    public final class Lease implements Closeable {
+
+        private final RowRange rows;
+        private final Path file;
+        private volatile boolean lost;
+
+        private Lease(RowRange rows, Path file) {
+            this.rows = rows;
+            this.file = file;
+        }
+
+        /**
+         * @return the rows of the chunk
+         */
+        public RowRange getRows() {
+            return rows;
+        }
+
+        /**
+         * @return true if another instance took the chunk over because a heartbeat was missed
+         */
+        public boolean isLost() {
+            return lost;
+        }
+
+        /**
+         * Touches the lease, unless it has been taken over.
+         */
+        synchronized void renew() {
+            if (lost) {
+                return;
+            }
+            try {
+                if (!owner.equals(Files.readString(file, StandardCharsets.UTF_8))) {
+                    throw new NoSuchFileException(file.toString());
+                }
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (NoSuchFileException e) {
+                lost = true;
+                logger.warn("Lease on chunk {} was taken over by another instance; its rows may be rendered twice",
+                    rows);
+            } catch (IOException e) {
+                logger.warn("Cannot renew lease on chunk {}: {}", rows, e.getMessage());
+            }
+        }
+
+        /**
+         * Marks the chunk done and releases the lease.
+         *
+         * @throws IOException if the marker cannot be written
+         */
+        public synchronized void complete() throws IOException {
+            try {
+                Files.createFile(doneFile(rows));
+            } catch (FileAlreadyExistsException e) {
+                // Finished by an instance that took the chunk over
+            }
+            logger.debug("Completed chunk {}", rows);
+            close();
+        }
+
+        /**
+         * Releases the lease if this instance still holds it.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            if (!held.remove(this) || lost) {
+                return;
+            }
+            try {
+                if (owner.equals(Files.readString(file, StandardCharsets.UTF_8))) {
+                    Files.delete(file);
+                }
+            } catch (NoSuchFileException e) {
+                // Taken over and finished meanwhile
+            }
+        }
+    }
+}
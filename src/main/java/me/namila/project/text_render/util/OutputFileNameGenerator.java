@@ -134,28 +134,8 @@ public class OutputFileNameGenerator {
             return "unnamed";
         }
         
-        String processed = text.trim();
-        
-        // Step 1: Remove name prefixes
-        processed = removeNamePrefixes(processed);
-        
-        // Step 2: Replace spaces with underscores
-        processed = processed.replaceAll("\\s+", "_");
-        
-        // Step 3: Remove non-alphanumeric characters (except underscore)
-        processed = processed.replaceAll("[^a-zA-Z0-9_]", "");
-        
-        // Step 4: Truncate to max length
-        if (processed.length() > MAX_TEXT_LENGTH) {
-            processed = processed.substring(0, MAX_TEXT_LENGTH);
-        }
-        
-        // Handle edge case where all characters were removed
-        if (processed.isEmpty()) {
-            return "unnamed";
-        }
-        
-        return processed;
+        // Step 1: Remove name prefixes, then steps 2-4 in a single pass
+        return sanitize(removeNamePrefixes(text.trim()));
     }
 
     /**
@@ -175,25 +155,42 @@ public class OutputFileNameGenerator {
             return "unnamed";
         }
         
-        String processed = name.trim();
-        
-        // Step 1: Replace spaces with underscores
-        processed = processed.replaceAll("\\s+", "_");
-        
-        // Step 2: Remove non-alphanumeric characters (except underscore)
-        processed = processed.replaceAll("[^a-zA-Z0-9_]", "");
-        
-        // Step 3: Truncate to max length
-        if (processed.length() > MAX_TEXT_LENGTH) {
-            processed = processed.substring(0, MAX_TEXT_LENGTH);
-        }
-        
-        // Handle edge case where all characters were removed
-        if (processed.isEmpty()) {
-            return "unnamed";
+        return sanitize(name.trim());
+    }
+
+    /**
+     * Replaces whitespace runs with an underscore, drops every character other than ASCII letters,
+     * digits and underscores, and truncates to {@value #MAX_TEXT_LENGTH} characters, in a single
+     * pass without regular expressions.
+     *
+     * @param text trimmed text
+     * @return sanitized text, or "unnamed" if nothing remains
+     */
+    static String sanitize(String text) {
+        StringBuilder sb = new StringBuilder(Math.min(text.length(), MAX_TEXT_LENGTH));
+        boolean inWhitespace = false;
+        for (int i = 0; i < text.length() && sb.length() < MAX_TEXT_LENGTH; i++) {
+            char c = text.charAt(i);
+            if (isRegexWhitespace(c)) {
+                if (!inWhitespace) {
+                    sb.append('_');
+                    inWhitespace = true;
+                }
+                continue;
+            }
+            inWhitespace = false;
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+                sb.append(c);
+            }
         }
-        
-        return processed;
+        return sb.isEmpty() ? "unnamed" : sb.toString();
+    }
+
+    /**
+     * Matches the characters of the regex class {@code \s}.
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
     
     /**
@@ -211,7 +208,7 @@ public class OutputFileNameGenerator {
      * Extracts the base name from a template path (filename without extension).
      * Uses Path.of() with fallback to string parsing for Windows compatibility.
      */
-    private static String extractBaseName(String templatePath) {
+    static String extractBaseName(String templatePath) {
         try {
             String fileName = Path.of(templatePath).getFileName().toString();
             int dotIndex = fileName.lastIndexOf('.');
@@ -0,0 +1,156 @@
+package me.namila.project.text_render.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Output filename pattern compiled once per run.
+ *
+ * <p>Produces the same names as {@link OutputFileNameGenerator#generateFromCleanName}, but the
+ * template base name, prefix, postfix and extension are resolved once, so each row only costs a
+ * single sanitizing pass over its name.</p>
+ *
+ * <p>Sanitizing and truncation can map different names to the same file (for example
+ * {@code "O'Brien"} and {@code "OBrien"}), and parallel workers would then overwrite each other's
+ * output. {@link #claim(String)} therefore records every name it hands out and gives a clashing
+ * name a suffix derived from a hash of the original name, so the same input yields the same file
+ * name on every run. Names are compared case-insensitively, since the output may land on a
+ * case-insensitive file system. Instances are thread-safe.</p>
+ */
+public final class OutputNamePattern {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputNamePattern.class);
+
+    private final String head;
+    private final String tail;
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger collisions = new AtomicInteger();
+
+    private OutputNamePattern(String head, String tail) {
+        this.head = head;
+        this.tail = tail;
+    }
+
+    /**
+     * Compiles the pattern {@code <prefix>-<template-base-name>-<name>-<postfix>.<format>}.
+     *
+     * @param templatePath path to the template file
+     * @param prefix       optional filename prefix (null to skip)
+     * @param postfix      optional filename postfix (null to skip)
+     * @param format       output format (pdf, png, jpg, jpeg)
+     * @return the compiled pattern
+     */
+    public static OutputNamePattern compile(String templatePath, String prefix, String postfix, String format) {
+        StringBuilder head = new StringBuilder();
+        if (prefix != null && !prefix.isBlank()) {
+            head.append(prefix).append('-');
+        }
+        head.append(OutputFileNameGenerator.extractBaseName(templatePath)).append('-');
+
+        StringBuilder tail = new StringBuilder();
+        if (postfix != null && !postfix.isBlank()) {
+            tail.append('-').append(postfix);
+        }
+        tail.append('.').append(format.toLowerCase(Locale.ROOT));
+        return new OutputNamePattern(head.toString(), tail.toString());
+    }
+
+    /**
+     * Formats a filename without checking for collisions.
+     *
+     * @param cleanName clean name from CSV (no title prefixes)
+     * @return the filename
+     */
+    public String format(String cleanName) {
+        return head + stem(cleanName) + tail;
+    }
+
+    /**
+     * Formats a filename that no earlier call to this method has returned. The first claimant
+     * of a name keeps it; later ones get {@code -<hash>} appended to the name part, and a counter
+     * on top of that if the same name appears several times.
+     *
+     * @param cleanName clean name from CSV (no title prefixes)
+     * @return a filename unique within this pattern
+     */
+    public String claim(String cleanName) {
+        String stem = stem(cleanName);
+        return name(stem, cleanName, claim(stem, cleanName));
+    }
+
+    /**
+     * Claims a filename like {@link #claim(String)}, returning how it was made unique instead of
+     * the name itself. The result does not depend on the template, prefix or postfix the
+     * pattern was compiled with, since they are the same for every name.
+     *
+     * @param cleanName clean name from CSV (no title prefixes)
+     * @return 0 if the name was free, otherwise the collision number to pass to
+     *         {@link #format(String, int)}
+     */
+    public int claimCollision(String cleanName) {
+        return claim(stem(cleanName), cleanName);
+    }
+
+    /**
+     * Formats the filename {@link #claim(String)} returns for a name after the given collision,
+     * so a name claimed once over a whole file can be reproduced for a single row.
+     *
+     * @param cleanName clean name from CSV (no title prefixes)
+     * @param collision the collision number from {@link #claimCollision(String)}
+     * @return the filename
+     */
+    public String format(String cleanName, int collision) {
+        return name(stem(cleanName), cleanName, collision);
+    }
+
+    private int claim(String stem, String cleanName) {
+        if (claimed.add(key(name(stem, cleanName, 0)))) {
+            return 0;
+        }
+        collisions.incrementAndGet();
+        int collision = 1;
+        while (!claimed.add(key(name(stem, cleanName, collision)))) {
+            collision++;
+        }
+        logger.debug("Output name for '{}' collided; using '{}'", cleanName, name(stem, cleanName, collision));
+        return collision;
+    }
+
+    private String name(String stem, String cleanName, int collision) {
+        if (collision == 0) {
+            return head + stem + tail;
+        }
+        String hashed = head + stem + '-' + hash(cleanName);
+        return collision == 1 ? hashed + tail : hashed + '-' + collision + tail;
+    }
+
+    /**
+     * @return how many claimed names had to be changed because of a collision
+     */
+    public int getCollisionCount() {
+        return collisions.get();
+    }
+
+    private static String stem(String cleanName) {
+        return cleanName == null || cleanName.isBlank()
+            ? "unnamed"
+            : OutputFileNameGenerator.sanitize(cleanName.trim());
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String hash(String cleanName) {
+        CRC32 crc = new CRC32();
+        crc.update((cleanName == null ? "" : cleanName).getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+}
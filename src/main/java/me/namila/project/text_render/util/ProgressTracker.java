@@ -3,6 +3,7 @@ package me.namila.project.text_render.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.PrintStream;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -14,10 +15,20 @@ public class ProgressTracker {
     
     private final int total;
     private final AtomicInteger completed;
+    private final PrintStream out;
 
     public ProgressTracker(int total) {
+        this(total, System.out);
+    }
+
+    /**
+     * Creates a tracker printing its progress bar to the given stream, e.g. standard error
+     * when standard output carries data.
+     */
+    public ProgressTracker(int total, PrintStream out) {
         this.total = total;
         this.completed = new AtomicInteger(0);
+        this.out = out;
         logger.debug("ProgressTracker initialized with {} total tasks", total);
     }
 
@@ -56,8 +67,8 @@ public class ProgressTracker {
 
     private void printProgress(int current) {
         int percentage = (int) ((current * 100L) / Math.max(1, total));
-        // Use System.out for progress bar as it's user-facing output, not a log
-        System.out.printf("\rProgress: %d/%d (%d%%)%s", current, total, percentage, current == total ? "\n" : "");
+        // Print the progress bar as user-facing output, not a log
+        out.printf("\rProgress: %d/%d (%d%%)%s", current, total, percentage, current == total ? "\n" : "");
         logger.debug("Progress: {}/{} ({}%)", current, total, percentage);
     }
 }
@@ -0,0 +1,112 @@
+package me.namila.project.text_render.util;
+
+import me.namila.project.text_render.model.CsvEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Collects the CSV rows whose output could not be produced.
+ *
+ * <p>Each failed row is written with its original name, prefix and postfix followed by its
+ * 1-based row number in the input, the error type and the error message. The first three columns
+ * are a valid input CSV, so the file can be passed back to {@code --csv} to re-run only the
+ * failed rows. Separators and line breaks in error messages are replaced to keep one row per
+ * line.</p>
+ *
+ * <p>The file is only created when the first failure is recorded, so a clean run leaves no
+ * rejects file behind. Thread-safe. Write errors do not interrupt rendering; they are reported
+ * by {@link #close()}.</p>
+ */
+public class RejectsWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejectsWriter.class);
+
+    public static final String HEADER = "name,prefix,postfix,row,error,message";
+
+    private final Path file;
+    private BufferedWriter writer;
+    private int count;
+    private IOException failure;
+
+    /**
+     * @param file the rejects file; replaced if it exists and a failure is recorded
+     */
+    public RejectsWriter(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Records a failed row.
+     *
+     * @param entry    the CSV entry of the row
+     * @param rowIndex 0-based index of the row in the input
+     * @param error    why the row failed
+     */
+    public synchronized void record(CsvEntry entry, int rowIndex, Throwable error) {
+        count++;
+        if (failure != null) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                if (file.toAbsolutePath().getParent() != null) {
+                    Files.createDirectories(file.toAbsolutePath().getParent());
+                }
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                writer.write(HEADER);
+                writer.newLine();
+            }
+            writer.write(entry.name() + "," + entry.prefix() + "," + entry.postfix() + ","
+                + (rowIndex + 1) + "," + error.getClass().getSimpleName() + "," + clean(error.getMessage()));
+            writer.newLine();
+        } catch (IOException e) {
+            logger.error("Failed to write rejects file {}: {}", file, e.getMessage());
+            failure = e;
+        }
+    }
+
+    private static String clean(String message) {
+        if (message == null) {
+            return "";
+        }
+        return message.replace(',', ';').replace('\r', ' ').replace('\n', ' ').trim();
+    }
+
+    /**
+     * @return the number of rows recorded
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the rejects file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            writer = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
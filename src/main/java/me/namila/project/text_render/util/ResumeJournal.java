@@ -0,0 +1,188 @@
+package me.namila.project.text_render.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Append-only journal of completed CSV rows, used to resume an interrupted batch.
+ *
+ * <p>The first line identifies the batch by a fingerprint; every following line holds the index
+ * of one row whose output has been written. Records are buffered and forced to disk in batches of
+ * {@value #SYNC_BATCH_SIZE} rows or every {@value #SYNC_INTERVAL_MILLIS} ms, whichever comes first,
+ * so a crash loses at most one batch and those rows are simply rendered again. A torn last line is
+ * ignored when the journal is read back.</p>
+ *
+ * <p>Completed rows are kept in a {@link BitSet}, so checking a row costs no file system access
+ * even for millions of outputs. A row is only journaled after its output was renamed into place,
+ * so a partially written file is never considered done. For protection against power loss as
+ * well as process crashes, combine the journal with {@code --fsync data}.</p>
+ *
+ * <p>The command deletes the journal once a batch finishes without failures, so it only remains
+ * after an interrupted or partially failed run.</p>
+ *
+ * <p>Thread-safe. Write errors do not interrupt rendering; they are reported by {@link #close()}.</p>
+ */
+public class ResumeJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumeJournal.class);
+
+    static final String HEADER_PREFIX = "bulk-render-journal 1 ";
+    static final int SYNC_BATCH_SIZE = 1024;
+    static final long SYNC_INTERVAL_MILLIS = 1000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BitSet completed;
+    private final int resumedCount;
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingCount;
+    private long lastSync = System.currentTimeMillis();
+    private IOException failure;
+
+    private ResumeJournal(Path file, FileChannel channel, BitSet completed) {
+        this.file = file;
+        this.channel = channel;
+        this.completed = completed;
+        this.resumedCount = completed.cardinality();
+    }
+
+    /**
+     * Opens the journal of a batch.
+     *
+     * @param file        the journal file
+     * @param fingerprint identifies the batch; a journal written for another batch is rejected
+     * @param resume      true to keep the rows recorded by an earlier run, false to start over
+     * @return the open journal
+     * @throws IOException if the journal cannot be read or created, or belongs to another batch
+     */
+    public static ResumeJournal open(Path file, String fingerprint, boolean resume) throws IOException {
+        String header = HEADER_PREFIX + fingerprint;
+        BitSet completed = new BitSet();
+        if (resume && Files.exists(file)) {
+            readRows(file, header, completed);
+            logger.info("Resuming from journal {}: {} rows already completed", file, completed.cardinality());
+        } else {
+            if (resume) {
+                logger.info("No journal found at {}; starting from the beginning", file);
+            }
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            Files.writeString(file, header + "\n", StandardCharsets.UTF_8);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new ResumeJournal(file, channel, completed);
+    }
+
+    private static void readRows(Path file, String header, BitSet completed) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        // Only complete lines count; the last one may have been cut off by a crash
+        int end = content.length;
+        while (end > 0 && content[end - 1] != '\n') {
+            end--;
+        }
+        try (BufferedReader reader = new BufferedReader(new StringReader(
+                new String(content, 0, end, StandardCharsets.UTF_8)))) {
+            String first = reader.readLine();
+            if (!header.equals(first)) {
+                throw new IOException("Journal " + file + " was written for a different batch "
+                    + "(CSV, template or output options changed). Delete it or run without --resume");
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    completed.set(Integer.parseInt(line));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Journal " + file + " is corrupt: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param rowIndex zero-based CSV row index
+     * @return true if the row was completed by this or an earlier run
+     */
+    public synchronized boolean isCompleted(int rowIndex) {
+        return rowIndex >= 0 && completed.get(rowIndex);
+    }
+
+    /**
+     * @return the journal file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of rows completed by earlier runs
+     */
+    public int getResumedCount() {
+        return resumedCount;
+    }
+
+    /**
+     * Records a completed row. Rows below zero (jobs without a CSV row) are ignored.
+     *
+     * @param rowIndex zero-based CSV row index
+     */
+    public synchronized void record(int rowIndex) {
+        if (rowIndex < 0 || completed.get(rowIndex)) {
+            return;
+        }
+        completed.set(rowIndex);
+        pending.append(rowIndex).append('\n');
+        pendingCount++;
+        if (pendingCount >= SYNC_BATCH_SIZE || System.currentTimeMillis() - lastSync >= SYNC_INTERVAL_MILLIS) {
+            sync();
+        }
+    }
+
+    /**
+     * Appends buffered records and forces them to disk.
+     */
+    public synchronized void sync() {
+        if (pendingCount == 0 || failure != null) {
+            return;
+        }
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.US_ASCII));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            pending.setLength(0);
+            pendingCount = 0;
+            lastSync = System.currentTimeMillis();
+        } catch (IOException e) {
+            failure = e;
+            logger.error("Cannot write resume journal {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Syncs the remaining records and closes the journal.
+     *
+     * @throws IOException if any record could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        channel.close();
+        if (failure != null) {
+            throw new IOException("Resume journal " + file + " is incomplete: " + failure.getMessage(), failure);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package me.namila.project.text_render.util;
+
+import me.namila.project.text_render.model.RetryPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs operations under a {@link RetryPolicy}.
+ */
+public final class Retries {
+
+    private static final Logger logger = LoggerFactory.getLogger(Retries.class);
+
+    /**
+     * An operation that may be retried.
+     */
+    @FunctionalInterface
+    public interface Attempt {
+        void run() throws Exception;
+    }
+
+    private Retries() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Runs the operation, retrying transient failures after the policy's backoff. If every attempt
+     * fails, the last failure is thrown with the first one attached as suppressed.
+     *
+     * @param policy      the retry policy
+     * @param description what is attempted, for log messages
+     * @param attempt     the operation
+     * @throws Exception the failure of the last attempt, or a failure that is not transient
+     */
+    public static void run(RetryPolicy policy, String description, Attempt attempt) throws Exception {
+        Exception first = null;
+        for (int retry = 1; ; retry++) {
+            try {
+                attempt.run();
+                if (first != null) {
+                    logger.info("{} succeeded after {} retries", description, retry - 1);
+                }
+                return;
+            } catch (Exception e) {
+                if (retry > policy.maxRetries() || !policy.isRetryable(e)) {
+                    if (first != null && first != e) {
+                        e.addSuppressed(first);
+                    }
+                    throw e;
+                }
+                if (first == null) {
+                    first = e;
+                }
+                logger.warn("{} failed ({}: {}); retry {} of {} in {} ms", description,
+                    e.getClass().getSimpleName(), e.getMessage(), retry, policy.maxRetries(),
+                    policy.backoff(retry).toMillis());
+                try {
+                    Thread.sleep(policy.backoff(retry));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package me.namila.project.text_render.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Saved command-line settings, such as the configuration recommended by the {@code calibrate}
+ * command.
+ *
+ * <p>A profile is a properties file that maps long option names without their leading dashes to
+ * values, for example {@code threads=8}. Boolean options take {@code true} or {@code false}.</p>
+ */
+public final class SettingsProfile {
+
+    private static final Pattern OPTION_NAME = Pattern.compile("[a-z][a-z0-9-]*");
+
+    private final Map<String, String> settings;
+
+    /**
+     * @param settings option names (without dashes) mapped to their values
+     * @throws IllegalArgumentException if an option name is not a valid long option name
+     */
+    public SettingsProfile(Map<String, String> settings) {
+        Map<String, String> copy = new TreeMap<>();
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            String name = setting.getKey().trim();
+            if (!OPTION_NAME.matcher(name).matches()) {
+                throw new IllegalArgumentException("Invalid option name in profile: '" + setting.getKey() + "'");
+            }
+            copy.put(name, setting.getValue().trim());
+        }
+        this.settings = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Reads a profile.
+     *
+     * @param file the profile file
+     * @return the profile
+     * @throws IOException if the file cannot be read
+     */
+    public static SettingsProfile load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        Map<String, String> settings = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            settings.put(name, properties.getProperty(name));
+        }
+        return new SettingsProfile(settings);
+    }
+
+    /**
+     * Writes the profile, replacing an existing file.
+     *
+     * @param file    the profile file
+     * @param comment a comment written at the top of the file, or null for none
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file, String comment) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Properties properties = new Properties();
+        properties.putAll(settings);
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, comment);
+        }
+    }
+
+    /**
+     * @return the settings sorted by option name
+     */
+    public Map<String, String> getSettings() {
+        return settings;
+    }
+}
@@ -0,0 +1,248 @@
+package me.namila.project.text_render.util;
+
+import me.namila.project.text_render.model.RowRange;
+import me.namila.project.text_render.model.Shard;
+import me.namila.project.text_render.model.ShardKey;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Record of the rows one shard of a batch completed, written by {@code --shard} runs and checked
+ * by the {@code merge-manifests} command.
+ *
+ * <p>The first line identifies the shard, how rows were assigned to shards and the rows the batch
+ * covered; every following line holds the 1-based number of a completed row and its output,
+ * relative to the output folder, separated by a tab. Rows that failed are not listed, so they show
+ * up as gaps when the shards are verified.</p>
+ */
+public final class ShardManifest {
+
+    static final String HEADER_PREFIX = "bulk-render-shard 1 ";
+
+    private final Shard shard;
+    private final ShardKey key;
+    private final RowRange rows;
+    private final SortedMap<Integer, String> outputs;
+
+    /**
+     * Outcome of checking the manifests of all shards of a batch against each other.
+     *
+     * @param shardCount       the number of shards the batch was split into
+     * @param missingShards    shards without a manifest
+     * @param duplicateShards  shards with more than one manifest
+     * @param missingRows      rows of the batch that no manifest lists, as ranges
+     * @param duplicateRows    rows listed by more than one manifest
+     * @param duplicateOutputs outputs listed for more than one row
+     * @param completedRows    distinct rows listed
+     */
+    public record Verification(int shardCount, List<Integer> missingShards, List<Integer> duplicateShards,
+                               List<RowRange> missingRows, List<Integer> duplicateRows,
+                               List<String> duplicateOutputs, int completedRows) {
+
+        /**
+         * @return true if every row was completed exactly once
+         */
+        public boolean isComplete() {
+            return missingShards.isEmpty() && duplicateShards.isEmpty() && missingRows.isEmpty()
+                && duplicateRows.isEmpty() && duplicateOutputs.isEmpty();
+        }
+    }
+
+    /**
+     * @param shard   the shard
+     * @param key     how rows were assigned to shards
+     * @param rows    the rows of the batch, over all shards
+     * @param outputs completed rows, from 1, mapped to their output relative to the output folder
+     */
+    public ShardManifest(Shard shard, ShardKey key, RowRange rows, Map<Integer, String> outputs) {
+        this.shard = shard;
+        this.key = key;
+        this.rows = rows;
+        this.outputs = Collections.unmodifiableSortedMap(new TreeMap<>(outputs));
+    }
+
+    /**
+     * @param shard the shard
+     * @return the file name of the shard's manifest when none is given
+     */
+    public static String defaultFileName(Shard shard) {
+        return "shard-" + shard.index() + "-of-" + shard.count() + ".manifest";
+    }
+
+    /**
+     * Writes the manifest, replacing an existing file.
+     *
+     * @param file the manifest file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER_PREFIX + shard + " " + key.name().toLowerCase() + " " + rows);
+            writer.newLine();
+            for (Map.Entry<Integer, String> output : outputs.entrySet()) {
+                writer.write(output.getKey() + "\t" + output.getValue());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads a manifest.
+     *
+     * @param file the manifest file
+     * @return the manifest
+     * @throws IOException if the file cannot be read or is not a shard manifest
+     */
+    public static ShardManifest load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            String[] fields = header != null && header.startsWith(HEADER_PREFIX)
+                ? header.substring(HEADER_PREFIX.length()).split(" ") : new String[0];
+            if (fields.length != 3) {
+                throw new IOException("Not a shard manifest: " + file);
+            }
+            Map<Integer, String> outputs = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    outputs.put(Integer.parseInt(line.substring(0, tab)), line.substring(tab + 1));
+                }
+            }
+            try {
+                return new ShardManifest(Shard.parse(fields[0]), ShardKey.valueOf(fields[1].toUpperCase()),
+                    RowRange.parse(fields[2]), outputs);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid shard manifest header in " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks that the manifests cover every row of the batch exactly once.
+     *
+     * @param manifests the manifests of all shards
+     * @return the outcome
+     * @throws IllegalArgumentException if there are no manifests or they belong to differently
+     *                                  split batches
+     */
+    public static Verification verify(List<ShardManifest> manifests) {
+        ShardManifest first = requireCompatible(manifests);
+        int count = first.shard.count();
+        int[] manifestsPerShard = new int[count + 1];
+        BitSet completed = new BitSet();
+        TreeSet<Integer> duplicateRows = new TreeSet<>();
+        Map<String, Integer> rowByOutput = new HashMap<>();
+        TreeSet<String> duplicateOutputs = new TreeSet<>();
+        for (ShardManifest manifest : manifests) {
+            manifestsPerShard[manifest.shard.index()]++;
+            for (Map.Entry<Integer, String> output : manifest.outputs.entrySet()) {
+                int row = output.getKey();
+                if (completed.get(row)) {
+                    duplicateRows.add(row);
+                    continue;
+                }
+                completed.set(row);
+                Integer previous = rowByOutput.putIfAbsent(output.getValue(), row);
+                if (previous != null) {
+                    duplicateOutputs.add(output.getValue());
+                }
+            }
+        }
+
+        List<Integer> missingShards = new ArrayList<>();
+        List<Integer> duplicateShards = new ArrayList<>();
+        for (int index = 1; index <= count; index++) {
+            if (manifestsPerShard[index] == 0) {
+                missingShards.add(index);
+            } else if (manifestsPerShard[index] > 1) {
+                duplicateShards.add(index);
+            }
+        }
+        List<RowRange> missingRows = new ArrayList<>();
+        int last = first.rows.last();
+        for (int row = completed.nextClearBit(first.rows.first()); row <= last; ) {
+            int next = completed.nextSetBit(row);
+            int end = next < 0 || next > last ? last : next - 1;
+            missingRows.add(new RowRange(row, end));
+            if (end == last) {
+                break;
+            }
+            row = completed.nextClearBit(end + 1);
+        }
+        return new Verification(count, missingShards, duplicateShards, missingRows, List.copyOf(duplicateRows),
+            List.copyOf(duplicateOutputs), completed.cardinality());
+    }
+
+    /**
+     * Combines the manifests of all shards into the manifest of a single shard covering the batch.
+     * A row listed by several manifests keeps the output of the first.
+     *
+     * @param manifests the manifests of all shards
+     * @return the combined manifest, as shard 1/1
+     * @throws IllegalArgumentException if there are no manifests or they belong to differently
+     *                                  split batches
+     */
+    public static ShardManifest merge(List<ShardManifest> manifests) {
+        ShardManifest first = requireCompatible(manifests);
+        Map<Integer, String> outputs = new HashMap<>();
+        for (ShardManifest manifest : manifests) {
+            manifest.outputs.forEach(outputs::putIfAbsent);
+        }
+        return new ShardManifest(new Shard(1, 1), first.key, first.rows, outputs);
+    }
+
+    private static ShardManifest requireCompatible(List<ShardManifest> manifests) {
+        if (manifests.isEmpty()) {
+            throw new IllegalArgumentException("No shard manifests given");
+        }
+        ShardManifest first = manifests.get(0);
+        for (ShardManifest manifest : manifests) {
+            if (manifest.shard.count() != first.shard.count() || manifest.key != first.key
+                    || !manifest.rows.equals(first.rows)) {
+                throw new IllegalArgumentException(String.format(
+                    "Shard manifests belong to different batches: shard %s by %s over rows %s, and shard %s by %s over rows %s",
+                    first.shard, first.key.name().toLowerCase(), first.rows,
+                    manifest.shard, manifest.key.name().toLowerCase(), manifest.rows));
+            }
+        }
+        return first;
+    }
+
+    public Shard getShard() {
+        return shard;
+    }
+
+    public ShardKey getKey() {
+        return key;
+    }
+
+    public RowRange getRows() {
+        return rows;
+    }
+
+    /**
+     * @return completed rows, from 1, mapped to their output
+     */
+    public SortedMap<Integer, String> getOutputs() {
+        return outputs;
+    }
+}
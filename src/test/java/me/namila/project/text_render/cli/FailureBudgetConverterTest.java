@@ -0,0 +1,47 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.FailureBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link FailureBudgetConverter}.
+ */
+class FailureBudgetConverterTest {
+
+    private FailureBudgetConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new FailureBudgetConverter();
+    }
+
+    @Test
+    @DisplayName("Should convert budget specifications")
+    void shouldConvert() throws Exception {
+        assertThat(converter.convert("None")).isEqualTo(FailureBudget.NONE);
+        assertThat(converter.convert("50,5%")).isEqualTo(new FailureBudget(50, 5));
+    }
+
+    @Test
+    @DisplayName("Should return NONE for blank input")
+    void shouldReturnNoneForBlank() throws Exception {
+        assertThat(converter.convert(null)).isEqualTo(FailureBudget.NONE);
+        assertThat(converter.convert("  ")).isEqualTo(FailureBudget.NONE);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"always", "0", "150%"})
+    @DisplayName("Should throw exception for invalid budget")
+    void shouldThrowForInvalidBudget(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid failure budget");
+    }
+}
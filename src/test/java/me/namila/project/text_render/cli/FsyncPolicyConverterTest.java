@@ -0,0 +1,52 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.FsyncPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link FsyncPolicyConverter}.
+ */
+class FsyncPolicyConverterTest {
+
+    private FsyncPolicyConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new FsyncPolicyConverter();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "none, NONE",
+        "Data, DATA",
+        "FULL, FULL"
+    })
+    @DisplayName("Should convert policy case-insensitively")
+    void shouldConvertCaseInsensitively(String input, FsyncPolicy expected) throws Exception {
+        assertThat(converter.convert(input)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should return NONE for blank input")
+    void shouldReturnNoneForBlank() throws Exception {
+        assertThat(converter.convert(null)).isEqualTo(FsyncPolicy.NONE);
+        assertThat(converter.convert("  ")).isEqualTo(FsyncPolicy.NONE);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"always", "sync", "metadata"})
+    @DisplayName("Should throw exception for invalid policy")
+    void shouldThrowForInvalidPolicy(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid fsync policy");
+    }
+}
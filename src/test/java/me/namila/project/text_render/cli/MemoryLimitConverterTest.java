@@ -0,0 +1,48 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.MemoryLimit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MemoryLimitConverter}.
+ */
+class MemoryLimitConverterTest {
+
+    private MemoryLimitConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new MemoryLimitConverter();
+    }
+
+    @Test
+    @DisplayName("Should convert memory budgets")
+    void shouldConvert() throws Exception {
+        assertThat(converter.convert("75%")).isEqualTo(new MemoryLimit(0, 75));
+        assertThat(converter.convert("1G")).isEqualTo(new MemoryLimit(1L << 30, 0));
+        assertThat(converter.convert("NONE")).isEqualTo(MemoryLimit.NONE);
+    }
+
+    @Test
+    @DisplayName("Should return DEFAULT for blank input")
+    void shouldReturnDefaultForBlank() throws Exception {
+        assertThat(converter.convert(null)).isEqualTo(MemoryLimit.DEFAULT);
+        assertThat(converter.convert("  ")).isEqualTo(MemoryLimit.DEFAULT);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"big", "-1g", "200%"})
+    @DisplayName("Should throw exception for invalid memory budget")
+    void shouldThrowForInvalidBudget(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid memory budget");
+    }
+}
@@ -0,0 +1,47 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.OutputLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link OutputLayoutConverter}.
+ */
+class OutputLayoutConverterTest {
+
+    private OutputLayoutConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new OutputLayoutConverter();
+    }
+
+    @Test
+    @DisplayName("Should convert layout specifications")
+    void shouldConvert() throws Exception {
+        assertThat(converter.convert("Hash:16")).isEqualTo(new OutputLayout(OutputLayout.Type.HASH, 16));
+        assertThat(converter.convert("rows:500")).isEqualTo(new OutputLayout(OutputLayout.Type.ROWS, 500));
+    }
+
+    @Test
+    @DisplayName("Should return FLAT for blank input")
+    void shouldReturnFlatForBlank() throws Exception {
+        assertThat(converter.convert(null)).isEqualTo(OutputLayout.FLAT);
+        assertThat(converter.convert("  ")).isEqualTo(OutputLayout.FLAT);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tree", "hash:", "rows:0"})
+    @DisplayName("Should throw exception for invalid layout")
+    void shouldThrowForInvalidLayout(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid output layout");
+    }
+}
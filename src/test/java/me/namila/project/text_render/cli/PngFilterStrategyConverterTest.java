@@ -0,0 +1,56 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.PngFilterStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PngFilterStrategyConverter}.
+ */
+class PngFilterStrategyConverterTest {
+
+    private PngFilterStrategyConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new PngFilterStrategyConverter();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "none, NONE",
+        "Sub, SUB",
+        "UP, UP",
+        "average, AVERAGE",
+        "paeth, PAETH",
+        "Adaptive, ADAPTIVE"
+    })
+    @DisplayName("Should convert filter case-insensitively")
+    void shouldConvertCaseInsensitively(String input, PngFilterStrategy expected) throws Exception {
+        assertThat(converter.convert(input)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should return ADAPTIVE for blank input")
+    void shouldReturnAdaptiveForBlank() throws Exception {
+        assertThat(converter.convert(null)).isEqualTo(PngFilterStrategy.ADAPTIVE);
+        assertThat(converter.convert("  ")).isEqualTo(PngFilterStrategy.ADAPTIVE);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"invalid", "best", "mixed"})
+    @DisplayName("Should throw exception for invalid filter")
+    void shouldThrowForInvalidFilter(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid PNG filter")
+            .hasMessageContaining(invalidValue);
+    }
+}
@@ -1,12 +1,21 @@
 package me.namila.project.text_render.cli;
 
 import me.namila.project.text_render.model.Alignment;
+import me.namila.project.text_render.model.FailureBudget;
+import me.namila.project.text_render.model.OutputLayout;
+import me.namila.project.text_render.model.RowRange;
+import me.namila.project.text_render.model.ShardKey;
+import me.namila.project.text_render.model.StripePolicy;
+import me.namila.project.text_render.output.StripedOutputSink;
 import me.namila.project.text_render.service.CsvReaderService;
 import me.namila.project.text_render.service.FontService;
 import me.namila.project.text_render.service.JpegRendererService;
 import me.namila.project.text_render.service.ParallelExecutorService;
 import me.namila.project.text_render.service.PdfRendererService;
 import me.namila.project.text_render.service.PngRendererService;
+import me.namila.project.text_render.util.RejectsWriter;
+import me.namila.project.text_render.util.SettingsProfile;
+import me.namila.project.text_render.util.ShardManifest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledOnOs;
@@ -14,11 +23,20 @@ import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 import picocli.CommandLine;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -372,7 +390,8 @@ class RenderCommandTest {
             "-t", templateFile.toString(),
             "-c", csvFile.toString(),
             "--x", "100",
-            "--y", "200"
+            "--y", "200",
+            "-o", tempDir.resolve("output").toString()
         );
 
         // Then - validation of format passes, may fail later due to invalid image content
@@ -390,7 +409,8 @@ class RenderCommandTest {
             "-t", templateFile.toString(),
             "-c", csvFile.toString(),
             "--x", "100",
-            "--y", "200"
+            "--y", "200",
+            "-o", tempDir.resolve("output").toString()
         );
 
         // Then - validation of format passes
@@ -465,9 +485,727 @@ class RenderCommandTest {
         assertThat(command.getTemplatePath()).isNotNull();
     }
 
+    @Test
+    void shouldWriteOutputsIntoZipArchive() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob");
+        Path outputDir = tempDir.resolve("output");
+        Path archive = tempDir.resolve("out.zip");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--output-archive", archive.toString()
+        );
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(command.getOutputArchive()).isEqualTo(archive.toString());
+        assertThat(outputDir).doesNotExist();
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertThat(zip.stream().map(ZipEntry::getName)).containsExactlyInAnyOrder("template-Alice.png", "template-Bob.png");
+            assertThat(zip.getEntry("template-Alice.png").getMethod()).isEqualTo(ZipEntry.STORED);
+        }
+    }
+
+    @Test
+    void shouldShardOutputsByRows() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol");
+        Path outputDir = tempDir.resolve("output");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--output-layout", "rows:2"
+        );
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(command.getOutputLayout()).isEqualTo(new OutputLayout(OutputLayout.Type.ROWS, 2));
+        assertThat(outputDir.resolve("00000000/template-Alice.png")).exists();
+        assertThat(outputDir.resolve("00000000/template-Bob.png")).exists();
+        assertThat(outputDir.resolve("00000002/template-Carol.png")).exists();
+    }
+
+    @Test
+    void shouldStripeOutputsAcrossFolders() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol\nDave");
+        Path disk1 = tempDir.resolve("disk1");
+        Path disk2 = tempDir.resolve("disk2");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", disk1 + "," + disk2,
+            "--stripe", "round-robin",
+            "--x", "10",
+            "--y", "30"
+        );
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(command.getOutputFolders()).containsExactly(disk1, disk2);
+        assertThat(command.getStripePolicy()).isEqualTo(StripePolicy.ROUND_ROBIN);
+        try (var files1 = Files.list(disk1); var files2 = Files.list(disk2)) {
+            assertThat(files1.filter(f -> f.toString().endsWith(".png")).count()).isEqualTo(2);
+            assertThat(files2.filter(f -> f.toString().endsWith(".png")).count()).isEqualTo(2);
+        }
+        assertThat(Files.readAllLines(disk1.resolve(StripedOutputSink.MANIFEST_FILE_NAME))).hasSize(5);
+    }
+
+    @Test
+    void shouldRenderOnlySelectedRows() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol\nDave");
+        Path outputDir = tempDir.resolve("output");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--rows", "2-3"
+        );
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(command.getRows()).isEqualTo(new RowRange(2, 3));
+        assertThat(stdout.toString()).contains("Summary: 2 rendered");
+        try (var files = Files.list(outputDir)) {
+            assertThat(files.map(f -> f.getFileName().toString()))
+                .containsExactlyInAnyOrder("template-Bob.png", "template-Carol.png");
+        }
+    }
+
+    @Test
+    void shouldKeepNoJournalWithoutResume() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob");
+        Path outputDir = tempDir.resolve("output");
+
+        // When
+        int exitCode = commandLine.execute("-t", templateFile.toString(), "-c", csvFile.toString(),
+            "-o", outputDir.toString(), "--x", "10", "--y", "30");
+
+        // Then
+        assertThat(exitCode).isZero();
+        try (var files = Files.list(outputDir)) {
+            assertThat(files.map(f -> f.getFileName().toString()))
+                .containsExactlyInAnyOrder("template-Alice.png", "template-Bob.png");
+        }
+    }
+
+    @Test
+    void shouldReadSelectedRowsThroughRowIndex() throws IOException {
+        // Given - a name that collides with an earlier row keeps the name of a full run
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "name,prefix,postfix\nAlice\r\n\nBob\nalice\nCarol");
+        Path fullDir = tempDir.resolve("full");
+        Path sliceDir = tempDir.resolve("slice");
+        assertThat(commandLine.execute("-t", templateFile.toString(), "-c", csvFile.toString(),
+            "-o", fullDir.toString(), "--x", "10", "--y", "30")).isZero();
+        setUp();
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", sliceDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--rows", "3-"
+        );
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(command.getRowIndexPath()).isEqualTo(csvFile.resolveSibling("names.csv.rowidx")).exists();
+        assertThat(stdout.toString()).contains("Summary: 2 rendered");
+        try (var full = Files.list(fullDir); var slice = Files.list(sliceDir)) {
+            List<String> fullNames = full.map(f -> f.getFileName().toString()).toList();
+            List<String> sliceNames = slice.map(f -> f.getFileName().toString()).toList();
+            assertThat(sliceNames).hasSize(2).contains("template-Carol.png");
+            assertThat(fullNames).containsAll(sliceNames);
+        }
+    }
+
+    @Test
+    void shouldRenderReproducibleSampleOfListedRows() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol\nDave\nEve\nFrank");
+        Path rowList = createTempFile("rows.txt", "# rows to check\n1\n\n3-4\n6-\n");
+        List<List<String>> samples = new ArrayList<>();
+
+        // When
+        for (String run : List.of("first", "second")) {
+            setUp();
+            Path outputDir = tempDir.resolve(run);
+            int exitCode = commandLine.execute(
+                "-t", templateFile.toString(),
+                "-c", csvFile.toString(),
+                "-o", outputDir.toString(),
+                "--x", "10",
+                "--y", "30",
+                "--rows-from", rowList.toString(),
+                "--sample", "2",
+                "--sample-seed", "42"
+            );
+            assertThat(exitCode).isZero();
+            try (var files = Files.list(outputDir)) {
+                samples.add(files.map(f -> f.getFileName().toString()).sorted().toList());
+            }
+        }
+
+        // Then
+        assertThat(stdout.toString()).contains("Sample: 2 of 4 rows (seed 42)");
+        assertThat(samples.get(0)).hasSize(2).isEqualTo(samples.get(1))
+            .isSubsetOf("template-Alice.png", "template-Carol.png", "template-Dave.png", "template-Frank.png");
+    }
+
+    @Test
+    void shouldRejectSampleWithShards() throws IOException {
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob");
+
+        int exitCode = commandLine.execute("-t", templateFile.toString(), "-c", csvFile.toString(),
+            "-o", tempDir.resolve("output").toString(), "--x", "10", "--y", "30",
+            "--sample", "1", "--shard", "1/2");
+
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(stderr.toString()).contains("--sample and --rows-from cannot be combined");
+    }
+
+    @Test
+    void shouldSplitBatchIntoShardsAndVerifyThem() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol\nDave\nEve");
+        Path outputDir = tempDir.resolve("output");
+        List<Path> manifests = new ArrayList<>();
+
+        // When - each shard runs as if on its own node
+        for (String shard : List.of("1/2", "2/2")) {
+            setUp();
+            int exitCode = commandLine.execute(
+                "-t", templateFile.toString(),
+                "-c", csvFile.toString(),
+                "-o", outputDir.toString(),
+                "--x", "10",
+                "--y", "30",
+                "--shard", shard,
+                "--shard-by", "name"
+            );
+            assertThat(exitCode).isZero();
+            assertThat(command.getShardKey()).isEqualTo(ShardKey.NAME);
+            manifests.add(command.getShardManifestPath());
+        }
+        setUp();
+        List<String> mergeArgs = new ArrayList<>(List.of("merge-manifests", "--merged",
+            tempDir.resolve("merged.manifest").toString()));
+        manifests.forEach(manifest -> mergeArgs.add(manifest.toString()));
+        int mergeExitCode = commandLine.execute(mergeArgs.toArray(String[]::new));
+
+        // Then - the shards rendered disjoint rows that together cover the CSV
+        assertThat(mergeExitCode).as(stderr.toString()).isZero();
+        assertThat(stdout.toString()).contains("Shards: 2 of 2, 5 of 5 rows completed", "All shards complete.");
+        assertThat(ShardManifest.load(manifests.get(0)).getOutputs().size()
+            + ShardManifest.load(manifests.get(1)).getOutputs().size()).isEqualTo(5);
+        assertThat(ShardManifest.load(tempDir.resolve("merged.manifest")).getOutputs())
+            .containsEntry(1, "template-Alice.png")
+            .containsEntry(5, "template-Eve.png");
+        try (var files = Files.list(outputDir)) {
+            assertThat(files.filter(f -> f.toString().endsWith(".png")).count()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void shouldKeepRejectsOfOtherShardsInSharedOutputFolder() throws IOException {
+        // Given - shard 2 left failed rows in the output folder both shards write to
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol");
+        Path outputDir = Files.createDirectories(tempDir.resolve("output"));
+        Path otherRejects = Files.writeString(outputDir.resolve("rejects.csv.shard-2-of-2"), RejectsWriter.HEADER);
+
+        // When - shard 1 finishes without failures
+        int exitCode = commandLine.execute("-t", templateFile.toString(), "-c", csvFile.toString(),
+            "-o", outputDir.toString(), "--x", "10", "--y", "30", "--shard", "1/2", "--resume");
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(command.getRejectsPath()).isEqualTo(outputDir.resolve("rejects.csv.shard-1-of-2"));
+        assertThat(otherRejects).exists();
+        assertThat(outputDir.resolve(RenderCommand.DEFAULT_JOURNAL_NAME)).doesNotExist();
+    }
+
+    @Test
+    void shouldReportMissingShard() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol");
+        Path outputDir = tempDir.resolve("output");
+        assertThat(commandLine.execute("-t", templateFile.toString(), "-c", csvFile.toString(),
+            "-o", outputDir.toString(), "--x", "10", "--y", "30", "--shard", "2/2")).isZero();
+        Path manifest = command.getShardManifestPath();
+
+        // When
+        setUp();
+        int exitCode = commandLine.execute("merge-manifests", manifest.toString());
+
+        // Then - shard 2 rendered the second row only
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(stdout.toString())
+            .contains("Shards: 1 of 2, 1 of 3 rows completed")
+            .contains("Missing shards: 1")
+            .contains("Missing rows: 1, 3");
+        assertThat(outputDir.resolve("template-Bob.png")).exists();
+        assertThat(outputDir.resolve("template-Alice.png")).doesNotExist();
+    }
+
+    @Test
+    void shouldParseCsvWithOneThreadPerProcessor() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob");
+        Path outputDir = tempDir.resolve("output");
+
+        // When
+        int exitCode = commandLine.execute("-t", templateFile.toString(), "-c", csvFile.toString(),
+            "-o", outputDir.toString(), "--x", "10", "--y", "30", "--csv-threads", "0");
+
+        // Then
+        assertThat(exitCode).as(stderr.toString()).isZero();
+        assertThat(command.getCsvThreads()).isEqualTo(Runtime.getRuntime().availableProcessors());
+        assertThat(outputDir.resolve("template-Bob.png")).exists();
+    }
+
+    @Test
+    void shouldTakeOverChunkOfDeadInstance() throws IOException {
+        // Given - a coordinated batch whose second chunk was held by an instance that died
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol\nDave\nEve\nFrank");
+        Path outputDir = tempDir.resolve("output");
+        Path leases = tempDir.resolve("leases");
+        String[] args = {"-t", templateFile.toString(), "-c", csvFile.toString(), "-o", outputDir.toString(),
+            "--x", "10", "--y", "30", "--coordinate", leases.toString(), "--chunk-size", "2"};
+        assertThat(commandLine.execute(args)).as(stderr.toString()).isZero();
+        assertThat(stdout.toString()).contains("Chunks: 3 of 3 rendered by this instance");
+        Files.delete(leases.resolve("chunk-3-4.done"));
+        Files.delete(outputDir.resolve("template-Carol.png"));
+        Files.delete(outputDir.resolve("template-Dave.png"));
+        Path staleLease = Files.writeString(leases.resolve("chunk-3-4.lease"), "1234@dead-host");
+        Files.setLastModifiedTime(staleLease, FileTime.fromMillis(System.currentTimeMillis() - 3_600_000));
+
+        // When
+        setUp();
+        int exitCode = commandLine.execute(args);
+
+        // Then - only the abandoned chunk was rendered again
+        assertThat(exitCode).as(stderr.toString()).isZero();
+        assertThat(command.getCoordinationDir()).isEqualTo(leases);
+        assertThat(stdout.toString())
+            .contains("Chunk 3-4: rendering 2 rows")
+            .contains("Chunks: 1 of 3 rendered by this instance")
+            .contains("Summary: 2 rendered");
+        assertThat(outputDir.resolve("template-Carol.png")).exists();
+        assertThat(outputDir.resolve("template-Dave.png")).exists();
+        assertThat(leases.resolve("chunk-3-4.done")).exists();
+        assertThat(staleLease).doesNotExist();
+    }
+
+    @Test
+    void shouldRejectCoordinationWithShards() throws IOException {
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice");
+
+        int exitCode = commandLine.execute("-t", templateFile.toString(), "-c", csvFile.toString(),
+            "-o", tempDir.resolve("output").toString(), "--x", "10", "--y", "30",
+            "--coordinate", tempDir.resolve("leases").toString(), "--shard", "1/2");
+
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(stderr.toString()).contains("--coordinate cannot be combined with");
+    }
+
+    @Test
+    void shouldSplitRowsBetweenWorkerProcesses() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol\nDave\nEve");
+        Path disk1 = tempDir.resolve("disk1");
+        Path disk2 = tempDir.resolve("disk2");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", disk1 + "," + disk2,
+            "--x", "10",
+            "--y", "30",
+            "--workers", "2",
+            "--worker-heap", "256m"
+        );
+
+        // Then - the manifests of both workers were merged and their journals removed
+        assertThat(exitCode).as(stderr.toString()).isZero();
+        assertThat(stdout.toString())
+            .contains("Processing 5 entries (2 worker processes)")
+            .contains("Summary: 5 rendered");
+        List<String> manifest = Files.readAllLines(command.getManifestPath());
+        assertThat(manifest).hasSize(6);
+        for (String name : List.of("Alice", "Bob", "Carol", "Dave", "Eve")) {
+            assertThat(manifest).anyMatch(line -> line.startsWith("template-" + name + ".png,"));
+        }
+        try (var files1 = Files.list(disk1); var files2 = Files.list(disk2)) {
+            assertThat(files1.filter(f -> !f.toString().endsWith(".png")).map(f -> f.getFileName().toString()))
+                .containsExactly(StripedOutputSink.MANIFEST_FILE_NAME);
+            assertThat(files2.filter(f -> f.toString().endsWith(".png")).count()).isPositive();
+        }
+    }
+
+    @Test
+    void shouldResumeFromJournal() throws IOException {
+        // Given - an interrupted run that completed the first two rows
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol");
+        Path outputDir = tempDir.resolve("output");
+        Path journal = tempDir.resolve("run.journal");
+        String[] args = {
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--journal", journal.toString()
+        };
+        // Make the third output unwritable so the first run leaves its journal behind
+        Files.createDirectories(outputDir.resolve("template-Carol.png"));
+        assertThat(commandLine.execute(args)).isZero();
+        assertThat(Files.readAllLines(journal)).hasSize(3);
+        Files.delete(outputDir.resolve("template-Carol.png"));
+        Files.delete(outputDir.resolve("template-Alice.png"));
+
+        // When
+        setUp();
+        String[] resumeArgs = Arrays.copyOf(args, args.length + 1);
+        resumeArgs[args.length] = "--resume";
+        int exitCode = commandLine.execute(resumeArgs);
+
+        // Then - only the row missing from the journal was rendered again, and the finished journal is gone
+        assertThat(exitCode).isZero();
+        assertThat(command.isResume()).isTrue();
+        assertThat(command.getJournalPath()).isEqualTo(journal);
+        assertThat(stdout.toString()).contains("Resuming: 2 of 3 entries already completed");
+        assertThat(outputDir.resolve("template-Alice.png")).doesNotExist();
+        assertThat(outputDir.resolve("template-Carol.png")).isRegularFile();
+        assertThat(journal).doesNotExist();
+    }
+
+    @Test
+    void shouldKeepIncrementalEntriesOfUnselectedRows() throws IOException {
+        // Given - a full incremental run
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol");
+        Path outputDir = tempDir.resolve("output");
+        List<String> args = List.of("-t", templateFile.toString(), "-c", csvFile.toString(),
+            "-o", outputDir.toString(), "--x", "10", "--y", "30", "--incremental");
+        assertThat(commandLine.execute(args.toArray(String[]::new))).isZero();
+
+        // When - a run over one row, then another over all rows
+        setUp();
+        List<String> oneRow = new ArrayList<>(args);
+        oneRow.addAll(List.of("--rows", "2"));
+        assertThat(commandLine.execute(oneRow.toArray(String[]::new))).isZero();
+        setUp();
+        assertThat(commandLine.execute(args.toArray(String[]::new))).isZero();
+
+        // Then
+        assertThat(stdout.toString()).contains("Incremental: 3 of 3 entries unchanged");
+    }
+
+    @Test
+    void shouldSkipUnchangedRowsInIncrementalMode() throws IOException {
+        // Given - a first incremental run
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol");
+        Path outputDir = tempDir.resolve("output");
+        String[] args = {
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--incremental"
+        };
+        assertThat(commandLine.execute(args)).isZero();
+        assertThat(command.isIncremental()).isTrue();
+        assertThat(outputDir.resolve(RenderCommand.DEFAULT_INDEX_NAME)).exists();
+
+        // When - one row is edited
+        Files.writeString(csvFile, "Alice\nRobert\nCarol");
+        setUp();
+        assertThat(commandLine.execute(args)).isZero();
+
+        // Then
+        assertThat(stdout.toString()).contains("Incremental: 2 of 3 entries unchanged");
+        assertThat(outputDir.resolve("template-Robert.png")).exists();
+
+        // When - the template changes
+        ImageIO.write(new BufferedImage(120, 61, BufferedImage.TYPE_INT_RGB), "png", templateFile.toFile());
+        setUp();
+        assertThat(commandLine.execute(args)).isZero();
+
+        // Then - every row is rendered again
+        assertThat(stdout.toString()).contains("Incremental: 0 of 3 entries unchanged");
+    }
+
+    @Test
+    void shouldLinkDuplicateRows() throws IOException {
+        // Given - two rows repeat the first one
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nAlice\nAlice");
+        Path outputDir = tempDir.resolve("output");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--dedupe"
+        );
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(command.isDedupe()).isTrue();
+        assertThat(stdout.toString()).contains("2 rendered, 2 duplicates linked (4 rows, 2 renders avoided)");
+        byte[] first = Files.readAllBytes(outputDir.resolve("template-Alice.png"));
+        try (var outputs = Files.list(outputDir)) {
+            List<Path> alices = outputs.filter(f -> f.getFileName().toString().startsWith("template-Alice")).toList();
+            assertThat(alices).hasSize(3);
+            for (Path output : alices) {
+                assertThat(Files.readAllBytes(output)).isEqualTo(first);
+            }
+        }
+    }
+
+    @Test
+    void shouldWriteRejectsAndRerunOnlyFailedRows() throws IOException {
+        // Given - the output of the second row cannot be written
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice,Dr.,\nBob,,Jr.\nCarol");
+        Path outputDir = tempDir.resolve("output");
+        Files.createDirectories(outputDir.resolve("template-Bob.png"));
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--retries", "1"
+        );
+
+        // Then
+        Path rejects = outputDir.resolve(RenderCommand.DEFAULT_REJECTS_NAME);
+        assertThat(exitCode).isZero();
+        assertThat(command.getRetries()).isEqualTo(1);
+        assertThat(command.getRejectsPath()).isEqualTo(rejects);
+        assertThat(stdout.toString()).contains("Failed rows written to: " + rejects);
+        List<String> lines = Files.readAllLines(rejects);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).startsWith("Bob,,Jr.,2,");
+
+        // When - the rejects file is fed back in after fixing the problem
+        Files.delete(outputDir.resolve("template-Bob.png"));
+        Files.delete(outputDir.resolve("template-Alice.png"));
+        setUp();
+        exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", rejects.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30"
+        );
+
+        // Then - only the failed row was rendered
+        assertThat(exitCode).isZero();
+        assertThat(stdout.toString()).contains("Processing 1 entries");
+        assertThat(outputDir.resolve("template-Bob.png")).isRegularFile();
+        assertThat(outputDir.resolve("template-Alice.png")).doesNotExist();
+    }
+
+    @Test
+    void shouldAbortWhenFailureBudgetIsExhausted() throws IOException {
+        // Given - no output can be written
+        Path templateFile = createPngTemplate();
+        Path outputDir = tempDir.resolve("output");
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            csv.append("Name").append(i).append('\n');
+            Files.createDirectories(outputDir.resolve("template-Name" + i + ".png"));
+        }
+        Path csvFile = createTempFile("names.csv", csv.toString());
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--max-failures", "3",
+            "--job-timeout", "30"
+        );
+
+        // Then - every row ends up in the rejects file, most of them without being attempted
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(command.getFailureBudget()).isEqualTo(new FailureBudget(3, 0));
+        assertThat(command.getJobTimeout()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(stderr.toString()).contains("Batch aborted after 3 consecutive failures");
+        List<String> rejects = Files.readAllLines(outputDir.resolve(RenderCommand.DEFAULT_REJECTS_NAME));
+        assertThat(rejects).hasSize(31);
+        assertThat(rejects).anyMatch(line -> line.contains(",BatchAbortedException,"));
+    }
+
+    @Test
+    void shouldRenderWithAdaptiveConcurrency() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol\nDave");
+        Path outputDir = tempDir.resolve("output");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "--adaptive"
+        );
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(command.isAdaptive()).isTrue();
+        assertThat(command.getParallelism()).isEqualTo(
+            Runtime.getRuntime().availableProcessors() * ParallelExecutorService.ADAPTIVE_MAX_PARALLELISM_FACTOR);
+        assertThat(stdout.toString()).contains("Processing 4 entries (adaptive mode)");
+        assertThat(outputDir.resolve("template-Dave.png")).isRegularFile();
+    }
+
+    @Test
+    void shouldFillUnsetOptionsFromProfile() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob");
+        Path profile = createTempFile("machine.properties",
+            "threads=3\npng-compression=9\nincremental-encode=true\nsequential-threshold=1\n");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", tempDir.resolve("output").toString(),
+            "--x", "10",
+            "--y", "30",
+            "-p", "2",
+            "--profile", profile.toString()
+        );
+
+        // Then - the command line wins over the profile
+        assertThat(exitCode).isZero();
+        assertThat(command.getProfilePath()).isEqualTo(profile);
+        assertThat(command.getParallelism()).isEqualTo(2);
+        assertThat(command.getPngCompressionLevel()).isEqualTo(9);
+        assertThat(command.isIncrementalEncode()).isTrue();
+        assertThat(command.getSequentialThreshold()).isEqualTo(1);
+        assertThat(tempDir.resolve("output/template-Bob.png")).isRegularFile();
+    }
+
+    @Test
+    void shouldRejectUnknownProfileOption() throws IOException {
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice");
+        Path profile = createTempFile("machine.properties", "warp-speed=9\n");
+
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", tempDir.resolve("output").toString(),
+            "--x", "10",
+            "--y", "30",
+            "--profile", profile.toString()
+        );
+
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(stderr.toString()).contains("Unknown option '--warp-speed'");
+    }
+
+    @Test
+    void shouldCalibrateAndSaveProfile() throws IOException {
+        // Given
+        Path templateFile = createPngTemplate();
+        Path csvFile = createTempFile("names.csv", "Alice\nBob\nCarol\nDave\nEve");
+        Path outputDir = tempDir.resolve("output");
+        Path profile = tempDir.resolve("machine.properties");
+
+        // When
+        int exitCode = commandLine.execute(
+            "-t", templateFile.toString(),
+            "-c", csvFile.toString(),
+            "-o", outputDir.toString(),
+            "--x", "10",
+            "--y", "30",
+            "calibrate",
+            "--sample", "4",
+            "--thread-counts", "1,2",
+            "--compression-levels", "1,9",
+            "--save", profile.toString()
+        );
+
+        // Then
+        assertThat(exitCode).as(stderr.toString()).isZero();
+        assertThat(stdout.toString())
+            .contains("Calibrating template.png with 4 sample rows")
+            .contains("png-compression=1 incremental-encode=false")
+            .contains("png-compression=9 incremental-encode=true")
+            .contains("threads=2")
+            .contains("Recommended: --threads ");
+        assertThat(outputDir).doesNotExist();
+        SettingsProfile saved = SettingsProfile.load(profile);
+        assertThat(saved.getSettings()).containsKeys("threads", "sequential-threshold", "png-compression",
+            "incremental-encode");
+        assertThat(saved.getSettings().get("threads")).isIn("1", "2");
+    }
+
     private Path createTempFile(String name, String content) throws IOException {
         Path file = tempDir.resolve(name);
         Files.writeString(file, content);
         return file;
     }
+
+    private Path createPngTemplate() throws IOException {
+        Path file = tempDir.resolve("template.png");
+        ImageIO.write(new BufferedImage(120, 60, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        return file;
+    }
 }
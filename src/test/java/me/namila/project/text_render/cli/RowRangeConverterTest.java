@@ -0,0 +1,47 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.RowRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link RowRangeConverter}.
+ */
+class RowRangeConverterTest {
+
+    private RowRangeConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new RowRangeConverter();
+    }
+
+    @Test
+    @DisplayName("Should convert range specifications")
+    void shouldConvert() throws Exception {
+        assertThat(converter.convert("1-500")).isEqualTo(new RowRange(1, 500));
+        assertThat(converter.convert("501-")).isEqualTo(new RowRange(501, Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Should return ALL for blank input")
+    void shouldReturnAllForBlank() throws Exception {
+        assertThat(converter.convert(null)).isEqualTo(RowRange.ALL);
+        assertThat(converter.convert("  ")).isEqualTo(RowRange.ALL);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "10-1", "first"})
+    @DisplayName("Should throw exception for invalid range")
+    void shouldThrowForInvalidRange(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid row range");
+    }
+}
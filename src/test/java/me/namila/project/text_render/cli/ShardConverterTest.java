@@ -0,0 +1,40 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.Shard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ShardConverter}.
+ */
+class ShardConverterTest {
+
+    private ShardConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new ShardConverter();
+    }
+
+    @Test
+    @DisplayName("Should convert shard specifications")
+    void shouldConvert() throws Exception {
+        assertThat(converter.convert("1/4")).isEqualTo(new Shard(1, 4));
+        assertThat(converter.convert(" 3 / 3 ")).isEqualTo(new Shard(3, 3));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0/4", "5/4", "1/0", "2", "a/b", ""})
+    @DisplayName("Should throw exception for invalid shard")
+    void shouldThrowForInvalidShard(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid shard");
+    }
+}
@@ -0,0 +1,52 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.ShardKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ShardKeyConverter}.
+ */
+class ShardKeyConverterTest {
+
+    private ShardKeyConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new ShardKeyConverter();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "row, ROW",
+        "Name, NAME",
+        "NAME, NAME"
+    })
+    @DisplayName("Should convert key case-insensitively")
+    void shouldConvertCaseInsensitively(String input, ShardKey expected) throws Exception {
+        assertThat(converter.convert(input)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should return ROW for blank input")
+    void shouldReturnRowForBlank() throws Exception {
+        assertThat(converter.convert(null)).isEqualTo(ShardKey.ROW);
+        assertThat(converter.convert("  ")).isEqualTo(ShardKey.ROW);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"hash", "prefix"})
+    @DisplayName("Should throw exception for invalid key")
+    void shouldThrowForInvalidKey(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid shard key");
+    }
+}
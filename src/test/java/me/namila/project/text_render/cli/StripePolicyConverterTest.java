@@ -0,0 +1,52 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.StripePolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link StripePolicyConverter}.
+ */
+class StripePolicyConverterTest {
+
+    private StripePolicyConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new StripePolicyConverter();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "round-robin, ROUND_ROBIN",
+        "Least-Queued, LEAST_QUEUED",
+        "LEAST_QUEUED, LEAST_QUEUED"
+    })
+    @DisplayName("Should convert policy case-insensitively")
+    void shouldConvertCaseInsensitively(String input, StripePolicy expected) throws Exception {
+        assertThat(converter.convert(input)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should return ROUND_ROBIN for blank input")
+    void shouldReturnRoundRobinForBlank() throws Exception {
+        assertThat(converter.convert(null)).isEqualTo(StripePolicy.ROUND_ROBIN);
+        assertThat(converter.convert("  ")).isEqualTo(StripePolicy.ROUND_ROBIN);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"random", "fastest", "round robin"})
+    @DisplayName("Should throw exception for invalid policy")
+    void shouldThrowForInvalidPolicy(String invalidValue) {
+        assertThatThrownBy(() -> converter.convert(invalidValue))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid stripe policy");
+    }
+}
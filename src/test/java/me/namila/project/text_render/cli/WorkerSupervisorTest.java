@@ -0,0 +1,234 @@
+package me.namila.project.text_render.cli;
+
+import me.namila.project.text_render.model.ExecutionReport;
+import me.namila.project.text_render.model.RowRange;
+import me.namila.project.text_render.util.ProgressTracker;
+import me.namila.project.text_render.util.RejectsWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link WorkerSupervisor}, with {@link FakeWorker} processes standing in for the
+ * application.
+ */
+class WorkerSupervisorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should restart a crashed worker, which resumes its remaining rows")
+    void shouldRestartCrashedWorker() throws Exception {
+        // Given - the first worker to reach the middle of its rows crashes once
+        Path marker = tempDir.resolve("crashed");
+        ProgressTracker tracker = quietTracker(10);
+        WorkerSupervisor supervisor = new WorkerSupervisor(fakeLauncher(),
+            List.of("--crash-once=" + marker), false, tracker);
+
+        // When
+        List<WorkerSupervisor.Result> results = supervisor.run(workers(RowRange.parse("1-10").split(2)));
+
+        // Then - every row was rendered exactly once and the crash cost one restart
+        assertThat(marker).exists();
+        assertThat(results).allMatch(result -> result.exitCode() == 0);
+        assertThat(results.stream().mapToInt(WorkerSupervisor.Result::attempts).sum()).isEqualTo(3);
+        assertThat(results.stream().mapToInt(WorkerSupervisor.Result::rendered).sum()).isEqualTo(10);
+        assertThat(tracker.getCompleted()).isEqualTo(10);
+        ExecutionReport report = WorkerSupervisor.report(results, 10);
+        assertThat(report.failed()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should count rows an attempt rendered again after a crash only once")
+    void shouldNotCountRowsRenderedAgainAfterCrash() throws Exception {
+        // Given - the journal trails two rows behind, so the restart renders them again
+        ProgressTracker tracker = quietTracker(10);
+        WorkerSupervisor supervisor = new WorkerSupervisor(fakeLauncher(),
+            List.of("--crash-once=" + tempDir.resolve("crashed"), "--journal-lag=2"), false, tracker);
+
+        // When
+        List<WorkerSupervisor.Result> results = supervisor.run(workers(List.of(RowRange.parse("1-10"))));
+
+        // Then
+        WorkerSupervisor.Result result = results.get(0);
+        assertThat(result.attempts()).isEqualTo(2);
+        assertThat(result.rendered()).isEqualTo(10);
+        assertThat(result.unfinished()).isZero();
+        assertThat(tracker.getCompleted()).isEqualTo(10);
+        assertThat(WorkerSupervisor.report(results, 10).rendered()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should give up on a worker that keeps crashing and count its remaining rows as failed")
+    void shouldGiveUpOnRepeatedCrashes() throws Exception {
+        // Given
+        WorkerSupervisor supervisor = new WorkerSupervisor(fakeLauncher(), List.of("--crash-always"), false,
+            quietTracker(4));
+
+        // When
+        List<WorkerSupervisor.Result> results = supervisor.run(workers(List.of(RowRange.parse("1-4"))));
+
+        // Then - half the rows were completed before the first crash, none afterwards
+        WorkerSupervisor.Result result = results.get(0);
+        assertThat(result.gaveUp()).isTrue();
+        assertThat(result.attempts()).isEqualTo(WorkerSupervisor.MAX_RESTARTS + 1);
+        assertThat(result.unfinished()).isEqualTo(2);
+        ExecutionReport report = WorkerSupervisor.report(results, 4);
+        assertThat(report.rendered()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not restart a worker with failed rows and merge the rejects of all workers")
+    void shouldMergeRejects() throws Exception {
+        // Given - rows 2 and 5 fail
+        WorkerSupervisor supervisor = new WorkerSupervisor(fakeLauncher(), List.of("--fail-rows=2,5"), false,
+            quietTracker(6));
+
+        // When
+        List<WorkerSupervisor.Result> results = supervisor.run(workers(RowRange.parse("1-6").split(2)));
+        Path target = tempDir.resolve("rejects.csv");
+        int rejected = WorkerSupervisor.mergeRejects(results, target);
+
+        // Then
+        assertThat(results).allMatch(result -> result.exitCode() == 1 && result.attempts() == 1);
+        assertThat(rejected).isEqualTo(2);
+        assertThat(Files.readAllLines(target)).containsExactly(RejectsWriter.HEADER, "row2,,,2,IOException,failed",
+            "row5,,,5,IOException,failed");
+        assertThat(results).allMatch(result -> !Files.exists(result.worker().rejectsOf(1)));
+        assertThat(WorkerSupervisor.report(results, 6).failed()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should remove the options the supervisor sets for each worker")
+    void shouldStripWorkerOptions() {
+        List<String> args = List.of("-t", "template.png", "--workers", "4", "--worker-heap=2g", "--resume",
+            "--rows=1-100", "--journal", "j", "--rejects=r.csv", "--manifest", "m.csv", "--threads", "2");
+
+        assertThat(WorkerSupervisor.workerArguments(args))
+            .containsExactly("-t", "template.png", "--threads", "2");
+    }
+
+    @Test
+    @DisplayName("Should start workers on the running JVM with an exit on out of memory")
+    void shouldBuildLauncher() {
+        List<String> launcher = WorkerSupervisor.launcher("2g");
+
+        assertThat(launcher).contains("-Xmx2g", "-XX:+ExitOnOutOfMemoryError",
+            "me.namila.project.text_render.BulkTextRendererApp");
+    }
+
+    private List<WorkerSupervisor.Worker> workers(List<RowRange> ranges) {
+        List<WorkerSupervisor.Worker> workers = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            int id = i + 1;
+            workers.add(new WorkerSupervisor.Worker(id, ranges.get(i), tempDir.resolve("journal.worker-" + id),
+                tempDir.resolve("rejects.csv.worker-" + id), null));
+        }
+        return workers;
+    }
+
+    private static ProgressTracker quietTracker(int total) {
+        return new ProgressTracker(total, new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    private static List<String> fakeLauncher() throws Exception {
+        Path classes = Path.of(FakeWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        return List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", classes.toString(), FakeWorker.class.getName());
+    }
+
+    /**
+     * Prints progress like the application while "rendering" its rows, journalling the number of
+     * completed rows. Crashes at the middle of its rows with {@code --crash-always}, or with
+     * {@code --crash-once=<marker>} if the marker file does not exist yet, and records the rows
+     * listed in {@code --fail-rows} as rejects, exiting with 1. With {@code --journal-lag=<n>},
+     * the journal trails the rendered rows by n until the worker finishes.
+     */
+    static class FakeWorker {
+
+        public static void main(String[] args) throws Exception {
+            int first = 0;
+            int last = 0;
+            Path journal = null;
+            Path rejects = null;
+            Path crashMarker = null;
+            boolean crashAlways = false;
+            boolean resume = false;
+            int journalLag = 0;
+            List<Integer> failRows = new ArrayList<>();
+            for (String arg : args) {
+                String value = arg.substring(arg.indexOf('=') + 1);
+                if (arg.startsWith("--rows=")) {
+                    first = Integer.parseInt(value.substring(0, value.indexOf('-')));
+                    last = Integer.parseInt(value.substring(value.indexOf('-') + 1));
+                } else if (arg.startsWith("--journal=")) {
+                    journal = Path.of(value);
+                } else if (arg.startsWith("--rejects=")) {
+                    rejects = Path.of(value);
+                } else if (arg.startsWith("--crash-once=")) {
+                    crashMarker = Path.of(value);
+                } else if (arg.equals("--crash-always")) {
+                    crashAlways = true;
+                } else if (arg.startsWith("--journal-lag=")) {
+                    journalLag = Integer.parseInt(value);
+                } else if (arg.equals("--resume")) {
+                    resume = true;
+                } else if (arg.startsWith("--fail-rows=")) {
+                    for (String row : value.split(",")) {
+                        failRows.add(Integer.parseInt(row));
+                    }
+                }
+            }
+
+            int total = last - first + 1;
+            int done = resume && Files.exists(journal) ? Integer.parseInt(Files.readString(journal).trim()) : 0;
+            if (done > 0) {
+                System.out.printf("Resuming: %d of %d entries already completed%n", done, total);
+            }
+            List<String> rejected = new ArrayList<>();
+            int progress = 0;
+            for (int row = first + done; row <= last; row++) {
+                boolean middle = row - first == total / 2;
+                if (middle && (crashAlways || crashMarker != null && !Files.exists(crashMarker))) {
+                    try {
+                        if (crashMarker != null) {
+                            Files.createFile(crashMarker);
+                        }
+                        System.out.flush();
+                        Runtime.getRuntime().halt(137);
+                    } catch (FileAlreadyExistsException e) {
+                        // Another worker crashed first
+                    }
+                }
+                if (failRows.contains(row)) {
+                    rejected.add("row" + row + ",,," + row + ",IOException,failed");
+                    continue;
+                }
+                Files.writeString(journal, String.valueOf(Math.max(done, row - first + 1 - journalLag)));
+                progress++;
+                System.out.printf("\rProgress: %d/%d", progress, total - done);
+                System.out.flush();
+            }
+            System.out.println();
+            Files.writeString(journal, String.valueOf(total));
+            if (!rejected.isEmpty()) {
+                // The worker's class path has no application classes, so no RejectsWriter.HEADER
+                rejected.add(0, "name,prefix,postfix,row,error,message");
+                Files.write(rejects, rejected);
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package me.namila.project.text_render.codec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static me.namila.project.text_render.codec.PngEncoderTest.createImage;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link JpegBandEncoder}.
+ */
+class JpegBandEncoderTest {
+
+    private static final int WIDTH = 210;
+    private static final int HEIGHT = 150;
+
+    @Test
+    @DisplayName("Should produce the same file as a single restart-marker encode of the whole image")
+    void shouldMatchWholeImageEncode() throws Exception {
+        // Given
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        try (JpegBandEncoder encoder = new JpegBandEncoder(WIDTH, HEIGHT, out)) {
+            for (int y = 0; y < HEIGHT; y += 48) {
+                encoder.writeBand(image.getSubimage(0, y, WIDTH, Math.min(48, HEIGHT - y)));
+            }
+            encoder.finish();
+        }
+
+        // Then
+        assertThat(out.toByteArray()).isEqualTo(JpegRestartEncoder.encode(image).bytes());
+    }
+
+    @Test
+    @DisplayName("Should reject bands that do not end on an MCU row")
+    void shouldRejectUnalignedBand() throws Exception {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+
+        try (JpegBandEncoder encoder = new JpegBandEncoder(WIDTH, HEIGHT, new ByteArrayOutputStream())) {
+            assertThatThrownBy(() -> encoder.writeBand(image.getSubimage(0, 0, WIDTH, 20)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("MCU height");
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject finishing before all rows were written")
+    void shouldRejectIncompleteImage() throws Exception {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+
+        try (JpegBandEncoder encoder = new JpegBandEncoder(WIDTH, HEIGHT, new ByteArrayOutputStream())) {
+            encoder.writeBand(image.getSubimage(0, 0, WIDTH, JpegBandEncoder.BAND_ALIGNMENT));
+            assertThatThrownBy(encoder::finish)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("16 of " + HEIGHT);
+        }
+    }
+}
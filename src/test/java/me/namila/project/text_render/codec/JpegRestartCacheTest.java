@@ -0,0 +1,131 @@
+package me.namila.project.text_render.codec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static me.namila.project.text_render.codec.PngEncoderTest.createImage;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link JpegRestartCache}.
+ */
+class JpegRestartCacheTest {
+
+    private static final int WIDTH = 403;
+    private static final int HEIGHT = 301;
+
+    @Test
+    @DisplayName("Should produce the same file as a full restart-marker encode of the output")
+    void shouldMatchFullEncode() throws Exception {
+        // Given
+        BufferedImage template = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+        JpegRestartCache cache = JpegRestartCache.build(template);
+        BufferedImage output = copy(template);
+        Rectangle changed = drawBlock(output, 150, 20);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int reencoded = cache.encode(output, changed, out);
+
+        // Then
+        assertThat(cache.getSegmentCount()).isEqualTo((HEIGHT + cache.getMcuHeight() - 1) / cache.getMcuHeight());
+        assertThat(reencoded).isBetween(2, 3);
+        assertThat(out.toByteArray()).isEqualTo(JpegRestartEncoder.encode(output).bytes());
+    }
+
+    @Test
+    @DisplayName("Should copy segments outside the changed region byte-for-byte from the template")
+    void shouldCopyUnchangedSegments() throws Exception {
+        BufferedImage template = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+        JpegRestartCache cache = JpegRestartCache.build(template);
+        BufferedImage output = copy(template);
+        Rectangle changed = drawBlock(output, 100, 10);
+
+        ByteArrayOutputStream unchanged = new ByteArrayOutputStream();
+        cache.encode(template, new Rectangle(), unchanged);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.encode(output, changed, out);
+
+        int mcu = cache.getMcuHeight();
+        int segments = cache.getSegmentCount();
+        JpegRestartEncoder.Encoded original = JpegRestartEncoder.parse(unchanged.toByteArray(), mcu, mcu, segments);
+        JpegRestartEncoder.Encoded spliced = JpegRestartEncoder.parse(out.toByteArray(), mcu, mcu, segments);
+        int firstDirty = changed.y / mcu;
+        int lastDirty = (changed.y + changed.height - 1) / mcu;
+        for (int i = 0; i < segments; i++) {
+            byte[] expected = segment(original, i);
+            if (i >= firstDirty && i <= lastDirty) {
+                assertThat(segment(spliced, i)).isNotEqualTo(expected);
+            } else {
+                assertThat(segment(spliced, i)).isEqualTo(expected);
+            }
+        }
+        assertThat(decode(out.toByteArray()).getRGB(100, 105))
+            .isNotEqualTo(decode(unchanged.toByteArray()).getRGB(100, 105));
+    }
+
+    @Test
+    @DisplayName("Should handle changes in the first and last MCU rows")
+    void shouldHandleEdgeRows() throws Exception {
+        BufferedImage template = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+        JpegRestartCache cache = JpegRestartCache.build(template);
+        BufferedImage output = copy(template);
+        Rectangle top = drawBlock(output, 0, 3);
+        Rectangle bottom = drawBlock(output, HEIGHT - 3, 3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.encode(output, top.union(bottom), out);
+
+        assertThat(out.toByteArray()).isEqualTo(JpegRestartEncoder.encode(output).bytes());
+    }
+
+    @Test
+    @DisplayName("Should reject images that do not match the template")
+    void shouldRejectIncompatibleImage() throws Exception {
+        BufferedImage template = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+        JpegRestartCache cache = JpegRestartCache.build(template);
+        BufferedImage other = createImage(BufferedImage.TYPE_INT_ARGB, WIDTH, HEIGHT);
+
+        assertThat(cache.isCompatible(other)).isFalse();
+        assertThatThrownBy(() -> cache.encode(other, new Rectangle(), new ByteArrayOutputStream()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("does not match");
+    }
+
+    private static BufferedImage decode(byte[] jpeg) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertThat(image).isNotNull();
+        assertThat(image.getWidth()).isEqualTo(WIDTH);
+        assertThat(image.getHeight()).isEqualTo(HEIGHT);
+        return image;
+    }
+
+    private static byte[] segment(JpegRestartEncoder.Encoded encoded, int index) {
+        return Arrays.copyOfRange(encoded.bytes(), encoded.starts()[index], encoded.ends()[index]);
+    }
+
+    private static BufferedImage copy(BufferedImage source) {
+        BufferedImage copy = new BufferedImage(source.getWidth(), source.getHeight(), source.getType());
+        Graphics2D g2d = copy.createGraphics();
+        g2d.drawImage(source, 0, 0, null);
+        g2d.dispose();
+        return copy;
+    }
+
+    private static Rectangle drawBlock(BufferedImage image, int y, int height) {
+        Rectangle block = new Rectangle(30, y, 200, height);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.MAGENTA);
+        g2d.fill(block);
+        g2d.dispose();
+        return block;
+    }
+}
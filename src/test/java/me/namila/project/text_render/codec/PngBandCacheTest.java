@@ -0,0 +1,105 @@
+package me.namila.project.text_render.codec;
+
+import me.namila.project.text_render.model.PngEncodeOptions;
+import me.namila.project.text_render.model.PngFilterStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static me.namila.project.text_render.codec.PngEncoderTest.assertSamePixels;
+import static me.namila.project.text_render.codec.PngEncoderTest.createImage;
+import static me.namila.project.text_render.codec.PngEncoderTest.decode;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PngBandCache}.
+ */
+class PngBandCacheTest {
+
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 900;
+
+    @ParameterizedTest
+    @EnumSource(PngFilterStrategy.class)
+    @DisplayName("Should splice re-encoded bands with cached template bands")
+    void shouldEncodeChangedRowsOnly(PngFilterStrategy filter) throws Exception {
+        // Given
+        BufferedImage template = createImage(BufferedImage.TYPE_INT_ARGB, WIDTH, HEIGHT);
+        PngBandCache cache = PngBandCache.build(template, new PngEncodeOptions(6, filter));
+        BufferedImage output = copy(template);
+        Rectangle changed = drawBlock(output, 500, 40);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int reencoded = cache.encode(output, changed, out);
+
+        // Then
+        assertThat(cache.getBandCount()).isGreaterThan(3);
+        assertThat(reencoded).isBetween(1, 2);
+        assertSamePixels(output, decode(out.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Should reproduce the template when nothing changed")
+    void shouldReproduceTemplateForEmptyRegion() throws Exception {
+        BufferedImage template = createImage(BufferedImage.TYPE_3BYTE_BGR, WIDTH, HEIGHT);
+        PngBandCache cache = PngBandCache.build(template, PngEncodeOptions.DEFAULT);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int reencoded = cache.encode(template, new Rectangle(), out);
+
+        assertThat(reencoded).isZero();
+        assertSamePixels(template, decode(out.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Should handle changes in the first and last rows")
+    void shouldHandleEdgeBands() throws Exception {
+        BufferedImage template = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+        PngBandCache cache = PngBandCache.build(template, PngEncodeOptions.DEFAULT);
+        BufferedImage output = copy(template);
+        Rectangle top = drawBlock(output, 0, 3);
+        Rectangle bottom = drawBlock(output, HEIGHT - 3, 3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.encode(output, top.union(bottom), out);
+
+        assertSamePixels(output, decode(out.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Should reject images that do not match the template")
+    void shouldRejectIncompatibleImage() {
+        BufferedImage template = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT);
+        PngBandCache cache = PngBandCache.build(template, PngEncodeOptions.DEFAULT);
+        BufferedImage other = createImage(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT + 1);
+
+        assertThat(cache.isCompatible(other)).isFalse();
+        assertThatThrownBy(() -> cache.encode(other, new Rectangle(), new ByteArrayOutputStream()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("does not match");
+    }
+
+    private static BufferedImage copy(BufferedImage source) {
+        BufferedImage copy = new BufferedImage(source.getWidth(), source.getHeight(), source.getType());
+        Graphics2D g2d = copy.createGraphics();
+        g2d.drawImage(source, 0, 0, null);
+        g2d.dispose();
+        return copy;
+    }
+
+    private static Rectangle drawBlock(BufferedImage image, int y, int height) {
+        Rectangle block = new Rectangle(30, y, 200, height);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.MAGENTA);
+        g2d.fill(block);
+        g2d.dispose();
+        return block;
+    }
+}
@@ -0,0 +1,244 @@
+package me.namila.project.text_render.codec;
+
+import me.namila.project.text_render.model.PngEncodeOptions;
+import me.namila.project.text_render.model.PngFilterStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Adler32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PngEncoder}.
+ */
+class PngEncoderTest {
+
+    private static final int WIDTH = 97;
+    private static final int HEIGHT = 61;
+
+    @ParameterizedTest
+    @EnumSource(PngFilterStrategy.class)
+    @DisplayName("Should round-trip pixels with every filter strategy")
+    void shouldRoundTripWithEveryFilter(PngFilterStrategy filter) throws Exception {
+        // Given
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB);
+        PngEncoder encoder = new PngEncoder(new PngEncodeOptions(6, filter));
+
+        // When
+        BufferedImage decoded = decode(encode(encoder, image));
+
+        // Then
+        assertSamePixels(image, decoded);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {
+        BufferedImage.TYPE_INT_RGB,
+        BufferedImage.TYPE_INT_ARGB,
+        BufferedImage.TYPE_3BYTE_BGR,
+        BufferedImage.TYPE_4BYTE_ABGR,
+        BufferedImage.TYPE_USHORT_565_RGB
+    })
+    @DisplayName("Should encode common raster layouts")
+    void shouldEncodeCommonRasterLayouts(int imageType) throws Exception {
+        // Given
+        BufferedImage image = createImage(imageType);
+        PngEncoder encoder = new PngEncoder(PngEncodeOptions.DEFAULT);
+
+        // When
+        BufferedImage decoded = decode(encode(encoder, image));
+
+        // Then
+        assertThat(decoded.getColorModel().hasAlpha()).isEqualTo(image.getColorModel().hasAlpha());
+        assertSamePixels(image, decoded);
+    }
+
+    @Test
+    @DisplayName("Should encode sub-images without copying the parent raster")
+    void shouldEncodeSubImage() throws Exception {
+        // Given
+        BufferedImage parent = createImage(BufferedImage.TYPE_INT_RGB);
+        BufferedImage child = parent.getSubimage(10, 7, 40, 30);
+
+        // When
+        BufferedImage decoded = decode(encode(new PngEncoder(PngEncodeOptions.DEFAULT), child));
+
+        // Then
+        assertSamePixels(child, decoded);
+    }
+
+    @Test
+    @DisplayName("Should reuse pooled deflater across encodes")
+    void shouldProduceIdenticalOutputAcrossEncodes() throws Exception {
+        // Given
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB);
+        PngEncoder encoder = new PngEncoder(new PngEncodeOptions(9, PngFilterStrategy.PAETH));
+
+        // When
+        byte[] first = encode(encoder, image);
+        byte[] second = encode(encoder, image);
+
+        // Then
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    @DisplayName("Higher compression level should not produce larger output than level 0")
+    void shouldCompressBetterAtHigherLevel() throws Exception {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB);
+
+        byte[] stored = encode(new PngEncoder(new PngEncodeOptions(0, PngFilterStrategy.NONE)), image);
+        byte[] compressed = encode(new PngEncoder(new PngEncodeOptions(9, PngFilterStrategy.ADAPTIVE)), image);
+
+        assertThat(compressed.length).isLessThan(stored.length);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngFilterStrategy.class)
+    @DisplayName("Should round-trip pixels when deflating on several cores")
+    void shouldRoundTripInParallel(PngFilterStrategy filter) throws Exception {
+        // Given - large enough for several bands
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB, 640, 480);
+        PngEncoder encoder = new PngEncoder(new PngEncodeOptions(6, filter, 4));
+
+        // When
+        BufferedImage decoded = decode(encode(encoder, image));
+
+        // Then
+        assertSamePixels(image, decoded);
+    }
+
+    @Test
+    @DisplayName("Parallel output should stay close to single-threaded size")
+    void shouldKeepCompressionRatioInParallel() throws Exception {
+        BufferedImage image = createImage(BufferedImage.TYPE_3BYTE_BGR, 800, 600);
+
+        byte[] serial = encode(new PngEncoder(new PngEncodeOptions(6, PngFilterStrategy.PAETH, 1)), image);
+        byte[] parallel = encode(new PngEncoder(new PngEncodeOptions(6, PngFilterStrategy.PAETH, 3)), image);
+
+        assertThat((double) parallel.length).isLessThan(serial.length * 1.05);
+        assertSamePixels(decode(serial), decode(parallel));
+    }
+
+    @Test
+    @DisplayName("Should produce the same file when rows are supplied in bands")
+    void shouldEncodeBandByBand() throws Exception {
+        // Given
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB);
+        PngEncoder encoder = new PngEncoder(PngEncodeOptions.DEFAULT);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BandEncoder bands = encoder.open(WIDTH, HEIGHT, true, out)) {
+            for (int y = 0; y < HEIGHT; y += 16) {
+                bands.writeBand(image.getSubimage(0, y, WIDTH, Math.min(16, HEIGHT - y)));
+            }
+            bands.finish();
+        }
+
+        // Then
+        assertThat(out.toByteArray()).isEqualTo(encode(encoder, image));
+    }
+
+    @Test
+    @DisplayName("Should reject finishing before all bands were written")
+    void shouldRejectIncompleteBands() throws Exception {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB);
+        PngEncoder encoder = new PngEncoder(PngEncodeOptions.DEFAULT);
+
+        try (BandEncoder bands = encoder.open(WIDTH, HEIGHT, false, new ByteArrayOutputStream())) {
+            bands.writeBand(image.getSubimage(0, 0, WIDTH, 10));
+            assertThatThrownBy(bands::finish)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("10 of " + HEIGHT);
+            assertThatThrownBy(() -> bands.writeBand(image))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Combined Adler-32 should match checksum of the concatenation")
+    void shouldCombineAdler32() {
+        byte[] first = "The quick brown fox ".repeat(500).getBytes();
+        byte[] second = "jumps over the lazy dog".repeat(3000).getBytes();
+        Adler32 a = new Adler32();
+        a.update(first);
+        Adler32 b = new Adler32();
+        b.update(second);
+        Adler32 whole = new Adler32();
+        whole.update(first);
+        whole.update(second);
+
+        assertThat(Zlib.combineAdler32(a.getValue(), b.getValue(), second.length))
+            .isEqualTo(whole.getValue());
+        assertThat(Zlib.combineAdler32(1L, a.getValue(), first.length))
+            .isEqualTo(a.getValue());
+    }
+
+    @Test
+    @DisplayName("Should reject compression level outside 0-9")
+    void shouldRejectInvalidCompressionLevel() {
+        assertThatThrownBy(() -> new PngEncodeOptions(10, PngFilterStrategy.NONE))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("compression level");
+        assertThatThrownBy(() -> new PngEncodeOptions(-1, PngFilterStrategy.NONE))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PngEncodeOptions(6, PngFilterStrategy.NONE, 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("encode threads");
+    }
+
+    static BufferedImage createImage(int imageType) {
+        return createImage(imageType, WIDTH, HEIGHT);
+    }
+
+    static BufferedImage createImage(int imageType, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, imageType);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, new Color(20, 40, 200, 120)));
+            g2d.fillRect(0, 0, width, height);
+            g2d.setColor(Color.BLACK);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.drawString("PNG", 20, 35);
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    static byte[] encode(PngEncoder encoder, BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(image, out);
+        return out.toByteArray();
+    }
+
+    static BufferedImage decode(byte[] png) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertThat(image).isNotNull();
+        return image;
+    }
+
+    static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+        assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertThat(actual.getRGB(x, y))
+                    .as("pixel (%d, %d)", x, y)
+                    .isEqualTo(expected.getRGB(x, y));
+            }
+        }
+    }
+}
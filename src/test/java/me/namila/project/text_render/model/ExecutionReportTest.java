@@ -0,0 +1,29 @@
+package me.namila.project.text_render.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ExecutionReport}.
+ */
+class ExecutionReportTest {
+
+    @Test
+    @DisplayName("Should summarize only the counts that apply")
+    void shouldSummarize() {
+        assertThat(new ExecutionReport(10, 10, 0, 0, 0, 0).summary())
+            .isEqualTo("10 rendered (10 rows)");
+        assertThat(new ExecutionReport(10, 4, 3, 1, 2, 0).summary())
+            .isEqualTo("4 rendered, 3 duplicates linked, 1 resumed, 2 unchanged (10 rows, 6 renders avoided)");
+        assertThat(new ExecutionReport(5, 4, 0, 0, 0, 1).summary())
+            .isEqualTo("4 rendered, 1 failed (5 rows)");
+    }
+
+    @Test
+    @DisplayName("Should count renders avoided")
+    void shouldCountRendersAvoided() {
+        assertThat(new ExecutionReport(10, 4, 3, 1, 2, 0).rendersAvoided()).isEqualTo(6);
+    }
+}
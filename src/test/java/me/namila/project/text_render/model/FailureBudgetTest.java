@@ -0,0 +1,41 @@
+package me.namila.project.text_render.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link FailureBudget}.
+ */
+class FailureBudgetTest {
+
+    @Test
+    @DisplayName("Should parse consecutive and percentage limits")
+    void shouldParse() {
+        assertThat(FailureBudget.parse("none")).isEqualTo(FailureBudget.NONE);
+        assertThat(FailureBudget.parse("25")).isEqualTo(new FailureBudget(25, 0));
+        assertThat(FailureBudget.parse("2.5%")).isEqualTo(new FailureBudget(0, 2.5));
+        assertThat(FailureBudget.parse(" 25, 10% ")).isEqualTo(new FailureBudget(25, 10));
+    }
+
+    @Test
+    @DisplayName("Should format back to its specification")
+    void shouldFormat() {
+        assertThat(FailureBudget.NONE).hasToString("none");
+        assertThat(FailureBudget.parse("25,10%")).hasToString("25,10%");
+        assertThat(FailureBudget.parse("2.5%")).hasToString("2.5%");
+        assertThat(FailureBudget.NONE.isUnlimited()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "-1", "0%", "100%", "ten", "5%%"})
+    @DisplayName("Should reject invalid specifications")
+    void shouldRejectInvalid(String value) {
+        assertThatThrownBy(() -> FailureBudget.parse(value))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,136 @@
+package me.namila.project.text_render.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link JobTable}.
+ */
+class JobTableTest {
+
+    private static final TextConfig TEXT_CONFIG = new TextConfig(10, 20, Alignment.LEFT);
+    private static final Path TEMPLATE = Path.of("template.png");
+    private static final Path OUTPUT = Path.of("out");
+    private static final JobTable.FileNames FILE_NAMES = (name, collision) ->
+        "template-" + name.replace(' ', '_') + (collision == 0 ? "" : "-" + collision) + ".png";
+
+    @Test
+    @DisplayName("Should create the same jobs as building them one by one")
+    void shouldCreateJobs() {
+        // Given
+        JobTable table = new JobTable(TEXT_CONFIG, TEMPLATE, OUTPUT, OutputLayout.FLAT, FILE_NAMES);
+        table.add(new CsvEntry("Adam Smith", "Mr.", "Jr."), 0, 0);
+        table.add(new CsvEntry("Zoë Łukasz", "", ""), 1, 0);
+
+        // When
+        RenderJob first = table.get(0);
+
+        // Then
+        assertThat(table).hasSize(2);
+        assertThat(first).isEqualTo(new RenderJob("Mr. Adam Smith Jr.", TEXT_CONFIG, TEMPLATE,
+            OUTPUT.resolve("template-Adam_Smith.png"), 0));
+        assertThat(table.name(1)).isEqualTo("Zoë Łukasz");
+        assertThat(table.fileName(1)).isEqualTo("template-Zoë_Łukasz.png");
+        assertThat(table.entry(0)).isEqualTo(new CsvEntry("Adam Smith", "Mr.", "Jr."));
+    }
+
+    @Test
+    @DisplayName("Should resolve output paths with the output layout")
+    void shouldApplyOutputLayout() {
+        JobTable table = new JobTable(TEXT_CONFIG, TEMPLATE, OUTPUT, OutputLayout.parse("rows:1000"), FILE_NAMES);
+        table.add(new CsvEntry("Eve", "", ""), 2500, 0);
+
+        assertThat(table.get(0).outputPath()).isEqualTo(OUTPUT.resolve("00002000").resolve("template-Eve.png"));
+        assertThat(table.rowIndex(0)).isEqualTo(2500);
+    }
+
+    @Test
+    @DisplayName("Should select rows by their CSV index as a view of the table")
+    void shouldSelectRows() {
+        // Given
+        JobTable table = new JobTable(TEXT_CONFIG, TEMPLATE, OUTPUT, OutputLayout.FLAT, FILE_NAMES);
+        for (int row = 0; row < 10; row++) {
+            table.add(new CsvEntry("name" + row, "", ""), row, 0);
+        }
+
+        // When
+        List<RenderJob> odd = table.select(row -> row % 2 == 1);
+
+        // Then
+        assertThat(odd).extracting(RenderJob::rowIndex).containsExactly(1, 3, 5, 7, 9);
+        assertThat(odd.subList(1, 3)).extracting(RenderJob::text).containsExactly("name3", "name5");
+        assertThat(table.select(row -> false)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find rows of a partial table by their CSV index")
+    void shouldFindPositionOfRow() {
+        JobTable table = new JobTable(TEXT_CONFIG, TEMPLATE, OUTPUT, OutputLayout.FLAT, FILE_NAMES);
+        for (int row : new int[]{3, 7, 8, 42}) {
+            table.add(new CsvEntry("name" + row, "", ""), row, 0);
+        }
+
+        assertThat(table.positionOf(8)).isEqualTo(2);
+        assertThat(table.name(table.positionOf(42))).isEqualTo("name42");
+        assertThat(table.positionOf(5)).isEqualTo(-1);
+        assertThat(table.positionOf(43)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should store each distinct prefix and postfix once")
+    void shouldInternAffixes() {
+        JobTable table = new JobTable(TEXT_CONFIG, TEMPLATE, OUTPUT, OutputLayout.FLAT, FILE_NAMES);
+        for (int row = 0; row < 1000; row++) {
+            table.add(new CsvEntry("name" + row, row % 2 == 0 ? "Mr." : "Ms.", "PhD"), row, 0);
+        }
+
+        assertThat(table.getAffixCount()).isEqualTo(3);
+        assertThat(table.entry(999)).isEqualTo(new CsvEntry("name999", "Ms.", "PhD"));
+    }
+
+    @Test
+    @DisplayName("Should need far less memory per row than job objects")
+    void shouldBeCompact() {
+        // Given
+        JobTable table = new JobTable(TEXT_CONFIG, TEMPLATE, OUTPUT, OutputLayout.FLAT, FILE_NAMES);
+        int rows = 100_000;
+
+        // When
+        for (int row = 0; row < rows; row++) {
+            String name = "Firstname Lastname " + row;
+            table.add(new CsvEntry(name, "Dr.", ""), row, 0);
+        }
+
+        // Then - names of about 25 bytes, offsets and ids, and spare capacity
+        assertThat(table.getFootprint() / rows).isLessThan(100);
+        assertThat(table.get(rows - 1).text()).isEqualTo("Dr. Firstname Lastname 99999");
+    }
+
+    @Test
+    @DisplayName("Should format output file names with the collision number of the row")
+    void shouldFormatFileNamesWithCollisions() {
+        JobTable table = new JobTable(TEXT_CONFIG, TEMPLATE, OUTPUT, OutputLayout.FLAT, FILE_NAMES);
+        table.add(new CsvEntry("Eve", "", ""), 0, 0);
+        table.add(new CsvEntry("Eve", "", ""), 1, 1);
+        table.add(new CsvEntry("Eve", "", ""), 2, 2);
+
+        assertThat(table).extracting(RenderJob::outputPath).containsExactly(OUTPUT.resolve("template-Eve.png"),
+            OUTPUT.resolve("template-Eve-1.png"), OUTPUT.resolve("template-Eve-2.png"));
+    }
+
+    @Test
+    @DisplayName("Should reject positions outside the table")
+    void shouldRejectInvalidPosition() {
+        JobTable table = new JobTable(TEXT_CONFIG, TEMPLATE, OUTPUT, OutputLayout.FLAT, FILE_NAMES);
+        table.add(new CsvEntry("Eve", "", ""), 0, 0);
+
+        assertThatThrownBy(() -> table.get(1)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> table.name(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,54 @@
+package me.namila.project.text_render.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MemoryLimit}.
+ */
+class MemoryLimitTest {
+
+    @Test
+    @DisplayName("Should parse sizes and heap percentages")
+    void shouldParse() {
+        assertThat(MemoryLimit.parse("none")).isEqualTo(MemoryLimit.NONE);
+        assertThat(MemoryLimit.parse("50%")).isEqualTo(MemoryLimit.DEFAULT);
+        assertThat(MemoryLimit.parse("512M").bytes()).isEqualTo(512L << 20);
+        assertThat(MemoryLimit.parse("2g").bytes()).isEqualTo(2L << 30);
+        assertThat(MemoryLimit.parse("64k").bytes()).isEqualTo(64L << 10);
+        assertThat(MemoryLimit.parse("1000").bytes()).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("Should resolve against the maximum heap")
+    void shouldResolve() {
+        long heap = 4L << 30;
+
+        assertThat(MemoryLimit.parse("25%").resolve(heap)).isEqualTo(1L << 30);
+        assertThat(MemoryLimit.parse("256m").resolve(heap)).isEqualTo(256L << 20);
+        assertThat(MemoryLimit.NONE.resolve(heap)).isEqualTo(Long.MAX_VALUE);
+        assertThat(MemoryLimit.NONE.isUnlimited()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should format back to its specification")
+    void shouldFormat() {
+        assertThat(MemoryLimit.DEFAULT).hasToString("50%");
+        assertThat(MemoryLimit.parse("2048m")).hasToString("2g");
+        assertThat(MemoryLimit.parse("1000")).hasToString("1000");
+        assertThat(MemoryLimit.NONE).hasToString("none");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "0", "-5m", "0%", "120%", "lots", "9999999999g"})
+    @DisplayName("Should reject invalid specifications")
+    void shouldRejectInvalid(String value) {
+        assertThatThrownBy(() -> MemoryLimit.parse(value))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,80 @@
+package me.namila.project.text_render.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link OutputLayout}.
+ */
+class OutputLayoutTest {
+
+    private static final Path ROOT = Path.of("out");
+
+    @ParameterizedTest
+    @CsvSource({
+        "flat, FLAT, 0",
+        "HASH:256, HASH, 256",
+        "rows:1000, ROWS, 1000"
+    })
+    @DisplayName("Should parse layout specifications")
+    void shouldParse(String input, OutputLayout.Type type, int size) {
+        OutputLayout layout = OutputLayout.parse(input);
+
+        assertThat(layout.type()).isEqualTo(type);
+        assertThat(layout.size()).isEqualTo(size);
+        assertThat(OutputLayout.parse(layout.toString())).isEqualTo(layout);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"deep", "hash", "hash:0", "hash:65537", "rows:-1", "rows:many"})
+    @DisplayName("Should reject invalid specifications")
+    void shouldRejectInvalid(String input) {
+        assertThatThrownBy(() -> OutputLayout.parse(input))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should place flat outputs directly in the output folder")
+    void shouldResolveFlat() {
+        assertThat(OutputLayout.FLAT.resolve(ROOT, "a.png", 5)).isEqualTo(ROOT.resolve("a.png"));
+    }
+
+    @Test
+    @DisplayName("Should spread outputs over fixed-width hash directories deterministically")
+    void shouldResolveHash() {
+        // Given
+        OutputLayout layout = OutputLayout.parse("hash:256");
+        Set<String> directories = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            Path path = layout.resolve(ROOT, "certificate-" + i + ".png", i);
+            directories.add(path.getParent().getFileName().toString());
+            assertThat(layout.resolve(ROOT, "certificate-" + i + ".png", 0)).isEqualTo(path);
+        }
+
+        // Then
+        assertThat(directories).hasSize(256).allMatch(name -> name.matches("[0-9a-f]{2}"));
+    }
+
+    @Test
+    @DisplayName("Should group consecutive rows into one directory")
+    void shouldResolveRows() {
+        OutputLayout layout = OutputLayout.parse("rows:1000");
+
+        assertThat(layout.resolve(ROOT, "a.png", 0)).isEqualTo(ROOT.resolve("00000000/a.png"));
+        assertThat(layout.resolve(ROOT, "b.png", 999)).isEqualTo(ROOT.resolve("00000000/b.png"));
+        assertThat(layout.resolve(ROOT, "c.png", 1000)).isEqualTo(ROOT.resolve("00001000/c.png"));
+        assertThat(layout.resolve(ROOT, "d.png", 123_456)).isEqualTo(ROOT.resolve("00123000/d.png"));
+    }
+}
@@ -0,0 +1,52 @@
+package me.namila.project.text_render.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link RetryPolicy}.
+ */
+class RetryPolicyTest {
+
+    @Test
+    @DisplayName("Should double the backoff up to the maximum")
+    void shouldDoubleBackoff() {
+        RetryPolicy policy = new RetryPolicy(50, Duration.ofMillis(100));
+
+        assertThat(policy.backoff(1)).isEqualTo(Duration.ofMillis(100));
+        assertThat(policy.backoff(2)).isEqualTo(Duration.ofMillis(200));
+        assertThat(policy.backoff(4)).isEqualTo(Duration.ofMillis(800));
+        assertThat(policy.backoff(40)).isEqualTo(RetryPolicy.MAX_BACKOFF);
+    }
+
+    @Test
+    @DisplayName("Should retry only I/O errors that may be transient")
+    void shouldClassifyErrors() {
+        RetryPolicy policy = new RetryPolicy(3);
+
+        assertThat(policy.isRetryable(new IOException("No space left on device"))).isTrue();
+        assertThat(policy.isRetryable(new RuntimeException(new IOException("Stale file handle")))).isTrue();
+        assertThat(policy.isRetryable(new UncheckedIOException(new IOException("timeout")))).isTrue();
+        assertThat(policy.isRetryable(new NoSuchFileException("template.png"))).isFalse();
+        assertThat(policy.isRetryable(new AccessDeniedException("output"))).isFalse();
+        assertThat(policy.isRetryable(new IllegalArgumentException("bad font"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject a negative retry count")
+    void shouldRejectNegativeRetries() {
+        assertThatThrownBy(() -> new RetryPolicy(-1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("-1");
+        assertThat(RetryPolicy.NONE.maxRetries()).isZero();
+    }
+}
@@ -0,0 +1,72 @@
+package me.namila.project.text_render.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link RowRange}.
+ */
+class RowRangeTest {
+
+    @Test
+    @DisplayName("Should parse closed, open-ended and single-row ranges")
+    void shouldParse() {
+        assertThat(RowRange.parse("1-500")).isEqualTo(new RowRange(1, 500));
+        assertThat(RowRange.parse(" 501- ")).isEqualTo(new RowRange(501, Integer.MAX_VALUE));
+        assertThat(RowRange.parse("42")).isEqualTo(new RowRange(42, 42));
+        assertThat(RowRange.parse("1-")).isEqualTo(RowRange.ALL);
+    }
+
+    @Test
+    @DisplayName("Should format back to its specification")
+    void shouldFormat() {
+        assertThat(RowRange.parse("3-7")).hasToString("3-7");
+        assertThat(RowRange.parse("3-")).hasToString("3-");
+        assertThat(RowRange.parse("3-3")).hasToString("3");
+    }
+
+    @Test
+    @DisplayName("Should match 0-based row indexes")
+    void shouldContainIndex() {
+        RowRange range = RowRange.parse("2-3");
+
+        assertThat(range.containsIndex(0)).isFalse();
+        assertThat(range.containsIndex(1)).isTrue();
+        assertThat(range.containsIndex(2)).isTrue();
+        assertThat(range.containsIndex(3)).isFalse();
+        assertThat(RowRange.ALL.containsIndex(Integer.MAX_VALUE - 1)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should clamp to the rows of the file")
+    void shouldClamp() {
+        assertThat(RowRange.ALL.clamp(10)).isEqualTo(new RowRange(1, 10));
+        assertThat(RowRange.parse("5-8").clamp(10)).isEqualTo(new RowRange(5, 8));
+        assertThat(RowRange.parse("11-").clamp(10)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should split into consecutive ranges of nearly equal size")
+    void shouldSplit() {
+        // Given
+        RowRange range = new RowRange(1, 10);
+
+        // When / Then
+        assertThat(range.split(3)).containsExactly(new RowRange(1, 4), new RowRange(5, 7), new RowRange(8, 10));
+        assertThat(range.split(1)).containsExactly(range);
+        assertThat(new RowRange(4, 5).split(4)).containsExactly(new RowRange(4, 4), new RowRange(5, 5));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "0-5", "5-4", "a-b", "-5", ""})
+    @DisplayName("Should reject invalid specifications")
+    void shouldRejectInvalid(String value) {
+        assertThatThrownBy(() -> RowRange.parse(value))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
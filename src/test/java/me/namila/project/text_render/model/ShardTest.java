@@ -0,0 +1,68 @@
+package me.namila.project.text_render.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link Shard}.
+ */
+class ShardTest {
+
+    @Test
+    @DisplayName("Should parse and format i/N")
+    void shouldParseAndFormat() {
+        assertThat(Shard.parse("2/5")).isEqualTo(new Shard(2, 5));
+        assertThat(Shard.parse("2/5")).hasToString("2/5");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ShardKey.class)
+    @DisplayName("Should put every row in exactly one shard")
+    void shouldPartitionRows(ShardKey key) {
+        // Given
+        int count = 3;
+        int[] rowsPerShard = new int[count];
+
+        // When
+        for (int row = 0; row < 3000; row++) {
+            int matches = 0;
+            for (int index = 1; index <= count; index++) {
+                if (new Shard(index, count).contains(key, row, "Name " + row)) {
+                    rowsPerShard[index - 1]++;
+                    matches++;
+                }
+            }
+            assertThat(matches).as("shards containing row %d", row).isEqualTo(1);
+        }
+
+        // Then - shards are roughly balanced
+        assertThat(Arrays.stream(rowsPerShard)).allMatch(rows -> rows > 900 && rows < 1100);
+    }
+
+    @Test
+    @DisplayName("Should assign rows by position or by name")
+    void shouldAssignByKey() {
+        Shard first = new Shard(1, 2);
+
+        assertThat(first.contains(ShardKey.ROW, 0, "Alice")).isTrue();
+        assertThat(first.contains(ShardKey.ROW, 1, "Alice")).isFalse();
+        // The same name lands in the same shard wherever it appears
+        assertThat(first.contains(ShardKey.NAME, 0, "Alice")).isEqualTo(first.contains(ShardKey.NAME, 1, "Alice"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0/2", "3/2", "1/0", "1", "x/2"})
+    @DisplayName("Should reject invalid specifications")
+    void shouldRejectInvalid(String value) {
+        assertThatThrownBy(() -> Shard.parse(value))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,146 @@
+package me.namila.project.text_render.output;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ArchiveOutputSink}, {@link ZipOutputSink} and {@link TarOutputSink}.
+ */
+class ArchiveOutputSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should store compressed formats and deflate other entries in a ZIP")
+    void shouldWriteZip() throws Exception {
+        // Given
+        Path archive = tempDir.resolve("out.zip");
+        Path root = tempDir.resolve("output");
+
+        // When
+        try (ArchiveOutputSink sink = ArchiveOutputSink.open(archive.toString(), root)) {
+            sink.write(root.resolve("a.png"), buffer(sink, "png bytes"));
+            sink.write(root.resolve("nested/b.pdf"), buffer(sink, "pdf bytes"));
+            sink.write(root.resolve("notes.txt"), buffer(sink, "text ".repeat(100)));
+        }
+
+        // Then
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertThat(zip.size()).isEqualTo(3);
+            ZipEntry png = zip.getEntry("a.png");
+            assertThat(png.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(new String(zip.getInputStream(png).readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("png bytes");
+            assertThat(zip.getEntry("nested/b.pdf").getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(zip.getEntry("notes.txt").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        }
+        assertThat(root).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should reject duplicate ZIP entries without breaking the archive")
+    void shouldRejectDuplicateZipEntry() throws Exception {
+        Path archive = tempDir.resolve("dup.zip");
+        CompletableFuture<Void> duplicate;
+        try (ArchiveOutputSink sink = ArchiveOutputSink.open(archive.toString(), tempDir)) {
+            sink.write(tempDir.resolve("same.png"), buffer(sink, "first"));
+            duplicate = sink.write(tempDir.resolve("same.png"), buffer(sink, "second"));
+            sink.write(tempDir.resolve("other.png"), buffer(sink, "third"));
+        }
+
+        assertThat(duplicate).isCompletedExceptionally();
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertThat(zip.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write a valid ustar stream")
+    void shouldWriteTar() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Path root = tempDir.resolve("output");
+        String longDirectory = "d".repeat(80) + "/" + "e".repeat(40);
+        String longName = "f".repeat(90) + ".png";
+
+        // When
+        try (TarOutputSink sink = new TarOutputSink(out, root)) {
+            sink.write(root.resolve("first.png"), buffer(sink, "hello"));
+            sink.write(root.resolve(longDirectory).resolve(longName), buffer(sink, "x".repeat(600)));
+        }
+
+        // Then
+        List<String[]> entries = readTar(out.toByteArray());
+        assertThat(entries).hasSize(2);
+        assertThat(entries.get(0)[0]).isEqualTo("first.png");
+        assertThat(entries.get(0)[1]).isEqualTo("hello");
+        assertThat(entries.get(1)[0]).isEqualTo(longDirectory + "/" + longName);
+        assertThat(entries.get(1)[1]).hasSize(600);
+        assertThat(out.size() % 512).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject unsupported archive types")
+    void shouldRejectUnsupportedType() {
+        assertThatThrownBy(() -> ArchiveOutputSink.open(tempDir.resolve("out.rar").toString(), tempDir))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Unsupported archive type");
+    }
+
+    /**
+     * Minimal ustar reader returning (name, content) pairs and verifying header checksums.
+     */
+    private static List<String[]> readTar(byte[] tar) throws IOException {
+        List<String[]> entries = new ArrayList<>();
+        int pos = 0;
+        while (pos + 512 <= tar.length) {
+            byte[] header = Arrays.copyOfRange(tar, pos, pos + 512);
+            if (header[0] == 0) {
+                break;
+            }
+            assertThat(field(header, 257, 5)).isEqualTo("ustar");
+            long checksum = 0;
+            for (int i = 0; i < 512; i++) {
+                checksum += (i >= 148 && i < 156) ? ' ' : header[i] & 0xFF;
+            }
+            assertThat(Long.parseLong(field(header, 148, 7).trim(), 8)).isEqualTo(checksum);
+            String prefix = field(header, 345, 155);
+            String name = (prefix.isEmpty() ? "" : prefix + "/") + field(header, 0, 100);
+            int size = Integer.parseInt(field(header, 124, 11), 8);
+            String content = new String(tar, pos + 512, size, StandardCharsets.UTF_8);
+            entries.add(new String[] {name, content});
+            pos += 512 + (size + 511) / 512 * 512;
+        }
+        return entries;
+    }
+
+    private static String field(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static PooledBuffer buffer(OutputSink sink, String content) {
+        PooledBuffer buffer = sink.allocate();
+        buffer.write(content.getBytes(StandardCharsets.UTF_8), 0, content.length());
+        return buffer;
+    }
+}
@@ -0,0 +1,185 @@
+package me.namila.project.text_render.output;
+
+import me.namila.project.text_render.model.FsyncPolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link FileSystemOutputSink}.
+ */
+class FileSystemOutputSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    @DisplayName("Should write every output and create nested directories")
+    void shouldWriteOutputs(FsyncPolicy fsyncPolicy) throws Exception {
+        // Given
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+
+        // When
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(3, fsyncPolicy)) {
+            for (int i = 0; i < 50; i++) {
+                writes.add(sink.write(tempDir.resolve("dir" + (i % 4)).resolve("out" + i + ".txt"),
+                    buffer(sink, "content " + i)));
+            }
+        }
+
+        // Then
+        assertThat(writes).allMatch(CompletableFuture::isDone);
+        for (int i = 0; i < 50; i++) {
+            assertThat(tempDir.resolve("dir" + (i % 4)).resolve("out" + i + ".txt")).hasContent("content " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Should leave no temporary files behind")
+    void shouldRenameTemporaryFilesIntoPlace() throws Exception {
+        // Given
+        Path occupied = Files.createDirectories(tempDir.resolve("occupied.txt"));
+
+        // When
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(2, FsyncPolicy.DATA)) {
+            sink.write(tempDir.resolve("a.txt"), buffer(sink, "a"));
+            sink.write(occupied, buffer(sink, "b"));
+        }
+
+        // Then
+        assertThat(tempDir.resolve("a.txt")).hasContent("a");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                .containsExactlyInAnyOrder("a.txt", "occupied.txt");
+        }
+    }
+
+    @Test
+    @DisplayName("Should create prepared directories up front")
+    void shouldPrepareDirectories() throws Exception {
+        // Given
+        List<Path> directories = List.of(tempDir.resolve("00"), tempDir.resolve("01/nested"));
+
+        // When
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(1, FsyncPolicy.NONE)) {
+            sink.prepareDirectories(directories);
+
+            // Then
+            assertThat(directories).allMatch(Files::isDirectory);
+            sink.write(tempDir.resolve("01/nested/a.txt"), buffer(sink, "a")).join();
+        }
+        assertThat(tempDir.resolve("01/nested/a.txt")).hasContent("a");
+    }
+
+    @Test
+    @DisplayName("Should replace an existing file completely")
+    void shouldTruncateExistingFile() throws Exception {
+        Path path = tempDir.resolve("existing.txt");
+        Files.writeString(path, "a much longer previous content");
+
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(1, FsyncPolicy.NONE)) {
+            sink.write(path, buffer(sink, "new")).join();
+        }
+
+        assertThat(path).hasContent("new");
+    }
+
+    @Test
+    @DisplayName("Should complete the future exceptionally when a write fails")
+    void shouldReportFailedWrite() throws Exception {
+        Path directory = Files.createDirectories(tempDir.resolve("occupied"));
+
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(1, FsyncPolicy.NONE)) {
+            CompletableFuture<Void> write = sink.write(directory, buffer(sink, "data"));
+            sink.flush();
+
+            assertThat(write).isCompletedExceptionally();
+            assertThatThrownBy(write::join).isInstanceOf(CompletionException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Should wait for pending writes on flush")
+    void shouldFlushPendingWrites() throws Exception {
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(2, FsyncPolicy.NONE)) {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                writes.add(sink.write(tempDir.resolve("f" + i), buffer(sink, "x".repeat(10_000))));
+            }
+
+            sink.flush();
+
+            assertThat(writes).allMatch(CompletableFuture::isDone);
+        }
+    }
+
+    @Test
+    @DisplayName("Should stream an output into place on the calling thread")
+    void shouldStreamOutputIntoPlace() throws Exception {
+        // Given
+        Path path = tempDir.resolve("streamed/out.txt");
+
+        // When
+        CompletableFuture<Void> write;
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(1, FsyncPolicy.DATA)) {
+            write = sink.writeStreaming(path, out -> {
+                out.write("first ".getBytes(StandardCharsets.UTF_8));
+                out.write("second".getBytes(StandardCharsets.UTF_8));
+            });
+
+            // Then - written before the sink is flushed
+            assertThat(write).isCompleted();
+            assertThat(path).hasContent("first second");
+        }
+        try (var files = Files.list(path.getParent())) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactly("out.txt");
+        }
+    }
+
+    @Test
+    @DisplayName("Should leave nothing behind when a streaming encoder fails")
+    void shouldDiscardFailedStreamingWrite() throws Exception {
+        // Given
+        Path path = tempDir.resolve("failed.txt");
+
+        // When / Then
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(1, FsyncPolicy.NONE)) {
+            assertThatThrownBy(() -> sink.writeStreaming(path, out -> {
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("encoder failed");
+            })).isInstanceOf(IOException.class).hasMessage("encoder failed");
+        }
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject fewer than one writer thread")
+    void shouldRejectInvalidWriterThreads() {
+        assertThatThrownBy(() -> new FileSystemOutputSink(0, FsyncPolicy.NONE))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Writer threads");
+    }
+
+    private static PooledBuffer buffer(OutputSink sink, String content) {
+        PooledBuffer buffer = sink.allocate();
+        buffer.write(content.getBytes(StandardCharsets.UTF_8), 0, content.length());
+        return buffer;
+    }
+}
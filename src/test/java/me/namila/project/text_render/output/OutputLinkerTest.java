@@ -0,0 +1,51 @@
+package me.namila.project.text_render.output;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link OutputLinker}.
+ */
+class OutputLinkerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should create the target with the source's content")
+    void shouldLinkOutput() throws Exception {
+        // Given
+        Path source = Files.writeString(tempDir.resolve("a.png"), "image bytes");
+        Path target = tempDir.resolve("nested/b.png");
+
+        // When
+        OutputLinker.Method method = OutputLinker.link(source, target);
+
+        // Then
+        assertThat(method).isNotNull();
+        assertThat(target).hasContent("image bytes");
+        if (method == OutputLinker.Method.HARD_LINK) {
+            assertThat(Files.isSameFile(source, target)).isTrue();
+        }
+        try (var files = Files.list(target.getParent())) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    @DisplayName("Should replace an existing target")
+    void shouldReplaceExistingTarget() throws Exception {
+        Path source = Files.writeString(tempDir.resolve("a.png"), "new");
+        Path target = Files.writeString(tempDir.resolve("b.png"), "old output");
+
+        OutputLinker.link(source, target);
+
+        assertThat(target).hasContent("new");
+    }
+}
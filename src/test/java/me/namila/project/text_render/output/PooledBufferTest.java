@@ -0,0 +1,86 @@
+package me.namila.project.text_render.output;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PooledBuffer} and {@link BufferPool}.
+ */
+class PooledBufferTest {
+
+    @Test
+    @DisplayName("Should grow beyond the initial capacity")
+    void shouldGrow() throws Exception {
+        // Given
+        BufferPool pool = new BufferPool(8, 1024, 4);
+        PooledBuffer buffer = pool.acquire();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            buffer.write(i);
+        }
+        buffer.write(new byte[] {1, 2, 3}, 1, 2);
+
+        // Then
+        assertThat(buffer.size()).isEqualTo(102);
+        byte[] bytes = buffer.toByteArray();
+        assertThat(bytes[99]).isEqualTo((byte) 99);
+        assertThat(bytes[100]).isEqualTo((byte) 2);
+        assertThat(bytes[101]).isEqualTo((byte) 3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.writeTo(out);
+        assertThat(out.toByteArray()).isEqualTo(bytes);
+        ByteBuffer view = buffer.asByteBuffer();
+        assertThat(view.remaining()).isEqualTo(102);
+        assertThat(view.isReadOnly()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reuse released arrays")
+    void shouldReuseReleasedArrays() {
+        BufferPool pool = new BufferPool(16, 1024, 2);
+        PooledBuffer first = pool.acquire();
+        first.write(42);
+        first.release();
+        first.release();
+
+        assertThat(pool.getPooledCount()).isEqualTo(1);
+        PooledBuffer second = pool.acquire();
+        assertThat(second.size()).isZero();
+        assertThat(pool.getPooledCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not pool arrays above the retained capacity or beyond the pool size")
+    void shouldBoundPool() {
+        BufferPool pool = new BufferPool(16, 64, 1);
+        PooledBuffer large = pool.acquire();
+        large.write(new byte[100], 0, 100);
+        large.release();
+        assertThat(pool.getPooledCount()).isZero();
+
+        PooledBuffer a = pool.acquire();
+        PooledBuffer b = pool.acquire();
+        a.release();
+        b.release();
+        assertThat(pool.getPooledCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject use after release")
+    void shouldRejectUseAfterRelease() {
+        PooledBuffer buffer = new BufferPool().acquire();
+        buffer.release();
+
+        assertThatThrownBy(() -> buffer.write(1))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("released");
+    }
+}
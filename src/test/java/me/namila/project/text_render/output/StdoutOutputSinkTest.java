@@ -0,0 +1,52 @@
+package me.namila.project.text_render.output;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link StdoutOutputSink} and {@link InMemoryOutputSink}.
+ */
+class StdoutOutputSinkTest {
+
+    @Test
+    @DisplayName("Should write outputs back to back to the stream")
+    void shouldWriteToStream() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        try (StdoutOutputSink sink = new StdoutOutputSink(out)) {
+            assertThat(sink.write(Path.of("a"), buffer(sink, "first|"))).isCompleted();
+            assertThat(sink.write(Path.of("b"), buffer(sink, "second"))).isCompleted();
+        }
+
+        // Then
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("first|second");
+    }
+
+    @Test
+    @DisplayName("Should keep outputs in memory by path")
+    void shouldKeepOutputsInMemory() {
+        InMemoryOutputSink sink = new InMemoryOutputSink();
+
+        sink.write(Path.of("out", "a.png"), buffer(sink, "png"));
+        sink.write(Path.of("out", "b.pdf"), buffer(sink, "pdf"));
+
+        assertThat(sink.size()).isEqualTo(2);
+        assertThat(sink.getPaths()).containsExactlyInAnyOrder(Path.of("out", "a.png"), Path.of("out", "b.pdf"));
+        assertThat(new String(sink.get(Path.of("out", "a.png")), StandardCharsets.UTF_8)).isEqualTo("png");
+        assertThat(sink.get(Path.of("missing"))).isNull();
+    }
+
+    private static PooledBuffer buffer(OutputSink sink, String content) {
+        PooledBuffer buffer = sink.allocate();
+        buffer.write(content.getBytes(StandardCharsets.UTF_8), 0, content.length());
+        return buffer;
+    }
+}
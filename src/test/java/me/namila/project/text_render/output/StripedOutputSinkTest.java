@@ -0,0 +1,174 @@
+package me.namila.project.text_render.output;
+
+import me.namila.project.text_render.model.FsyncPolicy;
+import me.namila.project.text_render.model.StripePolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link StripedOutputSink}.
+ */
+class StripedOutputSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should spread outputs evenly round-robin and record them in the manifest")
+    void shouldStripeRoundRobin() throws Exception {
+        // Given
+        List<Path> roots = List.of(tempDir.resolve("disk1"), tempDir.resolve("disk2"), tempDir.resolve("disk3"));
+        int[] counts;
+
+        // When
+        try (StripedOutputSink sink = new StripedOutputSink(roots, StripePolicy.ROUND_ROBIN,
+                root -> new FileSystemOutputSink(1, FsyncPolicy.NONE))) {
+            sink.prepareDirectories(List.of(roots.get(0).resolve("00")));
+            for (int i = 0; i < 9; i++) {
+                sink.write(roots.get(0).resolve("00").resolve("out" + i + ".txt"), buffer(sink, "content " + i));
+            }
+            sink.flush();
+            counts = sink.getWriteCounts();
+        }
+
+        // Then
+        assertThat(counts).containsExactly(3, 3, 3);
+        assertThat(roots).allMatch(root -> Files.isDirectory(root.resolve("00")));
+        List<String> manifest = Files.readAllLines(roots.get(0).resolve(StripedOutputSink.MANIFEST_FILE_NAME));
+        assertThat(manifest).hasSize(10).first().isEqualTo("output,location");
+        for (String line : manifest.subList(1, manifest.size())) {
+            String[] columns = line.split(",");
+            Path location = Path.of(columns[1]);
+            assertThat(columns[0]).startsWith("00/");
+            assertThat(location.getFileName().toString()).isEqualTo(Path.of(columns[0]).getFileName().toString());
+            assertThat(location).hasContent("content " + location.getFileName().toString().replaceAll("\\D", ""));
+        }
+    }
+
+    @Test
+    @DisplayName("Should send outputs to the root with the fewest pending writes")
+    void shouldPreferLeastQueuedRoot() throws Exception {
+        // Given - the first root never completes its writes
+        List<Path> roots = List.of(tempDir.resolve("slow"), tempDir.resolve("fast"));
+        InMemoryOutputSink fast = new InMemoryOutputSink();
+        OutputSink slow = new InMemoryOutputSink() {
+            @Override
+            public CompletableFuture<Void> write(Path path, PooledBuffer buffer) {
+                buffer.release();
+                return new CompletableFuture<>();
+            }
+        };
+        List<OutputSink> sinks = new ArrayList<>(List.of(slow, fast));
+
+        // When
+        try (StripedOutputSink sink = new StripedOutputSink(roots, StripePolicy.LEAST_QUEUED, root -> sinks.remove(0))) {
+            for (int i = 0; i < 10; i++) {
+                sink.write(roots.get(0).resolve("out" + i + ".txt"), buffer(sink, "x"));
+            }
+        }
+
+        // Then - the slow root received at most one output
+        assertThat(fast.size()).isGreaterThanOrEqualTo(9);
+        assertThat(fast.getPaths()).allMatch(path -> path.startsWith(roots.get(1).toAbsolutePath()));
+    }
+
+    @Test
+    @DisplayName("Should stream outputs into the selected root and record them in the manifest")
+    void shouldStripeStreamedOutputs() throws Exception {
+        // Given
+        List<Path> roots = List.of(tempDir.resolve("disk1"), tempDir.resolve("disk2"));
+
+        // When
+        try (StripedOutputSink sink = new StripedOutputSink(roots, StripePolicy.ROUND_ROBIN,
+                root -> new FileSystemOutputSink(1, FsyncPolicy.NONE))) {
+            for (int i = 0; i < 4; i++) {
+                String content = "streamed " + i;
+                sink.writeStreaming(roots.get(0).resolve("out" + i + ".txt"),
+                    out -> out.write(content.getBytes(StandardCharsets.UTF_8))).join();
+            }
+            assertThat(sink.getWriteCounts()).containsExactly(2, 2);
+        }
+
+        // Then
+        List<String> manifest = Files.readAllLines(roots.get(0).resolve(StripedOutputSink.MANIFEST_FILE_NAME));
+        assertThat(manifest).hasSize(5);
+        for (String line : manifest.subList(1, manifest.size())) {
+            Path location = Path.of(line.split(",")[1]);
+            assertThat(location).hasContent("streamed " + location.getFileName().toString().replaceAll("\\D", ""));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject outputs outside the first root")
+    void shouldRejectOutputOutsideRoot() throws Exception {
+        List<Path> roots = List.of(tempDir.resolve("a"), tempDir.resolve("b"));
+        try (StripedOutputSink sink = new StripedOutputSink(roots, StripePolicy.ROUND_ROBIN,
+                root -> new InMemoryOutputSink())) {
+            PooledBuffer buffer = buffer(sink, "x");
+            assertThatThrownBy(() -> sink.write(tempDir.resolve("elsewhere.txt"), buffer))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not below the output root");
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the manifest to the given file and merge manifests by output name")
+    void shouldMergeManifests() throws Exception {
+        // Given - two runs striping different outputs, the second also re-rendering "b.txt"
+        List<Path> roots = List.of(tempDir.resolve("a"), tempDir.resolve("b"));
+        Path first = tempDir.resolve("manifest.csv.1");
+        Path second = tempDir.resolve("manifest.csv.2");
+        try (StripedOutputSink sink = new StripedOutputSink(roots, StripePolicy.ROUND_ROBIN,
+                root -> new InMemoryOutputSink(), first)) {
+            sink.write(roots.get(0).resolve("c.txt"), buffer(sink, "x"));
+            sink.write(roots.get(0).resolve("b.txt"), buffer(sink, "x"));
+            assertThat(sink.getManifestFile()).isEqualTo(first);
+        }
+        try (StripedOutputSink sink = new StripedOutputSink(roots, StripePolicy.ROUND_ROBIN,
+                root -> new InMemoryOutputSink(), second)) {
+            sink.write(roots.get(0).resolve("a b,\"q\".txt"), buffer(sink, "x"));
+            sink.write(roots.get(0).resolve("b.txt"), buffer(sink, "x"));
+        }
+
+        // When
+        Path target = tempDir.resolve("manifest.csv");
+        int outputs = StripedOutputSink.mergeManifests(List.of(first, second), target);
+
+        // Then - sorted by output name, the last run's location wins
+        List<String> manifest = Files.readAllLines(target);
+        assertThat(outputs).isEqualTo(3);
+        assertThat(manifest).hasSize(4).first().isEqualTo("output,location");
+        assertThat(manifest.get(1)).startsWith("\"a b,\"\"q\"\".txt\",");
+        assertThat(manifest.get(2)).isEqualTo("b.txt," + roots.get(1).toAbsolutePath().resolve("b.txt"));
+        assertThat(manifest.get(3)).startsWith("c.txt,");
+        assertThat(roots.get(0).resolve(StripedOutputSink.MANIFEST_FILE_NAME)).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should refuse to merge a file that is not a manifest")
+    void shouldRejectNonManifest() throws Exception {
+        Path part = Files.writeString(tempDir.resolve("rejects.csv"), "name,prefix,postfix\n");
+
+        assertThatThrownBy(() -> StripedOutputSink.mergeManifests(List.of(part), tempDir.resolve("out.csv")))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Not an output manifest");
+    }
+
+    private static PooledBuffer buffer(OutputSink sink, String content) {
+        PooledBuffer buffer = sink.allocate();
+        buffer.write(content.getBytes(StandardCharsets.UTF_8), 0, content.length());
+        return buffer;
+    }
+}
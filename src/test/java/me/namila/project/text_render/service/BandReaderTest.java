@@ -0,0 +1,104 @@
+package me.namila.project.text_render.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BandReader}.
+ */
+class BandReaderTest {
+
+    private static final int WIDTH = 90;
+    private static final int HEIGHT = 70;
+    private static final int BAND_HEIGHT = 16;
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @CsvSource({
+        "png, false, 1",
+        "jpeg, false, 1",
+        "png, true, 5",
+        "jpeg, true, 5"
+    })
+    @DisplayName("Should deliver the decoded pixels band by band, decoding single-pass images once")
+    void shouldReadBandsInOrder(String format, boolean progressive, int expectedDecodes) throws Exception {
+        // Given
+        Path template = writeTemplate(format, progressive);
+        BufferedImage full = ImageIO.read(template.toFile());
+        List<Integer> bandRows = new ArrayList<>();
+        AtomicInteger decodes = new AtomicInteger();
+
+        // When
+        try (ImageInputStream input = ImageIO.createImageInputStream(template.toFile())) {
+            ImageReader reader = ImageIO.getImageReaders(input).next();
+            reader.setInput(input, false, true);
+            reader.addIIOReadProgressListener(countImageStarts(decodes));
+            BandReader.read(reader, BAND_HEIGHT, (band, y) -> {
+                // Then - every band holds the rows of the full decode
+                assertThat(y).isEqualTo(bandRows.size() * BAND_HEIGHT);
+                assertThat(band.getWidth()).isEqualTo(WIDTH);
+                for (int row = 0; row < band.getHeight(); row++) {
+                    for (int x = 0; x < WIDTH; x++) {
+                        assertThat(band.getRGB(x, row)).isEqualTo(full.getRGB(x, y + row));
+                    }
+                }
+                bandRows.add(band.getHeight());
+            });
+            reader.dispose();
+        }
+
+        assertThat(bandRows).containsExactly(16, 16, 16, 16, 6);
+        assertThat(decodes).hasValue(expectedDecodes);
+    }
+
+    private Path writeTemplate(String format, boolean progressive) throws Exception {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, (x * 7 % 256) << 16 | (y * 11 % 256) << 8 | (x * y % 256));
+            }
+        }
+        Path path = tempDir.resolve("template-" + progressive + "." + format);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setProgressiveMode(progressive ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(path.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return path;
+    }
+
+    private static IIOReadProgressListener countImageStarts(AtomicInteger count) {
+        return (IIOReadProgressListener) Proxy.newProxyInstance(BandReaderTest.class.getClassLoader(),
+            new Class<?>[] {IIOReadProgressListener.class}, (proxy, method, args) -> {
+                if (method.getName().equals("imageStarted")) {
+                    count.incrementAndGet();
+                }
+                return null;
+            });
+    }
+}
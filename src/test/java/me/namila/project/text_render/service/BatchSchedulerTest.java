@@ -0,0 +1,161 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.BatchPriority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link BatchScheduler}.
+ */
+class BatchSchedulerTest {
+
+    @Test
+    @DisplayName("Should block once the shared capacity is reached by any batch")
+    void shouldCapAcrossBatches() throws Exception {
+        // Given
+        BatchScheduler scheduler = new BatchScheduler(2);
+        BatchScheduler.Batch first = scheduler.register("first", BatchPriority.DEFAULT);
+        BatchScheduler.Batch second = scheduler.register("second", BatchPriority.DEFAULT);
+        first.acquire();
+        second.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+
+        // When
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                first.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Then
+        assertThat(acquired.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(scheduler.getRunning()).isEqualTo(2);
+        second.release();
+        assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+        waiter.join();
+        assertThat(first.getGranted()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should serve a higher priority batch before a lower one that waited longer")
+    void shouldServeHigherPriorityFirst() throws Exception {
+        BatchScheduler scheduler = new BatchScheduler(1);
+        BatchScheduler.Batch holder = scheduler.register("holder", BatchPriority.DEFAULT);
+        BatchScheduler.Batch bulk = scheduler.register("bulk", BatchPriority.DEFAULT);
+        BatchScheduler.Batch preview = scheduler.register("preview", new BatchPriority(10, 1));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        holder.acquire();
+
+        Thread bulkWaiter = startWaiter(bulk, order);
+        awaitWaiting(bulk, 1);
+        Thread previewWaiter = startWaiter(preview, order);
+        awaitWaiting(preview, 1);
+        holder.release();
+        bulkWaiter.join();
+        previewWaiter.join();
+
+        assertThat(order).containsExactly("preview", "bulk");
+    }
+
+    @Test
+    @DisplayName("Should share slots between batches of equal priority by weight")
+    void shouldShareSlotsByWeight() throws Exception {
+        // Given - a weight 3 and a weight 1 batch, each with 8 jobs waiting for a single slot
+        BatchScheduler scheduler = new BatchScheduler(1);
+        BatchScheduler.Batch heavy = scheduler.register("heavy", new BatchPriority(0, 3));
+        BatchScheduler.Batch light = scheduler.register("light", BatchPriority.DEFAULT);
+        BatchScheduler.Batch holder = scheduler.register("holder", BatchPriority.DEFAULT);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        holder.acquire();
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            waiters.add(startWaiter(heavy, order));
+            waiters.add(startWaiter(light, order));
+        }
+        awaitWaiting(heavy, 8);
+        awaitWaiting(light, 8);
+
+        // When
+        holder.release();
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+
+        // Then - three heavy jobs start for every light one while both are waiting
+        assertThat(order).hasSize(16);
+        assertThat(order.subList(0, 8)).containsExactly(
+            "heavy", "light", "heavy", "heavy", "heavy", "light", "heavy", "heavy");
+    }
+
+    @Test
+    @DisplayName("Should not let a batch that was idle claim the slots it did not use")
+    void shouldResumeIdleBatchAtCurrentVirtualTime() throws Exception {
+        BatchScheduler scheduler = new BatchScheduler(1);
+        BatchScheduler.Batch busy = scheduler.register("busy", BatchPriority.DEFAULT);
+        BatchScheduler.Batch idle = scheduler.register("idle", BatchPriority.DEFAULT);
+        for (int i = 0; i < 10; i++) {
+            busy.acquire();
+            busy.release();
+        }
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        busy.acquire();
+
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            waiters.add(startWaiter(idle, order));
+            waiters.add(startWaiter(busy, order));
+        }
+        awaitWaiting(idle, 2);
+        awaitWaiting(busy, 2);
+        busy.release();
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+
+        assertThat(order).containsExactly("idle", "busy", "idle", "busy");
+    }
+
+    @Test
+    @DisplayName("Should reject invalid capacities, weights and closed batches")
+    void shouldRejectInvalidUse() {
+        assertThatThrownBy(() -> new BatchScheduler(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BatchPriority(0, 0)).isInstanceOf(IllegalArgumentException.class);
+
+        BatchScheduler.Batch batch = new BatchScheduler(1).register("done", BatchPriority.DEFAULT);
+        batch.close();
+        assertThatThrownBy(batch::acquire).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(batch::release).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Thread startWaiter(BatchScheduler.Batch batch, List<String> order) {
+        return Thread.ofVirtual().start(() -> {
+            try {
+                batch.acquire();
+                order.add(batch.getName());
+                batch.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static void awaitWaiting(BatchScheduler.Batch batch, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batch.getWaiting() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(batch.getWaiting()).isEqualTo(count);
+    }
+}
@@ -0,0 +1,99 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.Alignment;
+import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.model.TextConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link Calibrator}.
+ */
+class CalibratorTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should measure a sample without writing outputs")
+    void shouldMeasureSample() throws Exception {
+        // Given
+        Path template = tempDir.resolve("template.png");
+        ImageIO.write(new BufferedImage(120, 60, BufferedImage.TYPE_INT_RGB), "png", template.toFile());
+        TextConfig textConfig = new TextConfig(10, 30, Alignment.LEFT);
+        List<RenderJob> jobs = IntStream.range(0, 6)
+            .mapToObj(i -> new RenderJob("Name " + i, textConfig, template, tempDir.resolve("out-" + i + ".png"), i))
+            .toList();
+
+        // When
+        Calibrator.Trial trial = new Calibrator(new ParallelExecutorService())
+            .measure("default", jobs, new PngRendererService(), 2);
+
+        // Then
+        assertThat(trial.jobs()).isEqualTo(6);
+        assertThat(trial.failures()).isZero();
+        assertThat(trial.threads()).isEqualTo(2);
+        assertThat(trial.jobsPerSecond()).isPositive();
+        assertThat(trial.peakHeapBytes()).isPositive();
+        assertThat(trial.averageOutputBytes()).isPositive();
+        assertThat(tempDir.resolve("out-0.png")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should pick the fastest encoder whose output is close to the smallest")
+    void shouldPickEncoderWithinSizeTolerance() {
+        // Given
+        Calibrator.Trial fastButLarge = trial("level=1", 4, SECOND, 150_000);
+        Calibrator.Trial small = trial("level=9", 4, 4 * SECOND, 100_000);
+        Calibrator.Trial nearlySmall = trial("level=6", 4, 2 * SECOND, 105_000);
+
+        // When / Then
+        assertThat(Calibrator.pickEncoder(List.of(fastButLarge, small, nearlySmall))).isEqualTo(nearlySmall);
+    }
+
+    @Test
+    @DisplayName("Should pick the fewest threads within the throughput tolerance of the best")
+    void shouldPickLowestParallelismNearBest() {
+        Calibrator.Trial one = trial("t", 1, 4 * SECOND, 1000);
+        Calibrator.Trial four = trial("t", 4, SECOND + SECOND / 50, 1000);
+        Calibrator.Trial eight = trial("t", 8, SECOND, 1000);
+
+        assertThat(Calibrator.pickParallelism(List.of(one, four, eight))).isEqualTo(four);
+    }
+
+    @Test
+    @DisplayName("Should ignore trials with failures")
+    void shouldIgnoreFailedTrials() {
+        Calibrator.Trial failed = new Calibrator.Trial("t", 8, 100, 1, SECOND / 10, 0, 1000);
+        Calibrator.Trial ok = trial("t", 2, SECOND, 1000);
+
+        assertThat(Calibrator.pickParallelism(List.of(failed, ok))).isEqualTo(ok);
+        assertThatThrownBy(() -> Calibrator.pickEncoder(List.of(failed)))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should derive the sequential threshold from the cost of a job")
+    void shouldDeriveSequentialThreshold() {
+        // 100 jobs in 1s = 10ms per job; 50ms break-even = 5 jobs
+        assertThat(Calibrator.sequentialThreshold(trial("t", 1, SECOND, 1000))).isEqualTo(5);
+        // Jobs slower than the break-even are always worth running in parallel
+        assertThat(Calibrator.sequentialThreshold(trial("t", 1, 100 * SECOND, 1000))).isEqualTo(1);
+    }
+
+    private static Calibrator.Trial trial(String label, int threads, long elapsedNanos, long outputBytesPerJob) {
+        return new Calibrator.Trial(label, threads, 100, 0, elapsedNanos, 0, 100 * outputBytesPerJob);
+    }
+}
@@ -0,0 +1,62 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.FailureBudget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CircuitBreaker}.
+ */
+class CircuitBreakerTest {
+
+    @Test
+    @DisplayName("Should open after consecutive failures and reset on success")
+    void shouldOpenAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(new FailureBudget(3, 0), 100);
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertThat(breaker.isOpen()).isFalse();
+
+        breaker.recordFailure();
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.getReason()).contains("3 consecutive failures");
+    }
+
+    @Test
+    @DisplayName("Should check the failure rate only after enough jobs finished")
+    void shouldOpenOnFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(new FailureBudget(0, 10), 1000);
+
+        for (int i = 0; i < FailureBudget.MIN_RATE_SAMPLE - 1; i++) {
+            if (i % 4 == 0) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
+        }
+        assertThat(breaker.isOpen()).isFalse();
+
+        breaker.recordSuccess();
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.getReason()).contains("5 of 20 jobs failed");
+    }
+
+    @Test
+    @DisplayName("Should never open without a budget")
+    void shouldStayClosedWithoutBudget() {
+        CircuitBreaker breaker = new CircuitBreaker(FailureBudget.NONE, 10);
+
+        for (int i = 0; i < 10; i++) {
+            breaker.recordFailure();
+        }
+
+        assertThat(breaker.isOpen()).isFalse();
+        assertThat(breaker.getReason()).isNull();
+    }
+}
@@ -0,0 +1,96 @@
+package me.namila.project.text_render.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ConcurrencyLimiter}.
+ */
+class ConcurrencyLimiterTest {
+
+    private static final double MILLIS = 1e6;
+
+    @Test
+    @DisplayName("Should block once the fixed limit is reached")
+    void shouldBlockAtFixedLimit() throws Exception {
+        // Given
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.fixed(2);
+        limiter.acquire();
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+
+        // When
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Then
+        assertThat(acquired.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        limiter.release(System.nanoTime());
+        assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+        waiter.join();
+        assertThat(limiter.describe()).isEqualTo("fixed limit 2");
+    }
+
+    @Test
+    @DisplayName("Should climb while throughput improves and back off when it drops")
+    void shouldHillClimbOnThroughput() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.adaptive(4, 16);
+
+        limiter.adjust(100, 10 * MILLIS);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        limiter.adjust(120, 10 * MILLIS);
+        assertThat(limiter.getLimit()).isEqualTo(6);
+
+        // Throughput dropped after the increase: multiplicative decrease
+        limiter.adjust(90, 10 * MILLIS);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        // Throughput recovered after the decrease: keep going down
+        limiter.adjust(110, 10 * MILLIS);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should give permits back when latency grows without throughput gain")
+    void shouldBackOffOnQueueing() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.adaptive(8, 16);
+        limiter.adjust(100, 10 * MILLIS);
+        assertThat(limiter.getLimit()).isEqualTo(9);
+
+        // Flat throughput with acceptable latency probes upwards
+        limiter.adjust(101, 12 * MILLIS);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        // Flat throughput, latency tripled: jobs only queue
+        limiter.adjust(100, 30 * MILLIS);
+        assertThat(limiter.getLimit()).isEqualTo(9);
+        assertThat(limiter.describe()).isEqualTo("adaptive limit 9 (range 8-10 of max 16)");
+    }
+
+    @Test
+    @DisplayName("Should keep the limit between 1 and the maximum")
+    void shouldClampLimit() {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.adaptive(2, 3);
+        for (int i = 1; i <= 5; i++) {
+            limiter.adjust(100 * i, MILLIS);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        ConcurrencyLimiter small = ConcurrencyLimiter.adaptive(1, 4);
+        small.adjust(100, MILLIS);
+        small.adjust(50, MILLIS);
+        small.adjust(100, MILLIS);
+        assertThat(small.getLimit()).isEqualTo(1);
+    }
+}
@@ -1,20 +1,32 @@
 package me.namila.project.text_render.service;
 
 import me.namila.project.text_render.model.CsvEntry;
+import me.namila.project.text_render.util.CsvRowIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CsvReaderServiceTest {
 
     private CsvReaderService csvReaderService;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         csvReaderService = new CsvReaderService();
@@ -139,6 +151,18 @@ class CsvReaderServiceTest {
         assertThat(result.get(0).name()).isEqualTo("Adam Smith");
     }
 
+    @Test
+    void shouldReadRejectsFileAsInput() throws IOException {
+        Path testFile = getResourcePath("rejects.csv");
+
+        List<CsvEntry> result = csvReaderService.readEntries(testFile);
+
+        // Header with extra columns is skipped; row, error and message columns are ignored
+        assertThat(result).containsExactly(
+            new CsvEntry("Adam Smith", "Mr.", ""),
+            new CsvEntry("Jane Doe", "Dr.", "PhD"));
+    }
+
     @Test
     void shouldHandleEmptyPrefixPostfixColumns() throws IOException {
         Path testFile = getResourcePath("multi-column.csv");
@@ -169,6 +193,150 @@ class CsvReaderServiceTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void shouldStreamEntriesInFileOrder() throws IOException {
+        Path testFile = getResourcePath("multi-column-with-header.csv");
+        List<CsvEntry> streamed = new ArrayList<>();
+
+        int count = csvReaderService.readEntries(testFile, streamed::add);
+
+        assertThat(count).isEqualTo(streamed.size());
+        assertThat(streamed).containsExactlyElementsOf(csvReaderService.readEntries(testFile));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 7, 16, 1 << 20})
+    void shouldParseMappedChunksLikeSequentialReader(int chunkBytes) throws IOException {
+        // Given - chunk boundaries fall inside lines, CRLF pairs and multi-byte characters
+        Path file = tempDir.resolve("mixed.csv");
+        Files.writeString(file, "name,prefix,postfix\r\nZoë Łukasz,Dr.,PhD\r\n\n  Adam Smith , Mr. ,\r"
+            + "Eve\nName,Prefix,Postfix\nBob,,Jr.");
+        List<CsvEntry> mapped = new ArrayList<>();
+
+        // When
+        int count = csvReaderService.readEntriesMapped(file, mapped::add, 3, chunkBytes);
+
+        // Then
+        assertThat(count).isEqualTo(4);
+        assertThat(mapped).containsExactlyElementsOf(csvReaderService.readEntries(file));
+    }
+
+    @Test
+    void shouldParseLargeFileInParallelInFileOrder() throws IOException {
+        // Given - large enough to be mapped and split into several chunks
+        Path file = tempDir.resolve("large.csv");
+        StringBuilder csv = new StringBuilder("name,prefix,postfix\n");
+        int rows = 0;
+        while (csv.length() < CsvReaderService.PARALLEL_MIN_BYTES * 2) {
+            csv.append("Person ").append(rows++).append(",Mx.,\n");
+        }
+        Files.writeString(file, csv);
+        csvReaderService.setParseThreads(4);
+        List<CsvEntry> entries = new ArrayList<>();
+
+        // When
+        int count = csvReaderService.readEntries(file, entries::add);
+
+        // Then
+        assertThat(count).isEqualTo(rows);
+        for (int row = 0; row < rows; row += 9973) {
+            assertThat(entries.get(row)).isEqualTo(new CsvEntry("Person " + row, "Mx.", ""));
+        }
+        assertThat(entries.getLast().name()).isEqualTo("Person " + (rows - 1));
+    }
+
+    @Test
+    void shouldReportMalformedInputInMappedChunks() throws IOException {
+        Path file = tempDir.resolve("latin1.csv");
+        Files.write(file, new byte[]{'A', 'n', 'n', 'a', '\n', 'J', 'o', 's', (byte) 0xE9, '\n'});
+
+        assertThatThrownBy(() -> csvReaderService.readEntriesMapped(file, entry -> { }, 2, 4))
+            .isInstanceOf(CharacterCodingException.class);
+    }
+
+    @Test
+    void shouldReadSelectedRowsThroughIndexLikeSequentialReader() throws IOException {
+        // Given - a header, blank lines, CRLF and CR line ends, and no final line end
+        Path file = tempDir.resolve("names.csv");
+        Files.writeString(file, "name,prefix,postfix\r\nAlice,Dr.,\r\n\r\n  Bob  \rCarol,,PhD\n\nalice\nDave");
+        List<CsvEntry> expected = csvReaderService.readEntries(file);
+        BitSet rows = new BitSet();
+        rows.set(1);
+        rows.set(3, 6);
+
+        // When
+        CsvRowIndex index = csvReaderService.indexRows(file);
+        List<CsvEntry> entries = new ArrayList<>();
+        List<Integer> rowIndexes = new ArrayList<>();
+        int count = csvReaderService.readRows(file, index, rows, (entry, row) -> {
+            entries.add(entry);
+            rowIndexes.add(row);
+        });
+
+        // Then - rows beyond the file are ignored, and the case-insensitive duplicate is recorded
+        assertThat(index.getRowCount()).isEqualTo(expected.size()).isEqualTo(5);
+        assertThat(count).isEqualTo(3);
+        assertThat(rowIndexes).containsExactly(1, 3, 4);
+        assertThat(entries).containsExactly(expected.get(1), expected.get(3), expected.get(4));
+        assertThat(index.getCollision(3)).isEqualTo(1);
+        assertThat(index.getCollision(0)).isZero();
+    }
+
+    @Test
+    void shouldReadLinesLongerThanReadBuffer() throws IOException {
+        Path file = tempDir.resolve("long.csv");
+        String longName = "x".repeat(200_000);
+        Files.writeString(file, "Alice\n" + longName + "\nBob\n");
+        BitSet rows = new BitSet();
+        rows.set(0, 3);
+        List<String> names = new ArrayList<>();
+
+        csvReaderService.readRows(file, csvReaderService.indexRows(file), rows, (entry, row) -> names.add(entry.name()));
+
+        assertThat(names).containsExactly("Alice", longName, "Bob");
+    }
+
+    @Test
+    void shouldBuildRowIndexOnceAndRebuildItWhenCsvChanges() throws IOException {
+        // Given
+        Path file = tempDir.resolve("names.csv");
+        Path indexFile = tempDir.resolve("names.csv.rowidx");
+        Files.writeString(file, "Alice\nBob\n");
+
+        // When
+        CsvRowIndex built = csvReaderService.openRowIndex(file, indexFile);
+        CsvRowIndex loaded = csvReaderService.openRowIndex(file, indexFile);
+        Files.writeString(file, "Alice\nBob\nCarol\n");
+        CsvRowIndex rebuilt = csvReaderService.openRowIndex(file, indexFile);
+
+        // Then
+        assertThat(indexFile).exists();
+        assertThat(built.getRowCount()).isEqualTo(loaded.getRowCount()).isEqualTo(2);
+        assertThat(loaded.getOffset(1)).isEqualTo(6);
+        assertThat(rebuilt.getRowCount()).isEqualTo(3);
+        assertThat(CsvRowIndex.load(indexFile, file).getRowCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRejectIndexOfChangedFile() throws IOException {
+        Path file = tempDir.resolve("names.csv");
+        Files.writeString(file, "Alice\nBob\n");
+        CsvRowIndex index = csvReaderService.indexRows(file);
+        Files.writeString(file, "Bob\n");
+        BitSet rows = new BitSet();
+        rows.set(0);
+
+        assertThatThrownBy(() -> csvReaderService.readRows(file, index, rows, (entry, row) -> { }))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("out of date");
+    }
+
+    @Test
+    void shouldRejectInvalidParseThreads() {
+        assertThatThrownBy(() -> csvReaderService.setParseThreads(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
     private Path getResourcePath(String filename) {
         try {
             return Path.of(Objects.requireNonNull(
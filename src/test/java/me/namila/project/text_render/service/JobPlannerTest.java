@@ -0,0 +1,80 @@
+package me.namila.project.text_render.service;
+
+import me.namila.project.text_render.model.Alignment;
+import me.namila.project.text_render.model.CsvEntry;
+import me.namila.project.text_render.model.JobTable;
+import me.namila.project.text_render.model.OutputLayout;
+import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.model.TextConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JobPlanner}.
+ */
+class JobPlannerTest {
+
+    private static final TextConfig CONFIG = new TextConfig(10, 20, Alignment.LEFT);
+    private static final Path TEMPLATE = Path.of("template.png");
+
+    @Test
+    @DisplayName("Should render each distinct row once and point its duplicates at it")
+    void shouldGroupDuplicates() {
+        // Given
+        JobTable table = table(new CsvEntry("Alice", "", ""), new CsvEntry("Bob", "", ""),
+            new CsvEntry("Alice", "", ""), new CsvEntry("Alice", "", ""));
+
+        // When
+        JobPlanner.Plan plan = JobPlanner.deduplicate(table, row -> true);
+
+        // Then
+        assertThat(plan.unique()).extracting(RenderJob::rowIndex).containsExactly(0, 1);
+        assertThat(plan.primaryOf(0)).isZero();
+        assertThat(plan.primaryOf(2)).isZero();
+        assertThat(plan.primaryOf(3)).isZero();
+        assertThat(plan.hasDuplicates(0)).isTrue();
+        assertThat(plan.hasDuplicates(1)).isFalse();
+        assertThat(plan.getDuplicateCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should compare the display text, including prefix and postfix")
+    void shouldCompareDisplayText() {
+        // "Aa" and "BB" have the same hash code
+        JobTable table = table(new CsvEntry("Aa", "", ""), new CsvEntry("BB", "", ""),
+            new CsvEntry("Alice", "Dr.", ""), new CsvEntry("Dr. Alice", "", ""), new CsvEntry("Alice", "", ""));
+
+        JobPlanner.Plan plan = JobPlanner.deduplicate(table, row -> true);
+
+        assertThat(plan.unique()).extracting(RenderJob::rowIndex).containsExactly(0, 1, 2, 4);
+        assertThat(plan.primaryOf(3)).isEqualTo(2);
+        assertThat(plan.getDuplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should only plan the selected rows")
+    void shouldPlanSelectedRows() {
+        JobTable table = table(new CsvEntry("Alice", "", ""), new CsvEntry("Alice", "", ""),
+            new CsvEntry("Alice", "", ""));
+
+        JobPlanner.Plan plan = JobPlanner.deduplicate(table, row -> row > 0);
+
+        assertThat(plan.unique()).extracting(RenderJob::rowIndex).containsExactly(1);
+        assertThat(plan.primaryOf(0)).isEqualTo(-1);
+        assertThat(plan.primaryOf(2)).isEqualTo(1);
+        assertThat(plan.hasDuplicates(0)).isFalse();
+    }
+
+    private static JobTable table(CsvEntry... entries) {
+        JobTable table = new JobTable(CONFIG, TEMPLATE, Path.of("out"), OutputLayout.FLAT,
+            (name, collision) -> name + "-" + collision + ".png");
+        for (int row = 0; row < entries.length; row++) {
+            table.add(entries[row], row, row);
+        }
+        return table;
+    }
+}
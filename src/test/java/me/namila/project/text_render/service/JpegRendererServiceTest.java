@@ -167,10 +167,73 @@ class JpegRendererServiceTest {
         assertThat(image).isNotNull();
     }
 
+    @Test
+    void shouldProduceSamePixelsWithIncrementalEncoding() throws Exception {
+        // Given
+        Path fullPath = tempDir.resolve("full.jpg");
+        Path incrementalPath = tempDir.resolve("incremental.jpg");
+        TextConfig config = new TextConfig(400, 300, Alignment.CENTER, "SansSerif", 36.0f);
+        JpegRendererService incrementalService = new JpegRendererService();
+        incrementalService.setIncrementalEncoding(true);
+
+        // When
+        jpegRendererService.render(new RenderJob("Incremental Text", config, templateJpeg, fullPath));
+        incrementalService.render(new RenderJob("Incremental Text", config, templateJpeg, incrementalPath));
+
+        // Then
+        BufferedImage full = ImageIO.read(fullPath.toFile());
+        BufferedImage incremental = ImageIO.read(incrementalPath.toFile());
+        assertThatJpegIsValid(incrementalPath);
+        for (int y = 0; y < TEMPLATE_HEIGHT; y++) {
+            for (int x = 0; x < TEMPLATE_WIDTH; x++) {
+                assertThat(incremental.getRGB(x, y)).isEqualTo(full.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void shouldProduceSamePixelsWhenStreamingBands() throws Exception {
+        // Given
+        Path fullPath = tempDir.resolve("full.jpg");
+        Path streamedPath = tempDir.resolve("streamed.jpg");
+        TextConfig config = new TextConfig(400, 300, Alignment.CENTER, "SansSerif", 36.0f);
+        JpegRendererService streamingService = new JpegRendererService();
+        streamingService.setStreamingBandHeight(32);
+
+        // When
+        jpegRendererService.render(new RenderJob("Streamed Text", config, templateJpeg, fullPath));
+        streamingService.render(new RenderJob("Streamed Text", config, templateJpeg, streamedPath));
+
+        // Then
+        BufferedImage full = ImageIO.read(fullPath.toFile());
+        BufferedImage streamed = ImageIO.read(streamedPath.toFile());
+        assertThatJpegIsValid(streamedPath);
+        for (int y = 0; y < TEMPLATE_HEIGHT; y++) {
+            for (int x = 0; x < TEMPLATE_WIDTH; x++) {
+                assertThat(streamed.getRGB(x, y)).isEqualTo(full.getRGB(x, y));
+            }
+        }
+    }
+
     private void assertThatJpegIsValid(Path jpegPath) throws Exception {
         BufferedImage image = ImageIO.read(jpegPath.toFile());
         assertThat(image).isNotNull();
         assertThat(image.getWidth()).isEqualTo(TEMPLATE_WIDTH);
         assertThat(image.getHeight()).isEqualTo(TEMPLATE_HEIGHT);
     }
+
+    @Test
+    void shouldEstimateJobMemoryFromTemplateHeader() throws Exception {
+        // Given - JPEG decodes to 3 bytes per pixel and is converted to a 4 byte RGB copy
+        long pixels = (long) TEMPLATE_WIDTH * TEMPLATE_HEIGHT;
+
+        // When
+        long estimate = jpegRendererService.estimateJobMemory(templateJpeg);
+        jpegRendererService.setStreamingBandHeight(64);
+        long streamingEstimate = jpegRendererService.estimateJobMemory(templateJpeg);
+
+        // Then - streaming only holds one band of decoded pixels
+        assertThat(estimate).isEqualTo(pixels * (3 + 4 + 1));
+        assertThat(streamingEstimate).isEqualTo(TEMPLATE_WIDTH * 64L * (3 + 4) + pixels);
+    }
 }
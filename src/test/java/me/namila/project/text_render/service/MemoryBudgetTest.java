@@ -0,0 +1,97 @@
+package me.namila.project.text_render.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MemoryBudget}.
+ */
+class MemoryBudgetTest {
+
+    private static final long MB = 1L << 20;
+
+    @Test
+    @DisplayName("Should hold back jobs that do not fit into the budget")
+    void shouldWaitForMemory() throws Exception {
+        // Given
+        MemoryBudget budget = new MemoryBudget(100 * MB, () -> 0.2);
+        budget.acquire(40 * MB);
+        budget.acquire(40 * MB);
+        CountDownLatch admitted = new CountDownLatch(1);
+
+        // When
+        Thread waiter = Thread.ofVirtual().start(() -> acquire(budget, 40 * MB, admitted));
+
+        // Then
+        assertThat(admitted.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        budget.release(40 * MB);
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+        waiter.join();
+        assertThat(budget.getReserved()).isEqualTo(80 * MB);
+    }
+
+    @Test
+    @DisplayName("Should always admit a single job, however large")
+    void shouldAdmitOversizedJobAlone() throws Exception {
+        MemoryBudget budget = new MemoryBudget(10 * MB, () -> 0.2);
+
+        budget.acquire(50 * MB);
+
+        assertThat(budget.getReserved()).isEqualTo(50 * MB);
+    }
+
+    @Test
+    @DisplayName("Should admit fewer jobs under heap pressure and recover afterwards")
+    void shouldBackOffUnderPressure() throws Exception {
+        // Given
+        AtomicReference<Double> heapUsage = new AtomicReference<>(0.2);
+        MemoryBudget budget = new MemoryBudget(100 * MB, heapUsage::get);
+        budget.acquire(20 * MB);
+        budget.acquire(20 * MB);
+
+        // When - the heap fills up
+        heapUsage.set(0.95);
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread waiter = Thread.ofVirtual().start(() -> acquire(budget, 20 * MB, admitted));
+
+        // Then - no new job starts although the budget has room
+        assertThat(admitted.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(budget.getEffectiveLimit()).isEqualTo(30 * MB);
+
+        // When - the pressure is gone and a job finishes
+        heapUsage.set(0.3);
+        budget.release(20 * MB);
+
+        // Then
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+        waiter.join();
+    }
+
+    @Test
+    @DisplayName("Should shrink the budget after running out of memory")
+    void shouldShrinkAfterOutOfMemory() throws Exception {
+        MemoryBudget budget = new MemoryBudget(100 * MB, () -> 0.2);
+        budget.acquire(40 * MB);
+
+        budget.recordOutOfMemory();
+
+        assertThat(budget.getEffectiveLimit()).isEqualTo(30 * MB);
+        budget.release(40 * MB);
+        assertThat(budget.getEffectiveLimit()).isEqualTo(30 * MB + 100 * MB / MemoryBudget.RECOVERY_STEPS);
+    }
+
+    private static void acquire(MemoryBudget budget, long bytes, CountDownLatch admitted) {
+        try {
+            budget.acquire(bytes);
+            admitted.countDown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,24 +1,41 @@
 package me.namila.project.text_render.service;
 
 import me.namila.project.text_render.model.Alignment;
+import me.namila.project.text_render.model.BatchPriority;
+import me.namila.project.text_render.model.FailureBudget;
+import me.namila.project.text_render.model.MemoryLimit;
+import me.namila.project.text_render.model.FsyncPolicy;
 import me.namila.project.text_render.model.RenderJob;
+import me.namila.project.text_render.model.RetryPolicy;
 import me.namila.project.text_render.model.TextConfig;
+import me.namila.project.text_render.output.FileSystemOutputSink;
+import me.namila.project.text_render.output.InMemoryOutputSink;
+import me.namila.project.text_render.output.OutputSink;
+import me.namila.project.text_render.output.PooledBuffer;
 import me.namila.project.text_render.util.ProgressTracker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ParallelExecutorServiceTest {
 
@@ -207,6 +224,397 @@ class ParallelExecutorServiceTest {
         assertThat(isVirtual).allMatch(v -> v);
     }
 
+    @Test
+    void shouldWriteOutputsThroughSink() throws Exception {
+        // Given
+        RendererService renderer = new TextRenderer();
+        List<RenderJob> jobs = createTestJobs(20);
+        ProgressTracker tracker = new ProgressTracker(20);
+
+        // When
+        try (OutputSink sink = new FileSystemOutputSink(2, FsyncPolicy.NONE)) {
+            parallelExecutorService.executeAll(jobs, renderer, 4, tracker, 0, sink);
+        }
+
+        // Then
+        assertThat(tracker.getCompleted()).isEqualTo(20);
+        for (RenderJob job : jobs) {
+            assertThat(job.outputPath()).hasContent(job.text());
+        }
+    }
+
+    @Test
+    void shouldCountFailedSinkWritesAsFailures() throws Exception {
+        // Given - the output path of one job is an existing directory, so its write fails
+        RendererService renderer = new TextRenderer();
+        List<RenderJob> jobs = createTestJobs(3);
+        Files.createDirectories(jobs.get(1).outputPath());
+        ProgressTracker tracker = new ProgressTracker(3);
+
+        // When
+        InMemoryOutputSink memory = new InMemoryOutputSink();
+        try (OutputSink sink = new FileSystemOutputSink(1, FsyncPolicy.NONE)) {
+            parallelExecutorService.executeAll(jobs, renderer, 2, tracker, 10, sink);
+        }
+        parallelExecutorService.executeAll(jobs, renderer, 2, new ProgressTracker(3), 10, memory);
+
+        // Then - completion is only counted once the write succeeded
+        assertThat(tracker.getCompleted()).isEqualTo(2);
+        assertThat(memory.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotifyListenerOfEachOutcome() throws Exception {
+        // Given - one render fails and one write fails
+        RendererService renderer = new TextRenderer() {
+            @Override
+            public CompletableFuture<Void> render(RenderJob job, OutputSink sink) throws Exception {
+                if (job.text().equals("Test 0")) {
+                    throw new IllegalStateException("render failed");
+                }
+                return super.render(job, sink);
+            }
+        };
+        List<RenderJob> jobs = createTestJobs(12);
+        Files.createDirectories(jobs.get(1).outputPath());
+        List<String> completed = new CopyOnWriteArrayList<>();
+        List<String> failed = new CopyOnWriteArrayList<>();
+        JobListener listener = new JobListener() {
+            @Override
+            public void jobCompleted(RenderJob job) {
+                completed.add(job.text());
+            }
+
+            @Override
+            public void jobFailed(RenderJob job, Throwable error) {
+                failed.add(job.text() + ": " + error.getClass().getSimpleName());
+            }
+        };
+
+        // When
+        try (OutputSink sink = new FileSystemOutputSink(2, FsyncPolicy.NONE)) {
+            parallelExecutorService.executeAll(jobs, renderer, 4, new ProgressTracker(12), 0, sink, listener);
+        }
+
+        // Then
+        assertThat(completed).hasSize(10).doesNotContain("Test 0", "Test 1");
+        assertThat(failed).hasSize(2).contains("Test 0: IllegalStateException")
+            .anyMatch(outcome -> outcome.startsWith("Test 1: "));
+    }
+
+    @Test
+    void shouldInterruptJobsExceedingTheirTimeBudget() throws Exception {
+        // Given - one job hangs
+        RendererService renderer = job -> {
+            if (job.text().equals("Test 3")) {
+                Thread.sleep(60_000);
+            }
+        };
+        parallelExecutorService.setJobTimeout(Duration.ofMillis(200));
+        List<RenderJob> jobs = createTestJobs(12);
+        ProgressTracker tracker = new ProgressTracker(12);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+        // When
+        long start = System.nanoTime();
+        parallelExecutorService.executeAll(jobs, renderer, 4, tracker, 0, null, new JobListener() {
+            @Override
+            public void jobCompleted(RenderJob job) {
+            }
+
+            @Override
+            public void jobFailed(RenderJob job, Throwable error) {
+                failures.add(error);
+            }
+        });
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertThat(tracker.getCompleted()).isEqualTo(11);
+        assertThat(failures).singleElement().isInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void shouldKeepPermitOfTimedOutJobUntilItReturns() {
+        // Given - the first job ignores its interrupt and runs well past its budget
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        RendererService renderer = job -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                if (job.text().equals("Test 0")) {
+                    long end = System.nanoTime() + Duration.ofMillis(600).toNanos();
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                }
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+        parallelExecutorService.setJobTimeout(Duration.ofMillis(100));
+        ProgressTracker tracker = new ProgressTracker(4);
+
+        // When
+        parallelExecutorService.executeAll(createTestJobs(4), renderer, 1, tracker, 0);
+
+        // Then - the job is failed at its deadline, but the next one only starts once it returned
+        assertThat(tracker.getCompleted()).isEqualTo(3);
+        assertThat(maxRunning).hasValue(1);
+    }
+
+    @Test
+    void shouldCreateJobsOnlyWhenTheyAreAdmitted() {
+        // Given - a job list creating each job when it is read, like the job table
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger maxAlive = new AtomicInteger();
+        List<RenderJob> jobs = new AbstractList<>() {
+            @Override
+            public RenderJob get(int index) {
+                created.incrementAndGet();
+                return createJob("Test " + index);
+            }
+
+            @Override
+            public int size() {
+                return 20;
+            }
+        };
+        RendererService renderer = job -> {
+            maxAlive.accumulateAndGet(created.get() - finished.get(), Math::max);
+            Thread.sleep(10);
+            finished.incrementAndGet();
+        };
+        ProgressTracker tracker = new ProgressTracker(20);
+
+        // When
+        parallelExecutorService.executeAll(jobs, renderer, 2, tracker, 0);
+
+        // Then - besides the job read up front for the memory estimate, only running jobs exist
+        assertThat(tracker.getCompleted()).isEqualTo(20);
+        assertThat(maxAlive.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void shouldDiscardOutputOfTimedOutJob() {
+        // Given - the first job ignores its interrupt and hands its output over after its deadline
+        RendererService renderer = new RendererService() {
+            @Override
+            public void render(RenderJob job) {
+            }
+
+            @Override
+            public CompletableFuture<Void> render(RenderJob job, OutputSink sink) {
+                if (job.text().equals("Test 0")) {
+                    long end = System.nanoTime() + Duration.ofMillis(400).toNanos();
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                }
+                PooledBuffer buffer = sink.allocate();
+                buffer.write(1);
+                return sink.write(job.outputPath(), buffer);
+            }
+        };
+        parallelExecutorService.setJobTimeout(Duration.ofMillis(100));
+        List<RenderJob> jobs = createTestJobs(3);
+        ProgressTracker tracker = new ProgressTracker(3);
+        InMemoryOutputSink sink = new InMemoryOutputSink();
+
+        // When
+        parallelExecutorService.executeAll(jobs, renderer, 1, tracker, 0, sink);
+
+        // Then - the failed row has no output, the others were written
+        assertThat(tracker.getCompleted()).isEqualTo(2);
+        assertThat(sink.getPaths()).containsExactlyInAnyOrder(jobs.get(1).outputPath(), jobs.get(2).outputPath());
+    }
+
+    @Test
+    void shouldContinueSequentialBatchAfterTimeout() {
+        // Given
+        RendererService renderer = job -> {
+            if (job.text().equals("Test 0")) {
+                Thread.sleep(60_000);
+            }
+        };
+        parallelExecutorService.setJobTimeout(Duration.ofMillis(100));
+        ProgressTracker tracker = new ProgressTracker(3);
+
+        // When
+        parallelExecutorService.executeAll(createTestJobs(3), renderer, 1, tracker, 10);
+
+        // Then - the interrupt of the first job does not leak into the next ones
+        assertThat(tracker.getCompleted()).isEqualTo(2);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    @Test
+    void shouldAbortBatchWhenFailureBudgetIsExhausted() {
+        // Given - every render fails
+        AtomicInteger attempts = new AtomicInteger();
+        RendererService renderer = job -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("font not found");
+        };
+        parallelExecutorService.setFailureBudget(new FailureBudget(3, 0));
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+        // When / Then
+        assertThatThrownBy(() -> parallelExecutorService.executeAll(createTestJobs(100), renderer, 1,
+            new ProgressTracker(100), 0, null, new JobListener() {
+                @Override
+                public void jobCompleted(RenderJob job) {
+                }
+
+                @Override
+                public void jobFailed(RenderJob job, Throwable error) {
+                    failures.add(error);
+                }
+            }))
+            .isInstanceOf(BatchAbortedException.class)
+            .hasMessageContaining("3 consecutive failures");
+        assertThat(attempts.get()).isLessThan(10);
+        assertThat(failures).hasSize(100);
+        assertThat(failures.stream().filter(BatchAbortedException.class::isInstance).count())
+            .isEqualTo(100 - attempts.get());
+    }
+
+    @Test
+    void shouldRetryTransientRenderFailures() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        RendererService renderer = job -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("Resource temporarily unavailable");
+            }
+        };
+        parallelExecutorService.setRetryPolicy(new RetryPolicy(2, Duration.ofMillis(1)));
+        ProgressTracker tracker = new ProgressTracker(1);
+
+        // When
+        parallelExecutorService.executeAll(createTestJobs(1), renderer, 1, tracker, 10);
+
+        // Then
+        assertThat(attempts).hasValue(2);
+        assertThat(tracker.getCompleted()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunCheapJobsSequentiallyInAdaptiveMode() {
+        // Given - jobs that cost next to nothing, more than the sequential threshold
+        List<Long> threadIds = new CopyOnWriteArrayList<>();
+        RendererService renderer = job -> threadIds.add(Thread.currentThread().threadId());
+        parallelExecutorService.setAdaptiveConcurrency(true);
+        ProgressTracker tracker = new ProgressTracker(20);
+
+        // When
+        parallelExecutorService.executeAll(createTestJobs(20), renderer, 8, tracker, 0);
+
+        // Then
+        assertThat(tracker.getCompleted()).isEqualTo(20);
+        assertThat(threadIds).containsOnly(Thread.currentThread().threadId());
+    }
+
+    @Test
+    void shouldParallelizeExpensiveJobsInAdaptiveMode() {
+        // Given - jobs that wait rather than compute, so they benefit from concurrency
+        AtomicInteger concurrentTasks = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        RendererService renderer = job -> {
+            int current = concurrentTasks.incrementAndGet();
+            maxConcurrent.updateAndGet(max -> Math.max(max, current));
+            Thread.sleep(20);
+            concurrentTasks.decrementAndGet();
+        };
+        parallelExecutorService.setAdaptiveConcurrency(true);
+        ProgressTracker tracker = new ProgressTracker(40);
+
+        // When
+        parallelExecutorService.executeAll(createTestJobs(40), renderer, 8, tracker, 1000);
+
+        // Then - the sequential threshold is ignored and the limit is respected
+        assertThat(tracker.getCompleted()).isEqualTo(40);
+        assertThat(maxConcurrent.get()).isBetween(2, 8);
+    }
+
+    @Test
+    void shouldAdmitJobsAgainstMemoryBudget() {
+        // Given - each job needs 40 MB of a 100 MB budget
+        AtomicInteger concurrentTasks = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        RendererService renderer = new RendererService() {
+            @Override
+            public void render(RenderJob job) throws Exception {
+                int current = concurrentTasks.incrementAndGet();
+                maxConcurrent.updateAndGet(max -> Math.max(max, current));
+                Thread.sleep(20);
+                concurrentTasks.decrementAndGet();
+            }
+
+            @Override
+            public long estimateJobMemory(Path templatePath) {
+                return 40L << 20;
+            }
+        };
+        parallelExecutorService.setMemoryLimit(MemoryLimit.parse("100m"));
+        ProgressTracker tracker = new ProgressTracker(12);
+
+        // When
+        parallelExecutorService.executeAll(createTestJobs(12), renderer, 8, tracker, 0);
+
+        // Then
+        assertThat(tracker.getCompleted()).isEqualTo(12);
+        assertThat(maxConcurrent.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCapConcurrencyAcrossBatchesSharingScheduler() throws Exception {
+        // Given - two batches of 4 threads each, one of them sequential, under a cap of 3
+        AtomicInteger concurrentTasks = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        RendererService renderer = job -> {
+            int current = concurrentTasks.incrementAndGet();
+            maxConcurrent.updateAndGet(max -> Math.max(max, current));
+            Thread.sleep(10);
+            concurrentTasks.decrementAndGet();
+        };
+        BatchScheduler scheduler = new BatchScheduler(3);
+        parallelExecutorService.setScheduler(scheduler);
+        ProgressTracker bulk = new ProgressTracker(30);
+        ProgressTracker preview = new ProgressTracker(5);
+
+        // When
+        Thread bulkBatch = Thread.ofVirtual().start(() -> parallelExecutorService.executeAll(
+            createTestJobs(30), renderer, 4, bulk, 0, null, JobListener.NONE, BatchPriority.DEFAULT));
+        parallelExecutorService.executeAll(createTestJobs(5), renderer, 4, preview, 1000, null, JobListener.NONE,
+            new BatchPriority(1, 1));
+        bulkBatch.join();
+
+        // Then
+        assertThat(bulk.getCompleted()).isEqualTo(30);
+        assertThat(preview.getCompleted()).isEqualTo(5);
+        assertThat(maxConcurrent.get()).isLessThanOrEqualTo(3);
+        assertThat(scheduler.getRunning()).isZero();
+    }
+
+    /**
+     * Renderer that "encodes" the job text as the output bytes.
+     */
+    private static class TextRenderer implements RendererService {
+        @Override
+        public void render(RenderJob job) {
+            throw new UnsupportedOperationException("Only sink rendering is used");
+        }
+
+        @Override
+        public CompletableFuture<Void> render(RenderJob job, OutputSink sink) throws Exception {
+            PooledBuffer buffer = sink.allocate();
+            buffer.write(job.text().getBytes(StandardCharsets.UTF_8));
+            return sink.write(job.outputPath(), buffer);
+        }
+    }
+
     private List<RenderJob> createTestJobs(int count) {
         List<RenderJob> jobs = new ArrayList<>();
         for (int i = 0; i < count; i++) {
@@ -7,6 +7,7 @@ import com.lowagie.text.pdf.PdfWriter;
 import me.namila.project.text_render.model.Alignment;
 import me.namila.project.text_render.model.RenderJob;
 import me.namila.project.text_render.model.TextConfig;
+import me.namila.project.text_render.output.InMemoryOutputSink;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledOnOs;
@@ -176,6 +177,23 @@ class PdfRendererServiceTest {
         assertThatPdfIsValid(nestedOutput);
     }
 
+    @Test
+    void shouldRenderIntoOutputSink() throws Exception {
+        // Given
+        Path outputPath = tempDir.resolve("sink/output.pdf");
+        TextConfig config = new TextConfig(100, 700, Alignment.LEFT);
+        InMemoryOutputSink sink = new InMemoryOutputSink();
+
+        // When
+        pdfRendererService.render(new RenderJob("Sink Test", config, templatePdf, outputPath), sink).join();
+
+        // Then - nothing is written to disk, the sink holds a valid PDF
+        assertThat(outputPath).doesNotExist();
+        PdfReader reader = new PdfReader(sink.get(outputPath));
+        assertThat(reader.getNumberOfPages()).isEqualTo(1);
+        reader.close();
+    }
+
     private void assertThatPdfIsValid(Path pdfPath) throws Exception {
         PdfReader reader = new PdfReader(pdfPath.toString());
         assertThat(reader.getNumberOfPages()).isGreaterThan(0);
@@ -1,8 +1,13 @@
 package me.namila.project.text_render.service;
 
 import me.namila.project.text_render.model.Alignment;
+import me.namila.project.text_render.model.FsyncPolicy;
+import me.namila.project.text_render.model.PngEncodeOptions;
+import me.namila.project.text_render.model.PngFilterStrategy;
 import me.namila.project.text_render.model.RenderJob;
 import me.namila.project.text_render.model.TextConfig;
+import me.namila.project.text_render.output.FileSystemOutputSink;
+import me.namila.project.text_render.output.InMemoryOutputSink;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -12,8 +17,10 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class PngRendererServiceTest {
 
@@ -132,6 +139,132 @@ class PngRendererServiceTest {
         assertThat(outputImage.getHeight()).isEqualTo(TEMPLATE_HEIGHT);
     }
 
+    @Test
+    void shouldApplyEncodeOptions() throws Exception {
+        // Given
+        Path storedPath = tempDir.resolve("stored.png");
+        Path compressedPath = tempDir.resolve("compressed.png");
+        TextConfig config = new TextConfig(100, 300, Alignment.LEFT);
+
+        // When
+        pngRendererService.setEncodeOptions(new PngEncodeOptions(0, PngFilterStrategy.NONE));
+        pngRendererService.render(new RenderJob("Options", config, templatePng, storedPath));
+        pngRendererService.setEncodeOptions(new PngEncodeOptions(9, PngFilterStrategy.ADAPTIVE));
+        pngRendererService.render(new RenderJob("Options", config, templatePng, compressedPath));
+
+        // Then
+        assertThatPngIsValid(storedPath);
+        assertThatPngIsValid(compressedPath);
+        assertThat(Files.size(compressedPath)).isLessThan(Files.size(storedPath));
+        assertThat(pngRendererService.getEncodeOptions().compressionLevel()).isEqualTo(9);
+    }
+
+    @Test
+    void shouldProduceSamePixelsWithIncrementalEncoding() throws Exception {
+        // Given
+        Path fullPath = tempDir.resolve("full.png");
+        Path incrementalPath = tempDir.resolve("incremental.png");
+        TextConfig config = new TextConfig(400, 300, Alignment.CENTER, "SansSerif", 36.0f);
+        PngRendererService incrementalService = new PngRendererService();
+        incrementalService.setIncrementalEncoding(true);
+
+        // When
+        pngRendererService.render(new RenderJob("Incremental Text", config, templatePng, fullPath));
+        incrementalService.render(new RenderJob("Incremental Text", config, templatePng, incrementalPath));
+
+        // Then
+        BufferedImage full = ImageIO.read(fullPath.toFile());
+        BufferedImage incremental = ImageIO.read(incrementalPath.toFile());
+        assertThatPngIsValid(incrementalPath);
+        for (int y = 0; y < TEMPLATE_HEIGHT; y++) {
+            for (int x = 0; x < TEMPLATE_WIDTH; x++) {
+                assertThat(incremental.getRGB(x, y)).isEqualTo(full.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void shouldProduceSamePixelsWhenStreamingBands() throws Exception {
+        // Given
+        Path fullPath = tempDir.resolve("full.png");
+        Path streamedPath = tempDir.resolve("streamed.png");
+        TextConfig config = new TextConfig(400, 300, Alignment.CENTER, "SansSerif", 36.0f);
+        PngRendererService streamingService = new PngRendererService();
+        streamingService.setStreamingBandHeight(32);
+
+        // When
+        pngRendererService.render(new RenderJob("Streamed Text", config, templatePng, fullPath));
+        streamingService.render(new RenderJob("Streamed Text", config, templatePng, streamedPath));
+
+        // Then
+        BufferedImage full = ImageIO.read(fullPath.toFile());
+        BufferedImage streamed = ImageIO.read(streamedPath.toFile());
+        assertThatPngIsValid(streamedPath);
+        for (int y = 0; y < TEMPLATE_HEIGHT; y++) {
+            for (int x = 0; x < TEMPLATE_WIDTH; x++) {
+                assertThat(streamed.getRGB(x, y)).isEqualTo(full.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void shouldRenderIntoOutputSink() throws Exception {
+        // Given
+        Path outputPath = tempDir.resolve("sink/output.png");
+        Path filePath = tempDir.resolve("file.png");
+        TextConfig config = new TextConfig(100, 300, Alignment.LEFT);
+        InMemoryOutputSink sink = new InMemoryOutputSink();
+
+        // When
+        pngRendererService.render(new RenderJob("Sink Test", config, templatePng, outputPath), sink).join();
+        pngRendererService.render(new RenderJob("Sink Test", config, templatePng, filePath));
+
+        // Then - the sink receives exactly what would have been written to the file
+        assertThat(outputPath).doesNotExist();
+        assertThat(sink.get(outputPath)).isEqualTo(Files.readAllBytes(filePath));
+    }
+
+    @Test
+    void shouldStreamBandsIntoOutputSink() throws Exception {
+        // Given
+        Path outputPath = tempDir.resolve("sink/streamed.png");
+        Path filePath = tempDir.resolve("streamed.png");
+        TextConfig config = new TextConfig(400, 300, Alignment.CENTER, "SansSerif", 36.0f);
+        PngRendererService streamingService = new PngRendererService();
+        streamingService.setStreamingBandHeight(32);
+
+        // When
+        try (FileSystemOutputSink sink = new FileSystemOutputSink(1, FsyncPolicy.NONE)) {
+            CompletableFuture<Void> write = streamingService.render(
+                new RenderJob("Streamed Text", config, templatePng, outputPath), sink);
+
+            // Then - encoded straight into the file, without a write-behind buffer
+            assertThat(write).isCompleted();
+        }
+        streamingService.render(new RenderJob("Streamed Text", config, templatePng, filePath));
+        assertThat(Files.readAllBytes(outputPath)).isEqualTo(Files.readAllBytes(filePath));
+    }
+
+    @Test
+    void shouldKeepPreviousOutputWhenRenderingFails() throws Exception {
+        // Given - an earlier output and a template that cannot be decoded
+        Path outputPath = tempDir.resolve("out/output.png");
+        Files.createDirectories(outputPath.getParent());
+        Files.writeString(outputPath, "previous");
+        Path brokenTemplate = Files.writeString(tempDir.resolve("broken.png"), "not a png");
+        TextConfig config = new TextConfig(100, 300, Alignment.LEFT);
+
+        // When
+        assertThatThrownBy(() -> pngRendererService.render(new RenderJob("Text", config, brokenTemplate, outputPath)))
+            .isInstanceOf(Exception.class);
+
+        // Then - the output was never replaced in part and no temporary file is left
+        assertThat(outputPath).hasContent("previous");
+        try (var files = Files.list(outputPath.getParent())) {
+            assertThat(files).containsExactly(outputPath);
+        }
+    }
+
     private void assertThatPngIsValid(Path pngPath) throws Exception {
         BufferedImage image = ImageIO.read(pngPath.toFile());
         assertThat(image).isNotNull();
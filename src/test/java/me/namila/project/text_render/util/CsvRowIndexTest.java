@@ -0,0 +1,74 @@
+package me.namila.project.text_render.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CsvRowIndex}.
+ */
+class CsvRowIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should load the offsets and collisions it wrote")
+    void shouldRoundTrip() throws Exception {
+        // Given
+        Path csv = Files.writeString(tempDir.resolve("names.csv"), "Alice\nBob\nalice\n");
+        Path indexFile = CsvRowIndex.defaultFile(csv);
+        CsvRowIndex index = CsvRowIndex.of(csv, new long[]{0, 6, 10, 0}, 3, Map.of(2, 1));
+
+        // When
+        index.write(indexFile);
+        CsvRowIndex loaded = CsvRowIndex.load(indexFile, csv);
+
+        // Then
+        assertThat(indexFile.getFileName().toString()).isEqualTo("names.csv" + CsvRowIndex.FILE_SUFFIX);
+        assertThat(loaded.getRowCount()).isEqualTo(3);
+        assertThat(loaded.getOffset(2)).isEqualTo(10);
+        assertThat(loaded.getCollision(2)).isEqualTo(1);
+        assertThat(loaded.getCollision(1)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not load an index once the CSV file was modified")
+    void shouldIgnoreStaleIndex() throws Exception {
+        // Given
+        Path csv = Files.writeString(tempDir.resolve("names.csv"), "Alice\nBob\n");
+        Path indexFile = CsvRowIndex.defaultFile(csv);
+        CsvRowIndex.of(csv, new long[]{0, 6}, 2, Map.of()).write(indexFile);
+
+        // When - same size, later modification time
+        Files.writeString(csv, "Alice\nRob\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 2000));
+
+        // Then
+        assertThat(CsvRowIndex.load(indexFile, csv)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not load a missing, foreign or truncated index file")
+    void shouldIgnoreInvalidIndex() throws Exception {
+        Path csv = Files.writeString(tempDir.resolve("names.csv"), "Alice\n");
+        Path indexFile = CsvRowIndex.defaultFile(csv);
+        assertThat(CsvRowIndex.load(indexFile, csv)).isNull();
+
+        Files.writeString(indexFile, "not an index, but long enough to hold a header");
+        assertThat(CsvRowIndex.load(indexFile, csv)).isNull();
+
+        CsvRowIndex.of(csv, new long[]{0}, 1, Map.of()).write(indexFile);
+        byte[] bytes = Files.readAllBytes(indexFile);
+        Files.write(indexFile, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThat(CsvRowIndex.load(indexFile, csv)).isNull();
+    }
+}
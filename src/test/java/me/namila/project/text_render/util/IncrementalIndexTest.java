@@ -0,0 +1,133 @@
+package me.namila.project.text_render.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link IncrementalIndex}.
+ */
+class IncrementalIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should reuse outputs recorded by an earlier run")
+    void shouldReuseRecordedOutputs() throws Exception {
+        // Given
+        Path indexFile = tempDir.resolve("index");
+        Path output = Files.writeString(tempDir.resolve("a.png"), "data");
+        IncrementalIndex first = IncrementalIndex.load(indexFile, tempDir);
+        first.record(output, "hash-a");
+        first.save();
+
+        // When
+        IncrementalIndex second = IncrementalIndex.load(indexFile, tempDir);
+
+        // Then
+        assertThat(second.isUpToDate(output, "hash-a")).isTrue();
+        assertThat(second.isUpToDate(output, "hash-b")).isFalse();
+        assertThat(second.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not reuse outputs that were modified or deleted")
+    void shouldDetectModifiedOutputs() throws Exception {
+        Path indexFile = tempDir.resolve("index");
+        Path modified = Files.writeString(tempDir.resolve("a.png"), "data");
+        Path deleted = Files.writeString(tempDir.resolve("b.png"), "data");
+        IncrementalIndex first = IncrementalIndex.load(indexFile, tempDir);
+        first.record(modified, "hash-a");
+        first.record(deleted, "hash-b");
+        first.save();
+
+        Files.setLastModifiedTime(modified, FileTime.fromMillis(Files.getLastModifiedTime(modified).toMillis() + 5000));
+        Files.delete(deleted);
+        IncrementalIndex second = IncrementalIndex.load(indexFile, tempDir);
+
+        assertThat(second.isUpToDate(modified, "hash-a")).isFalse();
+        assertThat(second.isUpToDate(deleted, "hash-b")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should drop entries that were not confirmed during the run")
+    void shouldDropStaleEntries() throws Exception {
+        // Given
+        Path indexFile = tempDir.resolve("index");
+        Path kept = Files.writeString(tempDir.resolve("kept.png"), "data");
+        Path removed = Files.writeString(tempDir.resolve("removed.png"), "data");
+        IncrementalIndex first = IncrementalIndex.load(indexFile, tempDir);
+        first.record(kept, "hash-a");
+        first.record(removed, "hash-b");
+        first.save();
+
+        // When - the second run only sees the first row
+        IncrementalIndex second = IncrementalIndex.load(indexFile, tempDir);
+        assertThat(second.isUpToDate(kept, "hash-a")).isTrue();
+        second.save();
+
+        // Then
+        IncrementalIndex third = IncrementalIndex.load(indexFile, tempDir);
+        assertThat(third.isUpToDate(removed, "hash-b")).isFalse();
+        assertThat(third.isUpToDate(kept, "hash-a")).isTrue();
+        assertThat(Files.readAllLines(indexFile)).hasSize(2).first().isEqualTo(IncrementalIndex.HEADER);
+    }
+
+    @Test
+    @DisplayName("Should keep unchecked entries after a run over some of the rows")
+    void shouldRetainUncheckedEntries() throws Exception {
+        // Given
+        Path indexFile = tempDir.resolve("index");
+        Path selected = Files.writeString(tempDir.resolve("selected.png"), "data");
+        Path other = Files.writeString(tempDir.resolve("other.png"), "data");
+        IncrementalIndex first = IncrementalIndex.load(indexFile, tempDir);
+        first.record(selected, "hash-a");
+        first.record(other, "hash-b");
+        first.save();
+
+        // When - the second run re-renders only the selected row
+        IncrementalIndex second = IncrementalIndex.load(indexFile, tempDir);
+        second.retainUnchecked();
+        second.record(selected, "hash-c");
+        second.save();
+
+        // Then
+        IncrementalIndex third = IncrementalIndex.load(indexFile, tempDir);
+        assertThat(third.isUpToDate(other, "hash-b")).isTrue();
+        assertThat(third.isUpToDate(selected, "hash-c")).isTrue();
+        assertThat(second.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should change row hashes when the template, settings or text change")
+    void shouldHashInputs() throws Exception {
+        Path template = Files.writeString(tempDir.resolve("template.png"), "template v1");
+        byte[] digest = IncrementalIndex.batchDigest(template, "settings");
+        String hash = IncrementalIndex.rowHash(digest, "Alice");
+
+        assertThat(hash).hasSize(32).isEqualTo(IncrementalIndex.rowHash(digest, "Alice"));
+        assertThat(IncrementalIndex.rowHash(digest, "Alicia")).isNotEqualTo(hash);
+        assertThat(IncrementalIndex.rowHash(IncrementalIndex.batchDigest(template, "other"), "Alice"))
+            .isNotEqualTo(hash);
+        Files.writeString(template, "template v2");
+        assertThat(IncrementalIndex.rowHash(IncrementalIndex.batchDigest(template, "settings"), "Alice"))
+            .isNotEqualTo(hash);
+    }
+
+    @Test
+    @DisplayName("Should start empty when the index is missing or unreadable")
+    void shouldStartEmpty() throws Exception {
+        Path output = Files.writeString(tempDir.resolve("a.png"), "data");
+        Path garbage = Files.writeString(tempDir.resolve("garbage"), "not an index\n");
+
+        assertThat(IncrementalIndex.load(tempDir.resolve("missing"), tempDir).isUpToDate(output, "h")).isFalse();
+        assertThat(IncrementalIndex.load(garbage, tempDir).isUpToDate(output, "h")).isFalse();
+    }
+}
@@ -0,0 +1,185 @@
+package me.namila.project.text_render.util;
+
+import me.namila.project.text_render.model.RowRange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link LeaseDirectory}.
+ */
+class LeaseDirectoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should give each instance a different chunk and finish once all are done")
+    void shouldClaimDisjointChunks() throws Exception {
+        // Given
+        List<RowRange> chunks = RowRange.parse("1-6").split(3);
+        try (LeaseDirectory first = LeaseDirectory.open(tempDir, "batch-a", TIMEOUT);
+             LeaseDirectory second = LeaseDirectory.open(tempDir, "batch-a", TIMEOUT)) {
+
+            // When
+            LeaseDirectory.Lease a = first.next(chunks);
+            LeaseDirectory.Lease b = second.next(chunks);
+            a.complete();
+            LeaseDirectory.Lease c = first.next(chunks);
+            b.complete();
+            c.complete();
+
+            // Then
+            assertThat(first.getOwner()).isNotEqualTo(second.getOwner());
+            assertThat(List.of(a.getRows(), b.getRows(), c.getRows())).containsExactlyElementsOf(chunks);
+            assertThat(second.next(chunks)).isNull();
+            assertThat(chunks).allMatch(first::isDone);
+        }
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                .noneMatch(name -> name.endsWith(LeaseDirectory.LEASE_SUFFIX));
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand back a chunk whose lease was released without completing it")
+    void shouldReclaimReleasedChunk() throws Exception {
+        List<RowRange> chunks = List.of(RowRange.parse("1-5"));
+        try (LeaseDirectory first = LeaseDirectory.open(tempDir, "batch-a", TIMEOUT);
+             LeaseDirectory second = LeaseDirectory.open(tempDir, "batch-a", TIMEOUT)) {
+            LeaseDirectory.Lease lease = first.next(chunks);
+            lease.close();
+
+            LeaseDirectory.Lease reclaimed = second.next(chunks);
+
+            assertThat(first.isDone(chunks.get(0))).isFalse();
+            assertThat(reclaimed.getRows()).isEqualTo(chunks.get(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Should take over the chunk of an instance that stopped renewing its lease")
+    void shouldTakeOverExpiredLease() throws Exception {
+        // Given - an instance died an hour ago holding the only chunk
+        List<RowRange> chunks = List.of(RowRange.parse("1-5"));
+        try (LeaseDirectory dead = LeaseDirectory.open(tempDir, "batch-a", TIMEOUT);
+             LeaseDirectory alive = LeaseDirectory.open(tempDir, "batch-a", TIMEOUT)) {
+            LeaseDirectory.Lease stale = dead.next(chunks);
+            Path leaseFile = tempDir.resolve("chunk-1-5" + LeaseDirectory.LEASE_SUFFIX);
+            Files.setLastModifiedTime(leaseFile, FileTime.fromMillis(System.currentTimeMillis() - 3_600_000));
+
+            // When
+            LeaseDirectory.Lease taken = alive.next(chunks);
+
+            // Then - the new owner holds the lease, and the old one notices at its next heartbeat
+            assertThat(taken.getRows()).isEqualTo(chunks.get(0));
+            assertThat(Files.readString(leaseFile)).isEqualTo(alive.getOwner());
+            stale.renew();
+            assertThat(stale.isLost()).isTrue();
+            stale.close();
+            assertThat(leaseFile).exists();
+            taken.complete();
+            assertThat(alive.isDone(chunks.get(0))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should wait while the remaining chunks are leased by a live instance")
+    void shouldWaitForLiveLease() throws Exception {
+        // Given
+        List<RowRange> chunks = List.of(RowRange.parse("1-5"));
+        try (LeaseDirectory first = LeaseDirectory.open(tempDir, "batch-a", Duration.ofMillis(400));
+             LeaseDirectory second = LeaseDirectory.open(tempDir, "batch-a", Duration.ofMillis(400))) {
+            LeaseDirectory.Lease lease = first.next(chunks);
+            Thread finisher = Thread.ofVirtual().start(() -> {
+                try {
+                    Thread.sleep(1000);
+                    lease.complete();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            // When - the heartbeat keeps the lease alive past its timeout until the chunk is done
+            LeaseDirectory.Lease next = second.next(chunks);
+            finisher.join();
+
+            // Then
+            assertThat(next).isNull();
+            assertThat(lease.isLost()).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a directory coordinating a different batch")
+    void shouldRejectDifferentBatch() throws Exception {
+        LeaseDirectory.open(tempDir, "batch-a", TIMEOUT).close();
+
+        assertThatThrownBy(() -> LeaseDirectory.open(tempDir, "batch-b", TIMEOUT))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("different batch");
+    }
+
+    @Test
+    @DisplayName("Should split the chunks between several processes sharing the directory")
+    void shouldShareChunksBetweenProcesses() throws Exception {
+        // Given
+        List<Process> processes = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            processes.add(new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), ChunkClaimer.class.getName(), tempDir.toString(),
+                tempDir.resolve("claimed-" + i).toString())
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start());
+        }
+
+        // When
+        for (Process process : processes) {
+            assertThat(process.waitFor(60, TimeUnit.SECONDS)).isTrue();
+            assertThat(process.exitValue()).isZero();
+        }
+
+        // Then - every chunk was claimed by exactly one process
+        List<String> claimed = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            claimed.addAll(Files.readAllLines(tempDir.resolve("claimed-" + i)));
+        }
+        assertThat(claimed).containsExactlyInAnyOrderElementsOf(
+            ChunkClaimer.CHUNKS.stream().map(RowRange::toString).toList());
+    }
+
+    /**
+     * Claims chunks from the directory in its first argument until all are done, listing them in
+     * the file in its second argument.
+     */
+    static class ChunkClaimer {
+
+        static final List<RowRange> CHUNKS = RowRange.parse("1-200").split(20);
+
+        public static void main(String[] args) throws Exception {
+            List<String> claimed = new ArrayList<>();
+            try (LeaseDirectory leases = LeaseDirectory.open(Path.of(args[0]), "batch-a", TIMEOUT)) {
+                LeaseDirectory.Lease lease;
+                while ((lease = leases.next(CHUNKS)) != null) {
+                    claimed.add(lease.getRows().toString());
+                    Thread.sleep(20);
+                    lease.complete();
+                }
+            }
+            Files.write(Path.of(args[1]), claimed);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package me.namila.project.text_render.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link OutputNamePattern}.
+ */
+class OutputNamePatternTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "John Doe", "  Jane   Smith  ", "O'Brien-Smith", "tab\tand\nnewline", "José García",
+        "A very long name that exceeds twenty characters", "!!!", "", "under_score 123"
+    })
+    @DisplayName("Should format the same names as the generator")
+    void shouldMatchGenerator(String name) {
+        // Given
+        OutputNamePattern pattern = OutputNamePattern.compile("/templates/cert.pdf", "2024", "final", "PDF");
+
+        // When
+        String formatted = pattern.format(name);
+
+        // Then
+        assertThat(formatted).isEqualTo(
+            OutputFileNameGenerator.generateFromCleanName("/templates/cert.pdf", name, "2024", "final", "PDF"));
+        assertThat(formatted).isEqualTo("2024-cert-" + regexSanitize(name) + "-final.pdf");
+    }
+
+    @Test
+    @DisplayName("Should suffix names that collide after sanitizing with a stable hash")
+    void shouldSuffixCollisions() {
+        // Given
+        OutputNamePattern pattern = OutputNamePattern.compile("cert.png", null, null, "png");
+
+        // When
+        String first = pattern.claim("O'Brien");
+        String second = pattern.claim("OBrien");
+        String again = OutputNamePattern.compile("cert.png", null, null, "png").claim("OBrien");
+
+        // Then
+        assertThat(first).isEqualTo("cert-OBrien.png");
+        assertThat(second).matches("cert-OBrien-[0-9a-f]{8}\\.png");
+        assertThat(again).isEqualTo("cert-OBrien.png");
+        assertThat(pattern.claim("OBrien")).isNotEqualTo(second).matches("cert-OBrien-[0-9a-f]{8}-2\\.png");
+        assertThat(pattern.getCollisionCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reproduce claimed names from collision numbers of another pattern")
+    void shouldReproduceClaimsFromCollisionNumbers() {
+        // Given
+        List<String> names = List.of("O'Brien", "OBrien", "Alice", "OBrien", "alice");
+        OutputNamePattern claimer = OutputNamePattern.compile("cert.png", "2024", null, "png");
+        OutputNamePattern counter = OutputNamePattern.compile("rows", null, null, "csv");
+        OutputNamePattern formatter = OutputNamePattern.compile("cert.png", "2024", null, "png");
+
+        // When
+        List<String> claimed = names.stream().map(claimer::claim).toList();
+        List<Integer> collisions = names.stream().map(counter::claimCollision).toList();
+
+        // Then
+        assertThat(collisions).containsExactly(0, 1, 0, 2, 1);
+        assertThat(IntStream.range(0, names.size()).mapToObj(i -> formatter.format(names.get(i), collisions.get(i))))
+            .containsExactlyElementsOf(claimed);
+    }
+
+    @Test
+    @DisplayName("Should treat names differing only in case as collisions")
+    void shouldCompareCaseInsensitively() {
+        OutputNamePattern pattern = OutputNamePattern.compile("cert.pdf", null, null, "pdf");
+
+        assertThat(pattern.claim("alice")).isEqualTo("cert-alice.pdf");
+        assertThat(pattern.claim("ALICE")).startsWith("cert-ALICE-");
+    }
+
+    @Test
+    @DisplayName("Should detect collisions after truncation")
+    void shouldDetectTruncationCollisions() {
+        OutputNamePattern pattern = OutputNamePattern.compile("cert.pdf", null, null, "pdf");
+
+        String first = pattern.claim("Bartholomew Montgomery-Smith");
+        String second = pattern.claim("Bartholomew Montgomery Jones");
+
+        assertThat(first).isEqualTo("cert-Bartholomew_Montgome.pdf");
+        assertThat(second).isNotEqualTo(first);
+    }
+
+    @Test
+    @DisplayName("Should hand out unique names when claimed concurrently")
+    void shouldClaimConcurrently() {
+        OutputNamePattern pattern = OutputNamePattern.compile("cert.pdf", null, null, "pdf");
+
+        List<String> names = IntStream.range(0, 1000).parallel()
+            .mapToObj(i -> pattern.claim("Same Name"))
+            .toList();
+
+        Set<String> unique = names.stream().collect(Collectors.toSet());
+        assertThat(unique).hasSize(1000).contains("cert-Same_Name.pdf");
+        assertThat(pattern.getCollisionCount()).isEqualTo(999);
+    }
+
+    /**
+     * The original regex-based sanitizing, kept as a reference.
+     */
+    private static String regexSanitize(String name) {
+        if (name.isBlank()) {
+            return "unnamed";
+        }
+        String processed = name.trim().replaceAll("\\s+", "_").replaceAll("[^a-zA-Z0-9_]", "");
+        processed = processed.length() > 20 ? processed.substring(0, 20) : processed;
+        return processed.isEmpty() ? "unnamed" : processed;
+    }
+}
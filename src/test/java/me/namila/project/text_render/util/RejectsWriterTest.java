@@ -0,0 +1,66 @@
+package me.namila.project.text_render.util;
+
+import me.namila.project.text_render.model.CsvEntry;
+import me.namila.project.text_render.service.CsvReaderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RejectsWriter}.
+ */
+class RejectsWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should write failed rows with their error")
+    void shouldWriteFailedRows() throws Exception {
+        // Given
+        Path file = tempDir.resolve("out").resolve("rejects.csv");
+
+        // When
+        try (RejectsWriter rejects = new RejectsWriter(file)) {
+            rejects.record(new CsvEntry("Alice", "Dr.", ""), 0, new IOException("Disk full, retry\nlater"));
+            rejects.record(new CsvEntry("Bob", "", "Jr."), 4, new IllegalStateException());
+            assertThat(rejects.getCount()).isEqualTo(2);
+        }
+
+        // Then
+        assertThat(Files.readAllLines(file)).containsExactly(
+            RejectsWriter.HEADER,
+            "Alice,Dr.,,1,IOException,Disk full; retry later",
+            "Bob,,Jr.,5,IllegalStateException,");
+    }
+
+    @Test
+    @DisplayName("Should be readable as input CSV")
+    void shouldBeReadableAsInput() throws Exception {
+        Path file = tempDir.resolve("rejects.csv");
+        try (RejectsWriter rejects = new RejectsWriter(file)) {
+            rejects.record(new CsvEntry("Alice", "Dr.", "PhD"), 2, new IOException("failed"));
+        }
+
+        assertThat(new CsvReaderService().readEntries(file))
+            .containsExactly(new CsvEntry("Alice", "Dr.", "PhD"));
+    }
+
+    @Test
+    @DisplayName("Should not create a file when nothing failed")
+    void shouldNotCreateFileWithoutFailures() throws Exception {
+        Path file = tempDir.resolve("rejects.csv");
+
+        try (RejectsWriter rejects = new RejectsWriter(file)) {
+            assertThat(rejects.getCount()).isZero();
+        }
+
+        assertThat(file).doesNotExist();
+    }
+}
@@ -0,0 +1,119 @@
+package me.namila.project.text_render.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ResumeJournal}.
+ */
+class ResumeJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should restore recorded rows when resuming")
+    void shouldRestoreRecordedRows() throws Exception {
+        // Given
+        Path file = tempDir.resolve("journal");
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", false)) {
+            journal.record(0);
+            journal.record(7);
+            journal.record(7);
+            journal.record(-1);
+        }
+
+        // When
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", true)) {
+            // Then
+            assertThat(journal.getResumedCount()).isEqualTo(2);
+            assertThat(journal.isCompleted(0)).isTrue();
+            assertThat(journal.isCompleted(7)).isTrue();
+            assertThat(journal.isCompleted(3)).isFalse();
+            journal.record(3);
+        }
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", true)) {
+            assertThat(journal.getResumedCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Should start over when not resuming")
+    void shouldTruncateWithoutResume() throws Exception {
+        Path file = tempDir.resolve("journal");
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", false)) {
+            journal.record(1);
+        }
+
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", false)) {
+            assertThat(journal.getResumedCount()).isZero();
+            assertThat(journal.isCompleted(1)).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a torn last record")
+    void shouldIgnoreTornRecord() throws Exception {
+        // Given - the process died while appending "12"
+        Path file = tempDir.resolve("journal");
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", false)) {
+            journal.record(5);
+        }
+        Files.writeString(file, "1", StandardCharsets.US_ASCII, StandardOpenOption.APPEND);
+
+        // When
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", true)) {
+            // Then
+            assertThat(journal.getResumedCount()).isEqualTo(1);
+            assertThat(journal.isCompleted(1)).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a journal written for another batch")
+    void shouldRejectOtherBatch() throws Exception {
+        Path file = tempDir.resolve("journal");
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch-a", false)) {
+            journal.record(1);
+        }
+
+        assertThatThrownBy(() -> ResumeJournal.open(file, "batch-b", true))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("different batch");
+    }
+
+    @Test
+    @DisplayName("Should sync records in batches")
+    void shouldSyncInBatches() throws Exception {
+        Path file = tempDir.resolve("journal");
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", false)) {
+            for (int i = 0; i < ResumeJournal.SYNC_BATCH_SIZE; i++) {
+                journal.record(i);
+            }
+
+            // A full batch is on disk before the journal is closed
+            assertThat(Files.readAllLines(file)).hasSize(ResumeJournal.SYNC_BATCH_SIZE + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should start a new journal when resuming without one")
+    void shouldStartWhenMissing() throws Exception {
+        Path file = tempDir.resolve("nested/journal");
+
+        try (ResumeJournal journal = ResumeJournal.open(file, "batch", true)) {
+            assertThat(journal.getResumedCount()).isZero();
+        }
+        assertThat(Files.readString(file)).startsWith(ResumeJournal.HEADER_PREFIX + "batch");
+    }
+}
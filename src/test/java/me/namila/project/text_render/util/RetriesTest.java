@@ -0,0 +1,65 @@
+package me.namila.project.text_render.util;
+
+import me.namila.project.text_render.model.RetryPolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link Retries}.
+ */
+class RetriesTest {
+
+    private static final RetryPolicy THREE_RETRIES = new RetryPolicy(3, Duration.ofMillis(1));
+
+    @Test
+    @DisplayName("Should succeed once a transient failure goes away")
+    void shouldRetryTransientFailure() throws Exception {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        Retries.run(THREE_RETRIES, "test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException("busy");
+            }
+        });
+
+        // Then
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Should give up after the configured retries and keep the first failure")
+    void shouldGiveUpAfterMaxRetries() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> Retries.run(THREE_RETRIES, "test", () -> {
+            throw new IOException("attempt " + attempts.incrementAndGet());
+        }))
+            .isInstanceOf(IOException.class)
+            .hasMessage("attempt 4")
+            .satisfies(e -> assertThat(e.getSuppressed()).extracting(Throwable::getMessage)
+                .containsExactly("attempt 1"));
+        assertThat(attempts).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Should not retry permanent failures")
+    void shouldNotRetryPermanentFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> Retries.run(THREE_RETRIES, "test", () -> {
+            attempts.incrementAndGet();
+            throw new NoSuchFileException("missing");
+        })).isInstanceOf(NoSuchFileException.class);
+        assertThat(attempts).hasValue(1);
+    }
+}
@@ -0,0 +1,59 @@
+package me.namila.project.text_render.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link SettingsProfile}.
+ */
+class SettingsProfileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should read back the saved settings sorted by option name")
+    void shouldRoundTrip() throws Exception {
+        // Given
+        Path file = tempDir.resolve("profiles").resolve("machine.properties");
+        SettingsProfile profile = new SettingsProfile(Map.of(
+            "threads", "8", "png-compression", "6", "incremental-encode", "true"));
+
+        // When
+        profile.save(file, "calibration");
+        SettingsProfile loaded = SettingsProfile.load(file);
+
+        // Then
+        assertThat(Files.readString(file)).startsWith("#calibration");
+        assertThat(loaded.getSettings()).containsExactly(
+            Map.entry("incremental-encode", "true"),
+            Map.entry("png-compression", "6"),
+            Map.entry("threads", "8"));
+    }
+
+    @Test
+    @DisplayName("Should trim names and values of hand-edited profiles")
+    void shouldTrimSettings() throws Exception {
+        Path file = tempDir.resolve("profile.properties");
+        Files.writeString(file, "# tuned by hand\nthreads = 4 \nsequential-threshold=3\n");
+
+        assertThat(SettingsProfile.load(file).getSettings())
+            .containsExactly(Map.entry("sequential-threshold", "3"), Map.entry("threads", "4"));
+    }
+
+    @Test
+    @DisplayName("Should reject names that are not long option names")
+    void shouldRejectInvalidNames() {
+        assertThatThrownBy(() -> new SettingsProfile(Map.of("--threads", "4")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("--threads");
+    }
+}
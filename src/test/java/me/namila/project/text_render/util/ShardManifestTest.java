@@ -0,0 +1,118 @@
+package me.namila.project.text_render.util;
+
+import me.namila.project.text_render.model.RowRange;
+import me.namila.project.text_render.model.Shard;
+import me.namila.project.text_render.model.ShardKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ShardManifest}.
+ */
+class ShardManifestTest {
+
+    private static final RowRange ROWS = new RowRange(1, 6);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should write and read back a manifest")
+    void shouldRoundTrip() throws IOException {
+        // Given
+        ShardManifest manifest = new ShardManifest(new Shard(2, 3), ShardKey.NAME, ROWS,
+            Map.of(5, "template-Eve.png", 2, "00/template-Bob, Jr.png"));
+        Path file = tempDir.resolve(ShardManifest.defaultFileName(manifest.getShard()));
+
+        // When
+        manifest.write(file);
+        ShardManifest loaded = ShardManifest.load(file);
+
+        // Then
+        assertThat(file.getFileName()).hasToString("shard-2-of-3.manifest");
+        assertThat(loaded.getShard()).isEqualTo(new Shard(2, 3));
+        assertThat(loaded.getKey()).isEqualTo(ShardKey.NAME);
+        assertThat(loaded.getRows()).isEqualTo(ROWS);
+        assertThat(loaded.getOutputs()).containsExactly(Map.entry(2, "00/template-Bob, Jr.png"),
+            Map.entry(5, "template-Eve.png"));
+    }
+
+    @Test
+    @DisplayName("Should accept shards that complete every row exactly once and merge them")
+    void shouldVerifyCompleteShards() {
+        // Given
+        List<ShardManifest> manifests = List.of(
+            shard(1, Map.of(1, "a", 3, "c", 5, "e")),
+            shard(2, Map.of(2, "b", 4, "d", 6, "f")));
+
+        // When
+        ShardManifest.Verification verification = ShardManifest.verify(manifests);
+        ShardManifest merged = ShardManifest.merge(manifests);
+
+        // Then
+        assertThat(verification.isComplete()).isTrue();
+        assertThat(verification.completedRows()).isEqualTo(6);
+        assertThat(merged.getShard()).isEqualTo(new Shard(1, 1));
+        assertThat(merged.getOutputs()).hasSize(6).containsEntry(4, "d");
+    }
+
+    @Test
+    @DisplayName("Should report missing shards, gaps and duplicates")
+    void shouldReportProblems() {
+        // Given - shard 2 of 3 is missing, shard 1 was run twice, row 3 failed and two rows share an output
+        List<ShardManifest> manifests = List.of(
+            shard(1, 3, Map.of(1, "a", 4, "d")),
+            shard(1, 3, Map.of(1, "a", 4, "d")),
+            shard(3, 3, Map.of(6, "a")));
+
+        // When
+        ShardManifest.Verification verification = ShardManifest.verify(manifests);
+
+        // Then
+        assertThat(verification.isComplete()).isFalse();
+        assertThat(verification.missingShards()).containsExactly(2);
+        assertThat(verification.duplicateShards()).containsExactly(1);
+        assertThat(verification.missingRows()).containsExactly(new RowRange(2, 3), new RowRange(5, 5));
+        assertThat(verification.duplicateRows()).containsExactly(1, 4);
+        assertThat(verification.duplicateOutputs()).containsExactly("a");
+        assertThat(verification.completedRows()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should refuse manifests of differently split batches")
+    void shouldRejectIncompatibleManifests() {
+        List<ShardManifest> manifests = List.of(shard(1, Map.of()), shard(2, 3, Map.of()));
+
+        assertThatThrownBy(() -> ShardManifest.verify(manifests))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("different batches");
+    }
+
+    @Test
+    @DisplayName("Should refuse files that are not shard manifests")
+    void shouldRejectOtherFiles() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("manifest.csv"), "output,location\n");
+
+        assertThatThrownBy(() -> ShardManifest.load(file))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Not a shard manifest");
+    }
+
+    private static ShardManifest shard(int index, Map<Integer, String> outputs) {
+        return shard(index, 2, outputs);
+    }
+
+    private static ShardManifest shard(int index, int count, Map<Integer, String> outputs) {
+        return new ShardManifest(new Shard(index, count), ShardKey.ROW, ROWS, outputs);
+    }
+}